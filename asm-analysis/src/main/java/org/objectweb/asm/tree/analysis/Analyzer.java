@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.objectweb.asm.OpcodeMetadata;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
@@ -230,7 +231,7 @@ public class Analyzer<V extends Value> implements Opcodes {
                 newControlFlowEdge(insnIndex, jsrInsnIndex + 1);
               }
             }
-          } else if (insnOpcode != ATHROW && (insnOpcode < IRETURN || insnOpcode > RETURN)) {
+          } else if (!OpcodeMetadata.isTerminator(insnOpcode)) {
             if (subroutine != null) {
               if (insnNode instanceof VarInsnNode) {
                 int varIndex = ((VarInsnNode) insnNode).var;
@@ -460,22 +461,9 @@ public class Analyzer<V extends Value> implements Opcodes {
       }
 
       // Push the next instruction, if the control flow can go from currentInsn to the next.
-      switch (currentInsn.getOpcode()) {
-        case GOTO:
-        case RET:
-        case TABLESWITCH:
-        case LOOKUPSWITCH:
-        case IRETURN:
-        case LRETURN:
-        case FRETURN:
-        case DRETURN:
-        case ARETURN:
-        case RETURN:
-        case ATHROW:
-          break;
-        default:
-          instructionIndicesToProcess.add(currentInsnIndex + 1);
-          break;
+      int currentInsnOpcode = currentInsn.getOpcode();
+      if (currentInsnOpcode == -1 || !OpcodeMetadata.isTerminator(currentInsnOpcode)) {
+        instructionIndicesToProcess.add(currentInsnIndex + 1);
       }
     }
   }
@@ -32,6 +32,7 @@ import org.objectweb.asm.ConstantDynamic;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.IntInsnNode;
@@ -55,6 +56,9 @@ public class BasicInterpreter extends Interpreter<BasicValue> implements Opcodes
    */
   public static final Type NULL_TYPE = Type.getObjectType("null");
 
+  /** The cache used to get the {@link Type} instances used by this interpreter, or null. */
+  private TypeCache typeCache;
+
   /**
    * Constructs a new {@link BasicInterpreter} for the latest ASM API version. <i>Subclasses must
    * not use this constructor</i>. Instead, they must use the {@link #BasicInterpreter(int)}
@@ -77,6 +81,67 @@ public class BasicInterpreter extends Interpreter<BasicValue> implements Opcodes
     super(api);
   }
 
+  /**
+   * Sets the cache used to get the {@link Type} instances used by this interpreter. By default, no
+   * cache is used, i.e. a new {@link Type} is created each time one is needed.
+   *
+   * @param typeCache the cache used to get the {@link Type} instances used by this interpreter, or
+   *     {@literal null} to not use any cache. A cache can be shared between several interpreters.
+   */
+  public void setTypeCache(final TypeCache typeCache) {
+    this.typeCache = typeCache;
+  }
+
+  /**
+   * Returns the {@link Type} corresponding to the given type descriptor, from the {@link TypeCache}
+   * of this interpreter if there is one.
+   *
+   * @param typeDescriptor a field or method type descriptor.
+   * @return the {@link Type} corresponding to the given type descriptor.
+   */
+  final Type getType(final String typeDescriptor) {
+    return typeCache == null ? Type.getType(typeDescriptor) : typeCache.getType(typeDescriptor);
+  }
+
+  /**
+   * Returns the {@link Type} corresponding to the given internal name, from the {@link TypeCache}
+   * of this interpreter if there is one.
+   *
+   * @param internalName an internal name.
+   * @return the {@link Type} corresponding to the given internal name.
+   */
+  final Type getObjectType(final String internalName) {
+    return typeCache == null
+        ? Type.getObjectType(internalName)
+        : typeCache.getObjectType(internalName);
+  }
+
+  /**
+   * Returns the {@link Type} of the arrays whose elements have the given type, from the {@link
+   * TypeCache} of this interpreter if there is one.
+   *
+   * @param elementType the type of the array elements.
+   * @return the {@link Type} of the arrays whose elements have the given type.
+   */
+  final Type getArrayType(final Type elementType) {
+    return typeCache == null
+        ? Type.getType('[' + elementType.getDescriptor())
+        : typeCache.getArrayType(elementType);
+  }
+
+  /**
+   * Returns the return {@link Type} of the given method descriptor, from the {@link TypeCache} of
+   * this interpreter if there is one.
+   *
+   * @param methodDescriptor a method descriptor.
+   * @return the return {@link Type} of the given method descriptor.
+   */
+  final Type getReturnType(final String methodDescriptor) {
+    return typeCache == null
+        ? Type.getReturnType(methodDescriptor)
+        : typeCache.getReturnType(methodDescriptor);
+  }
+
   @Override
   public BasicValue newValue(final Type type) {
     if (type == null) {
@@ -142,29 +207,29 @@ public class BasicInterpreter extends Interpreter<BasicValue> implements Opcodes
         } else if (value instanceof Double) {
           return BasicValue.DOUBLE_VALUE;
         } else if (value instanceof String) {
-          return newValue(Type.getObjectType("java/lang/String"));
+          return newValue(getObjectType("java/lang/String"));
         } else if (value instanceof Type) {
           int sort = ((Type) value).getSort();
           if (sort == Type.OBJECT || sort == Type.ARRAY) {
-            return newValue(Type.getObjectType("java/lang/Class"));
+            return newValue(getObjectType("java/lang/Class"));
           } else if (sort == Type.METHOD) {
-            return newValue(Type.getObjectType("java/lang/invoke/MethodType"));
+            return newValue(getObjectType("java/lang/invoke/MethodType"));
           } else {
             throw new AnalyzerException(insn, "Illegal LDC value " + value);
           }
         } else if (value instanceof Handle) {
-          return newValue(Type.getObjectType("java/lang/invoke/MethodHandle"));
+          return newValue(getObjectType("java/lang/invoke/MethodHandle"));
         } else if (value instanceof ConstantDynamic) {
-          return newValue(Type.getType(((ConstantDynamic) value).getDescriptor()));
+          return newValue(getType(((ConstantDynamic) value).getDescriptor()));
         } else {
           throw new AnalyzerException(insn, "Illegal LDC value " + value);
         }
       case JSR:
         return BasicValue.RETURNADDRESS_VALUE;
       case GETSTATIC:
-        return newValue(Type.getType(((FieldInsnNode) insn).desc));
+        return newValue(getType(((FieldInsnNode) insn).desc));
       case NEW:
-        return newValue(Type.getObjectType(((TypeInsnNode) insn).desc));
+        return newValue(getObjectType(((TypeInsnNode) insn).desc));
       default:
         throw new AssertionError();
     }
@@ -220,37 +285,37 @@ public class BasicInterpreter extends Interpreter<BasicValue> implements Opcodes
       case PUTSTATIC:
         return null;
       case GETFIELD:
-        return newValue(Type.getType(((FieldInsnNode) insn).desc));
+        return newValue(getType(((FieldInsnNode) insn).desc));
       case NEWARRAY:
         switch (((IntInsnNode) insn).operand) {
           case T_BOOLEAN:
-            return newValue(Type.getType("[Z"));
+            return newValue(getType("[Z"));
           case T_CHAR:
-            return newValue(Type.getType("[C"));
+            return newValue(getType("[C"));
           case T_BYTE:
-            return newValue(Type.getType("[B"));
+            return newValue(getType("[B"));
           case T_SHORT:
-            return newValue(Type.getType("[S"));
+            return newValue(getType("[S"));
           case T_INT:
-            return newValue(Type.getType("[I"));
+            return newValue(getType("[I"));
           case T_FLOAT:
-            return newValue(Type.getType("[F"));
+            return newValue(getType("[F"));
           case T_DOUBLE:
-            return newValue(Type.getType("[D"));
+            return newValue(getType("[D"));
           case T_LONG:
-            return newValue(Type.getType("[J"));
+            return newValue(getType("[J"));
           default:
             break;
         }
         throw new AnalyzerException(insn, "Invalid array type");
       case ANEWARRAY:
-        return newValue(Type.getType("[" + Type.getObjectType(((TypeInsnNode) insn).desc)));
+        return newValue(getArrayType(getObjectType(((TypeInsnNode) insn).desc)));
       case ARRAYLENGTH:
         return BasicValue.INT_VALUE;
       case ATHROW:
         return null;
       case CHECKCAST:
-        return newValue(Type.getObjectType(((TypeInsnNode) insn).desc));
+        return newValue(getObjectType(((TypeInsnNode) insn).desc));
       case INSTANCEOF:
         return BasicValue.INT_VALUE;
       case MONITORENTER:
@@ -350,11 +415,11 @@ public class BasicInterpreter extends Interpreter<BasicValue> implements Opcodes
       throws AnalyzerException {
     int opcode = insn.getOpcode();
     if (opcode == MULTIANEWARRAY) {
-      return newValue(Type.getType(((MultiANewArrayInsnNode) insn).desc));
+      return newValue(getType(((MultiANewArrayInsnNode) insn).desc));
     } else if (opcode == INVOKEDYNAMIC) {
-      return newValue(Type.getReturnType(((InvokeDynamicInsnNode) insn).desc));
+      return newValue(getReturnType(((InvokeDynamicInsnNode) insn).desc));
     } else {
-      return newValue(Type.getReturnType(((MethodInsnNode) insn).desc));
+      return newValue(getReturnType(((MethodInsnNode) insn).desc));
     }
   }
 
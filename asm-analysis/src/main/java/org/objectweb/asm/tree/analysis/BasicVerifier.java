@@ -152,7 +152,7 @@ public class BasicVerifier extends BasicInterpreter {
         expected = BasicValue.DOUBLE_VALUE;
         break;
       case GETFIELD:
-        expected = newValue(Type.getObjectType(((FieldInsnNode) insn).owner));
+        expected = newValue(getObjectType(((FieldInsnNode) insn).owner));
         break;
       case ARRAYLENGTH:
         if (!isArrayValue(value)) {
@@ -172,7 +172,7 @@ public class BasicVerifier extends BasicInterpreter {
         }
         return super.unaryOperation(insn, value);
       case PUTSTATIC:
-        expected = newValue(Type.getType(((FieldInsnNode) insn).desc));
+        expected = newValue(getType(((FieldInsnNode) insn).desc));
         break;
       default:
         throw new AssertionError();
@@ -191,39 +191,39 @@ public class BasicVerifier extends BasicInterpreter {
     BasicValue expected2;
     switch (insn.getOpcode()) {
       case IALOAD:
-        expected1 = newValue(Type.getType("[I"));
+        expected1 = newValue(getType("[I"));
         expected2 = BasicValue.INT_VALUE;
         break;
       case BALOAD:
-        if (isSubTypeOf(value1, newValue(Type.getType("[Z")))) {
-          expected1 = newValue(Type.getType("[Z"));
+        if (isSubTypeOf(value1, newValue(getType("[Z")))) {
+          expected1 = newValue(getType("[Z"));
         } else {
-          expected1 = newValue(Type.getType("[B"));
+          expected1 = newValue(getType("[B"));
         }
         expected2 = BasicValue.INT_VALUE;
         break;
       case CALOAD:
-        expected1 = newValue(Type.getType("[C"));
+        expected1 = newValue(getType("[C"));
         expected2 = BasicValue.INT_VALUE;
         break;
       case SALOAD:
-        expected1 = newValue(Type.getType("[S"));
+        expected1 = newValue(getType("[S"));
         expected2 = BasicValue.INT_VALUE;
         break;
       case LALOAD:
-        expected1 = newValue(Type.getType("[J"));
+        expected1 = newValue(getType("[J"));
         expected2 = BasicValue.INT_VALUE;
         break;
       case FALOAD:
-        expected1 = newValue(Type.getType("[F"));
+        expected1 = newValue(getType("[F"));
         expected2 = BasicValue.INT_VALUE;
         break;
       case DALOAD:
-        expected1 = newValue(Type.getType("[D"));
+        expected1 = newValue(getType("[D"));
         expected2 = BasicValue.INT_VALUE;
         break;
       case AALOAD:
-        expected1 = newValue(Type.getType("[Ljava/lang/Object;"));
+        expected1 = newValue(getType("[Ljava/lang/Object;"));
         expected2 = BasicValue.INT_VALUE;
         break;
       case IADD:
@@ -291,8 +291,8 @@ public class BasicVerifier extends BasicInterpreter {
         break;
       case PUTFIELD:
         FieldInsnNode fieldInsn = (FieldInsnNode) insn;
-        expected1 = newValue(Type.getObjectType(fieldInsn.owner));
-        expected2 = newValue(Type.getType(fieldInsn.desc));
+        expected1 = newValue(getObjectType(fieldInsn.owner));
+        expected2 = newValue(getType(fieldInsn.desc));
         break;
       default:
         throw new AssertionError();
@@ -320,35 +320,35 @@ public class BasicVerifier extends BasicInterpreter {
     BasicValue expected3;
     switch (insn.getOpcode()) {
       case IASTORE:
-        expected1 = newValue(Type.getType("[I"));
+        expected1 = newValue(getType("[I"));
         expected3 = BasicValue.INT_VALUE;
         break;
       case BASTORE:
-        if (isSubTypeOf(value1, newValue(Type.getType("[Z")))) {
-          expected1 = newValue(Type.getType("[Z"));
+        if (isSubTypeOf(value1, newValue(getType("[Z")))) {
+          expected1 = newValue(getType("[Z"));
         } else {
-          expected1 = newValue(Type.getType("[B"));
+          expected1 = newValue(getType("[B"));
         }
         expected3 = BasicValue.INT_VALUE;
         break;
       case CASTORE:
-        expected1 = newValue(Type.getType("[C"));
+        expected1 = newValue(getType("[C"));
         expected3 = BasicValue.INT_VALUE;
         break;
       case SASTORE:
-        expected1 = newValue(Type.getType("[S"));
+        expected1 = newValue(getType("[S"));
         expected3 = BasicValue.INT_VALUE;
         break;
       case LASTORE:
-        expected1 = newValue(Type.getType("[J"));
+        expected1 = newValue(getType("[J"));
         expected3 = BasicValue.LONG_VALUE;
         break;
       case FASTORE:
-        expected1 = newValue(Type.getType("[F"));
+        expected1 = newValue(getType("[F"));
         expected3 = BasicValue.FLOAT_VALUE;
         break;
       case DASTORE:
-        expected1 = newValue(Type.getType("[D"));
+        expected1 = newValue(getType("[D"));
         expected3 = BasicValue.DOUBLE_VALUE;
         break;
       case AASTORE:
@@ -384,7 +384,7 @@ public class BasicVerifier extends BasicInterpreter {
       int i = 0;
       int j = 0;
       if (opcode != INVOKESTATIC && opcode != INVOKEDYNAMIC) {
-        Type owner = Type.getObjectType(((MethodInsnNode) insn).owner);
+        Type owner = getObjectType(((MethodInsnNode) insn).owner);
         if (!isSubTypeOf(values.get(i++), newValue(owner))) {
           throw new AnalyzerException(insn, "Method owner", newValue(owner), values.get(0));
         }
@@ -170,7 +170,7 @@ public class SimpleVerifier extends BasicVerifier {
           descriptor.append('[');
         }
         descriptor.append(value.getType().getDescriptor());
-        value = new BasicValue(Type.getType(descriptor.toString()));
+        value = new BasicValue(getType(descriptor.toString()));
       } else {
         value = new BasicValue(type);
       }
@@ -189,7 +189,7 @@ public class SimpleVerifier extends BasicVerifier {
     Type arrayType = objectArrayValue.getType();
     if (arrayType != null) {
       if (arrayType.getSort() == Type.ARRAY) {
-        return newValue(Type.getType(arrayType.getDescriptor().substring(1)));
+        return newValue(getType(arrayType.getDescriptor().substring(1)));
       } else if (arrayType.equals(NULL_TYPE)) {
         return objectArrayValue;
       }
@@ -349,7 +349,7 @@ public class SimpleVerifier extends BasicVerifier {
         descriptor.append('[');
       }
       descriptor.append(type.getDescriptor());
-      return newValue(Type.getType(descriptor.toString()));
+      return newValue(getType(descriptor.toString()));
     }
   }
 
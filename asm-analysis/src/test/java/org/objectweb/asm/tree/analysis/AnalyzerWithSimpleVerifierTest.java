@@ -33,6 +33,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
+import java.util.Arrays;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -41,6 +42,7 @@ import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 import org.objectweb.asm.test.AsmTest;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodNode;
@@ -320,6 +322,35 @@ class AnalyzerWithSimpleVerifierTest extends AsmTest {
    *
    * @throws AnalyzerException if the test class can't be analyzed.
    */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testAnalyze_simpleVerifierWithTypeCache(
+      final PrecompiledClass classParameter, final Api apiParameter) throws AnalyzerException {
+    ClassNode classNode = new ClassNode();
+    new ClassReader(classParameter.getBytes()).accept(classNode, 0);
+    assumeFalse(classNode.methods.isEmpty());
+    SimpleVerifier typeCacheSimpleVerifier =
+        new SimpleVerifier(
+            Type.getObjectType(classNode.name),
+            Type.getObjectType(classNode.superName),
+            (classNode.access & Opcodes.ACC_INTERFACE) != 0);
+    typeCacheSimpleVerifier.setTypeCache(new TypeCache());
+    Analyzer<BasicValue> analyzer =
+        new Analyzer<BasicValue>(
+            new SimpleVerifier(
+                Type.getObjectType(classNode.name),
+                Type.getObjectType(classNode.superName),
+                (classNode.access & Opcodes.ACC_INTERFACE) != 0));
+    Analyzer<BasicValue> typeCacheAnalyzer = new Analyzer<BasicValue>(typeCacheSimpleVerifier);
+
+    for (MethodNode methodNode : classNode.methods) {
+      Frame<BasicValue>[] frames = analyzer.analyze(classNode.name, methodNode);
+      Frame<BasicValue>[] typeCacheFrames = typeCacheAnalyzer.analyze(classNode.name, methodNode);
+
+      assertEquals(Arrays.toString(frames), Arrays.toString(typeCacheFrames));
+    }
+  }
+
   @Test
   void testIsAssignableFrom_interface() throws AnalyzerException {
     Label elseLabel = new Label();
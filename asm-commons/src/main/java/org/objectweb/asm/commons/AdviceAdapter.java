@@ -461,11 +461,9 @@ public abstract class AdviceAdapter extends GeneratorAdapter implements Opcodes
 
   private void doVisitMethodInsn(final int opcode, final String name, final String descriptor) {
     if (isConstructor && !superClassConstructorCalled) {
-      for (Type argumentType : Type.getArgumentTypes(descriptor)) {
+      int numArgumentSlots = (Type.getArgumentsAndReturnSizes(descriptor) >> 2) - 1;
+      for (int i = 0; i < numArgumentSlots; ++i) {
         popValue();
-        if (argumentType.getSize() == 2) {
-          popValue();
-        }
       }
       switch (opcode) {
         case INVOKEINTERFACE:
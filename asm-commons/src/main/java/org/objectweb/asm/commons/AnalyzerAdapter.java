@@ -32,6 +32,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.objectweb.asm.ConstantDynamic;
+import org.objectweb.asm.DescriptorCursor;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
@@ -156,8 +157,9 @@ public class AnalyzerAdapter extends MethodVisitor {
         locals.add(owner);
       }
     }
-    for (Type argumentType : Type.getArgumentTypes(descriptor)) {
-      switch (argumentType.getSort()) {
+    DescriptorCursor argumentTypes = new DescriptorCursor(descriptor);
+    while (argumentTypes.nextArgument()) {
+      switch (argumentTypes.getSort()) {
         case Type.BOOLEAN:
         case Type.CHAR:
         case Type.BYTE:
@@ -177,10 +179,14 @@ public class AnalyzerAdapter extends MethodVisitor {
           locals.add(Opcodes.TOP);
           break;
         case Type.ARRAY:
-          locals.add(argumentType.getDescriptor());
+          locals.add(
+              descriptor.substring(argumentTypes.getBeginOffset(), argumentTypes.getEndOffset()));
           break;
         case Type.OBJECT:
-          locals.add(argumentType.getInternalName());
+          locals.add(
+              descriptor.substring(
+                  argumentTypes.getInternalNameBeginOffset(),
+                  argumentTypes.getInternalNameEndOffset()));
           break;
         default:
           throw new AssertionError();
@@ -525,12 +531,7 @@ public class AnalyzerAdapter extends MethodVisitor {
   private void pop(final String descriptor) {
     char firstDescriptorChar = descriptor.charAt(0);
     if (firstDescriptorChar == '(') {
-      int numSlots = 0;
-      Type[] types = Type.getArgumentTypes(descriptor);
-      for (Type type : types) {
-        numSlots += type.getSize();
-      }
-      pop(numSlots);
+      pop((Type.getArgumentsAndReturnSizes(descriptor) >> 2) - 1);
     } else if (firstDescriptorChar == 'J' || firstDescriptorChar == 'D') {
       pop(2);
     } else {
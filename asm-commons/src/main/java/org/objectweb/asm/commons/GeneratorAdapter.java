@@ -37,6 +37,7 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 
 /**
  * A {@link MethodVisitor} with convenient methods to generate code. For example, using this
@@ -177,7 +178,7 @@ public class GeneratorAdapter extends LocalVariablesSorter {
   private final String name;
 
   /** The return type of the visited method. */
-  private final Type returnType;
+  private Type returnType;
 
   /** The argument types of the visited method. */
   private final Type[] argumentTypes;
@@ -286,6 +287,25 @@ public class GeneratorAdapter extends LocalVariablesSorter {
     return names;
   }
 
+  /**
+   * Sets the cache used to get the {@link Type} of the visited local variables. The return and
+   * argument types of the visited method are also replaced with the corresponding types from this
+   * cache, so that they are shared with the other visitors using the same cache.
+   *
+   * @param typeCache the cache used to get the {@link Type} of the visited local variables, or
+   *     {@literal null} to not use any cache. A cache can be shared between several visitors.
+   */
+  @Override
+  public void setTypeCache(final TypeCache typeCache) {
+    super.setTypeCache(typeCache);
+    if (typeCache != null) {
+      returnType = typeCache.getType(returnType.getDescriptor());
+      for (int i = 0; i < argumentTypes.length; ++i) {
+        argumentTypes[i] = typeCache.getType(argumentTypes[i].getDescriptor());
+      }
+    }
+  }
+
   public int getAccess() {
     return access;
   }
@@ -77,6 +77,12 @@ public class JSRInlinerAdapter extends MethodNode implements Opcodes {
    */
   final BitSet sharedSubroutineInsns = new BitSet();
 
+  /**
+   * The number of labels in the original code. Each label of the original code has an ordinal in
+   * [0, labelCount[ (see {@link LabelNode#getOrdinal}).
+   */
+  int labelCount;
+
   /**
    * Constructs a new {@link JSRInlinerAdapter}. <i>Subclasses must not use this constructor</i>.
    * Instead, they must use the {@link #JSRInlinerAdapter(int, MethodVisitor, int, String, String,
@@ -300,6 +306,7 @@ public class JSRInlinerAdapter extends MethodNode implements Opcodes {
    * fully elaborated.
    */
   private void emitCode() {
+    labelCount = instructions.computeLabelOrdinals();
     LinkedList<Instantiation> worklist = new LinkedList<>();
     // Create an instantiation of the main "subroutine", which is just the main routine.
     worklist.add(new Instantiation(null, mainSubroutineInsns));
@@ -446,8 +453,11 @@ public class JSRInlinerAdapter extends MethodNode implements Opcodes {
      * <p>Note that in the presence of instructions belonging to several subroutines, we map the
      * target label of a GOTO to the label used by the oldest instantiation (parent instantiations
      * are older than their children). This avoids code duplication during inlining in most cases.
+     *
+     * <p>This map is stored in an array indexed by the ordinals of the labels from the original
+     * code.
      */
-    final Map<LabelNode, LabelNode> clonedLabels;
+    final LabelNode[] clonedLabels;
 
     /** The return label for this instantiation, to which all original returns will be mapped. */
     final LabelNode returnLabel;
@@ -464,7 +474,7 @@ public class JSRInlinerAdapter extends MethodNode implements Opcodes {
       this.parent = parent;
       this.subroutineInsns = subroutineInsns;
       this.returnLabel = parent == null ? null : new LabelNode();
-      this.clonedLabels = new HashMap<>();
+      this.clonedLabels = new LabelNode[labelCount];
 
       // Create a clone of each label in the original code of the subroutine. Note that we collapse
       // labels which point at the same instruction into one.
@@ -477,7 +487,7 @@ public class JSRInlinerAdapter extends MethodNode implements Opcodes {
           if (clonedLabelNode == null) {
             clonedLabelNode = new LabelNode();
           }
-          clonedLabels.put(labelNode, clonedLabelNode);
+          clonedLabels[labelNode.getOrdinal()] = clonedLabelNode;
         } else if (findOwner(insnIndex) == this) {
           // We will emit this instruction, so clear the duplicateLabelNode flag since the next
           // Label will refer to a distinct instruction.
@@ -532,7 +542,7 @@ public class JSRInlinerAdapter extends MethodNode implements Opcodes {
     LabelNode getClonedLabelForJumpInsn(final LabelNode labelNode) {
       // findOwner should never return null, because owner is null only if an instruction cannot be
       // reached from this subroutine.
-      return findOwner(instructions.indexOf(labelNode)).clonedLabels.get(labelNode);
+      return findOwner(instructions.indexOf(labelNode)).clonedLabels[labelNode.getOrdinal()];
     }
 
     /**
@@ -544,7 +554,7 @@ public class JSRInlinerAdapter extends MethodNode implements Opcodes {
      *     the inlined code.
      */
     LabelNode getClonedLabel(final LabelNode labelNode) {
-      return clonedLabels.get(labelNode);
+      return clonedLabels[labelNode.getOrdinal()];
     }
 
     // AbstractMap implementation
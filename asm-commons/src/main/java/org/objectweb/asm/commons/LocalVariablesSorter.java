@@ -32,6 +32,7 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 import org.objectweb.asm.TypePath;
 
 /**
@@ -69,6 +70,9 @@ public class LocalVariablesSorter extends MethodVisitor {
   /** The index of the next local variable to be created by {@link #newLocal}. */
   protected int nextLocal;
 
+  /** The cache used to get the {@link Type} of the visited local variables, or null. */
+  private TypeCache typeCache;
+
   /**
    * Constructs a new {@link LocalVariablesSorter}. <i>Subclasses must not use this constructor</i>.
    * Instead, they must use the {@link #LocalVariablesSorter(int, int, String, MethodVisitor)}
@@ -99,13 +103,26 @@ public class LocalVariablesSorter extends MethodVisitor {
   protected LocalVariablesSorter(
       final int api, final int access, final String descriptor, final MethodVisitor methodVisitor) {
     super(api, methodVisitor);
-    nextLocal = (Opcodes.ACC_STATIC & access) == 0 ? 1 : 0;
-    for (Type argumentType : Type.getArgumentTypes(descriptor)) {
-      nextLocal += argumentType.getSize();
+    // The arguments size returned by getArgumentsAndReturnSizes includes the implicit 'this'.
+    nextLocal = Type.getArgumentsAndReturnSizes(descriptor) >> 2;
+    if ((Opcodes.ACC_STATIC & access) != 0) {
+      --nextLocal;
     }
     firstLocal = nextLocal;
   }
 
+  /**
+   * Sets the cache used to get the {@link Type} of the visited local variables (in {@link
+   * #visitLocalVariable}, {@link #visitLocalVariableAnnotation} and {@link #visitFrame}). By
+   * default, no cache is used, i.e. a new {@link Type} is created each time one is needed.
+   *
+   * @param typeCache the cache used to get the {@link Type} of the visited local variables, or
+   *     {@literal null} to not use any cache. A cache can be shared between several visitors.
+   */
+  public void setTypeCache(final TypeCache typeCache) {
+    this.typeCache = typeCache;
+  }
+
   @Override
   public void visitVarInsn(final int opcode, final int varIndex) {
     Type varType;
@@ -155,7 +172,7 @@ public class LocalVariablesSorter extends MethodVisitor {
       final Label start,
       final Label end,
       final int index) {
-    int remappedIndex = remap(index, Type.getType(descriptor));
+    int remappedIndex = remap(index, getType(descriptor));
     super.visitLocalVariable(name, descriptor, signature, start, end, remappedIndex);
   }
 
@@ -168,7 +185,7 @@ public class LocalVariablesSorter extends MethodVisitor {
       final int[] index,
       final String descriptor,
       final boolean visible) {
-    Type type = Type.getType(descriptor);
+    Type type = getType(descriptor);
     int[] remappedIndex = new int[index.length];
     for (int i = 0; i < remappedIndex.length; ++i) {
       remappedIndex[i] = remap(index[i], type);
@@ -211,7 +228,7 @@ public class LocalVariablesSorter extends MethodVisitor {
         } else if (localType == Opcodes.DOUBLE) {
           varType = Type.DOUBLE_TYPE;
         } else if (localType instanceof String) {
-          varType = Type.getObjectType((String) localType);
+          varType = getObjectType((String) localType);
         }
         setFrameLocal(remap(oldVar, varType), localType);
       }
@@ -311,6 +328,16 @@ public class LocalVariablesSorter extends MethodVisitor {
     // The default implementation does nothing.
   }
 
+  private Type getType(final String typeDescriptor) {
+    return typeCache == null ? Type.getType(typeDescriptor) : typeCache.getType(typeDescriptor);
+  }
+
+  private Type getObjectType(final String internalName) {
+    return typeCache == null
+        ? Type.getObjectType(internalName)
+        : typeCache.getObjectType(internalName);
+  }
+
   private void setFrameLocal(final int local, final Object type) {
     int numLocals = remappedLocalTypes.length;
     if (local >= numLocals) {
@@ -29,6 +29,7 @@ package org.objectweb.asm.commons;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.objectweb.asm.Type;
 
 /**
@@ -46,6 +47,29 @@ public class Method {
   /** The method descriptor. */
   private final String descriptor;
 
+  /** The return type of the method, or {@literal null} if it has not been computed yet. */
+  private volatile Type returnType;
+
+  /** The argument types of the method, or {@literal null} if they have not been computed yet. */
+  private volatile Type[] argumentTypes;
+
+  /** The maximum number of Java method declarations in each {@link Method} cache. */
+  private static final int MAX_CACHED_METHODS = 1024;
+
+  /**
+   * The {@link Method} corresponding to some Java method declarations, parsed with {@link
+   * #getMethod(String, boolean)} with defaultPackage equal to false.
+   */
+  private static final ConcurrentHashMap<String, Method> JAVA_LANG_METHODS =
+      new ConcurrentHashMap<>();
+
+  /**
+   * The {@link Method} corresponding to some Java method declarations, parsed with {@link
+   * #getMethod(String, boolean)} with defaultPackage equal to true.
+   */
+  private static final ConcurrentHashMap<String, Method> DEFAULT_PACKAGE_METHODS =
+      new ConcurrentHashMap<>();
+
   /** The descriptors of the primitive Java types (plus void). */
   private static final Map<String, String> PRIMITIVE_TYPE_DESCRIPTORS;
 
@@ -83,6 +107,8 @@ public class Method {
    */
   public Method(final String name, final Type returnType, final Type[] argumentTypes) {
     this(name, Type.getMethodDescriptor(returnType, argumentTypes));
+    this.returnType = returnType;
+    this.argumentTypes = argumentTypes.clone();
   }
 
   /**
@@ -130,10 +156,34 @@ public class Method {
    * @param defaultPackage true if unqualified class names belong to the default package, or false
    *     if they correspond to java.lang classes. For instance "Object" means "Object" if this
    *     option is true, or "java.lang.Object" otherwise.
-   * @return a {@link Method} corresponding to the given Java method declaration.
+   * @return a {@link Method} corresponding to the given Java method declaration. The result is
+   *     cached, so that the same declaration is parsed only once (in most cases).
    * @throws IllegalArgumentException if <code>method</code> could not get parsed.
    */
   public static Method getMethod(final String method, final boolean defaultPackage) {
+    ConcurrentHashMap<String, Method> cachedMethods =
+        defaultPackage ? DEFAULT_PACKAGE_METHODS : JAVA_LANG_METHODS;
+    Method result = cachedMethods.get(method);
+    if (result == null) {
+      result = parseMethod(method, defaultPackage);
+      if (cachedMethods.size() >= MAX_CACHED_METHODS) {
+        cachedMethods.clear();
+      }
+      cachedMethods.put(method, result);
+    }
+    return result;
+  }
+
+  /**
+   * Parses the given Java method declaration.
+   *
+   * @param method a Java method declaration (see {@link #getMethod(String, boolean)}).
+   * @param defaultPackage true if unqualified class names belong to the default package, or false
+   *     if they correspond to java.lang classes.
+   * @return a {@link Method} corresponding to the given Java method declaration.
+   * @throws IllegalArgumentException if <code>method</code> could not get parsed.
+   */
+  private static Method parseMethod(final String method, final boolean defaultPackage) {
     final int spaceIndex = method.indexOf(' ');
     int currentArgumentStartIndex = method.indexOf('(', spaceIndex) + 1;
     final int endIndex = method.indexOf(')', currentArgumentStartIndex);
@@ -229,16 +279,27 @@ public class Method {
    * @return the return type of the method described by this object.
    */
   public Type getReturnType() {
-    return Type.getReturnType(descriptor);
+    Type result = returnType;
+    if (result == null) {
+      result = Type.getReturnType(descriptor);
+      returnType = result;
+    }
+    return result;
   }
 
   /**
    * Returns the argument types of the method described by this object.
    *
-   * @return the argument types of the method described by this object.
+   * @return the argument types of the method described by this object. This is a new array each
+   *     time, which can be modified by the caller.
    */
   public Type[] getArgumentTypes() {
-    return Type.getArgumentTypes(descriptor);
+    Type[] result = argumentTypes;
+    if (result == null) {
+      result = Type.getArgumentTypes(descriptor);
+      argumentTypes = result;
+    }
+    return result.clone();
   }
 
   @Override
@@ -0,0 +1,158 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.commons;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.Set;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.CodeInserter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * A {@link MethodVisitor} to insert some code at the beginning of a method and before its xRETURN
+ * and ATHROW instructions. Subclasses generate the inserted code by visiting instructions on
+ * {@literal this} in {@link #onMethodEnter} and {@link #onMethodExit}.
+ *
+ * <p>When possible, methods are copied as is with the inserted code spliced in, instead of being
+ * parsed and visited (see {@link CodeInserter}). Otherwise, they are visited normally (and {@link
+ * #onMethodEnter} and {@link #onMethodExit} can then be called again, to generate the code in the
+ * normal way).
+ *
+ * <p>Since a method can be copied without being visited, subclasses must not override the visit
+ * methods of this class: they can only generate the inserted code, in {@link #onMethodEnter} and
+ * {@link #onMethodExit}. Other transformations must be done in another visitor, before or after
+ * this one (which prevents the method from being copied).
+ */
+public class MethodPatcher extends CodeInserter {
+
+  /** The names of the visit methods of {@link MethodVisitor}. */
+  private static final Set<String> VISIT_METHOD_NAMES = getVisitMethodNames();
+
+  /**
+   * Constructs a new {@link MethodPatcher}.
+   *
+   * @param api the ASM API version implemented by this visitor. Must be one of the {@code
+   *     ASM}<i>x</i> values in {@link Opcodes}.
+   * @param methodVisitor the method visitor to which this visitor must delegate method calls. May
+   *     be null.
+   * @throws IllegalStateException if a subclass overrides a visit method.
+   */
+  public MethodPatcher(final int api, final MethodVisitor methodVisitor) {
+    super(api, methodVisitor);
+    Class<?> currentClass = getClass();
+    while (currentClass != MethodPatcher.class) {
+      for (Method method : currentClass.getDeclaredMethods()) {
+        int modifiers = method.getModifiers();
+        if (!Modifier.isStatic(modifiers)
+            && !Modifier.isPrivate(modifiers)
+            && VISIT_METHOD_NAMES.contains(method.getName())) {
+          throw new IllegalStateException("MethodPatcher subclasses must not override " + method);
+        }
+      }
+      currentClass = currentClass.getSuperclass();
+    }
+  }
+
+  /**
+   * Returns the names of the visit methods of {@link MethodVisitor}.
+   *
+   * @return the names of the visit methods of {@link MethodVisitor}.
+   */
+  private static Set<String> getVisitMethodNames() {
+    Set<String> visitMethodNames = new HashSet<>();
+    for (Method method : MethodVisitor.class.getDeclaredMethods()) {
+      if (Modifier.isPublic(method.getModifiers()) && method.getName().startsWith("visit")) {
+        visitMethodNames.add(method.getName());
+      }
+    }
+    return visitMethodNames;
+  }
+
+  @Override
+  public void visitCode() {
+    super.visitCode();
+    onMethodEnter();
+  }
+
+  @Override
+  public void visitInsn(final int opcode) {
+    if ((opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN) || opcode == Opcodes.ATHROW) {
+      onMethodExit(opcode);
+    }
+    super.visitInsn(opcode);
+  }
+
+  /**
+   * Generates the code to insert at the beginning of the method. The default implementation of this
+   * method does nothing.
+   */
+  protected void onMethodEnter() {
+    // Nothing to insert by default.
+  }
+
+  /**
+   * Generates the code to insert before each xRETURN or ATHROW instruction of the method. This code
+   * must not change the operand stack below its top value on entry (which is the returned value or
+   * the thrown exception, if any). It must not contain xRETURN or ATHROW instructions either. The
+   * default implementation of this method does nothing.
+   *
+   * @param opcode the opcode of the instruction before which the code must be inserted. This is one
+   *     of IRETURN, LRETURN, FRETURN, DRETURN, ARETURN, RETURN or ATHROW.
+   */
+  protected void onMethodExit(final int opcode) {
+    // Nothing to insert by default.
+  }
+
+  /**
+   * Generates the code to insert at the beginning of the method or before an xRETURN or ATHROW
+   * instruction, by calling {@link #onMethodEnter} or {@link #onMethodExit}, and sends it to the
+   * given method visitor instead of the one this visitor normally delegates to. This method is
+   * called by {@link ClassReader} when a method is copied instead of being visited.
+   *
+   * @param methodVisitor the method visitor to which the inserted code must be sent.
+   * @param opcode an xRETURN or ATHROW opcode to generate the code inserted before these
+   *     instructions, or -1 to generate the code inserted at the beginning of the method.
+   */
+  @Override
+  protected final void insertCode(final MethodVisitor methodVisitor, final int opcode) {
+    MethodVisitor delegate = mv;
+    mv = methodVisitor;
+    try {
+      if (opcode == -1) {
+        onMethodEnter();
+      } else {
+        onMethodExit(opcode);
+      }
+    } finally {
+      mv = delegate;
+    }
+  }
+}
@@ -63,6 +63,14 @@ public abstract class Remapper {
    */
   final int api;
 
+  /**
+   * Whether {@link #mapSignature} must check with {@link #isTypeMapped} if a signature contains
+   * class names to remap, before remapping it. This is only the case if {@link #isTypeMapped} is
+   * overridden (the default implementation is not cheaper than the remapping itself), and if {@link
+   * #createSignatureRemapper} is not (the returned visitor might change more than class names).
+   */
+  private final boolean checkTypesMapped;
+
   /**
    * Creates a new {@link Remapper}.
    *
@@ -71,6 +79,7 @@ public abstract class Remapper {
   @Deprecated(forRemoval = false)
   protected Remapper() {
     this.api = 0;
+    this.checkTypesMapped = hasCheapTypeMappedCheck();
   }
 
   /**
@@ -90,6 +99,44 @@ public abstract class Remapper {
       throw new IllegalArgumentException("Unsupported api " + api);
     }
     this.api = api;
+    this.checkTypesMapped = hasCheapTypeMappedCheck();
+  }
+
+  /**
+   * Returns whether {@link #isTypeMapped} is overridden in the class of this remapper, while {@link
+   * #createSignatureRemapper} is not.
+   *
+   * @return whether {@link #mapSignature} must check if a signature contains class names to remap,
+   *     before remapping it.
+   */
+  private boolean hasCheapTypeMappedCheck() {
+    boolean isTypeMappedOverridden = false;
+    for (Class<?> clazz = getClass(); clazz != Remapper.class; clazz = clazz.getSuperclass()) {
+      if (declaresMethod(clazz, "createSignatureRemapper", SignatureVisitor.class)) {
+        return false;
+      }
+      isTypeMappedOverridden |=
+          declaresMethod(clazz, "isTypeMapped", CharSequence.class, int.class, int.class);
+    }
+    return isTypeMappedOverridden;
+  }
+
+  /**
+   * Returns whether the given class declares a method.
+   *
+   * @param clazz a class.
+   * @param name the name of a method.
+   * @param parameterTypes the parameter types of the method.
+   * @return whether 'clazz' declares a method with the given name and parameter types.
+   */
+  private static boolean declaresMethod(
+      final Class<?> clazz, final String name, final Class<?>... parameterTypes) {
+    try {
+      clazz.getDeclaredMethod(name, parameterTypes);
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
   }
 
   /**
@@ -265,14 +312,56 @@ public abstract class Remapper {
       return null;
     }
     SignatureReader signatureReader = new SignatureReader(signature);
+    if (checkTypesMapped) {
+      // A SignatureRemapper only changes class names. If none of them is changed, the signature
+      // can be returned as is, without rebuilding it.
+      SignatureMappingChecker signatureMappingChecker = new SignatureMappingChecker();
+      accept(signatureReader, signatureMappingChecker, typeSignature);
+      if (!signatureMappingChecker.hasMappedType) {
+        return signature;
+      }
+    }
     SignatureWriter signatureWriter = new SignatureWriter();
-    SignatureVisitor signatureRemapper = createSignatureRemapper(signatureWriter);
+    accept(signatureReader, createSignatureRemapper(signatureWriter), typeSignature);
+    return signatureWriter.toString();
+  }
+
+  /**
+   * Makes the given visitor visit the signature of the given reader.
+   *
+   * @param signatureReader a signature reader.
+   * @param signatureVisitor the visitor that must visit the signature of 'signatureReader'.
+   * @param typeSignature whether the signature of 'signatureReader' is a <i>JavaTypeSignature</i>.
+   */
+  private static void accept(
+      final SignatureReader signatureReader,
+      final SignatureVisitor signatureVisitor,
+      final boolean typeSignature) {
     if (typeSignature) {
-      signatureReader.acceptType(signatureRemapper);
+      signatureReader.acceptType(signatureVisitor);
     } else {
-      signatureReader.accept(signatureRemapper);
+      signatureReader.accept(signatureVisitor);
     }
-    return signatureWriter.toString();
+  }
+
+  /**
+   * Returns whether {@link #mapType(String)} changes the given internal name. The default
+   * implementation calls {@link #mapType(String)} with the corresponding substring. Subclasses can
+   * override it with a cheaper check, for instance based on the package prefixes they remap,
+   * provided it never returns false for a name which is changed by {@link #mapType(String)}. In
+   * this case, and if {@link #createSignatureRemapper} is not overridden, {@link #mapSignature}
+   * uses this method to return the signatures which do not need to be remapped as is, without
+   * rebuilding them.
+   *
+   * @param signature a character sequence containing the internal name of a class.
+   * @param startOffset the index of the first character of the internal name in 'signature'.
+   * @param endOffset the index of the character after the last character of the internal name.
+   * @return whether {@link #mapType(String)} changes the given internal name.
+   */
+  protected boolean isTypeMapped(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    String internalName = signature.subSequence(startOffset, endOffset).toString();
+    return !internalName.equals(mapType(internalName));
   }
 
   /**
@@ -555,4 +644,63 @@ public abstract class Remapper {
   public String map(final String internalName) {
     return internalName;
   }
+
+  /**
+   * A {@link SignatureVisitor} which checks whether a {@link SignatureRemapper} would change at
+   * least one class name of a signature, using {@link #isTypeMapped}.
+   */
+  private final class SignatureMappingChecker extends SignatureVisitor {
+
+    /**
+     * The internal names of the class types being visited, one after the other. Inner class types
+     * are appended to the name of their outer class, with a '$' separator.
+     */
+    private final StringBuilder internalNames = new StringBuilder();
+
+    /** The start offsets of the class types being visited in {@link #internalNames}. */
+    private int[] internalNameOffsets = new int[4];
+
+    /** The number of class types being visited. */
+    private int internalNameCount;
+
+    /** Whether at least one visited class name is changed by {@link #isTypeMapped}. */
+    boolean hasMappedType;
+
+    SignatureMappingChecker() {
+      super(/* latest api = */ Opcodes.ASM9);
+    }
+
+    @Override
+    public void visitClassType(
+        final CharSequence signature, final int startOffset, final int endOffset) {
+      if (internalNameCount == internalNameOffsets.length) {
+        int[] newInternalNameOffsets = new int[2 * internalNameCount];
+        System.arraycopy(internalNameOffsets, 0, newInternalNameOffsets, 0, internalNameCount);
+        internalNameOffsets = newInternalNameOffsets;
+      }
+      internalNameOffsets[internalNameCount++] = internalNames.length();
+      internalNames.append(signature, startOffset, endOffset);
+      checkLastInternalName();
+    }
+
+    @Override
+    public void visitInnerClassType(
+        final CharSequence signature, final int startOffset, final int endOffset) {
+      internalNames.append('$').append(signature, startOffset, endOffset);
+      checkLastInternalName();
+    }
+
+    @Override
+    public void visitEnd() {
+      internalNames.setLength(internalNameOffsets[--internalNameCount]);
+    }
+
+    private void checkLastInternalName() {
+      if (!hasMappedType) {
+        hasMappedType =
+            isTypeMapped(
+                internalNames, internalNameOffsets[internalNameCount - 1], internalNames.length());
+      }
+    }
+  }
 }
@@ -45,6 +45,14 @@ public class SignatureRemapper extends SignatureVisitor {
 
   private ArrayList<String> classNames = new ArrayList<>();
 
+  /**
+   * Whether the visit methods taking a range of characters can forward this range unchanged to
+   * {@link #signatureVisitor} when the remapper does not change the corresponding name. This is
+   * false for subclasses, which might override the visit methods taking a String, and must
+   * therefore still be called with a String.
+   */
+  private final boolean forwardRanges;
+
   /**
    * Constructs a new {@link SignatureRemapper}. <i>Subclasses must not use this constructor</i>.
    * Instead, they must use the {@link #SignatureRemapper(int,SignatureVisitor,Remapper)} version.
@@ -69,6 +77,7 @@ public class SignatureRemapper extends SignatureVisitor {
     super(api);
     this.signatureVisitor = signatureVisitor;
     this.remapper = remapper;
+    this.forwardRanges = getClass() == SignatureRemapper.class;
   }
 
   @Override
@@ -77,18 +86,74 @@ public class SignatureRemapper extends SignatureVisitor {
     signatureVisitor.visitClassType(remapper.mapType(name));
   }
 
+  @Override
+  public void visitClassType(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    if (!forwardRanges) {
+      super.visitClassType(signature, startOffset, endOffset);
+      return;
+    }
+    String name = signature.subSequence(startOffset, endOffset).toString();
+    classNames.add(name);
+    String remappedName = remapper.mapType(name);
+    if (remappedName.equals(name)) {
+      signatureVisitor.visitClassType(signature, startOffset, endOffset);
+    } else {
+      signatureVisitor.visitClassType(remappedName);
+    }
+  }
+
   @Override
   public void visitInnerClassType(final String name) {
     String outerClassName = classNames.remove(classNames.size() - 1);
     String className = outerClassName + '$' + name;
     classNames.add(className);
-    String remappedOuter = remapper.mapType(outerClassName) + '$';
+    signatureVisitor.visitInnerClassType(
+        getRemappedInnerName(remapper.mapType(outerClassName), remapper.mapType(className)));
+  }
+
+  @Override
+  public void visitInnerClassType(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    if (!forwardRanges) {
+      super.visitInnerClassType(signature, startOffset, endOffset);
+      return;
+    }
+    String outerClassName = classNames.remove(classNames.size() - 1);
+    String className =
+        new StringBuilder(outerClassName.length() + 1 + endOffset - startOffset)
+            .append(outerClassName)
+            .append('$')
+            .append(signature, startOffset, endOffset)
+            .toString();
+    classNames.add(className);
+    String remappedOuter = remapper.mapType(outerClassName);
     String remappedName = remapper.mapType(className);
+    if (remappedOuter.equals(outerClassName) && remappedName.equals(className)) {
+      signatureVisitor.visitInnerClassType(signature, startOffset, endOffset);
+    } else {
+      signatureVisitor.visitInnerClassType(getRemappedInnerName(remappedOuter, remappedName));
+    }
+  }
+
+  /**
+   * Returns the local name of a remapped inner class.
+   *
+   * @param remappedOuter the remapped internal name of the outer class.
+   * @param remappedName the remapped internal name of the inner class.
+   * @return the part of 'remappedName' after 'remappedOuter' and '$', if 'remappedName' starts with
+   *     them, or the part after its last '$' otherwise.
+   */
+  private static String getRemappedInnerName(
+      final String remappedOuter, final String remappedName) {
+    int outerLength = remappedOuter.length();
     int index =
-        remappedName.startsWith(remappedOuter)
-            ? remappedOuter.length()
+        remappedName.length() > outerLength
+                && remappedName.charAt(outerLength) == '$'
+                && remappedName.startsWith(remappedOuter)
+            ? outerLength + 1
             : remappedName.lastIndexOf('$') + 1;
-    signatureVisitor.visitInnerClassType(remappedName.substring(index));
+    return remappedName.substring(index);
   }
 
   @Override
@@ -96,11 +161,31 @@ public class SignatureRemapper extends SignatureVisitor {
     signatureVisitor.visitFormalTypeParameter(name);
   }
 
+  @Override
+  public void visitFormalTypeParameter(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    if (!forwardRanges) {
+      super.visitFormalTypeParameter(signature, startOffset, endOffset);
+      return;
+    }
+    signatureVisitor.visitFormalTypeParameter(signature, startOffset, endOffset);
+  }
+
   @Override
   public void visitTypeVariable(final String name) {
     signatureVisitor.visitTypeVariable(name);
   }
 
+  @Override
+  public void visitTypeVariable(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    if (!forwardRanges) {
+      super.visitTypeVariable(signature, startOffset, endOffset);
+      return;
+    }
+    signatureVisitor.visitTypeVariable(signature, startOffset, endOffset);
+  }
+
   @Override
   public SignatureVisitor visitArrayType() {
     signatureVisitor.visitArrayType();
@@ -29,6 +29,7 @@ package org.objectweb.asm.commons;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.objectweb.asm.commons.GeneratorAdapter.EQ;
 import static org.objectweb.asm.commons.GeneratorAdapter.GE;
@@ -46,6 +47,7 @@ import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.util.Textifier;
@@ -90,6 +92,20 @@ class GeneratorAdapterTest {
     assertArrayEquals(new Type[] {Type.INT_TYPE}, generatorAdapter.getArgumentTypes());
   }
 
+  @Test
+  void testSetTypeCache() {
+    TypeCache typeCache = new TypeCache();
+    GeneratorAdapter generatorAdapter =
+        new GeneratorAdapter(
+            new MethodNode(), Opcodes.ACC_PUBLIC, "m", "(ILjava/lang/String;)[Ljava/lang/String;");
+
+    generatorAdapter.setTypeCache(typeCache);
+
+    assertSame(typeCache.getType("[Ljava/lang/String;"), generatorAdapter.getReturnType());
+    assertSame(Type.INT_TYPE, generatorAdapter.getArgumentTypes()[0]);
+    assertSame(typeCache.getObjectType("java/lang/String"), generatorAdapter.getArgumentTypes()[1]);
+  }
+
   @Test
   void testConstructor_withClassVisitorAndExceptions() {
     ClassNode classNode = new ClassNode();
@@ -45,6 +45,7 @@ import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypeCache;
 import org.objectweb.asm.test.AsmTest;
 import org.objectweb.asm.test.ClassFile;
 import org.objectweb.asm.tree.MethodNode;
@@ -226,8 +227,31 @@ class LocalVariablesSorterTest extends AsmTest {
     assertDoesNotThrow(() -> new ClassFile(classWriter.toByteArray()).newInstance());
   }
 
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testAllMethods_precompiledClassWithTypeCache(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    ClassWriter classWriter = new ClassWriter(0);
+    ClassWriter typeCacheClassWriter = new ClassWriter(0);
+    LocalVariablesSorterClassAdapter typeCacheLocalVariablesSorter =
+        new LocalVariablesSorterClassAdapter(apiParameter.value(), typeCacheClassWriter);
+    typeCacheLocalVariablesSorter.typeCache = new TypeCache(/* maximumSize= */ 16);
+
+    classReader.accept(
+        new LocalVariablesSorterClassAdapter(apiParameter.value(), classWriter),
+        ClassReader.EXPAND_FRAMES);
+    classReader.accept(typeCacheLocalVariablesSorter, ClassReader.EXPAND_FRAMES);
+
+    assertEquals(
+        new ClassFile(classWriter.toByteArray()),
+        new ClassFile(typeCacheClassWriter.toByteArray()));
+  }
+
   static class LocalVariablesSorterClassAdapter extends ClassVisitor {
 
+    TypeCache typeCache;
+
     LocalVariablesSorterClassAdapter(final int api, final ClassVisitor classVisitor) {
       super(api, classVisitor);
     }
@@ -241,7 +265,10 @@ class LocalVariablesSorterTest extends AsmTest {
         final String[] exceptions) {
       MethodVisitor methodVisitor =
           super.visitMethod(access, name, descriptor, signature, exceptions);
-      return new LocalVariablesSorter(api, access, descriptor, methodVisitor) {};
+      LocalVariablesSorter localVariablesSorter =
+          new LocalVariablesSorter(api, access, descriptor, methodVisitor) {};
+      localVariablesSorter.setTypeCache(typeCache);
+      return localVariablesSorter;
     }
   }
 }
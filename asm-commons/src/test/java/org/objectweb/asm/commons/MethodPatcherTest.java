@@ -0,0 +1,193 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.commons;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.test.ClassFile;
+
+/** Unit tests for {@link MethodPatcher}. */
+class MethodPatcherTest {
+
+  @Test
+  void testConstructor() {
+    assertThrows(IllegalArgumentException.class, () -> new MethodPatcher(0, null));
+  }
+
+  @Test
+  void testConstructor_overriddenVisitMethod() {
+    Executable constructor =
+        () ->
+            new MethodPatcher(/* latest */ Opcodes.ASM10_EXPERIMENTAL, null) {
+              @Override
+              public void visitLineNumber(final int line, final Label start) {
+                // Remove the line numbers.
+              }
+            };
+
+    Exception exception = assertThrows(IllegalStateException.class, constructor);
+    assertEquals(
+        "MethodPatcher subclasses must not override public void org.objectweb.asm.commons."
+            + "MethodPatcherTest$1.visitLineNumber(int,org.objectweb.asm.Label)",
+        exception.getMessage());
+  }
+
+  @Test
+  void testConstructor_overriddenVisitMethodInSuperClass() {
+    class LabelRemover extends MethodPatcher {
+      LabelRemover() {
+        super(/* latest */ Opcodes.ASM10_EXPERIMENTAL, null);
+      }
+
+      @Override
+      public void visitLabel(final Label label) {
+        // Remove the labels.
+      }
+    }
+
+    Executable constructor = () -> new LabelRemover() {};
+
+    assertThrows(IllegalStateException.class, constructor);
+  }
+
+  @Test
+  void testConstructor_otherMethods() {
+    Executable constructor =
+        () ->
+            new MethodPatcher(/* latest */ Opcodes.ASM10_EXPERIMENTAL, null) {
+              @Override
+              protected void onMethodEnter() {
+                visitInsn(Opcodes.NOP);
+              }
+
+              private void visitLabel() { // NOPMD(UnusedPrivateMethod): must be ignored.
+                // Not a MethodVisitor method.
+              }
+            };
+
+    assertDoesNotThrow(constructor);
+  }
+
+  /**
+   * Tests that the inserted code is executed, both when the method is copied and patched, and when
+   * it is visited.
+   */
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void testReadAndWrite(final boolean copy) throws Exception {
+    ClassReader classReader = new ClassReader(newCounterTestClass());
+    ClassWriter classWriter = new ClassWriter(classReader, copy ? 0 : ClassWriter.COMPUTE_MAXS);
+    int[] visitCodeCount = new int[1];
+
+    classReader.accept(
+        new ClassVisitor(/* latest */ Opcodes.ASM10_EXPERIMENTAL, classWriter) {
+          @Override
+          public MethodVisitor visitMethod(
+              final int access,
+              final String name,
+              final String descriptor,
+              final String signature,
+              final String[] exceptions) {
+            MethodVisitor methodWriter =
+                super.visitMethod(access, name, descriptor, signature, exceptions);
+            // If not copying, prevent the method from being copied as is.
+            MethodVisitor methodVisitor =
+                copy ? methodWriter : new MethodVisitor(api, methodWriter) {};
+            return new MethodPatcher(api, methodVisitor) {
+              @Override
+              protected void onMethodEnter() {
+                // The inserted code is sent to another visitor when the method is copied.
+                if (getDelegate() == methodVisitor) {
+                  visitCodeCount[0]++;
+                }
+                incrementCounter(1);
+              }
+
+              @Override
+              protected void onMethodExit(final int opcode) {
+                incrementCounter(10);
+              }
+
+              private void incrementCounter(final int increment) {
+                visitFieldInsn(Opcodes.GETSTATIC, "C", "counter", "I");
+                visitIntInsn(Opcodes.BIPUSH, increment);
+                visitInsn(Opcodes.IADD);
+                visitFieldInsn(Opcodes.PUTSTATIC, "C", "counter", "I");
+              }
+            };
+          }
+        },
+        0);
+    Class<?> testClass = new ClassFile(classWriter.toByteArray()).newInstance().getClass();
+
+    assertEquals(copy ? 0 : 2, visitCodeCount[0]);
+    // The constructor has been executed once by ClassFile.newInstance().
+    assertEquals(11, testClass.getField("counter").getInt(null));
+    assertEquals(0, testClass.getMethod("get").invoke(null));
+    assertEquals(22, testClass.getField("counter").getInt(null));
+  }
+
+  /** Returns a class with a static 'counter' field, and a static method returning 0. */
+  private static byte[] newCounterTestClass() {
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "C", null, "java/lang/Object", null);
+    classWriter
+        .visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "counter", "I", null, null)
+        .visitEnd();
+    MethodVisitor methodVisitor =
+        classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+    methodVisitor.visitCode();
+    methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+    methodVisitor.visitMethodInsn(
+        Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+    methodVisitor.visitInsn(Opcodes.RETURN);
+    methodVisitor.visitMaxs(0, 0);
+    methodVisitor.visitEnd();
+    methodVisitor =
+        classWriter.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "get", "()I", null, null);
+    methodVisitor.visitCode();
+    methodVisitor.visitInsn(Opcodes.ICONST_0);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    methodVisitor.visitMaxs(0, 0);
+    methodVisitor.visitEnd();
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
+}
@@ -31,6 +31,8 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -109,6 +111,40 @@ class MethodTest {
     assertEquals("(LObject;)V", withDefaultPackage.getDescriptor());
   }
 
+  @Test
+  void testGetMethod_cached() {
+    String declaration = "int name(long, java.lang.Object[])";
+    Method method1 = Method.getMethod(declaration);
+    Method method2 = Method.getMethod(new StringBuilder(declaration).toString());
+    Method method3 = Method.getMethod(declaration, true);
+
+    assertSame(method1, method2);
+    assertEquals(method1, method3);
+    assertNotSame(method1, method3);
+  }
+
+  @Test
+  void testGetArgumentTypes_cached() {
+    Method method = new Method("name", "(IJ)V");
+    Type[] argumentTypes1 = method.getArgumentTypes();
+    argumentTypes1[0] = Type.FLOAT_TYPE;
+
+    Type[] argumentTypes2 = method.getArgumentTypes();
+
+    assertArrayEquals(new Type[] {Type.INT_TYPE, Type.LONG_TYPE}, argumentTypes2);
+    assertSame(method.getReturnType(), method.getReturnType());
+  }
+
+  @Test
+  void testConstructor_fromTypesCopiesArgumentTypes() {
+    Type[] argumentTypes = new Type[] {Type.INT_TYPE};
+    Method method = new Method("name", Type.VOID_TYPE, argumentTypes);
+    argumentTypes[0] = Type.FLOAT_TYPE;
+
+    assertArrayEquals(new Type[] {Type.INT_TYPE}, method.getArgumentTypes());
+    assertEquals("(I)V", method.getDescriptor());
+  }
+
   @Test
   void testEquals() {
     Method nullMethod = null;
@@ -28,10 +28,14 @@
 package org.objectweb.asm.commons;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.signature.SignatureVisitor;
 
 /**
  * Unit tests for {@link SimpleRemapper}.
@@ -88,4 +92,178 @@ class SimpleRemapperTest {
 
     assertEquals("LRenamedOuter<Ljava/lang/Object;>.RenamedInner;", remappedSignature);
   }
+
+  @Test
+  void testMapSignature_noRemapping() {
+    String inputSignature =
+        "<K:Ljava/lang/Object;V::Ljava/lang/Comparable<-TV;>;>LOuter<TK;>.Inner<[TV;*>;"
+            + "Ljava/util/Map<TK;+LOuter$Inner;>;";
+    Remapper remapper =
+        new SimpleRemapper(/* latest */ Opcodes.ASM10_EXPERIMENTAL, Map.of("Other", "Renamed"));
+
+    String remappedSignature = remapper.mapSignature(inputSignature, false);
+
+    assertEquals(inputSignature, remappedSignature);
+  }
+
+  @Test
+  void testMapSignature_signatureRemapperSubclass() {
+    String inputSignature = "<T:Ljava/lang/Object;>LOuter<TT;>.Inner;";
+    List<String> visitedNames = new ArrayList<>();
+    Remapper remapper =
+        new SimpleRemapper(/* latest */ Opcodes.ASM10_EXPERIMENTAL, Map.of("Outer", "Renamed")) {
+          @Override
+          protected SignatureVisitor createSignatureRemapper(
+              final SignatureVisitor signatureVisitor) {
+            return new SignatureRemapper(api, signatureVisitor, this) {
+              @Override
+              public void visitClassType(final String name) {
+                visitedNames.add(name);
+                super.visitClassType(name);
+              }
+
+              @Override
+              public void visitInnerClassType(final String name) {
+                visitedNames.add(name);
+                super.visitInnerClassType(name);
+              }
+
+              @Override
+              public void visitTypeVariable(final String name) {
+                visitedNames.add(name);
+                super.visitTypeVariable(name);
+              }
+            };
+          }
+        };
+
+    String remappedSignature = remapper.mapSignature(inputSignature, false);
+
+    assertEquals("<T:Ljava/lang/Object;>LRenamed<TT;>.Inner;", remappedSignature);
+    assertEquals(List.of("java/lang/Object", "Outer", "T", "Inner"), visitedNames);
+  }
+
+  @Test
+  void testMapSignature_noRemapping_returnsSameInstance() {
+    String inputSignature =
+        new StringBuilder("<T:Ljava/lang/Object;>LOuter<TT;>.Inner<[TT;>;Ljava/util/List<*>;")
+            .toString();
+    String inputTypeSignature = new StringBuilder("LOuter<Ljava/lang/String;>.Inner;").toString();
+    Remapper remapper =
+        new SimpleRemapper(/* latest */ Opcodes.ASM10_EXPERIMENTAL, Map.of("Inner", "Renamed")) {
+          @Override
+          protected boolean isTypeMapped(
+              final CharSequence signature, final int startOffset, final int endOffset) {
+            return signature.subSequence(startOffset, endOffset).toString().equals("Inner");
+          }
+        };
+
+    String remappedSignature = remapper.mapSignature(inputSignature, false);
+    String remappedTypeSignature = remapper.mapSignature(inputTypeSignature, true);
+
+    assertSame(inputSignature, remappedSignature);
+    assertSame(inputTypeSignature, remappedTypeSignature);
+  }
+
+  @Test
+  void testMapSignature_defaultIsTypeMapped_mapsEachNameOnce() {
+    String inputSignature = "Ljava/util/Map<LA;LB;>;";
+    List<String> mappedNames = new ArrayList<>();
+    Remapper remapper =
+        new SimpleRemapper(/* latest */ Opcodes.ASM10_EXPERIMENTAL, Map.of("A", "RenamedA")) {
+          @Override
+          public String map(final String key) {
+            mappedNames.add(key);
+            return super.map(key);
+          }
+        };
+
+    String remappedSignature = remapper.mapSignature(inputSignature, true);
+
+    assertEquals("Ljava/util/Map<LRenamedA;LB;>;", remappedSignature);
+    assertEquals(List.of("java/util/Map", "A", "B"), mappedNames);
+  }
+
+  @Test
+  void testMapSignature_isTypeMappedAndCustomSignatureRemapper() {
+    String inputSignature = "<T:Ljava/lang/Object;>Ljava/util/List<TT;>;";
+    Remapper remapper =
+        new SimpleRemapper(/* latest */ Opcodes.ASM10_EXPERIMENTAL, Map.of()) {
+          @Override
+          protected boolean isTypeMapped(
+              final CharSequence signature, final int startOffset, final int endOffset) {
+            return false;
+          }
+
+          @Override
+          protected SignatureVisitor createSignatureRemapper(
+              final SignatureVisitor signatureVisitor) {
+            return new SignatureRemapper(api, signatureVisitor, this) {
+              @Override
+              public void visitFormalTypeParameter(final String name) {
+                super.visitFormalTypeParameter(name + name);
+              }
+            };
+          }
+        };
+
+    String remappedSignature = remapper.mapSignature(inputSignature, false);
+
+    assertEquals("<TT:Ljava/lang/Object;>Ljava/util/List<TT;>;", remappedSignature);
+  }
+
+  @Test
+  void testMapSignature_remapDeeplyNestedTypeArgument() {
+    String inputSignature = "LA<LB<LC<LD<LE<LF;>;>;>;>;>;LG;";
+    Remapper remapper =
+        new SimpleRemapper(/* latest */ Opcodes.ASM10_EXPERIMENTAL, Map.of("F", "RenamedF"));
+
+    String remappedSignature = remapper.mapSignature(inputSignature, false);
+
+    assertEquals("LA<LB<LC<LD<LE<LRenamedF;>;>;>;>;>;LG;", remappedSignature);
+  }
+
+  @Test
+  void testMapSignature_isTypeMappedOverride() {
+    String inputSignature = "Ljava/util/List<LOuter;>;";
+    Remapper remapper =
+        new SimpleRemapper(/* latest */ Opcodes.ASM10_EXPERIMENTAL, Map.of("Outer", "Renamed")) {
+          @Override
+          protected boolean isTypeMapped(
+              final CharSequence signature, final int startOffset, final int endOffset) {
+            return false;
+          }
+        };
+
+    String remappedSignature = remapper.mapSignature(inputSignature, true);
+
+    assertSame(inputSignature, remappedSignature);
+  }
+
+  @Test
+  void testMapSignature_customSignatureRemapper() {
+    String inputSignature = "<T:Ljava/lang/Object;>Ljava/util/List<TT;>;";
+    Remapper remapper =
+        new SimpleRemapper(/* latest */ Opcodes.ASM10_EXPERIMENTAL, Map.of()) {
+          @Override
+          protected SignatureVisitor createSignatureRemapper(
+              final SignatureVisitor signatureVisitor) {
+            return new SignatureRemapper(api, signatureVisitor, this) {
+              @Override
+              public void visitFormalTypeParameter(final String name) {
+                super.visitFormalTypeParameter(name + name);
+              }
+
+              @Override
+              public void visitTypeVariable(final String name) {
+                super.visitTypeVariable(name + name);
+              }
+            };
+          }
+        };
+
+    String remappedSignature = remapper.mapSignature(inputSignature, false);
+
+    assertEquals("<TT:Ljava/lang/Object;>Ljava/util/List<TTT;>;", remappedSignature);
+  }
 }
@@ -116,8 +116,8 @@ public abstract class AbstractInsnNode {
 
   /**
    * The index of this instruction in the list to which it belongs. The value of this field is
-   * correct only when {@link InsnList#cache} is not null. A value of -1 indicates that this
-   * instruction does not belong to any {@link InsnList}.
+   * correct only when this instruction is in the valid part of {@link InsnList#cache}. A value of
+   * -1 indicates that this instruction does not belong to any {@link InsnList}.
    */
   int index;
 
@@ -30,6 +30,7 @@ package org.objectweb.asm.tree;
 import java.util.ArrayList;
 import java.util.List;
 import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Opcodes;
 
 /**
@@ -48,10 +49,22 @@ public class AnnotationNode extends AnnotationVisitor {
    * Boolean}, {@link Character}, {@link Short}, {@link Integer}, {@link Long}, {@link Float},
    * {@link Double}, {@link String} or {@link org.objectweb.asm.Type}, or a two elements String
    * array (for enumeration values), an {@link AnnotationNode}, or a {@link List} of values of one
-   * of the preceding types. The list may be {@literal null} if there is no name value pair.
+   * of the preceding types. The list may be {@literal null} if there is no name value pair. If this
+   * annotation has been read with the {@link ClassReader#LAZY_ANNOTATIONS} option, this list is
+   * only set after {@link #readValues} has been called.
    */
   public List<Object> values;
 
+  /**
+   * The class reader from which the values of this annotation must be decoded, or {@literal null}
+   * if they have been decoded (or if this annotation was not read with the {@link
+   * ClassReader#LAZY_ANNOTATIONS} option).
+   */
+  private ClassReader valuesReader;
+
+  /** The offset of the values of this annotation in {@link #valuesReader}. */
+  private int valuesOffset;
+
   /**
    * Constructs a new {@link AnnotationNode}. <i>Subclasses must not use this constructor</i>.
    * Instead, they must use the {@link #AnnotationNode(int, String)} version.
@@ -158,11 +171,44 @@ public class AnnotationNode extends AnnotationVisitor {
     return new AnnotationNode(array);
   }
 
+  @Override
+  public boolean visitElementValuePairs(final ClassReader classReader, final int offset) {
+    if (values != null || valuesReader != null) {
+      return false;
+    }
+    valuesReader = classReader;
+    valuesOffset = offset;
+    return true;
+  }
+
   @Override
   public void visitEnd() {
     // Nothing to do.
   }
 
+  // ------------------------------------------------------------------------
+  // Lazy values decoding
+  // ------------------------------------------------------------------------
+
+  /**
+   * Decodes the values of this annotation in {@link #values}, if it has been read with the {@link
+   * ClassReader#LAZY_ANNOTATIONS} option and if they have not been decoded yet. Otherwise, does
+   * nothing. Until this method is called, the values of this annotation are only stored as a
+   * reference to the class reader from which they have been read, and are copied as is by {@link
+   * #accept} into the visitors returned by a {@link org.objectweb.asm.ClassWriter} constructed with
+   * this class reader. <i>The {@link #values} field must not be used before this method is
+   * called</i>.
+   */
+  public void readValues() {
+    if (valuesReader != null) {
+      ClassReader classReader = valuesReader;
+      valuesReader = null;
+      // Use a visitor which does not take the values in their class file form, to decode them.
+      classReader.acceptElementValuePairs(
+          new AnnotationVisitor(/* latest api = */ Opcodes.ASM9, this) {}, valuesOffset);
+    }
+  }
+
   // ------------------------------------------------------------------------
   // Accept methods
   // ------------------------------------------------------------------------
@@ -180,20 +226,26 @@ public class AnnotationNode extends AnnotationVisitor {
   }
 
   /**
-   * Makes the given visitor visit this annotation.
+   * Makes the given visitor visit this annotation. If the values of this annotation have not been
+   * decoded yet (see {@link #readValues}), they are visited from the class reader from which they
+   * have been read (see {@link ClassReader#acceptElementValuePairs}).
    *
    * @param annotationVisitor an annotation visitor. Maybe {@literal null}.
    */
   public void accept(final AnnotationVisitor annotationVisitor) {
     if (annotationVisitor != null) {
-      if (values != null) {
-        for (int i = 0, n = values.size(); i < n; i += 2) {
-          String name = (String) values.get(i);
-          Object value = values.get(i + 1);
-          accept(annotationVisitor, name, value);
+      if (valuesReader != null) {
+        valuesReader.acceptElementValuePairs(annotationVisitor, valuesOffset);
+      } else {
+        if (values != null) {
+          for (int i = 0, n = values.size(); i < n; i += 2) {
+            String name = (String) values.get(i);
+            Object value = values.get(i + 1);
+            accept(annotationVisitor, name, value);
+          }
         }
+        annotationVisitor.visitEnd();
       }
-      annotationVisitor.visitEnd();
     }
   }
 
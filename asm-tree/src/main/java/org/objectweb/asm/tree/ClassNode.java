@@ -28,10 +28,18 @@
 package org.objectweb.asm.tree;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.ModuleVisitor;
@@ -156,6 +164,30 @@ public class ClassNode extends ClassVisitor {
   /** The methods of this class. */
   public List<MethodNode> methods;
 
+  /**
+   * The class reader from which the code of the methods created by {@link #visitMethod} must be
+   * lazily read, or {@literal null}. This is only set during {@link #readLazily}.
+   */
+  private ClassReader lazyCodeReader;
+
+  /** The prototypes of the attributes to parse in the code of the methods. */
+  private Attribute[] lazyCodeAttributePrototypes;
+
+  /** The options to use to parse the code of the methods in {@link #lazyCodeReader}. */
+  private int lazyCodeParsingOptions;
+
+  /** The offsets of the method_info structures of {@link #lazyCodeReader}. */
+  private int[] lazyMethodInfoOffsets;
+
+  /**
+   * The index in {@link #lazyMethodInfoOffsets} of the method_info structure following the last one
+   * matched by {@link #getLazyMethodInfoOffset}.
+   */
+  private int lazyMethodInfoIndex;
+
+  /** The buffer used to read the method names and descriptors in {@link #lazyCodeReader}. */
+  private char[] lazyCharBuffer;
+
   /**
    * Constructs a new {@link ClassNode}. <i>Subclasses must not use this constructor</i>. Instead,
    * they must use the {@link #ClassNode(int)} version.
@@ -300,15 +332,138 @@ public class ClassNode extends ClassVisitor {
       final String signature,
       final String[] exceptions) {
     MethodNode method = new MethodNode(access, name, descriptor, signature, exceptions);
+    if (lazyCodeReader != null) {
+      int methodInfoOffset = getLazyMethodInfoOffset(name, descriptor);
+      if (methodInfoOffset != 0) {
+        method.setCodeReader(
+            lazyCodeReader, methodInfoOffset, lazyCodeAttributePrototypes, lazyCodeParsingOptions);
+      }
+    }
     methods.add(method);
     return method;
   }
 
+  /**
+   * Returns the offset of the method_info structure of a method in {@link #lazyCodeReader}. Since
+   * the methods are visited in the order of their method_info structures, the search starts after
+   * the last matched structure, so that it usually examines only one structure.
+   *
+   * @param name the method's name.
+   * @param descriptor the method's descriptor.
+   * @return the offset of the method_info structure of the method with the given name and
+   *     descriptor in {@link #lazyCodeReader}, or 0 if there is none.
+   */
+  private int getLazyMethodInfoOffset(final String name, final String descriptor) {
+    for (int i = lazyMethodInfoIndex; i < lazyMethodInfoOffsets.length; ++i) {
+      int methodInfoOffset = lazyMethodInfoOffsets[i];
+      if (name.equals(lazyCodeReader.readUTF8(methodInfoOffset + 2, lazyCharBuffer))
+          && descriptor.equals(lazyCodeReader.readUTF8(methodInfoOffset + 4, lazyCharBuffer))) {
+        lazyMethodInfoIndex = i + 1;
+        return methodInfoOffset;
+      }
+    }
+    return 0;
+  }
+
   @Override
   public void visitEnd() {
     // Nothing to do.
   }
 
+  // -----------------------------------------------------------------------------------------------
+  // Lazy reading
+  // -----------------------------------------------------------------------------------------------
+
+  /**
+   * Makes the given class reader visit this class node, except for the code of its methods. This
+   * code is read on demand, by {@link MethodNode#readCode}, in the {@link MethodNode} objects
+   * created by {@link #visitMethod}. This is much faster, and uses much less memory, than {@code
+   * classReader.accept(this, parsingOptions)} when only a few methods need to be analyzed or
+   * transformed. Moreover, if this class node is then visited by a {@link
+   * org.objectweb.asm.ClassWriter} constructed with the same class reader, the code which has not
+   * been read is copied as is in the new class (see {@link ClassReader#acceptCode}).
+   *
+   * @param classReader the class reader from which this class node must be read. It must be kept
+   *     unchanged as long as some method code has not been read.
+   * @param parsingOptions the options to use to parse the class (see {@link
+   *     ClassReader#accept(ClassVisitor, int)}). If {@link ClassReader#SKIP_CODE} is set, the
+   *     method nodes don't have any code to read.
+   */
+  public void readLazily(final ClassReader classReader, final int parsingOptions) {
+    readLazily(classReader, new Attribute[0], parsingOptions);
+  }
+
+  /**
+   * Makes the given class reader visit this class node, except for the code of its methods, which
+   * is read on demand (see {@link #readLazily(ClassReader, int)}).
+   *
+   * @param classReader the class reader from which this class node must be read. It must be kept
+   *     unchanged as long as some method code has not been read.
+   * @param attributePrototypes prototypes of the attributes that must be parsed during the visit of
+   *     the class, and of the code of its methods (see {@link ClassReader#accept(ClassVisitor,
+   *     Attribute[], int)}).
+   * @param parsingOptions the options to use to parse the class (see {@link
+   *     ClassReader#accept(ClassVisitor, int)}). If {@link ClassReader#SKIP_CODE} is set, the
+   *     method nodes don't have any code to read.
+   */
+  public void readLazily(
+      final ClassReader classReader,
+      final Attribute[] attributePrototypes,
+      final int parsingOptions) {
+    if ((parsingOptions & ClassReader.SKIP_CODE) == 0) {
+      lazyCodeReader = classReader;
+      lazyCodeAttributePrototypes = attributePrototypes.clone();
+      lazyCodeParsingOptions = parsingOptions;
+      lazyMethodInfoOffsets = classReader.getMethodInfoOffsets();
+      lazyMethodInfoIndex = 0;
+      lazyCharBuffer = new char[classReader.getMaxStringLength()];
+    }
+    try {
+      classReader.accept(this, attributePrototypes, parsingOptions | ClassReader.SKIP_CODE);
+    } finally {
+      lazyCodeReader = null;
+      lazyCodeAttributePrototypes = null;
+      lazyMethodInfoOffsets = null;
+      lazyCharBuffer = null;
+    }
+  }
+
+  // -----------------------------------------------------------------------------------------------
+  // Copy methods
+  // -----------------------------------------------------------------------------------------------
+
+  /**
+   * Returns a deep copy of this class node. The copy does not share any mutable object with this
+   * node, except the non standard attributes. Its methods are copied with {@link MethodNode#copy}.
+   *
+   * @return a deep copy of this class node.
+   */
+  public ClassNode copy() {
+    ClassNode copy = new ClassNode();
+    accept(copy, /* visitMethods= */ false);
+    for (int i = 0, n = methods.size(); i < n; ++i) {
+      copy.methods.add(methods.get(i).copy());
+    }
+    return copy;
+  }
+
+  /**
+   * Returns a copy of this class node whose method code is only copied on demand. The methods of
+   * the copy are created with {@link MethodNode#copyLazily}, and thus share their code with the
+   * methods of this node until {@link MethodNode#readCode} is called on them. <i>The code of the
+   * methods of this node must not be modified before the code of the copied methods is read</i>.
+   *
+   * @return a copy of this class node, whose method code is copied on demand.
+   */
+  public ClassNode copyLazily() {
+    ClassNode copy = new ClassNode();
+    accept(copy, /* visitMethods= */ false);
+    for (int i = 0, n = methods.size(); i < n; ++i) {
+      copy.methods.add(methods.get(i).copyLazily());
+    }
+    return copy;
+  }
+
   // -----------------------------------------------------------------------------------------------
   // Accept method
   // -----------------------------------------------------------------------------------------------
@@ -382,6 +537,50 @@ public class ClassNode extends ClassVisitor {
    * @param classVisitor a class visitor.
    */
   public void accept(final ClassVisitor classVisitor) {
+    accept(classVisitor, /* visitMethods= */ true);
+  }
+
+  /**
+   * Makes the given class writer visit this class, and writes the methods of this class
+   * concurrently, with the given executor service. The result is the same as with {@link
+   * #accept(ClassVisitor)}. The methods are split in groups of consecutive methods, each visited in
+   * its own fork of the class writer (see {@link ClassWriter#fork}), in two passes: one to compute
+   * the constant pool, and one to write the methods.
+   *
+   * <p>The code of the methods which have not been read yet (see {@link #readLazily}) is visited
+   * concurrently from their class reader, without being stored in the method nodes. This is safe
+   * because a class reader can be read by several threads concurrently. On the other hand, the
+   * methods whose code is shared (see {@link MethodNode#copyLazily}) are always visited in the same
+   * group, because they share the same labels. This class node must not be modified during this
+   * method.
+   *
+   * @param classWriter a class writer. Its {@link ClassWriter#getCommonSuperClass} method must be
+   *     thread safe.
+   * @param executorService the executor service used to visit the methods of this class.
+   * @throws InterruptedException if the current thread is interrupted while waiting for the methods
+   *     to be visited.
+   */
+  public void accept(final ClassWriter classWriter, final ExecutorService executorService)
+      throws InterruptedException {
+    // ClassWriter.visitEnd() does nothing, so the methods can be added after it has been called.
+    accept(classWriter, /* visitMethods= */ false);
+    int forkCount = Math.min(methods.size(), Runtime.getRuntime().availableProcessors());
+    int[] groupStarts = computeMethodGroupStarts(forkCount);
+    for (ClassWriter fork : visitMethods(classWriter, groupStarts, executorService)) {
+      classWriter.mergeConstantPool(fork);
+    }
+    for (ClassWriter fork : visitMethods(classWriter, groupStarts, executorService)) {
+      classWriter.mergeMethods(fork);
+    }
+  }
+
+  /**
+   * Makes the given class visitor visit this class.
+   *
+   * @param classVisitor a class visitor.
+   * @param visitMethods whether the methods of this class must be visited.
+   */
+  private void accept(final ClassVisitor classVisitor, final boolean visitMethods) {
     // Visit the header.
     String[] interfacesArray = new String[this.interfaces.size()];
     this.interfaces.toArray(interfacesArray);
@@ -464,9 +663,90 @@ public class ClassNode extends ClassVisitor {
       fields.get(i).accept(classVisitor);
     }
     // Visit the methods.
-    for (int i = 0, n = methods.size(); i < n; ++i) {
-      methods.get(i).accept(classVisitor);
+    if (visitMethods) {
+      for (int i = 0, n = methods.size(); i < n; ++i) {
+        methods.get(i).accept(classVisitor);
+      }
     }
     classVisitor.visitEnd();
   }
+
+  /**
+   * Splits the methods of this class in groups of consecutive methods, of similar sizes, such that
+   * the methods sharing the same code (see {@link MethodNode#getCodeNode}) are in the same group.
+   *
+   * @param groupCount the number of groups. Must be less than or equal to the number of methods.
+   * @return the index of the first method of each group, followed by the number of methods. Some
+   *     groups can be empty if many methods share the same code.
+   */
+  int[] computeMethodGroupStarts(final int groupCount) {
+    int methodCount = methods.size();
+    Map<MethodNode, Integer> lastMethodIndices = new IdentityHashMap<>();
+    for (int i = 0; i < methodCount; ++i) {
+      lastMethodIndices.put(methods.get(i).getCodeNode(), i);
+    }
+    int[] groupStarts = new int[groupCount + 1];
+    int groupIndex = 1;
+    // The index of the last method sharing its code with one of the methods visited so far.
+    int lastSharingMethodIndex = 0;
+    for (int i = 0; i < methodCount && groupIndex < groupCount; ++i) {
+      lastSharingMethodIndex =
+          Math.max(lastSharingMethodIndex, lastMethodIndices.get(methods.get(i).getCodeNode()));
+      if (lastSharingMethodIndex == i && i + 1 >= groupIndex * methodCount / groupCount) {
+        groupStarts[groupIndex++] = i + 1;
+      }
+    }
+    while (groupIndex <= groupCount) {
+      groupStarts[groupIndex++] = methodCount;
+    }
+    return groupStarts;
+  }
+
+  /**
+   * Makes new forks of the given class writer visit the methods of this class, concurrently.
+   *
+   * @param classWriter a class writer.
+   * @param groupStarts the index of the first method of each group of consecutive methods, followed
+   *     by the number of methods (see {@link #computeMethodGroupStarts}). Each group is visited by
+   *     its own fork.
+   * @param executorService the executor service used to visit the methods of this class.
+   * @return the forks of the given class writer, in the order of the methods they visited.
+   * @throws InterruptedException if the current thread is interrupted while waiting for the methods
+   *     to be visited.
+   */
+  private ClassWriter[] visitMethods(
+      final ClassWriter classWriter, final int[] groupStarts, final ExecutorService executorService)
+      throws InterruptedException {
+    int forkCount = groupStarts.length - 1;
+    ClassWriter[] forks = new ClassWriter[forkCount];
+    List<Callable<Void>> tasks = new ArrayList<>(forkCount);
+    for (int i = 0; i < forkCount; ++i) {
+      final ClassWriter fork = classWriter.fork();
+      final List<MethodNode> forkMethods = methods.subList(groupStarts[i], groupStarts[i + 1]);
+      forks[i] = fork;
+      tasks.add(
+          new Callable<Void>() {
+            @Override
+            public Void call() {
+              for (MethodNode method : forkMethods) {
+                method.accept(fork);
+              }
+              return null;
+            }
+          });
+    }
+    for (Future<Void> future : executorService.invokeAll(tasks)) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        // The tasks can only throw unchecked exceptions, which are rethrown as is.
+        Throwable cause = e.getCause();
+        if (cause instanceof Error) {
+          throw (Error) cause; // NOPMD(PreserveStackTrace): the cause has the relevant stack trace.
+        }
+        throw (RuntimeException) cause; // NOPMD(PreserveStackTrace): idem.
+      }
+    }
+    return forks;
+  }
 }
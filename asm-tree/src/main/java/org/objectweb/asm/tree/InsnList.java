@@ -48,10 +48,28 @@ public class InsnList implements Iterable<AbstractInsnNode> {
 
   /**
    * A cache of the instructions of this list. This cache is used to improve the performance of the
-   * {@link #get} method.
+   * {@link #get} and {@link #indexOf} methods. Only its first {@link #cacheSize} elements are
+   * valid.
    */
   AbstractInsnNode[] cache;
 
+  /**
+   * The number of valid elements in {@link #cache}. The first cacheSize instructions of this list
+   * are stored at their index in {@link #cache}, and their {@link AbstractInsnNode#index} is
+   * correct. The cache and the index of the following instructions are rebuilt on demand, up to the
+   * requested instruction. The methods which modify the list only truncate the cache at the first
+   * instruction whose index changes, so that passes which modify a list while moving forward in it
+   * don't rebuild the whole cache after each modification.
+   */
+  private int cacheSize;
+
+  /**
+   * The number of modifications of this list, i.e. of calls to the methods which add, remove or
+   * replace instructions. This is used to detect whether the code of a method node has changed
+   * since it was read (see {@link MethodNode#readCode}).
+   */
+  int modificationCount;
+
   /**
    * Returns the number of instructions in this list.
    *
@@ -82,8 +100,8 @@ public class InsnList implements Iterable<AbstractInsnNode> {
   /**
    * Returns the instruction whose index is given. This method builds a cache of the instructions in
    * this list to avoid scanning the whole list each time it is called. Once the cache is built,
-   * this method runs in constant time. This cache is invalidated by all the methods that modify the
-   * list.
+   * this method runs in constant time. The methods that modify the list invalidate this cache from
+   * the first modified instruction, and it is then rebuilt up to the requested instruction only.
    *
    * @param index the index of the instruction that must be returned.
    * @return the instruction whose index is given.
@@ -93,8 +111,8 @@ public class InsnList implements Iterable<AbstractInsnNode> {
     if (index < 0 || index >= size) {
       throw new IndexOutOfBoundsException();
     }
-    if (cache == null) {
-      cache = toArray();
+    if (index >= cacheSize) {
+      updateCache(null, index);
     }
     return cache[index];
   }
@@ -118,8 +136,9 @@ public class InsnList implements Iterable<AbstractInsnNode> {
   /**
    * Returns the index of the given instruction in this list. This method builds a cache of the
    * instruction indexes to avoid scanning the whole list each time it is called. Once the cache is
-   * built, this method run in constant time. The cache is invalidated by all the methods that
-   * modify the list.
+   * built, this method run in constant time. The methods that modify the list invalidate this cache
+   * from the first modified instruction, and it is then rebuilt up to the requested instruction
+   * only.
    *
    * @param insnNode an instruction <i>of this list</i>.
    * @return the index of the given instruction in this list. <i>The result of this method is
@@ -127,12 +146,60 @@ public class InsnList implements Iterable<AbstractInsnNode> {
    *     to test if an instruction belongs to an instruction list or not.
    */
   public int indexOf(final AbstractInsnNode insnNode) {
-    if (cache == null) {
-      cache = toArray();
+    if (!hasValidIndex(insnNode)) {
+      updateCache(insnNode, size);
     }
     return insnNode.index;
   }
 
+  /**
+   * Returns whether the index of the given instruction is known to be correct.
+   *
+   * @param insnNode an instruction.
+   * @return whether insnNode is one of the valid elements of {@link #cache}.
+   */
+  boolean hasValidIndex(final AbstractInsnNode insnNode) {
+    int index = insnNode.index;
+    return index >= 0 && index < cacheSize && cache[index] == insnNode;
+  }
+
+  /**
+   * Adds instructions to the valid part of {@link #cache}, until it contains the given instruction
+   * or index.
+   *
+   * @param insnNode the instruction at which the update can stop, or {@literal null}.
+   * @param index the index at which the update can stop.
+   */
+  void updateCache(final AbstractInsnNode insnNode, final int index) {
+    if (cache == null) {
+      cache = new AbstractInsnNode[size];
+    } else if (cache.length < size) {
+      AbstractInsnNode[] newCache = new AbstractInsnNode[Math.max(size, 2 * cache.length)];
+      System.arraycopy(cache, 0, newCache, 0, cacheSize);
+      cache = newCache;
+    }
+    AbstractInsnNode currentInsn = cacheSize == 0 ? firstInsn : cache[cacheSize - 1].nextInsn;
+    while (currentInsn != null) {
+      cache[cacheSize] = currentInsn;
+      currentInsn.index = cacheSize++;
+      if (currentInsn == insnNode || cacheSize > index) {
+        return;
+      }
+      currentInsn = currentInsn.nextInsn;
+    }
+  }
+
+  /**
+   * Invalidates {@link #cache} from the given instruction, whose index is going to change.
+   *
+   * @param insnNode an instruction of this list, or {@literal null}.
+   */
+  private void invalidateCache(final AbstractInsnNode insnNode) {
+    if (insnNode != null && hasValidIndex(insnNode)) {
+      cacheSize = insnNode.index;
+    }
+  }
+
   /**
    * Makes the given visitor visit all the instructions in this list.
    *
@@ -167,6 +234,26 @@ public class InsnList implements Iterable<AbstractInsnNode> {
     return new InsnListIterator(index);
   }
 
+  /**
+   * Assigns consecutive ordinals, starting from 0, to the {@link LabelNode}s of this list, in their
+   * order in this list (see {@link LabelNode#getOrdinal}). These ordinals can be used as indices in
+   * plain arrays, for instance to map each label to its clone. They remain valid as long as no
+   * label is added to or removed from this list.
+   *
+   * @return the number of labels in this list.
+   */
+  public int computeLabelOrdinals() {
+    int labelCount = 0;
+    AbstractInsnNode currentInsn = firstInsn;
+    while (currentInsn != null) {
+      if (currentInsn instanceof LabelNode) {
+        ((LabelNode) currentInsn).ordinal = labelCount++;
+      }
+      currentInsn = currentInsn.nextInsn;
+    }
+    return labelCount;
+  }
+
   /**
    * Returns an array containing all the instructions in this list.
    *
@@ -191,6 +278,7 @@ public class InsnList implements Iterable<AbstractInsnNode> {
    * @param newInsnNode another instruction, <i>which must not belong to any {@link InsnList}</i>.
    */
   public void set(final AbstractInsnNode oldInsnNode, final AbstractInsnNode newInsnNode) {
+    ++modificationCount;
     AbstractInsnNode nextInsn = oldInsnNode.nextInsn;
     newInsnNode.nextInsn = nextInsn;
     if (nextInsn != null) {
@@ -205,7 +293,7 @@ public class InsnList implements Iterable<AbstractInsnNode> {
     } else {
       firstInsn = newInsnNode;
     }
-    if (cache != null) {
+    if (hasValidIndex(oldInsnNode)) {
       int index = oldInsnNode.index;
       cache[index] = newInsnNode;
       newInsnNode.index = index;
@@ -223,6 +311,7 @@ public class InsnList implements Iterable<AbstractInsnNode> {
    * @param insnNode an instruction, <i>which must not belong to any {@link InsnList}</i>.
    */
   public void add(final AbstractInsnNode insnNode) {
+    ++modificationCount;
     ++size;
     if (lastInsn == null) {
       firstInsn = insnNode;
@@ -231,7 +320,6 @@ public class InsnList implements Iterable<AbstractInsnNode> {
       insnNode.previousInsn = lastInsn;
     }
     lastInsn = insnNode;
-    cache = null;
     insnNode.index = 0; // insnNode now belongs to an InsnList.
   }
 
@@ -245,6 +333,7 @@ public class InsnList implements Iterable<AbstractInsnNode> {
     if (insnList.size == 0) {
       return;
     }
+    ++modificationCount;
     size += insnList.size;
     if (lastInsn == null) {
       firstInsn = insnList.firstInsn;
@@ -255,7 +344,6 @@ public class InsnList implements Iterable<AbstractInsnNode> {
       firstInsnListElement.previousInsn = lastInsn;
       lastInsn = insnList.lastInsn;
     }
-    cache = null;
     insnList.removeAll(false);
   }
 
@@ -265,6 +353,7 @@ public class InsnList implements Iterable<AbstractInsnNode> {
    * @param insnNode an instruction, <i>which must not belong to any {@link InsnList}</i>.
    */
   public void insert(final AbstractInsnNode insnNode) {
+    ++modificationCount;
     ++size;
     if (firstInsn == null) {
       lastInsn = insnNode;
@@ -273,7 +362,7 @@ public class InsnList implements Iterable<AbstractInsnNode> {
       insnNode.nextInsn = firstInsn;
     }
     firstInsn = insnNode;
-    cache = null;
+    cacheSize = 0;
     insnNode.index = 0; // insnNode now belongs to an InsnList.
   }
 
@@ -287,6 +376,7 @@ public class InsnList implements Iterable<AbstractInsnNode> {
     if (insnList.size == 0) {
       return;
     }
+    ++modificationCount;
     size += insnList.size;
     if (firstInsn == null) {
       firstInsn = insnList.firstInsn;
@@ -297,7 +387,7 @@ public class InsnList implements Iterable<AbstractInsnNode> {
       lastInsnListElement.nextInsn = firstInsn;
       firstInsn = insnList.firstInsn;
     }
-    cache = null;
+    cacheSize = 0;
     insnList.removeAll(false);
   }
 
@@ -309,8 +399,10 @@ public class InsnList implements Iterable<AbstractInsnNode> {
    *     InsnList}</i>.
    */
   public void insert(final AbstractInsnNode previousInsn, final AbstractInsnNode insnNode) {
+    ++modificationCount;
     ++size;
     AbstractInsnNode nextInsn = previousInsn.nextInsn;
+    invalidateCache(nextInsn);
     if (nextInsn == null) {
       lastInsn = insnNode;
     } else {
@@ -319,7 +411,6 @@ public class InsnList implements Iterable<AbstractInsnNode> {
     previousInsn.nextInsn = insnNode;
     insnNode.nextInsn = nextInsn;
     insnNode.previousInsn = previousInsn;
-    cache = null;
     insnNode.index = 0; // insnNode now belongs to an InsnList.
   }
 
@@ -335,10 +426,12 @@ public class InsnList implements Iterable<AbstractInsnNode> {
     if (insnList.size == 0) {
       return;
     }
+    ++modificationCount;
     size += insnList.size;
     AbstractInsnNode firstInsnListElement = insnList.firstInsn;
     AbstractInsnNode lastInsnListElement = insnList.lastInsn;
     AbstractInsnNode nextInsn = previousInsn.nextInsn;
+    invalidateCache(nextInsn);
     if (nextInsn == null) {
       lastInsn = lastInsnListElement;
     } else {
@@ -347,7 +440,6 @@ public class InsnList implements Iterable<AbstractInsnNode> {
     previousInsn.nextInsn = firstInsnListElement;
     lastInsnListElement.nextInsn = nextInsn;
     firstInsnListElement.previousInsn = previousInsn;
-    cache = null;
     insnList.removeAll(false);
   }
 
@@ -359,7 +451,9 @@ public class InsnList implements Iterable<AbstractInsnNode> {
    *     InsnList}</i>.
    */
   public void insertBefore(final AbstractInsnNode nextInsn, final AbstractInsnNode insnNode) {
+    ++modificationCount;
     ++size;
+    invalidateCache(nextInsn);
     AbstractInsnNode previousInsn = nextInsn.previousInsn;
     if (previousInsn == null) {
       firstInsn = insnNode;
@@ -369,7 +463,6 @@ public class InsnList implements Iterable<AbstractInsnNode> {
     nextInsn.previousInsn = insnNode;
     insnNode.nextInsn = nextInsn;
     insnNode.previousInsn = previousInsn;
-    cache = null;
     insnNode.index = 0; // insnNode now belongs to an InsnList.
   }
 
@@ -385,7 +478,9 @@ public class InsnList implements Iterable<AbstractInsnNode> {
     if (insnList.size == 0) {
       return;
     }
+    ++modificationCount;
     size += insnList.size;
+    invalidateCache(nextInsn);
     AbstractInsnNode firstInsnListElement = insnList.firstInsn;
     AbstractInsnNode lastInsnListElement = insnList.lastInsn;
     AbstractInsnNode previousInsn = nextInsn.previousInsn;
@@ -397,7 +492,6 @@ public class InsnList implements Iterable<AbstractInsnNode> {
     nextInsn.previousInsn = lastInsnListElement;
     lastInsnListElement.nextInsn = nextInsn;
     firstInsnListElement.previousInsn = previousInsn;
-    cache = null;
     insnList.removeAll(false);
   }
 
@@ -407,7 +501,9 @@ public class InsnList implements Iterable<AbstractInsnNode> {
    * @param insnNode the instruction <i>of this list</i> that must be removed.
    */
   public void remove(final AbstractInsnNode insnNode) {
+    ++modificationCount;
     --size;
+    invalidateCache(insnNode);
     AbstractInsnNode nextInsn = insnNode.nextInsn;
     AbstractInsnNode previousInsn = insnNode.previousInsn;
     if (nextInsn == null) {
@@ -427,7 +523,6 @@ public class InsnList implements Iterable<AbstractInsnNode> {
         nextInsn.previousInsn = previousInsn;
       }
     }
-    cache = null;
     insnNode.index = -1; // insnNode no longer belongs to an InsnList.
     insnNode.previousInsn = null;
     insnNode.nextInsn = null;
@@ -439,6 +534,7 @@ public class InsnList implements Iterable<AbstractInsnNode> {
    * @param mark if the instructions must be marked as no longer belonging to any {@link InsnList}.
    */
   void removeAll(final boolean mark) {
+    ++modificationCount;
     if (mark) {
       AbstractInsnNode currentInsn = firstInsn;
       while (currentInsn != null) {
@@ -453,6 +549,7 @@ public class InsnList implements Iterable<AbstractInsnNode> {
     firstInsn = null;
     lastInsn = null;
     cache = null;
+    cacheSize = 0;
   }
 
   /** Removes all the instructions of this list. */
@@ -555,8 +652,8 @@ public class InsnList implements Iterable<AbstractInsnNode> {
       if (nextInsn == null) {
         return size();
       }
-      if (cache == null) {
-        cache = toArray();
+      if (!hasValidIndex(nextInsn)) {
+        updateCache(nextInsn, size());
       }
       return nextInsn.index;
     }
@@ -566,8 +663,8 @@ public class InsnList implements Iterable<AbstractInsnNode> {
       if (previousInsn == null) {
         return -1;
       }
-      if (cache == null) {
-        cache = toArray();
+      if (!hasValidIndex(previousInsn)) {
+        updateCache(previousInsn, size());
       }
       return previousInsn.index;
     }
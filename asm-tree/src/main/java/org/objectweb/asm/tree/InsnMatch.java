@@ -0,0 +1,99 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.tree;
+
+/**
+ * A sequence of instructions matched by an {@link InsnPattern} (see {@link InsnMatcher}). Each
+ * element of the pattern captures the instruction it matched.
+ */
+public class InsnMatch {
+
+  /** The index of the matched pattern in the patterns of the {@link InsnMatcher}. */
+  private final int patternIndex;
+
+  /** The matched instructions, indexed by pattern element. */
+  private final AbstractInsnNode[] insns;
+
+  /**
+   * Constructs a new {@link InsnMatch}.
+   *
+   * @param patternIndex the index of the matched pattern in the patterns of the matcher.
+   * @param insns the matched instructions, indexed by pattern element. This array is not copied.
+   */
+  InsnMatch(final int patternIndex, final AbstractInsnNode[] insns) {
+    this.patternIndex = patternIndex;
+    this.insns = insns; // NOPMD(ArrayIsStoredDirectly): private to the matcher.
+  }
+
+  /**
+   * Returns the index of the matched pattern, in the patterns passed to the {@link InsnMatcher}
+   * constructor.
+   *
+   * @return the index of the matched pattern.
+   */
+  public int getPatternIndex() {
+    return patternIndex;
+  }
+
+  /**
+   * Returns the number of matched instructions, i.e. the size of the matched pattern.
+   *
+   * @return the number of matched instructions.
+   */
+  public int size() {
+    return insns.length;
+  }
+
+  /**
+   * Returns the instruction matched by the given element of the pattern.
+   *
+   * @param elementIndex the index of an element of the matched pattern.
+   * @return the instruction matched by this element.
+   */
+  public AbstractInsnNode get(final int elementIndex) {
+    return insns[elementIndex];
+  }
+
+  /**
+   * Returns the first matched instruction.
+   *
+   * @return the first matched instruction.
+   */
+  public AbstractInsnNode getFirst() {
+    return insns[0];
+  }
+
+  /**
+   * Returns the last matched instruction.
+   *
+   * @return the last matched instruction.
+   */
+  public AbstractInsnNode getLast() {
+    return insns[insns.length - 1];
+  }
+}
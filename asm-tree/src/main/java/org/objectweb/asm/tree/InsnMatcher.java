@@ -0,0 +1,159 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A matcher which finds all the occurrences of several {@link InsnPattern} in an {@link InsnList},
+ * in a single pass over the instructions. The patterns are compiled into a table giving, for each
+ * opcode, the patterns whose first element can match an instruction with this opcode. The partial
+ * matches in progress are then extended in parallel, one instruction at a time, so that the cost of
+ * a pass depends on the number of partial matches, and not on the number of patterns. A matcher is
+ * not modified by its passes, and can be used concurrently by several threads.
+ */
+public class InsnMatcher {
+
+  /** An empty array of pattern indices. */
+  private static final int[] NO_PATTERN = new int[0];
+
+  /** The elements of each pattern, indexed by pattern index. */
+  private final InsnPattern.Element[][] patterns;
+
+  /**
+   * The indices of the patterns whose first element can match an instruction with a given opcode,
+   * indexed by opcode.
+   */
+  private final int[][] patternsByFirstOpcode;
+
+  /**
+   * Constructs a new {@link InsnMatcher}. Subsequent changes to the given patterns do not change
+   * this matcher.
+   *
+   * @param patterns the patterns to find. Their index in this array is used in the {@link
+   *     InsnMatch} results to identify them.
+   * @throws IllegalArgumentException if one of the patterns is empty.
+   */
+  public InsnMatcher(final InsnPattern... patterns) {
+    this.patterns = new InsnPattern.Element[patterns.length][];
+    for (int i = 0; i < patterns.length; ++i) {
+      if (patterns[i].size() == 0) {
+        throw new IllegalArgumentException("Empty pattern " + i);
+      }
+      this.patterns[i] = patterns[i].elements.toArray(new InsnPattern.Element[0]);
+    }
+    this.patternsByFirstOpcode = new int[256][];
+    int[] patternIndices = new int[patterns.length];
+    for (int opcode = 0; opcode < 256; ++opcode) {
+      int patternCount = 0;
+      for (int i = 0; i < patterns.length; ++i) {
+        if (this.patterns[i][0].matchesOpcode(opcode)) {
+          patternIndices[patternCount++] = i;
+        }
+      }
+      patternsByFirstOpcode[opcode] =
+          patternCount == 0 ? NO_PATTERN : copyOf(patternIndices, patternCount);
+    }
+  }
+
+  /**
+   * Returns all the occurrences of the patterns of this matcher in the given instruction list. The
+   * occurrences can overlap. They are sorted by last instruction, then by first instruction, and
+   * then by pattern index.
+   *
+   * @param insnList an instruction list.
+   * @return all the occurrences of the patterns of this matcher in the given list.
+   */
+  public List<InsnMatch> match(final InsnList insnList) {
+    List<InsnMatch> matches = new ArrayList<>();
+    // The partial matches in progress, sorted by first instruction and then by pattern index. The
+    // instructions of each partial match are stored in an array of the size of the pattern, and the
+    // number of instructions already matched is the length of the partial match.
+    int partialMatchCount = 0;
+    int[] partialMatchPatterns = new int[16];
+    int[] partialMatchLengths = new int[16];
+    AbstractInsnNode[][] partialMatchInsns = new AbstractInsnNode[16][];
+    for (AbstractInsnNode insn = insnList.getFirst(); insn != null; insn = insn.getNext()) {
+      int opcode = insn.getOpcode();
+      if (opcode == -1) {
+        // Labels, line numbers and frames are ignored.
+        continue;
+      }
+      // Extend the partial matches in progress with insn, and remove those which can't be extended.
+      int newPartialMatchCount = 0;
+      for (int i = 0; i < partialMatchCount; ++i) {
+        int patternIndex = partialMatchPatterns[i];
+        InsnPattern.Element[] pattern = patterns[patternIndex];
+        int length = partialMatchLengths[i];
+        AbstractInsnNode[] insns = partialMatchInsns[i];
+        if (pattern[length].matches(insn)) {
+          insns[length++] = insn;
+          if (length == pattern.length) {
+            matches.add(new InsnMatch(patternIndex, insns));
+          } else {
+            partialMatchPatterns[newPartialMatchCount] = patternIndex;
+            partialMatchLengths[newPartialMatchCount] = length;
+            partialMatchInsns[newPartialMatchCount++] = insns;
+          }
+        }
+      }
+      partialMatchCount = newPartialMatchCount;
+      // Start new partial matches with insn.
+      for (int patternIndex : patternsByFirstOpcode[opcode]) {
+        InsnPattern.Element[] pattern = patterns[patternIndex];
+        if (pattern[0].matches(insn)) {
+          AbstractInsnNode[] insns = new AbstractInsnNode[pattern.length];
+          insns[0] = insn;
+          if (pattern.length == 1) {
+            matches.add(new InsnMatch(patternIndex, insns));
+          } else {
+            if (partialMatchCount == partialMatchPatterns.length) {
+              int newCapacity = 2 * partialMatchCount;
+              partialMatchPatterns = copyOf(partialMatchPatterns, newCapacity);
+              partialMatchLengths = copyOf(partialMatchLengths, newCapacity);
+              AbstractInsnNode[][] newPartialMatchInsns = new AbstractInsnNode[newCapacity][];
+              System.arraycopy(partialMatchInsns, 0, newPartialMatchInsns, 0, partialMatchCount);
+              partialMatchInsns = newPartialMatchInsns;
+            }
+            partialMatchPatterns[partialMatchCount] = patternIndex;
+            partialMatchLengths[partialMatchCount] = 1;
+            partialMatchInsns[partialMatchCount++] = insns;
+          }
+        }
+      }
+    }
+    return matches;
+  }
+
+  private static int[] copyOf(final int[] array, final int length) {
+    int[] result = new int[length];
+    System.arraycopy(array, 0, result, 0, Math.min(array.length, length));
+    return result;
+  }
+}
@@ -0,0 +1,269 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * A pattern matching a sequence of consecutive instructions, built with methods similar to the
+ * {@link org.objectweb.asm.MethodVisitor} instruction methods. Each element of a pattern matches a
+ * single instruction: either any instruction, or an instruction with one of some given opcodes and,
+ * optionally, with some given operands. A {@literal null} String or constant operand is a wildcard
+ * which matches any value. Labels, line numbers and stack map frames are ignored, i.e. they are
+ * never matched, and never prevent the instructions before and after them from being matched as a
+ * sequence. Patterns are matched with an {@link InsnMatcher}.
+ *
+ * <p>For instance, the following pattern matches a getter call on a freshly loaded local variable,
+ * followed by any instruction: {@code new InsnPattern().insn(Opcodes.ALOAD).methodInsn(
+ * Opcodes.INVOKEVIRTUAL, null, "get", null).any()}.
+ */
+public class InsnPattern {
+
+  /** The elements of this pattern. */
+  final List<Element> elements;
+
+  /** Constructs a new, empty {@link InsnPattern}. */
+  public InsnPattern() {
+    elements = new ArrayList<>();
+  }
+
+  /**
+   * Returns the number of elements in this pattern, i.e. the number of instructions it matches.
+   *
+   * @return the number of elements in this pattern.
+   */
+  public int size() {
+    return elements.size();
+  }
+
+  /**
+   * Adds an element matching any instruction to this pattern.
+   *
+   * @return this pattern.
+   */
+  public InsnPattern any() {
+    elements.add(new Element(null, null, null, null, null));
+    return this;
+  }
+
+  /**
+   * Adds an element matching the instructions with one of the given opcodes to this pattern,
+   * whatever their operands.
+   *
+   * @param opcodes some instruction opcodes.
+   * @return this pattern.
+   */
+  public InsnPattern insn(final int... opcodes) {
+    elements.add(new Element(opcodes, null, null, null, null));
+    return this;
+  }
+
+  /**
+   * Adds an element matching an IntInsn instruction to this pattern.
+   *
+   * @param opcode the opcode of the instruction, i.e. BIPUSH, SIPUSH or NEWARRAY.
+   * @param operand the operand of the instruction.
+   * @return this pattern.
+   */
+  public InsnPattern intInsn(final int opcode, final int operand) {
+    elements.add(new Element(new int[] {opcode}, null, null, null, operand));
+    return this;
+  }
+
+  /**
+   * Adds an element matching a VarInsn instruction to this pattern.
+   *
+   * @param opcode the opcode of the instruction, i.e. ILOAD, LLOAD, FLOAD, DLOAD, ALOAD, ISTORE,
+   *     LSTORE, FSTORE, DSTORE, ASTORE or RET.
+   * @param varIndex the local variable index of the instruction.
+   * @return this pattern.
+   */
+  public InsnPattern varInsn(final int opcode, final int varIndex) {
+    elements.add(new Element(new int[] {opcode}, null, null, null, varIndex));
+    return this;
+  }
+
+  /**
+   * Adds an element matching a TypeInsn instruction to this pattern.
+   *
+   * @param opcode the opcode of the instruction, i.e. NEW, ANEWARRAY, CHECKCAST or INSTANCEOF.
+   * @param type the operand of the instruction, or {@literal null} to match any operand.
+   * @return this pattern.
+   */
+  public InsnPattern typeInsn(final int opcode, final String type) {
+    elements.add(new Element(new int[] {opcode}, null, null, type, null));
+    return this;
+  }
+
+  /**
+   * Adds an element matching a FieldInsn instruction to this pattern.
+   *
+   * @param opcode the opcode of the instruction, i.e. GETSTATIC, PUTSTATIC, GETFIELD or PUTFIELD.
+   * @param owner the internal name of the field's owner class, or {@literal null} to match any
+   *     owner.
+   * @param name the field's name, or {@literal null} to match any name.
+   * @param descriptor the field's descriptor, or {@literal null} to match any descriptor.
+   * @return this pattern.
+   */
+  public InsnPattern fieldInsn(
+      final int opcode, final String owner, final String name, final String descriptor) {
+    elements.add(new Element(new int[] {opcode}, owner, name, descriptor, null));
+    return this;
+  }
+
+  /**
+   * Adds an element matching a MethodInsn instruction to this pattern.
+   *
+   * @param opcode the opcode of the instruction, i.e. INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC or
+   *     INVOKEINTERFACE.
+   * @param owner the internal name of the method's owner class, or {@literal null} to match any
+   *     owner.
+   * @param name the method's name, or {@literal null} to match any name.
+   * @param descriptor the method's descriptor, or {@literal null} to match any descriptor.
+   * @return this pattern.
+   */
+  public InsnPattern methodInsn(
+      final int opcode, final String owner, final String name, final String descriptor) {
+    elements.add(new Element(new int[] {opcode}, owner, name, descriptor, null));
+    return this;
+  }
+
+  /**
+   * Adds an element matching an LDC instruction to this pattern.
+   *
+   * @param value the constant loaded by the instruction (see {@link LdcInsnNode#cst}), or {@literal
+   *     null} to match any constant.
+   * @return this pattern.
+   */
+  public InsnPattern ldcInsn(final Object value) {
+    elements.add(new Element(new int[] {Opcodes.LDC}, null, null, null, value));
+    return this;
+  }
+
+  /** An element of a pattern, matching a single instruction. */
+  static final class Element {
+
+    /**
+     * The opcodes matched by this element, as a bit set indexed by opcode, or {@literal null} to
+     * match any opcode.
+     */
+    final long[] opcodes;
+
+    /** The owner of the matched FieldInsn or MethodInsn instructions, or {@literal null}. */
+    final String owner;
+
+    /** The name of the matched FieldInsn or MethodInsn instructions, or {@literal null}. */
+    final String name;
+
+    /**
+     * The descriptor of the matched FieldInsn or MethodInsn instructions, or the operand of the
+     * matched TypeInsn instructions, or {@literal null}.
+     */
+    final String descriptor;
+
+    /**
+     * The operand of the matched IntInsn instructions, the variable index of the matched VarInsn
+     * instructions, or the constant of the matched LDC instructions, or {@literal null}.
+     */
+    final Object value;
+
+    Element(
+        final int[] opcodes,
+        final String owner,
+        final String name,
+        final String descriptor,
+        final Object value) {
+      if (opcodes == null) {
+        this.opcodes = null;
+      } else {
+        this.opcodes = new long[4];
+        for (int opcode : opcodes) {
+          if (opcode < 0 || opcode > 255) {
+            throw new IllegalArgumentException("Invalid opcode " + opcode);
+          }
+          this.opcodes[opcode >>> 6] |= 1L << opcode;
+        }
+      }
+      this.owner = owner;
+      this.name = name;
+      this.descriptor = descriptor;
+      this.value = value;
+    }
+
+    /**
+     * Returns whether this element matches the instructions with the given opcode, for some
+     * operands.
+     *
+     * @param opcode an instruction opcode.
+     * @return whether this element matches the instructions with the given opcode.
+     */
+    boolean matchesOpcode(final int opcode) {
+      return opcodes == null || (opcodes[opcode >>> 6] & (1L << opcode)) != 0;
+    }
+
+    /**
+     * Returns whether this element matches the given instruction.
+     *
+     * @param insn an instruction, which must not be a label, a line number or a frame.
+     * @return whether this element matches the given instruction.
+     */
+    boolean matches(final AbstractInsnNode insn) {
+      if (!matchesOpcode(insn.getOpcode())) {
+        return false;
+      }
+      switch (insn.getType()) {
+        case AbstractInsnNode.INT_INSN:
+          return value == null || value.equals(((IntInsnNode) insn).operand);
+        case AbstractInsnNode.VAR_INSN:
+          return value == null || value.equals(((VarInsnNode) insn).var);
+        case AbstractInsnNode.TYPE_INSN:
+          return matches(descriptor, ((TypeInsnNode) insn).desc);
+        case AbstractInsnNode.FIELD_INSN:
+          FieldInsnNode fieldInsn = (FieldInsnNode) insn;
+          return matches(owner, fieldInsn.owner)
+              && matches(name, fieldInsn.name)
+              && matches(descriptor, fieldInsn.desc);
+        case AbstractInsnNode.METHOD_INSN:
+          MethodInsnNode methodInsn = (MethodInsnNode) insn;
+          return matches(owner, methodInsn.owner)
+              && matches(name, methodInsn.name)
+              && matches(descriptor, methodInsn.desc);
+        case AbstractInsnNode.LDC_INSN:
+          return value == null || value.equals(((LdcInsnNode) insn).cst);
+        default:
+          return true;
+      }
+    }
+
+    private static boolean matches(final String pattern, final String value) {
+      return pattern == null || pattern.equals(value);
+    }
+  }
+}
@@ -36,6 +36,13 @@ public class LabelNode extends AbstractInsnNode {
 
   private Label value;
 
+  /**
+   * The ordinal of this label among the labels of the {@link InsnList} to which it belongs, or -1.
+   * The value of this field is correct only after {@link InsnList#computeLabelOrdinals} has been
+   * called, and as long as no label is added to or removed from this list.
+   */
+  int ordinal = -1;
+
   public LabelNode() {
     super(-1);
   }
@@ -63,6 +70,17 @@ public class LabelNode extends AbstractInsnNode {
     return value;
   }
 
+  /**
+   * Returns the ordinal of this label among the labels of the {@link InsnList} to which it belongs.
+   * The returned value is correct only after {@link InsnList#computeLabelOrdinals} has been called,
+   * and as long as no label is added to or removed from this list.
+   *
+   * @return the ordinal of this label, or -1 if no ordinal has been computed for it.
+   */
+  public int getOrdinal() {
+    return ordinal;
+  }
+
   @Override
   public void accept(final MethodVisitor methodVisitor) {
     methodVisitor.visitLabel(getLabel());
@@ -27,10 +27,16 @@
 // THE POSSIBILITY OF SUCH DAMAGE.
 package org.objectweb.asm.tree;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ConstantDynamic;
 import org.objectweb.asm.Handle;
@@ -148,6 +154,44 @@ public class MethodNode extends MethodVisitor {
   /** Whether the accept method has been called on this object. */
   private boolean visited;
 
+  /**
+   * The class reader from which the code of this method must be read, or {@literal null} if there
+   * is no such code, or if it has already been read. This is only set for the method nodes created
+   * by {@link ClassNode#readLazily}.
+   */
+  private ClassReader codeReader;
+
+  /** The offset of the method_info structure of this method in {@link #codeReader}. */
+  private int codeReaderMethodInfoOffset;
+
+  /**
+   * The prototypes of the attributes to parse in the code of this method in {@link #codeReader}.
+   */
+  private Attribute[] codeReaderAttributePrototypes;
+
+  /** The options to use to parse the code of this method in {@link #codeReader}. */
+  private int codeReaderParsingOptions;
+
+  /**
+   * The method node from which the code of this method must be copied, or {@literal null} if there
+   * is no such code, or if it has already been copied. This is only set for the method nodes
+   * created by {@link #copyLazily}.
+   */
+  private MethodNode codeSource;
+
+  /**
+   * The state of the code of this method node just after it has been read from {@link #codeReader},
+   * or {@literal null} if it has not been read from a class reader. This is used to copy this code
+   * as is from the class reader, if it is declared unmodified with {@link #markCodeUnmodified}.
+   */
+  private CodeSnapshot readCodeSnapshot;
+
+  /**
+   * Whether the code read from {@link #codeReader} has been declared unmodified with {@link
+   * #markCodeUnmodified}.
+   */
+  private boolean codeUnmodified;
+
   /**
    * Constructs an uninitialized {@link MethodNode}. <i>Subclasses must not use this
    * constructor</i>. Instead, they must use the {@link #MethodNode(int)} version.
@@ -320,6 +364,12 @@ public class MethodNode extends MethodVisitor {
     // Nothing to do.
   }
 
+  @Override
+  public void visitCodeCounts(final int tryCatchBlockCount, final int localVariableCount) {
+    tryCatchBlocks = Util.ensureCapacity(tryCatchBlocks, tryCatchBlockCount);
+    localVariables = Util.ensureCapacity(localVariables, localVariableCount);
+  }
+
   @Override
   public void visitFrame(
       final int type,
@@ -556,6 +606,236 @@ public class MethodNode extends MethodVisitor {
     return labelNodes;
   }
 
+  // -----------------------------------------------------------------------------------------------
+  // Lazy code reading
+  // -----------------------------------------------------------------------------------------------
+
+  /**
+   * Sets the class reader from which the code of this method must be read, when {@link #readCode}
+   * is called.
+   *
+   * @param classReader the class reader from which the code of this method must be read.
+   * @param methodInfoOffset the offset of the method_info structure of this method in classReader.
+   * @param attributePrototypes the prototypes of the attributes to parse in this code.
+   * @param parsingOptions the options to use to parse this code (see {@link
+   *     ClassReader#acceptCode}).
+   */
+  void setCodeReader(
+      final ClassReader classReader,
+      final int methodInfoOffset,
+      final Attribute[] attributePrototypes,
+      final int parsingOptions) {
+    codeReader = classReader;
+    codeReaderMethodInfoOffset = methodInfoOffset;
+    codeReaderAttributePrototypes = attributePrototypes;
+    codeReaderParsingOptions = parsingOptions;
+  }
+
+  /**
+   * Reads the code of this method, if this method node has been created by {@link
+   * ClassNode#readLazily} or {@link #copyLazily}, and if its code has not been read yet. Otherwise,
+   * does nothing. Until this method is called, the code related fields of a lazily read method node
+   * ({@link #instructions}, {@link #tryCatchBlocks}, {@link #maxStack}, {@link #maxLocals}, {@link
+   * #localVariables}, {@link #visibleLocalVariableAnnotations} and {@link
+   * #invisibleLocalVariableAnnotations}) are empty, and must not be modified.
+   *
+   * <p>Once read, the code is considered as modified, i.e. it is visited from the code related
+   * fields of this node by {@link #accept(MethodVisitor)}. If it is read from a class reader (i.e.
+   * if this method node has been created by {@link ClassNode#readLazily}), and if it is not
+   * modified afterwards, {@link #markCodeUnmodified} can be called to copy it as is instead.
+   */
+  public void readCode() {
+    if (codeReader != null) {
+      ClassReader classReader = codeReader;
+      codeReader = null;
+      classReader.acceptCode(
+          this,
+          codeReaderMethodInfoOffset,
+          codeReaderAttributePrototypes,
+          codeReaderParsingOptions);
+      readCodeSnapshot = new CodeSnapshot(classReader, this);
+    } else if (codeSource != null) {
+      MethodNode methodNode = codeSource;
+      codeSource = null;
+      methodNode.copyCode(this);
+    }
+  }
+
+  /**
+   * Declares that the code of this method has not been modified since it has been read from its
+   * class reader with {@link #readCode}, so that it can be copied as is by {@link
+   * #accept(MethodVisitor)} when possible (see {@link ClassReader#canCopyCode}). This does nothing
+   * if the code of this method has not been read from a class reader. <i>Modifications made
+   * directly to the fields of the instruction, try catch block or local variable nodes are not
+   * detected, and are lost if the code is copied as is</i>. Other modifications (with the {@link
+   * InsnList} methods, or by changing the code related fields of this node or the size of the lists
+   * they contain, or its {@link #desc} field) are detected, and prevent the copy.
+   */
+  public void markCodeUnmodified() {
+    codeUnmodified = readCodeSnapshot != null;
+  }
+
+  // -----------------------------------------------------------------------------------------------
+  // Copy methods
+  // -----------------------------------------------------------------------------------------------
+
+  /**
+   * Returns a deep copy of this method node. The copy does not share any mutable object with this
+   * node, except the non standard attributes. It is faster than visiting this node with {@link
+   * #accept(MethodVisitor)} to build a new one, because instructions are cloned directly.
+   *
+   * @return a deep copy of this method node.
+   */
+  public MethodNode copy() {
+    MethodNode copy = copyLazily();
+    copy.readCode();
+    return copy;
+  }
+
+  /**
+   * Returns a copy of this method node whose code is only copied when {@link #readCode} is called
+   * on it. Until then, the code of the copy is shared with this node: it is visited from this node
+   * by {@link #accept(MethodVisitor)}, and the code related fields of the copy are empty and must
+   * not be modified (see {@link #readCode}). The other parts of this method node are copied
+   * eagerly. This is useful when only some of the copied methods are modified, or when a
+   * transformation of a copy can be abandoned. <i>The code of this method node must not be modified
+   * before the code of the copy is read</i>.
+   *
+   * @return a copy of this method node, whose code is copied on demand.
+   */
+  public MethodNode copyLazily() {
+    MethodNode copy =
+        new MethodNode(
+            access,
+            name,
+            desc,
+            signature,
+            exceptions == null ? null : exceptions.toArray(new String[0]));
+    acceptAttributes(copy);
+    if (codeReader != null) {
+      copy.setCodeReader(
+          codeReader,
+          codeReaderMethodInfoOffset,
+          codeReaderAttributePrototypes,
+          codeReaderParsingOptions);
+    } else if (codeSource != null) {
+      copy.codeSource = codeSource;
+    } else if (instructions.size() > 0) {
+      copy.codeSource = this;
+    }
+    return copy;
+  }
+
+  /**
+   * Returns the method node whose code is visited by {@link #accept(MethodVisitor)}, if it is not
+   * read from a class reader. Method nodes with the same code node can not be visited concurrently,
+   * because they share the same labels.
+   *
+   * @return the method node from which the code of this method must be copied (see {@link
+   *     #copyLazily}), or this method node if there is no such node.
+   */
+  MethodNode getCodeNode() {
+    return codeSource != null ? codeSource : this;
+  }
+
+  /**
+   * Copies the code of this method node into the given one, whose code must be empty.
+   *
+   * @param methodNode the method node into which the code of this method node must be copied.
+   */
+  private void copyCode(final MethodNode methodNode) {
+    ClonedLabels clonedLabels = new ClonedLabels(instructions);
+    for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+      methodNode.instructions.add(insn.clone(clonedLabels));
+    }
+    if (tryCatchBlocks != null) {
+      methodNode.tryCatchBlocks = new ArrayList<>(tryCatchBlocks.size());
+      for (int i = 0, n = tryCatchBlocks.size(); i < n; ++i) {
+        TryCatchBlockNode tryCatchBlock = tryCatchBlocks.get(i);
+        TryCatchBlockNode tryCatchBlockCopy =
+            new TryCatchBlockNode(
+                clonedLabels.get(tryCatchBlock.start),
+                clonedLabels.get(tryCatchBlock.end),
+                clonedLabels.get(tryCatchBlock.handler),
+                tryCatchBlock.type);
+        tryCatchBlockCopy.visibleTypeAnnotations =
+            copyTypeAnnotations(tryCatchBlock.visibleTypeAnnotations);
+        tryCatchBlockCopy.invisibleTypeAnnotations =
+            copyTypeAnnotations(tryCatchBlock.invisibleTypeAnnotations);
+        methodNode.tryCatchBlocks.add(tryCatchBlockCopy);
+      }
+    }
+    methodNode.maxStack = maxStack;
+    methodNode.maxLocals = maxLocals;
+    if (localVariables != null) {
+      methodNode.localVariables = new ArrayList<>(localVariables.size());
+      for (int i = 0, n = localVariables.size(); i < n; ++i) {
+        LocalVariableNode localVariable = localVariables.get(i);
+        methodNode.localVariables.add(
+            new LocalVariableNode(
+                localVariable.name,
+                localVariable.desc,
+                localVariable.signature,
+                clonedLabels.get(localVariable.start),
+                clonedLabels.get(localVariable.end),
+                localVariable.index));
+      }
+    }
+    methodNode.visibleLocalVariableAnnotations =
+        copyLocalVariableAnnotations(visibleLocalVariableAnnotations, clonedLabels);
+    methodNode.invisibleLocalVariableAnnotations =
+        copyLocalVariableAnnotations(invisibleLocalVariableAnnotations, clonedLabels);
+  }
+
+  private static List<TypeAnnotationNode> copyTypeAnnotations(
+      final List<TypeAnnotationNode> typeAnnotations) {
+    if (typeAnnotations == null) {
+      return null;
+    }
+    List<TypeAnnotationNode> copy = new ArrayList<>(typeAnnotations.size());
+    for (int i = 0, n = typeAnnotations.size(); i < n; ++i) {
+      TypeAnnotationNode typeAnnotation = typeAnnotations.get(i);
+      TypeAnnotationNode typeAnnotationCopy =
+          new TypeAnnotationNode(
+              typeAnnotation.typeRef, typeAnnotation.typePath, typeAnnotation.desc);
+      typeAnnotation.accept(typeAnnotationCopy);
+      copy.add(typeAnnotationCopy);
+    }
+    return copy;
+  }
+
+  private static List<LocalVariableAnnotationNode> copyLocalVariableAnnotations(
+      final List<LocalVariableAnnotationNode> localVariableAnnotations,
+      final Map<LabelNode, LabelNode> clonedLabels) {
+    if (localVariableAnnotations == null) {
+      return null;
+    }
+    List<LocalVariableAnnotationNode> copy = new ArrayList<>(localVariableAnnotations.size());
+    for (int i = 0, n = localVariableAnnotations.size(); i < n; ++i) {
+      LocalVariableAnnotationNode localVariableAnnotation = localVariableAnnotations.get(i);
+      int rangeCount = localVariableAnnotation.start.size();
+      LabelNode[] start = new LabelNode[rangeCount];
+      LabelNode[] end = new LabelNode[rangeCount];
+      int[] index = new int[rangeCount];
+      for (int j = 0; j < rangeCount; ++j) {
+        start[j] = clonedLabels.get(localVariableAnnotation.start.get(j));
+        end[j] = clonedLabels.get(localVariableAnnotation.end.get(j));
+        index[j] = localVariableAnnotation.index.get(j);
+      }
+      LocalVariableAnnotationNode localVariableAnnotationCopy =
+          new LocalVariableAnnotationNode(
+              localVariableAnnotation.typeRef,
+              localVariableAnnotation.typePath,
+              start,
+              end,
+              index,
+              localVariableAnnotation.desc);
+      localVariableAnnotation.accept(localVariableAnnotationCopy);
+      copy.add(localVariableAnnotationCopy);
+    }
+    return copy;
+  }
+
   // -----------------------------------------------------------------------------------------------
   // Accept method
   // -----------------------------------------------------------------------------------------------
@@ -563,12 +843,14 @@ public class MethodNode extends MethodVisitor {
   /**
    * Checks that this method node is compatible with the given ASM API version. This method checks
    * that this node, and all its children recursively, do not contain elements that were introduced
-   * in more recent versions of the ASM API than the given version.
+   * in more recent versions of the ASM API than the given version. The code of a lazily read method
+   * node is read first, if needed (see {@link #readCode}).
    *
    * @param api an ASM API version. Must be one of the {@code ASM}<i>x</i> values in {@link
    *     Opcodes}.
    */
   public void check(final int api) {
+    readCode();
     if (api == Opcodes.ASM4) {
       if (parameters != null && !parameters.isEmpty()) {
         throw new UnsupportedClassVersionException();
@@ -651,11 +933,31 @@ public class MethodNode extends MethodVisitor {
   }
 
   /**
-   * Makes the given method visitor visit this method.
+   * Makes the given method visitor visit this method. If this method node has been created by
+   * {@link ClassNode#readLazily} and if its code has not been read yet, this code is visited
+   * directly from the class reader, without being read in this node. It is even copied as is if the
+   * given visitor comes from a {@link org.objectweb.asm.ClassWriter} constructed with this class
+   * reader (see {@link ClassReader#acceptCode}). Likewise, if this method node has been created by
+   * {@link #copyLazily} and if its code has not been read yet, this code is visited directly from
+   * the method node from which it was copied. Finally, if the code of this method node has been
+   * read from a class reader with {@link #readCode}, and has been declared unmodified since with
+   * {@link #markCodeUnmodified}, it is also copied as is when possible.
    *
    * @param methodVisitor a method visitor.
    */
   public void accept(final MethodVisitor methodVisitor) {
+    acceptAttributes(methodVisitor);
+    acceptCode(methodVisitor);
+    methodVisitor.visitEnd();
+  }
+
+  /**
+   * Makes the given method visitor visit the parameters, the annotations and the non standard
+   * attributes of this method, i.e. everything but its code.
+   *
+   * @param methodVisitor a method visitor.
+   */
+  private void acceptAttributes(final MethodVisitor methodVisitor) {
     // Visit the parameters.
     if (parameters != null) {
       for (int i = 0, n = parameters.size(); i < n; i++) {
@@ -729,15 +1031,33 @@ public class MethodNode extends MethodVisitor {
       }
     }
     // Visit the non standard attributes.
-    if (visited) {
-      instructions.resetLabels();
-    }
     if (attrs != null) {
       for (int i = 0, n = attrs.size(); i < n; ++i) {
         methodVisitor.visitAttribute(attrs.get(i));
       }
     }
-    // Visit the code.
+  }
+
+  /**
+   * Makes the given method visitor visit the code of this method, if any.
+   *
+   * @param methodVisitor a method visitor.
+   */
+  private void acceptCode(final MethodVisitor methodVisitor) {
+    if (codeUnmodified
+        && readCodeSnapshot.classReader.canCopyCode(methodVisitor)
+        && readCodeSnapshot.isUnmodified(this)) {
+      // The code has been read from a class reader and is declared unmodified since: copy it as is.
+      readCodeSnapshot.classReader.acceptCode(
+          methodVisitor,
+          codeReaderMethodInfoOffset,
+          codeReaderAttributePrototypes,
+          codeReaderParsingOptions);
+      return;
+    }
+    if (visited) {
+      instructions.resetLabels();
+    }
     if (instructions.size() > 0) {
       methodVisitor.visitCode();
       // Visits the try catch blocks.
@@ -768,7 +1088,152 @@ public class MethodNode extends MethodVisitor {
       }
       methodVisitor.visitMaxs(maxStack, maxLocals);
       visited = true;
+    } else if (codeReader != null) {
+      codeReader.acceptCode(
+          methodVisitor,
+          codeReaderMethodInfoOffset,
+          codeReaderAttributePrototypes,
+          codeReaderParsingOptions);
+    } else if (codeSource != null) {
+      codeSource.acceptCode(methodVisitor);
+    }
+  }
+
+  /**
+   * A map from the labels of an {@link InsnList} to new labels, backed by arrays indexed by the
+   * label ordinals (see {@link InsnList#computeLabelOrdinals}). The labels which do not belong to
+   * the list are not mapped, as with a {@link java.util.HashMap}.
+   */
+  private static final class ClonedLabels extends AbstractMap<LabelNode, LabelNode> {
+
+    /** The labels of the list, indexed by label ordinal. */
+    private final LabelNode[] labels;
+
+    /** The clone of each label, indexed by label ordinal. */
+    private final LabelNode[] labelClones;
+
+    ClonedLabels(final InsnList instructions) {
+      int labelCount = instructions.computeLabelOrdinals();
+      labels = new LabelNode[labelCount];
+      labelClones = new LabelNode[labelCount];
+      for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+        if (insn instanceof LabelNode) {
+          LabelNode label = (LabelNode) insn;
+          labels[label.ordinal] = label;
+          labelClones[label.ordinal] = new LabelNode();
+        }
+      }
+    }
+
+    /**
+     * Returns the ordinal of the given key in this map, or -1.
+     *
+     * @param key an object.
+     * @return the ordinal of the given key if it is a label of the list, or -1 otherwise.
+     */
+    private int getOrdinal(final Object key) {
+      if (key instanceof LabelNode) {
+        int ordinal = ((LabelNode) key).ordinal;
+        if (ordinal >= 0 && ordinal < labels.length && labels[ordinal] == key) {
+          return ordinal;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public LabelNode get(final Object key) {
+      int ordinal = getOrdinal(key);
+      return ordinal == -1 ? null : labelClones[ordinal];
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+      return getOrdinal(key) != -1;
+    }
+
+    @Override
+    public int size() {
+      return labels.length;
+    }
+
+    @Override
+    public Set<Map.Entry<LabelNode, LabelNode>> entrySet() {
+      Map<LabelNode, LabelNode> map = new LinkedHashMap<>(labels.length * 2);
+      for (int i = 0; i < labels.length; ++i) {
+        map.put(labels[i], labelClones[i]);
+      }
+      return Collections.unmodifiableMap(map).entrySet();
+    }
+  }
+
+  /**
+   * The state of the code related fields of a method node, just after its code has been read from a
+   * class reader.
+   */
+  private static final class CodeSnapshot {
+
+    /** The class reader from which the code has been read. */
+    final ClassReader classReader;
+
+    private final String descriptor;
+    private final InsnList instructions;
+    private final int instructionsModificationCount;
+    private final List<TryCatchBlockNode> tryCatchBlocks;
+    private final int tryCatchBlockCount;
+    private final int maxStack;
+    private final int maxLocals;
+    private final List<LocalVariableNode> localVariables;
+    private final int localVariableCount;
+    private final List<LocalVariableAnnotationNode> visibleLocalVariableAnnotations;
+    private final int visibleLocalVariableAnnotationCount;
+    private final List<LocalVariableAnnotationNode> invisibleLocalVariableAnnotations;
+    private final int invisibleLocalVariableAnnotationCount;
+
+    CodeSnapshot(final ClassReader classReader, final MethodNode methodNode) {
+      this.classReader = classReader;
+      this.descriptor = methodNode.desc;
+      this.instructions = methodNode.instructions;
+      this.instructionsModificationCount = methodNode.instructions.modificationCount;
+      this.tryCatchBlocks = methodNode.tryCatchBlocks;
+      this.tryCatchBlockCount = size(methodNode.tryCatchBlocks);
+      this.maxStack = methodNode.maxStack;
+      this.maxLocals = methodNode.maxLocals;
+      this.localVariables = methodNode.localVariables;
+      this.localVariableCount = size(methodNode.localVariables);
+      this.visibleLocalVariableAnnotations = methodNode.visibleLocalVariableAnnotations;
+      this.visibleLocalVariableAnnotationCount = size(methodNode.visibleLocalVariableAnnotations);
+      this.invisibleLocalVariableAnnotations = methodNode.invisibleLocalVariableAnnotations;
+      this.invisibleLocalVariableAnnotationCount =
+          size(methodNode.invisibleLocalVariableAnnotations);
+    }
+
+    /**
+     * Returns whether the code of the given method node is unchanged since this snapshot was taken,
+     * as far as this can be detected.
+     *
+     * @param methodNode the method node from which this snapshot was taken.
+     * @return whether no modification of the code of the given method node has been detected.
+     */
+    boolean isUnmodified(final MethodNode methodNode) {
+      return descriptor.equals(methodNode.desc)
+          && instructions == methodNode.instructions
+          && instructionsModificationCount == methodNode.instructions.modificationCount
+          && tryCatchBlocks == methodNode.tryCatchBlocks
+          && tryCatchBlockCount == size(methodNode.tryCatchBlocks)
+          && maxStack == methodNode.maxStack
+          && maxLocals == methodNode.maxLocals
+          && localVariables == methodNode.localVariables
+          && localVariableCount == size(methodNode.localVariables)
+          && visibleLocalVariableAnnotations == methodNode.visibleLocalVariableAnnotations
+          && visibleLocalVariableAnnotationCount == size(methodNode.visibleLocalVariableAnnotations)
+          && invisibleLocalVariableAnnotations == methodNode.invisibleLocalVariableAnnotations
+          && invisibleLocalVariableAnnotationCount
+              == size(methodNode.invisibleLocalVariableAnnotations);
+    }
+
+    private static int size(final List<?> list) {
+      return list == null ? 0 : list.size();
     }
-    methodVisitor.visitEnd();
   }
 }
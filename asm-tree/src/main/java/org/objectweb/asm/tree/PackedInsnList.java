@@ -0,0 +1,865 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.tree;
+
+import java.util.HashMap;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.TypePath;
+
+/**
+ * A compact list of instructions, built with the {@link MethodVisitor} instruction methods. Unlike
+ * {@link InsnList}, this list does not allocate one object per instruction: the opcode, the type
+ * and up to three int operands of each instruction are stored in parallel primitive arrays, and the
+ * other operands (strings, constants, labels, switch tables, frames) are stored in side tables,
+ * shared between instructions when possible. This list only contains instructions (including
+ * labels, line numbers and stack map frames), and their type annotations. The other method visitor
+ * calls are ignored. <i>This implementation is not thread safe</i>.
+ *
+ * <p>Instructions can be inspected without allocating any object, with {@link #getOpcode} and
+ * {@link #getType}, or with {@link AbstractInsnNode} views returned by {@link #get}. They can also
+ * be replayed to another method visitor with {@link #accept}.
+ */
+public class PackedInsnList extends MethodVisitor {
+
+  /** The initial capacity of the instruction and side tables arrays. */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /** The number of instructions in this list. */
+  private int size;
+
+  /** The opcode of each instruction, or -1 for labels, line numbers and frames. */
+  private int[] opcodes;
+
+  /** The type of each instruction (see {@link AbstractInsnNode#getType}). */
+  private byte[] types;
+
+  /**
+   * The first operand of each instruction. This is the int operand of IntInsn instructions, the
+   * variable index of VarInsn and IincInsn instructions, the minimum key of TableSwitchInsn
+   * instructions, the frame type of frames, the line number of line numbers, the index of the label
+   * of JumpInsn and labels in {@link #labels}, or the index of the first String or constant operand
+   * of the other instructions in {@link #constants}.
+   */
+  private int[] operands1;
+
+  /**
+   * The second operand of each instruction. This is the increment of IincInsn instructions, the
+   * maximum key of TableSwitchInsn instructions, the number of dimensions of MultiANewArrayInsn
+   * instructions, the index of the label of line numbers in {@link #labels}, or the index of the
+   * second String operand, or of some side table, of the other instructions in {@link #constants}.
+   */
+  private int[] operands2;
+
+  /**
+   * The third operand of each instruction. This is the index in {@link #constants} of the
+   * descriptor of FieldInsn instructions, of the descriptor of MethodInsn instructions multiplied
+   * by 2 and combined with their 'isInterface' flag in the low bit, or of some side table of the
+   * other instructions.
+   */
+  private int[] operands3;
+
+  /**
+   * The constant pool-like table of this list. It contains the String and constant operands of the
+   * instructions, each one stored only once, and the side tables of switch, invokedynamic and frame
+   * instructions.
+   */
+  private Object[] constants;
+
+  /** The number of values in {@link #constants}. */
+  private int constantCount;
+
+  /** The index in {@link #constants} of each String and constant operand. */
+  private final HashMap<Object, Integer> constantIndices;
+
+  /** The labels of this list. */
+  private Label[] labels;
+
+  /** The number of labels in {@link #labels}. */
+  private int labelCount;
+
+  /** The index in {@link #labels} of each label of this list. */
+  private final HashMap<Label, Integer> labelIndices;
+
+  /** The label nodes corresponding to {@link #labels}, created on demand by {@link #get}. */
+  private LabelNode[] labelNodes;
+
+  /** The type annotations of the instructions of this list, in visit order. May be null. */
+  private TypeAnnotationNode[] insnAnnotations;
+
+  /**
+   * The instruction index of each element of {@link #insnAnnotations}, multiplied by 2 and combined
+   * with the 'visible' flag of the annotation in the low bit. May be null.
+   */
+  private int[] insnAnnotationTargets;
+
+  /** The number of elements in {@link #insnAnnotations}. */
+  private int insnAnnotationCount;
+
+  /**
+   * Constructs an empty {@link PackedInsnList}. <i>Subclasses must not use this constructor</i>.
+   * Instead, they must use the {@link #PackedInsnList(int)} version.
+   *
+   * @throws IllegalStateException If a subclass calls this constructor.
+   */
+  public PackedInsnList() {
+    this(/* latest api = */ Opcodes.ASM9);
+    if (getClass() != PackedInsnList.class) {
+      throw new IllegalStateException();
+    }
+  }
+
+  /**
+   * Constructs an empty {@link PackedInsnList}.
+   *
+   * @param api the ASM API version implemented by this visitor. Must be one of the {@code
+   *     ASM}<i>x</i> values in {@link Opcodes}.
+   */
+  public PackedInsnList(final int api) {
+    super(api);
+    opcodes = new int[INITIAL_CAPACITY];
+    types = new byte[INITIAL_CAPACITY];
+    operands1 = new int[INITIAL_CAPACITY];
+    operands2 = new int[INITIAL_CAPACITY];
+    operands3 = new int[INITIAL_CAPACITY];
+    constants = new Object[INITIAL_CAPACITY];
+    constantIndices = new HashMap<>();
+    labels = new Label[INITIAL_CAPACITY];
+    labelIndices = new HashMap<>();
+  }
+
+  // -----------------------------------------------------------------------------------------------
+  // Accessors
+  // -----------------------------------------------------------------------------------------------
+
+  /**
+   * Returns the number of instructions in this list.
+   *
+   * @return the number of instructions in this list.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the opcode of the instruction at the given index.
+   *
+   * @param index the index of an instruction of this list.
+   * @return the opcode of this instruction, or -1 if it is a label, a line number or a frame (see
+   *     {@link AbstractInsnNode#getOpcode}).
+   * @throws IndexOutOfBoundsException if (index &lt; 0 || index &gt;= size()).
+   */
+  public int getOpcode(final int index) {
+    checkIndex(index);
+    return opcodes[index];
+  }
+
+  /**
+   * Returns the type of the instruction at the given index.
+   *
+   * @param index the index of an instruction of this list.
+   * @return the type of this instruction (see {@link AbstractInsnNode#getType}).
+   * @throws IndexOutOfBoundsException if (index &lt; 0 || index &gt;= size()).
+   */
+  public int getType(final int index) {
+    checkIndex(index);
+    return types[index];
+  }
+
+  /**
+   * Returns a node view of the instruction at the given index. Except for labels, a new node is
+   * returned at each call, which does not belong to any {@link InsnList}. Label nodes, on the
+   * contrary, are created once per label, so that all the views of this list use the same label
+   * node for a given label. The type annotations of the returned node are those of this list, and
+   * not copies of them.
+   *
+   * @param index the index of an instruction of this list.
+   * @return a node view of this instruction. Changes to this node are not reflected in this list.
+   * @throws IndexOutOfBoundsException if (index &lt; 0 || index &gt;= size()).
+   */
+  public AbstractInsnNode get(final int index) {
+    checkIndex(index);
+    int opcode = opcodes[index];
+    int operand1 = operands1[index];
+    int operand2 = operands2[index];
+    int operand3 = operands3[index];
+    AbstractInsnNode insn;
+    switch (types[index]) {
+      case AbstractInsnNode.INSN:
+        insn = new InsnNode(opcode);
+        break;
+      case AbstractInsnNode.INT_INSN:
+        insn = new IntInsnNode(opcode, operand1);
+        break;
+      case AbstractInsnNode.VAR_INSN:
+        insn = new VarInsnNode(opcode, operand1);
+        break;
+      case AbstractInsnNode.TYPE_INSN:
+        insn = new TypeInsnNode(opcode, (String) constants[operand1]);
+        break;
+      case AbstractInsnNode.FIELD_INSN:
+        insn =
+            new FieldInsnNode(
+                opcode,
+                (String) constants[operand1],
+                (String) constants[operand2],
+                (String) constants[operand3]);
+        break;
+      case AbstractInsnNode.METHOD_INSN:
+        insn =
+            new MethodInsnNode(
+                opcode,
+                (String) constants[operand1],
+                (String) constants[operand2],
+                (String) constants[operand3 >>> 1],
+                (operand3 & 1) != 0);
+        break;
+      case AbstractInsnNode.INVOKE_DYNAMIC_INSN:
+        Object[] bootstrapMethod = (Object[]) constants[operand3];
+        Object[] bootstrapMethodArguments = new Object[bootstrapMethod.length - 1];
+        System.arraycopy(
+            bootstrapMethod, 1, bootstrapMethodArguments, 0, bootstrapMethodArguments.length);
+        insn =
+            new InvokeDynamicInsnNode(
+                (String) constants[operand1],
+                (String) constants[operand2],
+                (Handle) bootstrapMethod[0],
+                bootstrapMethodArguments);
+        break;
+      case AbstractInsnNode.JUMP_INSN:
+        insn = new JumpInsnNode(opcode, getLabelNode(operand1));
+        break;
+      case AbstractInsnNode.LABEL:
+        insn = getLabelNode(operand1);
+        break;
+      case AbstractInsnNode.LDC_INSN:
+        insn = new LdcInsnNode(constants[operand1]);
+        break;
+      case AbstractInsnNode.IINC_INSN:
+        insn = new IincInsnNode(operand1, operand2);
+        break;
+      case AbstractInsnNode.TABLESWITCH_INSN:
+        int[] tableSwitchLabels = (int[]) constants[operand3];
+        insn =
+            new TableSwitchInsnNode(
+                operand1,
+                operand2,
+                getLabelNode(tableSwitchLabels[0]),
+                getLabelNodes(tableSwitchLabels));
+        break;
+      case AbstractInsnNode.LOOKUPSWITCH_INSN:
+        int[] lookupSwitchLabels = (int[]) constants[operand2];
+        insn =
+            new LookupSwitchInsnNode(
+                getLabelNode(lookupSwitchLabels[0]),
+                ((int[]) constants[operand1]).clone(),
+                getLabelNodes(lookupSwitchLabels));
+        break;
+      case AbstractInsnNode.MULTIANEWARRAY_INSN:
+        insn = new MultiANewArrayInsnNode((String) constants[operand1], operand2);
+        break;
+      case AbstractInsnNode.FRAME:
+        Object[] local = getFrameTypes(operand2);
+        Object[] stack = getFrameTypes(operand3);
+        insn =
+            new FrameNode(
+                operand1,
+                local == null ? 0 : local.length,
+                local == null ? null : getFrameTypeNodes(local),
+                stack == null ? 0 : stack.length,
+                stack == null ? null : getFrameTypeNodes(stack));
+        break;
+      case AbstractInsnNode.LINE:
+        insn = new LineNumberNode(operand1, getLabelNode(operand2));
+        break;
+      default:
+        throw new AssertionError();
+    }
+    for (int i = getFirstInsnAnnotation(index); i < insnAnnotationCount; ++i) {
+      int target = insnAnnotationTargets[i];
+      if (target >>> 1 != index) {
+        break;
+      }
+      if ((target & 1) != 0) {
+        insn.visibleTypeAnnotations = Util.add(insn.visibleTypeAnnotations, insnAnnotations[i]);
+      } else {
+        insn.invisibleTypeAnnotations = Util.add(insn.invisibleTypeAnnotations, insnAnnotations[i]);
+      }
+    }
+    return insn;
+  }
+
+  /**
+   * Makes the given visitor visit all the instructions in this list, and their type annotations.
+   *
+   * @param methodVisitor the method visitor that must visit the instructions.
+   */
+  public void accept(final MethodVisitor methodVisitor) {
+    int insnAnnotationIndex = 0;
+    for (int index = 0; index < size; ++index) {
+      acceptInsn(methodVisitor, index);
+      while (insnAnnotationIndex < insnAnnotationCount
+          && insnAnnotationTargets[insnAnnotationIndex] >>> 1 == index) {
+        TypeAnnotationNode typeAnnotation = insnAnnotations[insnAnnotationIndex];
+        typeAnnotation.accept(
+            methodVisitor.visitInsnAnnotation(
+                typeAnnotation.typeRef,
+                typeAnnotation.typePath,
+                typeAnnotation.desc,
+                (insnAnnotationTargets[insnAnnotationIndex] & 1) != 0));
+        ++insnAnnotationIndex;
+      }
+    }
+  }
+
+  /**
+   * Makes the given visitor visit the instruction at the given index, without its annotations.
+   *
+   * @param methodVisitor the method visitor that must visit the instruction.
+   * @param index the index of an instruction of this list.
+   */
+  private void acceptInsn(final MethodVisitor methodVisitor, final int index) {
+    int opcode = opcodes[index];
+    int operand1 = operands1[index];
+    int operand2 = operands2[index];
+    int operand3 = operands3[index];
+    switch (types[index]) {
+      case AbstractInsnNode.INSN:
+        methodVisitor.visitInsn(opcode);
+        break;
+      case AbstractInsnNode.INT_INSN:
+        methodVisitor.visitIntInsn(opcode, operand1);
+        break;
+      case AbstractInsnNode.VAR_INSN:
+        methodVisitor.visitVarInsn(opcode, operand1);
+        break;
+      case AbstractInsnNode.TYPE_INSN:
+        methodVisitor.visitTypeInsn(opcode, (String) constants[operand1]);
+        break;
+      case AbstractInsnNode.FIELD_INSN:
+        methodVisitor.visitFieldInsn(
+            opcode,
+            (String) constants[operand1],
+            (String) constants[operand2],
+            (String) constants[operand3]);
+        break;
+      case AbstractInsnNode.METHOD_INSN:
+        methodVisitor.visitMethodInsn(
+            opcode,
+            (String) constants[operand1],
+            (String) constants[operand2],
+            (String) constants[operand3 >>> 1],
+            (operand3 & 1) != 0);
+        break;
+      case AbstractInsnNode.INVOKE_DYNAMIC_INSN:
+        Object[] bootstrapMethod = (Object[]) constants[operand3];
+        Object[] bootstrapMethodArguments = new Object[bootstrapMethod.length - 1];
+        System.arraycopy(
+            bootstrapMethod, 1, bootstrapMethodArguments, 0, bootstrapMethodArguments.length);
+        methodVisitor.visitInvokeDynamicInsn(
+            (String) constants[operand1],
+            (String) constants[operand2],
+            (Handle) bootstrapMethod[0],
+            bootstrapMethodArguments);
+        break;
+      case AbstractInsnNode.JUMP_INSN:
+        methodVisitor.visitJumpInsn(opcode, labels[operand1]);
+        break;
+      case AbstractInsnNode.LABEL:
+        methodVisitor.visitLabel(labels[operand1]);
+        break;
+      case AbstractInsnNode.LDC_INSN:
+        methodVisitor.visitLdcInsn(constants[operand1]);
+        break;
+      case AbstractInsnNode.IINC_INSN:
+        methodVisitor.visitIincInsn(operand1, operand2);
+        break;
+      case AbstractInsnNode.TABLESWITCH_INSN:
+        int[] tableSwitchLabels = (int[]) constants[operand3];
+        methodVisitor.visitTableSwitchInsn(
+            operand1, operand2, labels[tableSwitchLabels[0]], getLabels(tableSwitchLabels));
+        break;
+      case AbstractInsnNode.LOOKUPSWITCH_INSN:
+        int[] lookupSwitchLabels = (int[]) constants[operand2];
+        methodVisitor.visitLookupSwitchInsn(
+            labels[lookupSwitchLabels[0]],
+            ((int[]) constants[operand1]).clone(),
+            getLabels(lookupSwitchLabels));
+        break;
+      case AbstractInsnNode.MULTIANEWARRAY_INSN:
+        methodVisitor.visitMultiANewArrayInsn((String) constants[operand1], operand2);
+        break;
+      case AbstractInsnNode.FRAME:
+        Object[] local = getFrameTypes(operand2);
+        Object[] stack = getFrameTypes(operand3);
+        methodVisitor.visitFrame(
+            operand1,
+            local == null ? 0 : local.length,
+            local == null ? null : local.clone(),
+            stack == null ? 0 : stack.length,
+            stack == null ? null : stack.clone());
+        break;
+      case AbstractInsnNode.LINE:
+        methodVisitor.visitLineNumber(operand1, labels[operand2]);
+        break;
+      default:
+        throw new AssertionError();
+    }
+  }
+
+  /**
+   * Checks that the given index is the index of an instruction of this list.
+   *
+   * @param index an index.
+   * @throws IndexOutOfBoundsException if (index &lt; 0 || index &gt;= size()).
+   */
+  private void checkIndex(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException();
+    }
+  }
+
+  /**
+   * Returns the label node corresponding to the given label index. This label node is created the
+   * first time this method is called for this index, and is then returned by all the next calls.
+   *
+   * @param labelIndex the index of a label in {@link #labels}.
+   * @return the label node corresponding to this label.
+   */
+  private LabelNode getLabelNode(final int labelIndex) {
+    if (labelNodes == null || labelNodes.length < labelCount) {
+      LabelNode[] newLabelNodes = new LabelNode[labels.length];
+      if (labelNodes != null) {
+        System.arraycopy(labelNodes, 0, newLabelNodes, 0, labelNodes.length);
+      }
+      labelNodes = newLabelNodes;
+    }
+    LabelNode labelNode = labelNodes[labelIndex];
+    if (labelNode == null) {
+      labelNode = new LabelNode(labels[labelIndex]);
+      labelNodes[labelIndex] = labelNode;
+    }
+    return labelNode;
+  }
+
+  /**
+   * Returns the label nodes corresponding to the given label indices, except the first one.
+   *
+   * @param labelIndices the index of a default label in {@link #labels}, followed by the indices of
+   *     other labels.
+   * @return the label nodes corresponding to labelIndices[1..].
+   */
+  private LabelNode[] getLabelNodes(final int[] labelIndices) {
+    LabelNode[] result = new LabelNode[labelIndices.length - 1];
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = getLabelNode(labelIndices[i + 1]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the labels corresponding to the given label indices, except the first one.
+   *
+   * @param labelIndices the index of a default label in {@link #labels}, followed by the indices of
+   *     other labels.
+   * @return the labels corresponding to labelIndices[1..].
+   */
+  private Label[] getLabels(final int[] labelIndices) {
+    Label[] result = new Label[labelIndices.length - 1];
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = labels[labelIndices[i + 1]];
+    }
+    return result;
+  }
+
+  /**
+   * Returns the given frame types, with their labels replaced with the corresponding label nodes.
+   *
+   * @param frameTypes some local variable or operand stack types of a frame, as stored in {@link
+   *     #constants} (their labels are in {@link #labels}).
+   * @return the given frame types, in the format used by {@link FrameNode}.
+   */
+  private Object[] getFrameTypeNodes(final Object[] frameTypes) {
+    Object[] result = new Object[frameTypes.length];
+    for (int i = 0; i < result.length; ++i) {
+      Object frameType = frameTypes[i];
+      result[i] =
+          frameType instanceof Label ? getLabelNode(labelIndices.get(frameType)) : frameType;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the local variable or operand stack types of a frame.
+   *
+   * @param constantIndex the index of these types in {@link #constants}, or -1.
+   * @return these types, or {@literal null} if constantIndex is -1. This array must not be
+   *     modified.
+   */
+  private Object[] getFrameTypes(final int constantIndex) {
+    return constantIndex == -1 ? null : (Object[]) constants[constantIndex];
+  }
+
+  /**
+   * Returns the index of the first type annotation of the given instruction.
+   *
+   * @param index the index of an instruction of this list.
+   * @return the index in {@link #insnAnnotations} of the first type annotation of this instruction,
+   *     or of the first annotation of a following instruction, or {@link #insnAnnotationCount}.
+   */
+  private int getFirstInsnAnnotation(final int index) {
+    int low = 0;
+    int high = insnAnnotationCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (insnAnnotationTargets[middle] >>> 1 < index) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  // -----------------------------------------------------------------------------------------------
+  // Implementation of the MethodVisitor abstract class
+  // -----------------------------------------------------------------------------------------------
+
+  @Override
+  public void visitFrame(
+      final int type,
+      final int numLocal,
+      final Object[] local,
+      final int numStack,
+      final Object[] stack) {
+    add(
+        AbstractInsnNode.FRAME,
+        -1,
+        type,
+        addFrameTypes(numLocal, local),
+        addFrameTypes(numStack, stack));
+  }
+
+  @Override
+  public void visitInsn(final int opcode) {
+    add(AbstractInsnNode.INSN, opcode, 0, 0, 0);
+  }
+
+  @Override
+  public void visitIntInsn(final int opcode, final int operand) {
+    add(AbstractInsnNode.INT_INSN, opcode, operand, 0, 0);
+  }
+
+  @Override
+  public void visitVarInsn(final int opcode, final int varIndex) {
+    add(AbstractInsnNode.VAR_INSN, opcode, varIndex, 0, 0);
+  }
+
+  @Override
+  public void visitTypeInsn(final int opcode, final String type) {
+    add(AbstractInsnNode.TYPE_INSN, opcode, addConstant(type), 0, 0);
+  }
+
+  @Override
+  public void visitFieldInsn(
+      final int opcode, final String owner, final String name, final String descriptor) {
+    add(
+        AbstractInsnNode.FIELD_INSN,
+        opcode,
+        addConstant(owner),
+        addConstant(name),
+        addConstant(descriptor));
+  }
+
+  @Override
+  public void visitMethodInsn(
+      final int opcodeAndSource,
+      final String owner,
+      final String name,
+      final String descriptor,
+      final boolean isInterface) {
+    if (api < Opcodes.ASM5 && (opcodeAndSource & Opcodes.SOURCE_DEPRECATED) == 0) {
+      // Redirect the call to the deprecated version of this method.
+      super.visitMethodInsn(opcodeAndSource, owner, name, descriptor, isInterface);
+      return;
+    }
+    int opcode = opcodeAndSource & ~Opcodes.SOURCE_MASK;
+
+    add(
+        AbstractInsnNode.METHOD_INSN,
+        opcode,
+        addConstant(owner),
+        addConstant(name),
+        addConstant(descriptor) << 1 | (isInterface ? 1 : 0));
+  }
+
+  @Override
+  public void visitInvokeDynamicInsn(
+      final String name,
+      final String descriptor,
+      final Handle bootstrapMethodHandle,
+      final Object... bootstrapMethodArguments) {
+    Object[] bootstrapMethod = new Object[bootstrapMethodArguments.length + 1];
+    bootstrapMethod[0] = bootstrapMethodHandle;
+    System.arraycopy(
+        bootstrapMethodArguments, 0, bootstrapMethod, 1, bootstrapMethodArguments.length);
+    add(
+        AbstractInsnNode.INVOKE_DYNAMIC_INSN,
+        Opcodes.INVOKEDYNAMIC,
+        addConstant(name),
+        addConstant(descriptor),
+        addSideTable(bootstrapMethod));
+  }
+
+  @Override
+  public void visitJumpInsn(final int opcode, final Label label) {
+    add(AbstractInsnNode.JUMP_INSN, opcode, getLabelIndex(label), 0, 0);
+  }
+
+  @Override
+  public void visitLabel(final Label label) {
+    add(AbstractInsnNode.LABEL, -1, getLabelIndex(label), 0, 0);
+  }
+
+  @Override
+  public void visitLdcInsn(final Object value) {
+    add(AbstractInsnNode.LDC_INSN, Opcodes.LDC, addConstant(value), 0, 0);
+  }
+
+  @Override
+  public void visitIincInsn(final int varIndex, final int increment) {
+    add(AbstractInsnNode.IINC_INSN, Opcodes.IINC, varIndex, increment, 0);
+  }
+
+  @Override
+  public void visitTableSwitchInsn(
+      final int min, final int max, final Label dflt, final Label... labels) {
+    add(
+        AbstractInsnNode.TABLESWITCH_INSN,
+        Opcodes.TABLESWITCH,
+        min,
+        max,
+        addSideTable(getLabelIndices(dflt, labels)));
+  }
+
+  @Override
+  public void visitLookupSwitchInsn(final Label dflt, final int[] keys, final Label[] labels) {
+    add(
+        AbstractInsnNode.LOOKUPSWITCH_INSN,
+        Opcodes.LOOKUPSWITCH,
+        addSideTable(keys.clone()),
+        addSideTable(getLabelIndices(dflt, labels)),
+        0);
+  }
+
+  @Override
+  public void visitMultiANewArrayInsn(final String descriptor, final int numDimensions) {
+    add(
+        AbstractInsnNode.MULTIANEWARRAY_INSN,
+        Opcodes.MULTIANEWARRAY,
+        addConstant(descriptor),
+        numDimensions,
+        0);
+  }
+
+  @Override
+  public AnnotationVisitor visitInsnAnnotation(
+      final int typeRef, final TypePath typePath, final String descriptor, final boolean visible) {
+    // Find the last real instruction, i.e. the instruction targeted by this annotation.
+    int index = size - 1;
+    while (index >= 0 && opcodes[index] == -1) {
+      --index;
+    }
+    if (index < 0) {
+      throw new IllegalStateException();
+    }
+    // Add the annotation to this instruction.
+    TypeAnnotationNode typeAnnotation = new TypeAnnotationNode(typeRef, typePath, descriptor);
+    if (insnAnnotations == null) {
+      insnAnnotations = new TypeAnnotationNode[INITIAL_CAPACITY];
+      insnAnnotationTargets = new int[INITIAL_CAPACITY];
+    } else if (insnAnnotationCount == insnAnnotations.length) {
+      TypeAnnotationNode[] newInsnAnnotations = new TypeAnnotationNode[2 * insnAnnotationCount];
+      System.arraycopy(insnAnnotations, 0, newInsnAnnotations, 0, insnAnnotationCount);
+      insnAnnotations = newInsnAnnotations;
+      insnAnnotationTargets = grow(insnAnnotationTargets);
+    }
+    insnAnnotations[insnAnnotationCount] = typeAnnotation;
+    insnAnnotationTargets[insnAnnotationCount++] = index << 1 | (visible ? 1 : 0);
+    return typeAnnotation;
+  }
+
+  @Override
+  public void visitLineNumber(final int line, final Label start) {
+    add(AbstractInsnNode.LINE, -1, line, getLabelIndex(start), 0);
+  }
+
+  // -----------------------------------------------------------------------------------------------
+  // Utility methods
+  // -----------------------------------------------------------------------------------------------
+
+  /**
+   * Appends an instruction to this list.
+   *
+   * @param type the type of the instruction (see {@link AbstractInsnNode#getType}).
+   * @param opcode the opcode of the instruction, or -1.
+   * @param operand1 the first operand of the instruction (see {@link #operands1}).
+   * @param operand2 the second operand of the instruction (see {@link #operands2}).
+   * @param operand3 the third operand of the instruction (see {@link #operands3}).
+   */
+  private void add(
+      final int type,
+      final int opcode,
+      final int operand1,
+      final int operand2,
+      final int operand3) {
+    if (size == opcodes.length) {
+      opcodes = grow(opcodes);
+      byte[] newTypes = new byte[2 * size];
+      System.arraycopy(types, 0, newTypes, 0, size);
+      types = newTypes;
+      operands1 = grow(operands1);
+      operands2 = grow(operands2);
+      operands3 = grow(operands3);
+    }
+    opcodes[size] = opcode;
+    types[size] = (byte) type;
+    operands1[size] = operand1;
+    operands2[size] = operand2;
+    operands3[size] = operand3;
+    ++size;
+  }
+
+  /**
+   * Adds a String or constant operand to {@link #constants}, if it is not already there.
+   *
+   * @param value a String or constant operand.
+   * @return the index of this value in {@link #constants}.
+   */
+  private int addConstant(final Object value) {
+    Integer constantIndex = constantIndices.get(value);
+    if (constantIndex != null) {
+      return constantIndex;
+    }
+    int newConstantIndex = addSideTable(value);
+    constantIndices.put(value, newConstantIndex);
+    return newConstantIndex;
+  }
+
+  /**
+   * Adds a value to {@link #constants}, without sharing it with other instructions.
+   *
+   * @param value a side table of an instruction.
+   * @return the index of this value in {@link #constants}.
+   */
+  private int addSideTable(final Object value) {
+    if (constantCount == constants.length) {
+      Object[] newConstants = new Object[2 * constantCount];
+      System.arraycopy(constants, 0, newConstants, 0, constantCount);
+      constants = newConstants;
+    }
+    constants[constantCount] = value;
+    return constantCount++;
+  }
+
+  /**
+   * Adds the local variable or operand stack types of a frame to {@link #constants}.
+   *
+   * @param numTypes the number of types.
+   * @param frameTypes the types, or {@literal null}.
+   * @return the index of these types in {@link #constants}, or -1 if there are none.
+   */
+  private int addFrameTypes(final int numTypes, final Object[] frameTypes) {
+    if (frameTypes == null && numTypes == 0) {
+      return -1;
+    }
+    Object[] sideTable = new Object[numTypes];
+    if (frameTypes != null) {
+      System.arraycopy(frameTypes, 0, sideTable, 0, numTypes);
+      // Add the labels of the uninitialized types to the labels of this list.
+      for (Object frameType : sideTable) {
+        if (frameType instanceof Label) {
+          getLabelIndex((Label) frameType);
+        }
+      }
+    }
+    return addSideTable(sideTable);
+  }
+
+  /**
+   * Returns the index of the given label in {@link #labels}, after adding it if necessary.
+   *
+   * @param label a label.
+   * @return the index of this label in {@link #labels}.
+   */
+  private int getLabelIndex(final Label label) {
+    Integer labelIndex = labelIndices.get(label);
+    if (labelIndex != null) {
+      return labelIndex;
+    }
+    if (labelCount == labels.length) {
+      Label[] newLabels = new Label[2 * labelCount];
+      System.arraycopy(labels, 0, newLabels, 0, labelCount);
+      labels = newLabels;
+    }
+    labels[labelCount] = label;
+    labelIndices.put(label, labelCount);
+    return labelCount++;
+  }
+
+  /**
+   * Returns the indices of the given labels in {@link #labels}, after adding them if necessary.
+   *
+   * @param dflt a default label.
+   * @param labels some other labels.
+   * @return the index of dflt in {@link #labels}, followed by the indices of the other labels.
+   */
+  private int[] getLabelIndices(final Label dflt, final Label[] labels) {
+    int[] result = new int[labels.length + 1];
+    result[0] = getLabelIndex(dflt);
+    for (int i = 0; i < labels.length; ++i) {
+      result[i + 1] = getLabelIndex(labels[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns a copy of the given array, with twice its length.
+   *
+   * @param array an array.
+   * @return a new array twice as long as the given one, starting with its elements.
+   */
+  private static int[] grow(final int[] array) {
+    int[] newArray = new int[2 * array.length];
+    System.arraycopy(array, 0, newArray, 0, array.length);
+    return newArray;
+  }
+}
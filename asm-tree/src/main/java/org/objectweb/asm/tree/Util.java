@@ -46,6 +46,26 @@ final class Util {
     return newList;
   }
 
+  /**
+   * Returns a list which can hold the given number of additional elements without being resized.
+   *
+   * @param <T> the type of the list elements.
+   * @param list a list, or {@literal null}.
+   * @param additionalCount the number of elements which will be added to the list.
+   * @return a new list with the given capacity if 'list' is {@literal null} or empty (an empty list
+   *     can be replaced since it does not contain anything yet). Otherwise, 'list' itself, whose
+   *     capacity is increased if it is an {@link ArrayList}.
+   */
+  static <T> List<T> ensureCapacity(final List<T> list, final int additionalCount) {
+    if (list == null || list.isEmpty()) {
+      return new ArrayList<>(additionalCount);
+    }
+    if (list instanceof ArrayList) {
+      ((ArrayList<T>) list).ensureCapacity(list.size() + additionalCount);
+    }
+    return list;
+  }
+
   static <T> List<T> asArrayList(final int length) {
     List<T> list = new ArrayList<>(length);
     for (int i = 0; i < length; ++i) {
@@ -27,7 +27,9 @@
 // THE POSSIBILITY OF SUCH DAMAGE.
 package org.objectweb.asm.tree;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -35,6 +37,8 @@ import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.test.AsmTest;
 
@@ -120,4 +124,81 @@ class AnnotationNodeTest extends AsmTest {
 
     assertNull(dstAnnotationNode.values);
   }
+
+  @Test
+  void testVisitElementValuePairs() {
+    ClassReader classReader = new ClassReader(newClassFile());
+    ClassNode classNode = new ClassNode();
+    classReader.accept(classNode, ClassReader.LAZY_ANNOTATIONS);
+    AnnotationNode annotationNode = classNode.visibleAnnotations.get(0);
+    AnnotationNode decodedAnnotationNode = new AnnotationNode("LA;");
+    decodedAnnotationNode.visit("int", 1);
+
+    boolean lazyAnnotationNodeVisited = annotationNode.visitElementValuePairs(classReader, 0);
+    boolean decodedAnnotationNodeVisited =
+        decodedAnnotationNode.visitElementValuePairs(classReader, 0);
+
+    assertNull(annotationNode.values);
+    assertFalse(lazyAnnotationNodeVisited);
+    assertFalse(decodedAnnotationNodeVisited);
+  }
+
+  @Test
+  void testReadValues() {
+    ClassNode classNode = new ClassNode();
+    new ClassReader(newClassFile()).accept(classNode, ClassReader.LAZY_ANNOTATIONS);
+    AnnotationNode annotationNode = classNode.visibleAnnotations.get(0);
+
+    annotationNode.readValues();
+    annotationNode.readValues();
+
+    assertValues(annotationNode);
+  }
+
+  @Test
+  void testAccept_lazyValues() {
+    ClassNode classNode = new ClassNode();
+    new ClassReader(newClassFile()).accept(classNode, ClassReader.LAZY_ANNOTATIONS);
+    AnnotationNode annotationNode = classNode.visibleAnnotations.get(0);
+    AnnotationNode dstAnnotationNode = new AnnotationNode("LA;");
+    AnnotationNode adapterDstAnnotationNode = new AnnotationNode("LA;");
+
+    annotationNode.accept(dstAnnotationNode);
+    annotationNode.accept(
+        new AnnotationVisitor(
+            /* latest */ Opcodes.ASM10_EXPERIMENTAL, adapterDstAnnotationNode) {});
+
+    assertNull(annotationNode.values);
+    assertNull(dstAnnotationNode.values);
+    assertValues(adapterDstAnnotationNode);
+    dstAnnotationNode.readValues();
+    assertValues(dstAnnotationNode);
+  }
+
+  private static void assertValues(final AnnotationNode annotationNode) {
+    assertEquals(8, annotationNode.values.size());
+    assertEquals("int", annotationNode.values.get(0));
+    assertEquals(1, annotationNode.values.get(1));
+    assertEquals("enum", annotationNode.values.get(2));
+    assertArrayEquals(new String[] {"LE;", "V"}, (String[]) annotationNode.values.get(3));
+    assertEquals("array", annotationNode.values.get(4));
+    assertEquals(List.of("a"), annotationNode.values.get(5));
+    assertEquals("annotation", annotationNode.values.get(6));
+    assertEquals("LB;", ((AnnotationNode) annotationNode.values.get(7)).desc);
+  }
+
+  private static byte[] newClassFile() {
+    ClassWriter classWriter = new ClassWriter(0);
+    classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "C", null, "java/lang/Object", null);
+    AnnotationVisitor annotationVisitor = classWriter.visitAnnotation("LA;", true);
+    annotationVisitor.visit("int", 1);
+    annotationVisitor.visitEnum("enum", "LE;", "V");
+    AnnotationVisitor arrayVisitor = annotationVisitor.visitArray("array");
+    arrayVisitor.visit(null, "a");
+    arrayVisitor.visitEnd();
+    annotationVisitor.visitAnnotation("annotation", "LB;").visitEnd();
+    annotationVisitor.visitEnd();
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
 }
@@ -27,14 +27,18 @@
 // THE POSSIBILITY OF SUCH DAMAGE.
 package org.objectweb.asm.tree;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -96,6 +100,25 @@ class ClassNodeTest extends AsmTest {
     }
   }
 
+  /**
+   * Tests that {@link ClassNode#check} reads the code of lazily read methods, and throws an
+   * exception for classes that contain elements more recent than the ASM API version.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testCheck_readLazily(final PrecompiledClass classParameter, final Api apiParameter) {
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    classNode.readLazily(new ClassReader(classParameter.getBytes()), attributes(), 0);
+
+    Executable check = () -> classNode.check(apiParameter.value());
+
+    if (classParameter.isMoreRecentThan(apiParameter)) {
+      assertThrows(UnsupportedClassVersionException.class, check);
+    } else {
+      assertDoesNotThrow(check);
+    }
+  }
+
   /** Tests that classes are unchanged with a ClassReader->ClassNode->ClassWriter transform. */
   @ParameterizedTest
   @MethodSource(ALL_CLASSES_AND_ALL_APIS)
@@ -111,6 +134,172 @@ class ClassNodeTest extends AsmTest {
     assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
   }
 
+  /**
+   * Tests that writing the methods of a class node concurrently produces the same class as writing
+   * them sequentially.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testAccept_executorService(final PrecompiledClass classParameter, final Api apiParameter)
+      throws InterruptedException {
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    ClassWriter concurrentClassWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    classReader.accept(classNode, attributes(), 0);
+    classNode.accept(classWriter);
+    try {
+      classNode.accept(concurrentClassWriter, executorService);
+    } finally {
+      executorService.shutdown();
+    }
+
+    assertArrayEquals(classWriter.toByteArray(), concurrentClassWriter.toByteArray());
+  }
+
+  /**
+   * Tests that writing the methods of a class node concurrently, with the COMPUTE_FRAMES option,
+   * produces the same class as writing them sequentially.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testAccept_executorService_computeFrames(
+      final PrecompiledClass classParameter, final Api apiParameter) throws InterruptedException {
+    assumeFalse(
+        classParameter == PrecompiledClass.JDK3_ALL_INSTRUCTIONS
+            || classParameter == PrecompiledClass.JDK3_LARGE_METHOD);
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    ClassWriter concurrentClassWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    classReader.accept(classNode, attributes(), 0);
+    classNode.accept(classWriter);
+    try {
+      classNode.accept(concurrentClassWriter, executorService);
+    } finally {
+      executorService.shutdown();
+    }
+
+    assertArrayEquals(classWriter.toByteArray(), concurrentClassWriter.toByteArray());
+  }
+
+  /**
+   * Tests that writing the methods of a lazily read class node concurrently, which reads their code
+   * concurrently from the same class reader, produces the same class as writing them sequentially.
+   * The concurrent writing is done first, so that the caches of the class reader are filled
+   * concurrently.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testAccept_executorService_readLazily(
+      final PrecompiledClass classParameter, final Api apiParameter) throws InterruptedException {
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassWriter classWriter = new ClassWriter(0);
+    ClassWriter concurrentClassWriter = new ClassWriter(0);
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    classNode.readLazily(classReader, attributes(), 0);
+    try {
+      classNode.accept(concurrentClassWriter, executorService);
+    } finally {
+      executorService.shutdown();
+    }
+    classNode.accept(classWriter);
+
+    assertArrayEquals(classWriter.toByteArray(), concurrentClassWriter.toByteArray());
+  }
+
+  /**
+   * Tests that writing concurrently the methods of a class node, containing several lazy copies of
+   * the same methods, produces the same class as writing them sequentially.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testAccept_executorService_sharedCode(
+      final PrecompiledClass classParameter, final Api apiParameter) throws InterruptedException {
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    ClassWriter concurrentClassWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    classReader.accept(classNode, attributes(), 0);
+    int methodCount = classNode.methods.size();
+    for (int i = 0; i < 3; ++i) {
+      for (int j = 0; j < methodCount; ++j) {
+        MethodNode copy = classNode.methods.get(j).copyLazily();
+        copy.name += "$" + i;
+        classNode.methods.add(copy);
+      }
+    }
+    try {
+      classNode.accept(concurrentClassWriter, executorService);
+    } finally {
+      executorService.shutdown();
+    }
+    classNode.accept(classWriter);
+
+    assertArrayEquals(classWriter.toByteArray(), concurrentClassWriter.toByteArray());
+  }
+
+  /**
+   * Tests that the methods sharing the same code are in the same group, and that the groups have
+   * similar sizes otherwise.
+   */
+  @Test
+  void testComputeMethodGroupStarts() {
+    ClassNode classNode = new ClassNode();
+    for (int i = 0; i < 8; ++i) {
+      MethodNode methodNode = new MethodNode(Opcodes.ACC_PUBLIC, "m" + i, "()V", null, null);
+      methodNode.instructions.add(new InsnNode(Opcodes.RETURN));
+      classNode.methods.add(methodNode);
+    }
+    final int[] independentGroupStarts = classNode.computeMethodGroupStarts(4);
+    classNode.methods.set(2, classNode.methods.get(0).copyLazily());
+    classNode.methods.set(3, classNode.methods.get(2).copyLazily());
+    classNode.methods.set(7, classNode.methods.get(6).copyLazily());
+    int[] sharedCodeGroupStarts = classNode.computeMethodGroupStarts(4);
+    classNode.methods.set(6, classNode.methods.get(1).copyLazily());
+    int[] singleGroupStarts = classNode.computeMethodGroupStarts(4);
+
+    assertArrayEquals(new int[] {0, 2, 4, 6, 8}, independentGroupStarts);
+    assertArrayEquals(new int[] {0, 4, 5, 6, 8}, sharedCodeGroupStarts);
+    assertArrayEquals(new int[] {0, 7, 8, 8, 8}, singleGroupStarts);
+  }
+
+  @Test
+  void testAccept_executorService_runtimeException() {
+    ClassNode classNode = newClassNodeWithFailingMethod(new IllegalArgumentException());
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    Executable accept = () -> classNode.accept(new ClassWriter(0), executorService);
+
+    try {
+      assertThrows(IllegalArgumentException.class, accept);
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  @Test
+  void testAccept_executorService_error() {
+    ClassNode classNode = newClassNodeWithFailingMethod(new StackOverflowError());
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+    Executable accept = () -> classNode.accept(new ClassWriter(0), executorService);
+
+    try {
+      assertThrows(StackOverflowError.class, accept);
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
   /**
    * Tests that classes are unchanged with a ClassReader->ClassNode->ClassWriter transform, when all
    * instructions are cloned.
@@ -133,6 +322,332 @@ class ClassNodeTest extends AsmTest {
     assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
   }
 
+  /**
+   * Tests that classes are unchanged with a ClassReader->ClassNode->ClassWriter transform, when the
+   * class node is read lazily and the code of all its methods is read.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testReadLazilyAndAccept_readCode(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassWriter classWriter = new ClassWriter(0);
+
+    classNode.readLazily(classReader, attributes(), 0);
+    for (MethodNode methodNode : classNode.methods) {
+      assertEquals(0, methodNode.instructions.size());
+      methodNode.readCode();
+      methodNode.readCode();
+    }
+    classNode.accept(classWriter);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+  }
+
+  /**
+   * Tests that the code of lazily read methods is the code of the corresponding methods in the
+   * class reader, when some methods are removed by a subclass of {@link ClassNode}.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testReadLazilyAndAccept_removedMethods(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    ClassNode classNode = new EveryOtherMethodClassNode(apiParameter.value());
+    ClassNode lazyClassNode = new EveryOtherMethodClassNode(apiParameter.value());
+    ClassWriter classWriter = new ClassWriter(0);
+    final ClassWriter lazyClassWriter = new ClassWriter(0);
+
+    classReader.accept(classNode, attributes(), 0);
+    classNode.accept(classWriter);
+    lazyClassNode.readLazily(classReader, attributes(), 0);
+    for (MethodNode methodNode : lazyClassNode.methods) {
+      methodNode.readCode();
+    }
+    lazyClassNode.accept(lazyClassWriter);
+
+    assertEquals(
+        new ClassFile(classWriter.toByteArray()), new ClassFile(lazyClassWriter.toByteArray()));
+  }
+
+  /**
+   * Tests that classes are unchanged with a ClassReader->ClassNode->ClassWriter transform, when the
+   * annotation values are not decoded, with or without the copy pool option (the annotation values
+   * are copied as is in the latter case).
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testReadAndAccept_lazyAnnotations(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassNode classNode = new ClassNode();
+    ClassWriter classWriter = new ClassWriter(0);
+    ClassWriter copyPoolClassWriter = new ClassWriter(classReader, 0);
+
+    classReader.accept(classNode, attributes(), ClassReader.LAZY_ANNOTATIONS);
+    classNode.accept(classWriter);
+    classNode.accept(copyPoolClassWriter);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+    assertEquals(new ClassFile(classFile), new ClassFile(copyPoolClassWriter.toByteArray()));
+  }
+
+  /**
+   * Tests that classes are unchanged with a ClassReader->ClassNode->ClassWriter transform, when the
+   * class node is read lazily and the code of its methods is not read.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testReadLazilyAndAccept_unreadCode(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassWriter classWriter = new ClassWriter(0);
+
+    classNode.readLazily(classReader, attributes(), 0);
+    classNode.accept(classWriter);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+    for (MethodNode methodNode : classNode.methods) {
+      assertEquals(0, methodNode.instructions.size());
+    }
+  }
+
+  /**
+   * Tests that classes are unchanged with a ClassReader->ClassNode->ClassWriter transform, when the
+   * class node is read lazily and the code of its methods is copied as is in the class writer.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testReadLazilyAndAccept_copyCode(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassWriter classWriter = new ClassWriter(classReader, 0);
+
+    classNode.readLazily(classReader, attributes(), 0);
+    // Read the code of one method only, the others must be copied as is.
+    if (!classNode.methods.isEmpty()) {
+      classNode.methods.get(0).readCode();
+    }
+    classNode.accept(classWriter);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+  }
+
+  /**
+   * Tests that the code of a class node read lazily is copied as is in the class writer, if it is
+   * read and declared unmodified.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testReadLazilyAndAccept_copyUnmodifiedCode(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    // The COMPUTE_MAXS option is ignored for the copied code, even for methods with non optimal
+    // max stack and max locals values.
+    ClassWriter classWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_MAXS);
+
+    classNode.readLazily(classReader, attributes(), 0);
+    for (MethodNode methodNode : classNode.methods) {
+      methodNode.readCode();
+      methodNode.markCodeUnmodified();
+    }
+    classNode.accept(classWriter);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+  }
+
+  /**
+   * Tests that the code of a class node read lazily is not copied as is in the class writer, if it
+   * is declared unmodified but is modified after being read.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testReadLazilyAndAccept_modifiedCode(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassNode expectedClassNode = new ClassNode(apiParameter.value()) {};
+
+    classNode.readLazily(classReader, attributes(), 0);
+    classReader.accept(expectedClassNode, attributes(), 0);
+    for (MethodNode methodNode : classNode.methods) {
+      methodNode.readCode();
+      methodNode.markCodeUnmodified();
+      methodNode.maxStack += 1;
+    }
+    for (MethodNode methodNode : expectedClassNode.methods) {
+      methodNode.maxStack += 1;
+    }
+    ClassWriter classWriter = new ClassWriter(classReader, 0);
+    classNode.accept(classWriter);
+    ClassWriter expectedClassWriter = new ClassWriter(classReader, 0);
+    expectedClassNode.accept(expectedClassWriter);
+
+    assertEquals(
+        new ClassFile(expectedClassWriter.toByteArray()), new ClassFile(classWriter.toByteArray()));
+  }
+
+  /**
+   * Tests that the code of a class node read lazily is not copied as is in the class writer, if it
+   * is not declared unmodified after being read.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testReadLazilyAndAccept_readCodeNotCopied(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassNode expectedClassNode = new ClassNode(apiParameter.value()) {};
+
+    classNode.readLazily(classReader, attributes(), 0);
+    classReader.accept(expectedClassNode, attributes(), 0);
+    for (MethodNode methodNode : classNode.methods) {
+      methodNode.readCode();
+    }
+    ClassWriter classWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_MAXS);
+    classNode.accept(classWriter);
+    ClassWriter expectedClassWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_MAXS);
+    expectedClassNode.accept(expectedClassWriter);
+
+    assertEquals(
+        new ClassFile(expectedClassWriter.toByteArray()), new ClassFile(classWriter.toByteArray()));
+  }
+
+  /**
+   * Tests that direct modifications of the instruction nodes of a method read lazily are not lost,
+   * if the method is not declared unmodified.
+   */
+  @Test
+  void testReadLazilyAndAccept_modifiedInsnNode() {
+    ClassWriter sourceClassWriter = new ClassWriter(0);
+    sourceClassWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "C", null, "java/lang/Object", null);
+    MethodVisitor methodVisitor =
+        sourceClassWriter.visitMethod(Opcodes.ACC_STATIC, "m", "()Ljava/lang/Object;", null, null);
+    methodVisitor.visitCode();
+    methodVisitor.visitLdcInsn("old");
+    methodVisitor.visitInsn(Opcodes.ARETURN);
+    methodVisitor.visitMaxs(1, 0);
+    methodVisitor.visitEnd();
+    sourceClassWriter.visitEnd();
+    ClassReader classReader = new ClassReader(sourceClassWriter.toByteArray());
+    ClassNode classNode = new ClassNode();
+    classNode.readLazily(classReader, 0);
+    MethodNode methodNode = classNode.methods.get(0);
+    methodNode.readCode();
+    ClassWriter classWriter = new ClassWriter(classReader, 0);
+    ClassNode writtenClassNode = new ClassNode();
+
+    ((LdcInsnNode) methodNode.instructions.getFirst()).cst = "new";
+    classNode.accept(classWriter);
+    new ClassReader(classWriter.toByteArray()).accept(writtenClassNode, 0);
+
+    assertEquals(
+        "new", ((LdcInsnNode) writtenClassNode.methods.get(0).instructions.getFirst()).cst);
+  }
+
+  /** Tests that a class node read lazily with the SKIP_CODE option has no code to read. */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testReadLazily_skipCode(final PrecompiledClass classParameter, final Api apiParameter) {
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassNode expectedClassNode = new ClassNode(apiParameter.value()) {};
+
+    classNode.readLazily(classReader, ClassReader.SKIP_CODE);
+    classReader.accept(expectedClassNode, ClassReader.SKIP_CODE);
+
+    for (MethodNode methodNode : classNode.methods) {
+      methodNode.readCode();
+      assertEquals(0, methodNode.instructions.size());
+    }
+    ClassWriter classWriter = new ClassWriter(0);
+    classNode.accept(classWriter);
+    ClassWriter expectedClassWriter = new ClassWriter(0);
+    expectedClassNode.accept(expectedClassWriter);
+    assertEquals(
+        new ClassFile(expectedClassWriter.toByteArray()), new ClassFile(classWriter.toByteArray()));
+  }
+
+  /** Tests that classes are unchanged when a class node is copied before being written. */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testCopyAndAccept(final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassWriter classWriter = new ClassWriter(0);
+
+    classReader.accept(classNode, attributes(), 0);
+    ClassNode copy = classNode.copy();
+    for (MethodNode methodNode : classNode.methods) {
+      methodNode.instructions.clear();
+    }
+    copy.accept(classWriter);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+  }
+
+  /**
+   * Tests that classes are unchanged when a class node is copied lazily before being written, with
+   * or without reading the code of the copied methods.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testCopyLazilyAndAccept(final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassWriter classWriter = new ClassWriter(0);
+
+    classReader.accept(classNode, attributes(), 0);
+    ClassNode copy = classNode.copyLazily();
+    ClassNode readCodeCopy = copy.copyLazily();
+    for (MethodNode methodNode : copy.methods) {
+      assertEquals(0, methodNode.instructions.size());
+    }
+    copy.accept(classWriter);
+    for (MethodNode methodNode : readCodeCopy.methods) {
+      methodNode.readCode();
+    }
+    for (MethodNode methodNode : classNode.methods) {
+      methodNode.instructions.clear();
+    }
+    ClassWriter readCodeClassWriter = new ClassWriter(0);
+    readCodeCopy.accept(readCodeClassWriter);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+    assertEquals(new ClassFile(classFile), new ClassFile(readCodeClassWriter.toByteArray()));
+  }
+
+  /**
+   * Tests that classes are unchanged when a lazily read class node is copied before being written.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testReadLazilyAndCopy(final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassNode classNode = new ClassNode(apiParameter.value()) {};
+    ClassWriter classWriter = new ClassWriter(0);
+    final ClassWriter lazyClassWriter = new ClassWriter(0);
+
+    classNode.readLazily(classReader, attributes(), 0);
+    classNode.copy().accept(classWriter);
+    classNode.copyLazily().accept(lazyClassWriter);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+    assertEquals(new ClassFile(classFile), new ClassFile(lazyClassWriter.toByteArray()));
+  }
+
   /** Tests that ClassNode accepts visitors that remove class elements. */
   @ParameterizedTest
   @MethodSource(ALL_CLASSES_AND_ALL_APIS)
@@ -152,6 +667,22 @@ class ClassNodeTest extends AsmTest {
         new ClassFile(expectedClassWriter.toByteArray()), new ClassFile(classWriter.toByteArray()));
   }
 
+  private static ClassNode newClassNodeWithFailingMethod(final Throwable throwable) {
+    ClassNode classNode = new ClassNode();
+    classNode.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "C", null, "java/lang/Object", null);
+    classNode.methods.add(
+        new MethodNode(Opcodes.ASM9, Opcodes.ACC_PUBLIC, "m", "()V", null, null) {
+          @Override
+          public void accept(final ClassVisitor classVisitor) {
+            if (throwable instanceof Error) {
+              throw (Error) throwable;
+            }
+            throw (RuntimeException) throwable;
+          }
+        });
+    return classNode;
+  }
+
   private static Attribute[] attributes() {
     return new Attribute[] {new Comment(), new CodeComment()};
   }
@@ -254,4 +785,27 @@ class ClassNodeTest extends AsmTest {
       return null;
     }
   }
+
+  /** A {@link ClassNode} which removes every other method of the visited class. */
+  private static final class EveryOtherMethodClassNode extends ClassNode {
+
+    private int methodCount;
+
+    EveryOtherMethodClassNode(final int api) {
+      super(api);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final String[] exceptions) {
+      if (methodCount++ % 2 == 1) {
+        return null;
+      }
+      return super.visitMethod(access, name, descriptor, signature, exceptions);
+    }
+  }
 }
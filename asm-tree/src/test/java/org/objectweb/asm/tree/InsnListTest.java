@@ -33,9 +33,12 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
 import org.junit.jupiter.api.Test;
@@ -274,6 +277,48 @@ class InsnListTest {
     assertNull(insnList.cache);
   }
 
+  @Test
+  void testComputeLabelOrdinals() {
+    InsnList insnList = newInsnList();
+    LabelNode label1 = new LabelNode();
+    LabelNode label2 = new LabelNode();
+    insnList.add(label1);
+    insnList.add(insn1);
+    insnList.add(label2);
+
+    int labelCount = insnList.computeLabelOrdinals();
+
+    assertEquals(2, labelCount);
+    assertEquals(0, label1.getOrdinal());
+    assertEquals(1, label2.getOrdinal());
+  }
+
+  @Test
+  void testModificationCount_readOperations() {
+    InsnList insnList = new InsnList();
+    insnList.add(insn1);
+    int modificationCount = insnList.modificationCount;
+
+    insnList.get(0);
+    insnList.indexOf(insn1);
+    insnList.add(new InsnList());
+
+    assertEquals(modificationCount, insnList.modificationCount);
+  }
+
+  @Test
+  void testModificationCount_writeOperations() {
+    InsnList insnList = new InsnList();
+    insnList.add(insn1);
+    int modificationCount = insnList.modificationCount;
+
+    insnList.add(insn2);
+    insnList.remove(insn2);
+    insnList.set(insn1, new InsnNode(Opcodes.NOP));
+
+    assertEquals(modificationCount + 3, insnList.modificationCount);
+  }
+
   @Test
   void testToArray_emptyList() {
     assertEquals(0, newInsnList().toArray().length);
@@ -813,6 +858,60 @@ class InsnListTest {
     assertEquals(null, insn.getNext());
   }
 
+  @Test
+  void testIndexOfAndGet_interleavedWithModifications() {
+    InsnList insnList = newInsnList();
+    for (int i = 0; i < 8; ++i) {
+      insnList.add(new InsnNode(i));
+    }
+    AbstractInsnNode[] insns = insnList.toArray();
+
+    insnList.insertBefore(insns[6], new InsnNode(0));
+    assertIndexesAndGet(insnList, 7);
+    insnList.insert(insns[2], new InsnNode(0));
+    insnList.set(insns[1], new InsnNode(0));
+    insnList.set(insns[7], new InsnNode(0));
+    assertIndexesAndGet(insnList, 5);
+    insnList.remove(insns[5]);
+    insnList.add(new InsnNode(0));
+    insnList.insertBefore(insns[4], newInsnList(new InsnNode(0), new InsnNode(0)));
+    assertIndexesAndGet(insnList, 4);
+    insnList.insert(insns[3], newInsnList(new InsnNode(0), new InsnNode(0)));
+    assertIndexesAndGet(insnList, 0);
+    insnList.insert(new InsnNode(0));
+    assertIndexesAndGet(insnList, 9);
+    insnList.insert(newInsnList(new InsnNode(0), new InsnNode(0)));
+    insnList.add(newInsnList(new InsnNode(0), new InsnNode(0)));
+    insnList.remove(insns[0]);
+    ListIterator<AbstractInsnNode> iterator = insnList.iterator(3);
+    iterator.next();
+    iterator.add(new InsnNode(0));
+
+    assertEquals(5, iterator.nextIndex());
+    assertEquals(4, iterator.previousIndex());
+    assertIndexesAndGet(insnList, insnList.size());
+  }
+
+  /**
+   * Checks the result of {@link InsnList#indexOf} and {@link InsnList#get} for all the instructions
+   * of the given list, starting with those after the given index, in reverse order, and then those
+   * before this index, in order.
+   */
+  private static void assertIndexesAndGet(final InsnList insnList, final int index) {
+    List<AbstractInsnNode> insns = new ArrayList<>();
+    for (AbstractInsnNode insn = insnList.getFirst(); insn != null; insn = insn.getNext()) {
+      insns.add(insn);
+    }
+    for (int i = insns.size() - 1; i >= index; --i) {
+      assertEquals(i, insnList.indexOf(insns.get(i)));
+      assertSame(insns.get(i), insnList.get(i));
+    }
+    for (int i = 0; i < index; ++i) {
+      assertSame(insns.get(i), insnList.get(i));
+      assertEquals(i, insnList.indexOf(insns.get(i)));
+    }
+  }
+
   @Test
   void testClear() {
     InsnList insnList = newInsnList();
@@ -0,0 +1,192 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.tree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.test.AsmTest;
+
+/** Unit tests for {@link InsnMatcher}. */
+class InsnMatcherTest extends AsmTest {
+
+  @Test
+  void testConstructor_illegalArgument() {
+    Executable constructor = () -> new InsnMatcher(new InsnPattern().any(), new InsnPattern());
+
+    assertThrows(IllegalArgumentException.class, constructor);
+  }
+
+  @Test
+  void testMatch_noPattern() {
+    InsnList insnList = new InsnList();
+    insnList.add(new InsnNode(Opcodes.NOP));
+
+    List<InsnMatch> matches = new InsnMatcher().match(insnList);
+
+    assertEquals(0, matches.size());
+  }
+
+  @Test
+  void testMatch() {
+    InsnNode iconst0 = new InsnNode(Opcodes.ICONST_0);
+    VarInsnNode istore1 = new VarInsnNode(Opcodes.ISTORE, 1);
+    VarInsnNode iload1 = new VarInsnNode(Opcodes.ILOAD, 1);
+    InsnNode ireturn = new InsnNode(Opcodes.IRETURN);
+    InsnList insnList = new InsnList();
+    insnList.add(new LabelNode());
+    insnList.add(iconst0);
+    insnList.add(istore1);
+    insnList.add(new LineNumberNode(1, new LabelNode()));
+    insnList.add(iload1);
+    insnList.add(ireturn);
+    InsnMatcher insnMatcher =
+        new InsnMatcher(
+            new InsnPattern().varInsn(Opcodes.ISTORE, 1).varInsn(Opcodes.ILOAD, 1),
+            new InsnPattern().insn(Opcodes.IRETURN, Opcodes.ARETURN),
+            new InsnPattern().any().any(),
+            new InsnPattern().varInsn(Opcodes.ISTORE, 2).any());
+
+    List<InsnMatch> matches = insnMatcher.match(insnList);
+
+    assertEquals(5, matches.size());
+    assertMatch(matches.get(0), 2, iconst0, istore1);
+    assertMatch(matches.get(1), 0, istore1, iload1);
+    assertMatch(matches.get(2), 2, istore1, iload1);
+    assertMatch(matches.get(3), 2, iload1, ireturn);
+    assertMatch(matches.get(4), 1, ireturn);
+    assertSame(iload1, matches.get(3).getFirst());
+    assertSame(ireturn, matches.get(3).getLast());
+  }
+
+  @Test
+  void testMatch_manyPartialMatches() {
+    InsnList insnList = new InsnList();
+    for (int i = 0; i < 100; ++i) {
+      insnList.add(new InsnNode(Opcodes.NOP));
+    }
+    InsnPattern insnPattern = new InsnPattern();
+    for (int i = 0; i < 50; ++i) {
+      insnPattern.insn(Opcodes.NOP);
+    }
+
+    List<InsnMatch> matches = new InsnMatcher(insnPattern).match(insnList);
+
+    assertEquals(51, matches.size());
+    for (int i = 0; i < matches.size(); ++i) {
+      assertSame(insnList.get(i), matches.get(i).getFirst());
+      assertSame(insnList.get(i + 49), matches.get(i).getLast());
+    }
+  }
+
+  /**
+   * Tests that matching several patterns in a single pass gives the same result as matching each
+   * pattern separately, at each instruction.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testMatch_precompiledClass(final PrecompiledClass classParameter, final Api apiParameter) {
+    ClassNode classNode = new ClassNode();
+    new ClassReader(classParameter.getBytes()).accept(classNode, 0);
+    InsnPattern[] insnPatterns =
+        new InsnPattern[] {
+          new InsnPattern().insn(Opcodes.ALOAD).fieldInsn(Opcodes.GETFIELD, null, null, null),
+          new InsnPattern().any().any().any(),
+          new InsnPattern().methodInsn(Opcodes.INVOKEVIRTUAL, null, null, "()V"),
+          new InsnPattern().varInsn(Opcodes.ALOAD, 0).any().insn(Opcodes.RETURN, Opcodes.ARETURN)
+        };
+    InsnMatcher insnMatcher = new InsnMatcher(insnPatterns);
+
+    for (MethodNode methodNode : classNode.methods) {
+      List<InsnMatch> matches = insnMatcher.match(methodNode.instructions);
+
+      assertEquals(toString(match(insnPatterns, methodNode.instructions)), toString(matches));
+    }
+  }
+
+  private static void assertMatch(
+      final InsnMatch insnMatch, final int patternIndex, final AbstractInsnNode... insns) {
+    assertEquals(patternIndex, insnMatch.getPatternIndex());
+    assertEquals(insns.length, insnMatch.size());
+    for (int i = 0; i < insns.length; ++i) {
+      assertSame(insns[i], insnMatch.get(i));
+    }
+  }
+
+  /** Naive implementation of {@link InsnMatcher#match}, matching each pattern separately. */
+  private static List<InsnMatch> match(final InsnPattern[] insnPatterns, final InsnList insnList) {
+    List<AbstractInsnNode> insns = new ArrayList<>();
+    for (AbstractInsnNode insn : insnList) {
+      if (insn.getOpcode() != -1) {
+        insns.add(insn);
+      }
+    }
+    List<InsnMatch> matches = new ArrayList<>();
+    for (int end = 1; end <= insns.size(); ++end) {
+      for (int length = insns.size(); length > 0; --length) {
+        for (int patternIndex = 0; patternIndex < insnPatterns.length; ++patternIndex) {
+          List<InsnPattern.Element> elements = insnPatterns[patternIndex].elements;
+          if (elements.size() != length || end < length) {
+            continue;
+          }
+          AbstractInsnNode[] matchedInsns = new AbstractInsnNode[length];
+          boolean matched = true;
+          for (int i = 0; i < length && matched; ++i) {
+            matchedInsns[i] = insns.get(end - length + i);
+            matched = elements.get(i).matches(matchedInsns[i]);
+          }
+          if (matched) {
+            matches.add(new InsnMatch(patternIndex, matchedInsns));
+          }
+        }
+      }
+    }
+    return matches;
+  }
+
+  private static String toString(final List<InsnMatch> matches) {
+    StringBuilder stringBuilder = new StringBuilder();
+    for (InsnMatch match : matches) {
+      stringBuilder.append(match.getPatternIndex());
+      for (int i = 0; i < match.size(); ++i) {
+        stringBuilder.append(' ').append(System.identityHashCode(match.get(i)));
+      }
+      stringBuilder.append('\n');
+    }
+    return stringBuilder.toString();
+  }
+}
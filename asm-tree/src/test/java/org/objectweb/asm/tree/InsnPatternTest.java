@@ -0,0 +1,136 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.tree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.objectweb.asm.Opcodes;
+
+/** Unit tests for {@link InsnPattern}. */
+class InsnPatternTest {
+
+  @Test
+  void testConstructor() {
+    assertEquals(0, new InsnPattern().size());
+  }
+
+  @Test
+  void testInsn_illegalArgument() {
+    InsnPattern insnPattern = new InsnPattern();
+
+    Executable insn = () -> insnPattern.insn(256);
+
+    assertThrows(IllegalArgumentException.class, insn);
+  }
+
+  @Test
+  void testAny() {
+    InsnPattern.Element element = new InsnPattern().any().elements.get(0);
+
+    assertTrue(element.matches(new InsnNode(Opcodes.NOP)));
+    assertTrue(element.matches(new VarInsnNode(Opcodes.ALOAD, 0)));
+  }
+
+  @Test
+  void testInsn() {
+    InsnPattern.Element element =
+        new InsnPattern().insn(Opcodes.IADD, Opcodes.GOTO).elements.get(0);
+
+    assertTrue(element.matches(new InsnNode(Opcodes.IADD)));
+    assertTrue(element.matches(new JumpInsnNode(Opcodes.GOTO, new LabelNode())));
+    assertFalse(element.matches(new InsnNode(Opcodes.ISUB)));
+  }
+
+  @Test
+  void testIntInsn() {
+    InsnPattern.Element element = new InsnPattern().intInsn(Opcodes.BIPUSH, 3).elements.get(0);
+
+    assertTrue(element.matches(new IntInsnNode(Opcodes.BIPUSH, 3)));
+    assertFalse(element.matches(new IntInsnNode(Opcodes.BIPUSH, 4)));
+    assertFalse(element.matches(new IntInsnNode(Opcodes.SIPUSH, 3)));
+  }
+
+  @Test
+  void testVarInsn() {
+    InsnPattern.Element element = new InsnPattern().varInsn(Opcodes.ALOAD, 1).elements.get(0);
+
+    assertTrue(element.matches(new VarInsnNode(Opcodes.ALOAD, 1)));
+    assertFalse(element.matches(new VarInsnNode(Opcodes.ALOAD, 2)));
+    assertFalse(element.matches(new VarInsnNode(Opcodes.ILOAD, 1)));
+  }
+
+  @Test
+  void testTypeInsn() {
+    InsnPattern insnPattern =
+        new InsnPattern().typeInsn(Opcodes.NEW, "A").typeInsn(Opcodes.CHECKCAST, null);
+    InsnPattern.Element element = insnPattern.elements.get(0);
+    InsnPattern.Element wildcardElement = insnPattern.elements.get(1);
+
+    assertTrue(element.matches(new TypeInsnNode(Opcodes.NEW, "A")));
+    assertFalse(element.matches(new TypeInsnNode(Opcodes.NEW, "B")));
+    assertTrue(wildcardElement.matches(new TypeInsnNode(Opcodes.CHECKCAST, "B")));
+  }
+
+  @Test
+  void testFieldInsn() {
+    InsnPattern.Element element =
+        new InsnPattern().fieldInsn(Opcodes.GETFIELD, "A", null, "I").elements.get(0);
+
+    assertTrue(element.matches(new FieldInsnNode(Opcodes.GETFIELD, "A", "f", "I")));
+    assertTrue(element.matches(new FieldInsnNode(Opcodes.GETFIELD, "A", "g", "I")));
+    assertFalse(element.matches(new FieldInsnNode(Opcodes.GETFIELD, "B", "f", "I")));
+    assertFalse(element.matches(new FieldInsnNode(Opcodes.GETFIELD, "A", "f", "J")));
+  }
+
+  @Test
+  void testMethodInsn() {
+    InsnPattern.Element element =
+        new InsnPattern().methodInsn(Opcodes.INVOKEVIRTUAL, null, "m", null).elements.get(0);
+
+    assertTrue(element.matches(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "A", "m", "()V")));
+    assertTrue(element.matches(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "B", "m", "()I")));
+    assertFalse(element.matches(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "A", "n", "()V")));
+    assertFalse(element.matches(new MethodInsnNode(Opcodes.INVOKESTATIC, "A", "m", "()V")));
+  }
+
+  @Test
+  void testLdcInsn() {
+    InsnPattern insnPattern = new InsnPattern().ldcInsn("s").ldcInsn(null);
+    InsnPattern.Element element = insnPattern.elements.get(0);
+    InsnPattern.Element wildcardElement = insnPattern.elements.get(1);
+
+    assertTrue(element.matches(new LdcInsnNode("s")));
+    assertFalse(element.matches(new LdcInsnNode(1)));
+    assertTrue(wildcardElement.matches(new LdcInsnNode(1)));
+  }
+}
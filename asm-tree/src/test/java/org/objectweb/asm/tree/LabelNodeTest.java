@@ -51,5 +51,6 @@ class LabelNodeTest extends AsmTest {
     assertEquals(AbstractInsnNode.LABEL, labelNode1.getType());
     assertNotNull(labelNode1.getLabel());
     assertEquals(label, labelNode2.getLabel());
+    assertEquals(-1, labelNode1.getOrdinal());
   }
 }
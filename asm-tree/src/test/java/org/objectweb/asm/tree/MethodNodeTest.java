@@ -28,9 +28,15 @@
 package org.objectweb.asm.tree;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -102,6 +108,97 @@ class MethodNodeTest extends AsmTest {
     assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
   }
 
+  @Test
+  void testVisitCodeCounts() {
+    MethodNode methodNode = new MethodNode(Opcodes.ACC_STATIC, "m", "()V", null, null);
+    final List<TryCatchBlockNode> initialTryCatchBlocks = methodNode.tryCatchBlocks;
+    Label label = new Label();
+    methodNode.visitCode();
+    methodNode.visitCodeCounts(1, 2);
+    final List<TryCatchBlockNode> tryCatchBlocks = methodNode.tryCatchBlocks;
+    methodNode.visitTryCatchBlock(label, label, label, null);
+    methodNode.visitLabel(label);
+    methodNode.visitCodeCounts(0, 0);
+
+    assertNotSame(initialTryCatchBlocks, tryCatchBlocks);
+    assertSame(tryCatchBlocks, methodNode.tryCatchBlocks);
+    assertEquals(1, methodNode.tryCatchBlocks.size());
+    assertEquals(0, methodNode.localVariables.size());
+  }
+
+  @Test
+  void testCopy() {
+    MethodNode methodNode = new MethodNode(Opcodes.ACC_STATIC, "m", "()V", null, null);
+    Label start = new Label();
+    Label end = new Label();
+    methodNode.visitCode();
+    methodNode.visitTryCatchBlock(start, end, end, null);
+    methodNode.visitLabel(start);
+    methodNode.visitInsn(Opcodes.NOP);
+    methodNode.visitLabel(end);
+    methodNode.visitInsn(Opcodes.RETURN);
+    methodNode.visitLocalVariable("x", "I", null, start, end, 0);
+    methodNode.visitMaxs(1, 1);
+    methodNode.visitEnd();
+
+    MethodNode copy = methodNode.copy();
+    copy.instructions.remove(copy.instructions.get(1));
+
+    assertEquals(4, methodNode.instructions.size());
+    assertEquals(3, copy.instructions.size());
+    assertEquals(1, copy.maxStack);
+    assertSame(copy.instructions.get(0), copy.tryCatchBlocks.get(0).start);
+    assertSame(copy.instructions.get(1), copy.localVariables.get(0).end);
+    assertNotSame(methodNode.tryCatchBlocks.get(0).start, copy.tryCatchBlocks.get(0).start);
+  }
+
+  @Test
+  void testCopy_clonedLabels() {
+    LabelNode label = new LabelNode();
+    ClonedLabelsRecorder clonedLabelsRecorder = new ClonedLabelsRecorder();
+    MethodNode methodNode = new MethodNode(Opcodes.ACC_STATIC, "m", "()V", null, null);
+    methodNode.instructions.add(label);
+    methodNode.instructions.add(clonedLabelsRecorder);
+    methodNode.instructions.add(new InsnNode(Opcodes.RETURN));
+    LabelNode staleLabel = new LabelNode();
+    LabelNode outOfRangeLabel = new LabelNode();
+    InsnList otherInstructions = new InsnList();
+    otherInstructions.add(staleLabel);
+    otherInstructions.add(outOfRangeLabel);
+    otherInstructions.computeLabelOrdinals();
+
+    MethodNode copy = methodNode.copy();
+    Map<LabelNode, LabelNode> clonedLabels = clonedLabelsRecorder.clonedLabels;
+
+    assertSame(copy.instructions.getFirst(), clonedLabels.get(label));
+    assertNull(clonedLabels.get(new LabelNode()));
+    assertNull(clonedLabels.get(staleLabel));
+    assertNull(clonedLabels.get(outOfRangeLabel));
+    assertTrue(clonedLabels.containsKey(label));
+    assertFalse(clonedLabels.containsKey(staleLabel));
+    assertEquals(1, clonedLabels.size());
+    assertEquals(Map.of(label, copy.instructions.getFirst()), clonedLabels);
+    assertEquals(Map.of(label, copy.instructions.getFirst()).hashCode(), clonedLabels.hashCode());
+  }
+
+  @Test
+  void testCopyLazily() {
+    MethodNode methodNode = new MethodNode(Opcodes.ACC_STATIC, "m", "()V", null, null);
+    methodNode.visitCode();
+    methodNode.visitInsn(Opcodes.RETURN);
+    methodNode.visitMaxs(0, 0);
+    methodNode.visitEnd();
+
+    MethodNode copy = methodNode.copyLazily();
+    MethodNode copyBeforeReadCode = new MethodNode();
+    copy.accept(copyBeforeReadCode);
+    copy.readCode();
+
+    assertEquals(1, copyBeforeReadCode.instructions.size());
+    assertEquals(1, copy.instructions.size());
+    assertNotSame(methodNode.instructions.getFirst(), copy.instructions.getFirst());
+  }
+
   @Test
   void testClone() {
     MethodNode methodNode = new MethodNode();
@@ -117,4 +214,30 @@ class MethodNodeTest extends AsmTest {
 
     assertEquals(6, cloneMethodNode.instructions.size());
   }
+
+  /** An instruction recording the map of cloned labels passed to its clone method. */
+  private static final class ClonedLabelsRecorder extends AbstractInsnNode {
+
+    Map<LabelNode, LabelNode> clonedLabels;
+
+    ClonedLabelsRecorder() {
+      super(Opcodes.NOP);
+    }
+
+    @Override
+    public int getType() {
+      return INSN;
+    }
+
+    @Override
+    public void accept(final MethodVisitor methodVisitor) {
+      methodVisitor.visitInsn(opcode);
+    }
+
+    @Override
+    public AbstractInsnNode clone(final Map<LabelNode, LabelNode> clonedLabels) {
+      this.clonedLabels = clonedLabels;
+      return new InsnNode(opcode);
+    }
+  }
 }
@@ -0,0 +1,218 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.tree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.test.AsmTest;
+import org.objectweb.asm.test.ClassFile;
+
+/** Unit tests for {@link PackedInsnList}. */
+class PackedInsnListTest extends AsmTest {
+
+  @Test
+  void testConstructor() {
+    PackedInsnList packedInsnList = new PackedInsnList();
+
+    assertEquals(0, packedInsnList.size());
+  }
+
+  @Test
+  void testConstructor_illegalState() {
+    Executable constructor = () -> new PackedInsnList() {};
+
+    assertThrows(IllegalStateException.class, constructor);
+  }
+
+  @Test
+  void testGet_indexOutOfBounds() {
+    PackedInsnList packedInsnList = new PackedInsnList();
+    packedInsnList.visitInsn(Opcodes.NOP);
+
+    Executable getOpcode = () -> packedInsnList.getOpcode(1);
+    Executable getType = () -> packedInsnList.getType(-1);
+    Executable get = () -> packedInsnList.get(1);
+
+    assertThrows(IndexOutOfBoundsException.class, getOpcode);
+    assertThrows(IndexOutOfBoundsException.class, getType);
+    assertThrows(IndexOutOfBoundsException.class, get);
+  }
+
+  @Test
+  void testGet_sharedConstants() {
+    PackedInsnList packedInsnList = new PackedInsnList();
+    packedInsnList.visitFieldInsn(Opcodes.GETSTATIC, "C", "f", "I");
+    packedInsnList.visitFieldInsn(Opcodes.PUTSTATIC, "C", "f", "I");
+
+    FieldInsnNode fieldInsn1 = (FieldInsnNode) packedInsnList.get(0);
+    FieldInsnNode fieldInsn2 = (FieldInsnNode) packedInsnList.get(1);
+
+    assertEquals(Opcodes.PUTSTATIC, packedInsnList.getOpcode(1));
+    assertEquals(AbstractInsnNode.FIELD_INSN, packedInsnList.getType(1));
+    assertSame(fieldInsn1.owner, fieldInsn2.owner);
+    assertSame(fieldInsn1.desc, fieldInsn2.desc);
+  }
+
+  @Test
+  void testGet_sharedLabelNodes() {
+    PackedInsnList packedInsnList = new PackedInsnList();
+    Label label = new Label();
+    packedInsnList.visitLabel(label);
+    packedInsnList.visitJumpInsn(Opcodes.GOTO, label);
+
+    JumpInsnNode jumpInsn = (JumpInsnNode) packedInsnList.get(1);
+
+    assertSame(packedInsnList.get(0), jumpInsn.label);
+    assertSame(label, jumpInsn.label.getLabel());
+  }
+
+  @Test
+  void testGet_frameLabelNodes() {
+    PackedInsnList packedInsnList = new PackedInsnList();
+    Label label = new Label();
+    packedInsnList.visitFrame(Opcodes.F_NEW, 0, null, 1, new Object[] {label});
+    packedInsnList.visitLabel(label);
+
+    FrameNode frameNode = (FrameNode) packedInsnList.get(0);
+
+    assertSame(packedInsnList.get(1), frameNode.stack.get(0));
+    assertSame(label, ((LabelNode) frameNode.stack.get(0)).getLabel());
+  }
+
+  @Test
+  void testVisitInsnAnnotation_illegalState() {
+    PackedInsnList packedInsnList = new PackedInsnList();
+    packedInsnList.visitLabel(new Label());
+
+    Executable visitInsnAnnotation =
+        () -> packedInsnList.visitInsnAnnotation(0x43000000, null, "LA;", true);
+
+    assertThrows(IllegalStateException.class, visitInsnAnnotation);
+  }
+
+  /**
+   * Tests that the node views of a PackedInsnList built from the instructions of a MethodNode are
+   * equivalent to these instructions, i.e. that classes are unchanged when the instructions of
+   * their methods are replaced with these views.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testVisitAndGet(final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassNode classNode = new ClassNode();
+    ClassWriter classWriter = new ClassWriter(0);
+
+    classReader.accept(classNode, attributes(), 0);
+    for (MethodNode methodNode : classNode.methods) {
+      PackedInsnList packedInsnList = new PackedInsnList(apiParameter.value());
+      methodNode.instructions.accept(packedInsnList);
+      InsnList instructions = new InsnList();
+      for (int i = 0; i < packedInsnList.size(); ++i) {
+        AbstractInsnNode insn = packedInsnList.get(i);
+        assertEquals(methodNode.instructions.get(i).getOpcode(), packedInsnList.getOpcode(i));
+        assertEquals(methodNode.instructions.get(i).getType(), packedInsnList.getType(i));
+        assertEquals(insn.getType(), packedInsnList.getType(i));
+        instructions.add(insn);
+      }
+      methodNode.instructions = instructions;
+    }
+    classNode.accept(classWriter);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+  }
+
+  /**
+   * Tests that classes are unchanged when the instructions of their methods are replaced with those
+   * replayed by a PackedInsnList built from these instructions.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testVisitAndAccept(final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassNode classNode = new ClassNode();
+    ClassWriter classWriter = new ClassWriter(0);
+
+    classReader.accept(classNode, attributes(), 0);
+    for (MethodNode methodNode : classNode.methods) {
+      PackedInsnList packedInsnList = new PackedInsnList(apiParameter.value());
+      methodNode.instructions.accept(packedInsnList);
+      // Map the labels replayed by packedInsnList to the existing label nodes, which are also
+      // used in the try catch blocks, local variables, etc.
+      for (AbstractInsnNode insn : methodNode.instructions) {
+        if (insn instanceof LabelNode) {
+          ((LabelNode) insn).getLabel().info = insn;
+        }
+      }
+      methodNode.instructions = new InsnList();
+      packedInsnList.accept(methodNode);
+    }
+    classNode.accept(classWriter);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+  }
+
+  /** Tests that a PackedInsnList can be built directly from a ClassReader. */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testAcceptCode(final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassNode classNode = new ClassNode();
+
+    classReader.accept(classNode, attributes(), 0);
+    for (MethodNode methodNode : classNode.methods) {
+      PackedInsnList packedInsnList = new PackedInsnList(apiParameter.value());
+      boolean hasCode =
+          classReader.acceptCode(packedInsnList, methodNode.name, methodNode.desc, attributes(), 0);
+
+      assertEquals(hasCode, methodNode.instructions.size() > 0);
+      assertEquals(methodNode.instructions.size(), packedInsnList.size());
+      for (int i = 0; i < packedInsnList.size(); ++i) {
+        assertEquals(methodNode.instructions.get(i).getOpcode(), packedInsnList.getOpcode(i));
+        assertEquals(methodNode.instructions.get(i).getType(), packedInsnList.get(i).getType());
+      }
+    }
+  }
+
+  private static Attribute[] attributes() {
+    return new Attribute[] {new Comment(), new CodeComment()};
+  }
+}
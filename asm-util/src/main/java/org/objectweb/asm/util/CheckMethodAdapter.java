@@ -42,6 +42,7 @@ import org.objectweb.asm.ConstantDynamic;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.OpcodeMetadata;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.TypePath;
@@ -70,218 +71,21 @@ public class CheckMethodAdapter extends MethodVisitor {
 
   /** The 'generic' instruction visit methods (i.e. those that take an opcode argument). */
   private enum Method {
-    VISIT_INSN,
-    VISIT_INT_INSN,
-    VISIT_VAR_INSN,
-    VISIT_TYPE_INSN,
-    VISIT_FIELD_INSN,
-    VISIT_METHOD_INSN,
-    VISIT_JUMP_INSN
-  }
+    VISIT_INSN(OpcodeMetadata.INSN),
+    VISIT_INT_INSN(OpcodeMetadata.INT_INSN),
+    VISIT_VAR_INSN(OpcodeMetadata.VAR_INSN),
+    VISIT_TYPE_INSN(OpcodeMetadata.TYPE_INSN),
+    VISIT_FIELD_INSN(OpcodeMetadata.FIELD_INSN),
+    VISIT_METHOD_INSN(OpcodeMetadata.METHOD_INSN),
+    VISIT_JUMP_INSN(OpcodeMetadata.JUMP_INSN);
+
+    /** The kind of the opcodes visited with this method (see {@link OpcodeMetadata#getKind}). */
+    final int opcodeKind;
 
-  /** The method to use to visit each instruction. Only generic methods are represented here. */
-  private static final Method[] OPCODE_METHODS = {
-    Method.VISIT_INSN, // NOP
-    Method.VISIT_INSN, // ACONST_NULL
-    Method.VISIT_INSN, // ICONST_M1
-    Method.VISIT_INSN, // ICONST_0
-    Method.VISIT_INSN, // ICONST_1
-    Method.VISIT_INSN, // ICONST_2
-    Method.VISIT_INSN, // ICONST_3
-    Method.VISIT_INSN, // ICONST_4
-    Method.VISIT_INSN, // ICONST_5
-    Method.VISIT_INSN, // LCONST_0
-    Method.VISIT_INSN, // LCONST_1
-    Method.VISIT_INSN, // FCONST_0
-    Method.VISIT_INSN, // FCONST_1
-    Method.VISIT_INSN, // FCONST_2
-    Method.VISIT_INSN, // DCONST_0
-    Method.VISIT_INSN, // DCONST_1
-    Method.VISIT_INT_INSN, // BIPUSH
-    Method.VISIT_INT_INSN, // SIPUSH
-    null, // LDC
-    null, // LDC_W
-    null, // LDC2_W
-    Method.VISIT_VAR_INSN, // ILOAD
-    Method.VISIT_VAR_INSN, // LLOAD
-    Method.VISIT_VAR_INSN, // FLOAD
-    Method.VISIT_VAR_INSN, // DLOAD
-    Method.VISIT_VAR_INSN, // ALOAD
-    null, // ILOAD_0
-    null, // ILOAD_1
-    null, // ILOAD_2
-    null, // ILOAD_3
-    null, // LLOAD_0
-    null, // LLOAD_1
-    null, // LLOAD_2
-    null, // LLOAD_3
-    null, // FLOAD_0
-    null, // FLOAD_1
-    null, // FLOAD_2
-    null, // FLOAD_3
-    null, // DLOAD_0
-    null, // DLOAD_1
-    null, // DLOAD_2
-    null, // DLOAD_3
-    null, // ALOAD_0
-    null, // ALOAD_1
-    null, // ALOAD_2
-    null, // ALOAD_3
-    Method.VISIT_INSN, // IALOAD
-    Method.VISIT_INSN, // LALOAD
-    Method.VISIT_INSN, // FALOAD
-    Method.VISIT_INSN, // DALOAD
-    Method.VISIT_INSN, // AALOAD
-    Method.VISIT_INSN, // BALOAD
-    Method.VISIT_INSN, // CALOAD
-    Method.VISIT_INSN, // SALOAD
-    Method.VISIT_VAR_INSN, // ISTORE
-    Method.VISIT_VAR_INSN, // LSTORE
-    Method.VISIT_VAR_INSN, // FSTORE
-    Method.VISIT_VAR_INSN, // DSTORE
-    Method.VISIT_VAR_INSN, // ASTORE
-    null, // ISTORE_0
-    null, // ISTORE_1
-    null, // ISTORE_2
-    null, // ISTORE_3
-    null, // LSTORE_0
-    null, // LSTORE_1
-    null, // LSTORE_2
-    null, // LSTORE_3
-    null, // FSTORE_0
-    null, // FSTORE_1
-    null, // FSTORE_2
-    null, // FSTORE_3
-    null, // DSTORE_0
-    null, // DSTORE_1
-    null, // DSTORE_2
-    null, // DSTORE_3
-    null, // ASTORE_0
-    null, // ASTORE_1
-    null, // ASTORE_2
-    null, // ASTORE_3
-    Method.VISIT_INSN, // IASTORE
-    Method.VISIT_INSN, // LASTORE
-    Method.VISIT_INSN, // FASTORE
-    Method.VISIT_INSN, // DASTORE
-    Method.VISIT_INSN, // AASTORE
-    Method.VISIT_INSN, // BASTORE
-    Method.VISIT_INSN, // CASTORE
-    Method.VISIT_INSN, // SASTORE
-    Method.VISIT_INSN, // POP
-    Method.VISIT_INSN, // POP2
-    Method.VISIT_INSN, // DUP
-    Method.VISIT_INSN, // DUP_X1
-    Method.VISIT_INSN, // DUP_X2
-    Method.VISIT_INSN, // DUP2
-    Method.VISIT_INSN, // DUP2_X1
-    Method.VISIT_INSN, // DUP2_X2
-    Method.VISIT_INSN, // SWAP
-    Method.VISIT_INSN, // IADD
-    Method.VISIT_INSN, // LADD
-    Method.VISIT_INSN, // FADD
-    Method.VISIT_INSN, // DADD
-    Method.VISIT_INSN, // ISUB
-    Method.VISIT_INSN, // LSUB
-    Method.VISIT_INSN, // FSUB
-    Method.VISIT_INSN, // DSUB
-    Method.VISIT_INSN, // IMUL
-    Method.VISIT_INSN, // LMUL
-    Method.VISIT_INSN, // FMUL
-    Method.VISIT_INSN, // DMUL
-    Method.VISIT_INSN, // IDIV
-    Method.VISIT_INSN, // LDIV
-    Method.VISIT_INSN, // FDIV
-    Method.VISIT_INSN, // DDIV
-    Method.VISIT_INSN, // IREM
-    Method.VISIT_INSN, // LREM
-    Method.VISIT_INSN, // FREM
-    Method.VISIT_INSN, // DREM
-    Method.VISIT_INSN, // INEG
-    Method.VISIT_INSN, // LNEG
-    Method.VISIT_INSN, // FNEG
-    Method.VISIT_INSN, // DNEG
-    Method.VISIT_INSN, // ISHL
-    Method.VISIT_INSN, // LSHL
-    Method.VISIT_INSN, // ISHR
-    Method.VISIT_INSN, // LSHR
-    Method.VISIT_INSN, // IUSHR
-    Method.VISIT_INSN, // LUSHR
-    Method.VISIT_INSN, // IAND
-    Method.VISIT_INSN, // LAND
-    Method.VISIT_INSN, // IOR
-    Method.VISIT_INSN, // LOR
-    Method.VISIT_INSN, // IXOR
-    Method.VISIT_INSN, // LXOR
-    null, // IINC
-    Method.VISIT_INSN, // I2L
-    Method.VISIT_INSN, // I2F
-    Method.VISIT_INSN, // I2D
-    Method.VISIT_INSN, // L2I
-    Method.VISIT_INSN, // L2F
-    Method.VISIT_INSN, // L2D
-    Method.VISIT_INSN, // F2I
-    Method.VISIT_INSN, // F2L
-    Method.VISIT_INSN, // F2D
-    Method.VISIT_INSN, // D2I
-    Method.VISIT_INSN, // D2L
-    Method.VISIT_INSN, // D2F
-    Method.VISIT_INSN, // I2B
-    Method.VISIT_INSN, // I2C
-    Method.VISIT_INSN, // I2S
-    Method.VISIT_INSN, // LCMP
-    Method.VISIT_INSN, // FCMPL
-    Method.VISIT_INSN, // FCMPG
-    Method.VISIT_INSN, // DCMPL
-    Method.VISIT_INSN, // DCMPG
-    Method.VISIT_JUMP_INSN, // IFEQ
-    Method.VISIT_JUMP_INSN, // IFNE
-    Method.VISIT_JUMP_INSN, // IFLT
-    Method.VISIT_JUMP_INSN, // IFGE
-    Method.VISIT_JUMP_INSN, // IFGT
-    Method.VISIT_JUMP_INSN, // IFLE
-    Method.VISIT_JUMP_INSN, // IF_ICMPEQ
-    Method.VISIT_JUMP_INSN, // IF_ICMPNE
-    Method.VISIT_JUMP_INSN, // IF_ICMPLT
-    Method.VISIT_JUMP_INSN, // IF_ICMPGE
-    Method.VISIT_JUMP_INSN, // IF_ICMPGT
-    Method.VISIT_JUMP_INSN, // IF_ICMPLE
-    Method.VISIT_JUMP_INSN, // IF_ACMPEQ
-    Method.VISIT_JUMP_INSN, // IF_ACMPNE
-    Method.VISIT_JUMP_INSN, // GOTO
-    Method.VISIT_JUMP_INSN, // JSR
-    Method.VISIT_VAR_INSN, // RET
-    null, // TABLESWITCH
-    null, // LOOKUPSWITCH
-    Method.VISIT_INSN, // IRETURN
-    Method.VISIT_INSN, // LRETURN
-    Method.VISIT_INSN, // FRETURN
-    Method.VISIT_INSN, // DRETURN
-    Method.VISIT_INSN, // ARETURN
-    Method.VISIT_INSN, // RETURN
-    Method.VISIT_FIELD_INSN, // GETSTATIC
-    Method.VISIT_FIELD_INSN, // PUTSTATIC
-    Method.VISIT_FIELD_INSN, // GETFIELD
-    Method.VISIT_FIELD_INSN, // PUTFIELD
-    Method.VISIT_METHOD_INSN, // INVOKEVIRTUAL
-    Method.VISIT_METHOD_INSN, // INVOKESPECIAL
-    Method.VISIT_METHOD_INSN, // INVOKESTATIC
-    Method.VISIT_METHOD_INSN, // INVOKEINTERFACE
-    null, // INVOKEDYNAMIC
-    Method.VISIT_TYPE_INSN, // NEW
-    Method.VISIT_INT_INSN, // NEWARRAY
-    Method.VISIT_TYPE_INSN, // ANEWARRAY
-    Method.VISIT_INSN, // ARRAYLENGTH
-    Method.VISIT_INSN, // ATHROW
-    Method.VISIT_TYPE_INSN, // CHECKCAST
-    Method.VISIT_TYPE_INSN, // INSTANCEOF
-    Method.VISIT_INSN, // MONITORENTER
-    Method.VISIT_INSN, // MONITOREXIT
-    null, // WIDE
-    null, // MULTIANEWARRAY
-    Method.VISIT_JUMP_INSN, // IFNULL
-    Method.VISIT_JUMP_INSN // IFNONNULL
-  };
+    Method(final int opcodeKind) {
+      this.opcodeKind = opcodeKind;
+    }
+  }
 
   private static final String INVALID = "Invalid ";
   private static final String INVALID_DESCRIPTOR = "Invalid descriptor: ";
@@ -1110,7 +914,7 @@ public class CheckMethodAdapter extends MethodVisitor {
     if (opcode < Opcodes.NOP || opcode > Opcodes.IFNONNULL) {
       throw new IllegalArgumentException("Invalid opcode: " + opcode);
     }
-    if (OPCODE_METHODS[opcode] != method) {
+    if (OpcodeMetadata.getKind(opcode) != method.opcodeKind) {
       throw new IllegalArgumentException(
           "Invalid combination of opcode and method: " + opcode + ", " + method);
     }
@@ -159,6 +159,26 @@ public abstract class AnnotationVisitor {
     return null;
   }
 
+  /**
+   * Visits all the values of the annotation at once, in their class file form. This method is
+   * called before any other method of this visitor by a {@link ClassReader} used with the {@link
+   * ClassReader#LAZY_ANNOTATIONS} option, and by {@link ClassReader#acceptElementValuePairs}. It is
+   * not delegated to {@link #av}, since this would bypass the transformations of the values done by
+   * the other methods of this visitor.
+   *
+   * @param classReader the class reader containing the annotation.
+   * @param offset the offset in the class file of the num_element_value_pairs field of the JVMS
+   *     'annotation' or 'type_annotation' structure. The element values can be visited with {@link
+   *     ClassReader#acceptElementValuePairs}, as long as the class reader is kept.
+   * @return whether this visitor takes the values in their class file form. If so, the {@code
+   *     visit}, {@code visitEnum}, {@code visitAnnotation} and {@code visitArray} methods are not
+   *     called. Otherwise, they are called for each value, as usual. {@link #visitEnd} is called in
+   *     both cases.
+   */
+  public boolean visitElementValuePairs(final ClassReader classReader, final int offset) {
+    return false;
+  }
+
   /** Visits the end of the annotation. */
   public void visitEnd() {
     if (av != null) {
@@ -44,7 +44,7 @@ package org.objectweb.asm;
 final class AnnotationWriter extends AnnotationVisitor {
 
   /** Where the constants used in this AnnotationWriter must be stored. */
-  private final SymbolTable symbolTable;
+  private SymbolTable symbolTable;
 
   /**
    * Whether values are named or not. AnnotationWriter instances used for annotation default and
@@ -306,6 +306,20 @@ final class AnnotationWriter extends AnnotationVisitor {
     return new AnnotationWriter(symbolTable, /* useNamedValues= */ false, annotation, null);
   }
 
+  @Override
+  public boolean visitElementValuePairs(final ClassReader classReader, final int offset) {
+    // The element_value_pairs can be copied as is if they use the same constant pool indices, i.e.
+    // if the constant pool of classReader has been copied in symbolTable (this also requires that
+    // no value has been visited yet, to get a consistent num_element_value_pairs).
+    if (!useNamedValues || numElementValuePairs != 0 || classReader != symbolTable.getSource()) {
+      return false;
+    }
+    int endOffset = classReader.getElementValuePairsEndOffset(offset);
+    numElementValuePairs = classReader.readUnsignedShort(offset);
+    annotation.putByteArray(classReader.classFileBuffer, offset + 2, endOffset - offset - 2);
+    return true;
+  }
+
   @Override
   public void visitEnd() {
     if (numElementValuePairsOffset != -1) {
@@ -319,6 +333,21 @@ final class AnnotationWriter extends AnnotationVisitor {
   // Utility methods
   // -----------------------------------------------------------------------------------------------
 
+  /**
+   * Sets the SymbolTable of this annotation and of all its <i>predecessors</i> (see {@link
+   * #previousAnnotation}). The constant pool of the new SymbolTable must contain all the constants
+   * used in these annotations, at the same indices.
+   *
+   * @param symbolTable where the constants used in this AnnotationWriter must be stored.
+   */
+  void setSymbolTable(final SymbolTable symbolTable) {
+    AnnotationWriter annotationWriter = this;
+    while (annotationWriter != null) {
+      annotationWriter.symbolTable = symbolTable;
+      annotationWriter = annotationWriter.previousAnnotation;
+    }
+  }
+
   /**
    * Returns the size of a Runtime[In]Visible[Type]Annotations attribute containing this annotation
    * and all its <i>predecessors</i> (see {@link #previousAnnotation}. Also adds the attribute name
@@ -35,7 +35,8 @@ import java.io.InputStream;
  * A parser to make a {@link ClassVisitor} visit a ClassFile structure, as defined in the Java
  * Virtual Machine Specification (JVMS). This class parses the ClassFile content and calls the
  * appropriate visit methods of a given {@link ClassVisitor} for each field, method and bytecode
- * instruction encountered.
+ * instruction encountered. A class reader can be used by several threads concurrently (the values
+ * it caches are immutable, and are safely published).
  *
  * @see <a href="https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-4.html">JVMS 4</a>
  * @author Eric Bruneton
@@ -75,6 +76,48 @@ public class ClassReader {
    */
   public static final int EXPAND_FRAMES = 8;
 
+  /**
+   * A flag to skip the RuntimeVisibleTypeAnnotations and RuntimeInvisibleTypeAnnotations attributes
+   * of the Code attributes. If this flag is set these attributes are neither parsed nor visited
+   * (i.e. {@link MethodVisitor#visitInsnAnnotation}, {@link MethodVisitor#visitTryCatchAnnotation}
+   * and {@link MethodVisitor#visitLocalVariableAnnotation} are not called). This flag is useful for
+   * visitors which ignore the type annotations of the method bodies.
+   */
+  public static final int SKIP_CODE_TYPE_ANNOTATIONS = 16;
+
+  /**
+   * A flag to skip the RuntimeVisibleAnnotations, RuntimeInvisibleAnnotations,
+   * RuntimeVisibleParameterAnnotations and RuntimeInvisibleParameterAnnotations attributes. If this
+   * flag is set these attributes are neither parsed nor visited (i.e. the visitAnnotation, {@link
+   * MethodVisitor#visitAnnotableParameterCount} and {@link MethodVisitor#visitParameterAnnotation}
+   * methods are not called). Note that the methods which are copied as is into a {@link
+   * ClassWriter} (see {@link ClassWriter#ClassWriter(ClassReader,int)}) keep their annotations.
+   */
+  public static final int SKIP_ANNOTATIONS = 32;
+
+  /**
+   * A flag to skip the RuntimeVisibleTypeAnnotations and RuntimeInvisibleTypeAnnotations
+   * attributes, including those of the Code attributes (see {@link #SKIP_CODE_TYPE_ANNOTATIONS}).
+   * If this flag is set these attributes are neither parsed nor visited (i.e. the
+   * visitTypeAnnotation, {@link MethodVisitor#visitInsnAnnotation}, {@link
+   * MethodVisitor#visitTryCatchAnnotation} and {@link MethodVisitor#visitLocalVariableAnnotation}
+   * methods are not called). Note that the methods which are copied as is into a {@link
+   * ClassWriter} (see {@link ClassWriter#ClassWriter(ClassReader,int)}) keep their type
+   * annotations.
+   */
+  public static final int SKIP_TYPE_ANNOTATIONS = 64;
+
+  /**
+   * A flag to let the annotation visitors take the values of the annotations in their class file
+   * form, instead of visiting them one by one (see {@link
+   * AnnotationVisitor#visitElementValuePairs}). With this flag, an {@code
+   * org.objectweb.asm.tree.AnnotationNode} decodes its values only on demand, and the visitors
+   * returned by a {@link ClassWriter} constructed with this {@link ClassReader} copy them as is.
+   * Other visitors are not affected. This flag has no effect on the annotation values of annotation
+   * default values, nor on nested annotations.
+   */
+  public static final int LAZY_ANNOTATIONS = 128;
+
   /**
    * A flag to expand the ASM specific instructions into an equivalent sequence of standard bytecode
    * instructions. When resolving a forward jump it may happen that the signed 2 bytes offset
@@ -91,6 +134,9 @@ public class ClassReader {
   /** The maximum size of array to allocate. */
   private static final int MAX_BUFFER_SIZE = 1024 * 1024;
 
+  /** The size of the {@link Context#typePaths} cache. Must be a power of two. */
+  private static final int TYPE_PATH_CACHE_SIZE = 64;
+
   /** The size of the temporary byte array used to read class input streams chunk by chunk. */
   private static final int INPUT_STREAM_DATA_CHUNK_SIZE = 4096;
 
@@ -138,6 +184,14 @@ public class ClassReader {
    */
   private final ConstantDynamic[] constantDynamicValues;
 
+  /**
+   * The Handle objects corresponding to the CONSTANT_MethodHandle constant pool items. This cache
+   * avoids multiple parsing of a given CONSTANT_MethodHandle constant pool item, and allows all the
+   * instructions and constants referencing it (e.g. the bootstrap method of all the lambda
+   * expressions of a class) to share the same {@link Handle} instance.
+   */
+  private final Handle[] constantHandleValues;
+
   /**
    * The start offsets in {@link #classFileBuffer} of each element of the bootstrap_methods array
    * (in the BootstrapMethods attribute).
@@ -147,6 +201,16 @@ public class ClassReader {
    */
   private final int[] bootstrapMethodOffsets;
 
+  /**
+   * The arguments of each element of the bootstrap_methods array (in the BootstrapMethods
+   * attribute), lazily parsed. This cache avoids multiple parsing of the arguments of a bootstrap
+   * method referenced by several CONSTANT_Dynamic or CONSTANT_InvokeDynamic items. The arrays are
+   * stored in the final field of a {@link BootstrapMethodArguments} object, so that they can be
+   * safely read by other threads reading the code of this class concurrently. WARNING: these arrays
+   * must not be modified, and must not be passed to the user.
+   */
+  private final BootstrapMethodArguments[] bootstrapMethodArguments;
+
   /**
    * A conservative estimate of the maximum length of the strings contained in the constant pool of
    * the class.
@@ -213,6 +277,7 @@ public class ClassReader {
     int currentMaxStringLength = 0;
     boolean hasBootstrapMethods = false;
     boolean hasConstantDynamic = false;
+    boolean hasMethodHandle = false;
     // The offset of the other entries depend on the total size of all the previous entries.
     while (currentCpInfoIndex < constantPoolCount) {
       cpInfoOffsets[currentCpInfoIndex++] = currentCpInfoOffset + 1;
@@ -251,6 +316,7 @@ public class ClassReader {
           break;
         case Symbol.CONSTANT_METHOD_HANDLE_TAG:
           cpInfoSize = 4;
+          hasMethodHandle = true;
           break;
         case Symbol.CONSTANT_CLASS_TAG:
         case Symbol.CONSTANT_STRING_TAG:
@@ -270,10 +336,14 @@ public class ClassReader {
 
     // Allocate the cache of ConstantDynamic values, if there is at least one.
     constantDynamicValues = hasConstantDynamic ? new ConstantDynamic[constantPoolCount] : null;
+    // Allocate the cache of Handle values, if there is at least one.
+    constantHandleValues = hasMethodHandle ? new Handle[constantPoolCount] : null;
 
     // Read the BootstrapMethods attribute, if any (only get the offset of each method).
     bootstrapMethodOffsets =
         hasBootstrapMethods ? readBootstrapMethodsAttribute(currentMaxStringLength) : null;
+    bootstrapMethodArguments =
+        hasBootstrapMethods ? new BootstrapMethodArguments[bootstrapMethodOffsets.length] : null;
   }
 
   /**
@@ -419,7 +489,9 @@ public class ClassReader {
    *
    * @param classVisitor the visitor that must visit this class.
    * @param parsingOptions the options to use to parse this class. One or more of {@link
-   *     #SKIP_CODE}, {@link #SKIP_DEBUG}, {@link #SKIP_FRAMES} or {@link #EXPAND_FRAMES}.
+   *     #SKIP_CODE}, {@link #SKIP_DEBUG}, {@link #SKIP_FRAMES}, {@link #EXPAND_FRAMES}, {@link
+   *     #SKIP_CODE_TYPE_ANNOTATIONS}, {@link #SKIP_ANNOTATIONS}, {@link #SKIP_TYPE_ANNOTATIONS} or
+   *     {@link #LAZY_ANNOTATIONS}.
    */
   public void accept(final ClassVisitor classVisitor, final int parsingOptions) {
     accept(classVisitor, new Attribute[0], parsingOptions);
@@ -437,7 +509,9 @@ public class ClassReader {
    *     semantic links with a class element that has been transformed by a class adapter between
    *     the reader and the writer</i>.
    * @param parsingOptions the options to use to parse this class. One or more of {@link
-   *     #SKIP_CODE}, {@link #SKIP_DEBUG}, {@link #SKIP_FRAMES} or {@link #EXPAND_FRAMES}.
+   *     #SKIP_CODE}, {@link #SKIP_DEBUG}, {@link #SKIP_FRAMES}, {@link #EXPAND_FRAMES}, {@link
+   *     #SKIP_CODE_TYPE_ANNOTATIONS}, {@link #SKIP_ANNOTATIONS}, {@link #SKIP_TYPE_ANNOTATIONS} or
+   *     {@link #LAZY_ANNOTATIONS}.
    */
   public void accept(
       final ClassVisitor classVisitor,
@@ -445,7 +519,7 @@ public class ClassReader {
       final int parsingOptions) {
     Context context = new Context();
     context.attributePrototypes = attributePrototypes;
-    context.parsingOptions = parsingOptions;
+    context.setParsingOptions(parsingOptions);
     context.charBuffer = new char[maxStringLength];
 
     // Read the access_flags, this_class, super_class, interface_count and interfaces fields.
@@ -522,9 +596,13 @@ public class ClassReader {
       } else if (Constants.SIGNATURE.equals(attributeName)) {
         signature = readUTF8(currentAttributeOffset, charBuffer);
       } else if (Constants.RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
-        runtimeVisibleAnnotationsOffset = currentAttributeOffset;
+        if (context.readAnnotations) {
+          runtimeVisibleAnnotationsOffset = currentAttributeOffset;
+        }
       } else if (Constants.RUNTIME_VISIBLE_TYPE_ANNOTATIONS.equals(attributeName)) {
-        runtimeVisibleTypeAnnotationsOffset = currentAttributeOffset;
+        if (context.readTypeAnnotations) {
+          runtimeVisibleTypeAnnotationsOffset = currentAttributeOffset;
+        }
       } else if (Constants.DEPRECATED.equals(attributeName)) {
         accessFlags |= Opcodes.ACC_DEPRECATED;
       } else if (Constants.SYNTHETIC.equals(attributeName)) {
@@ -536,9 +614,13 @@ public class ClassReader {
         sourceDebugExtension =
             readUtf(currentAttributeOffset, attributeLength, new char[attributeLength]);
       } else if (Constants.RUNTIME_INVISIBLE_ANNOTATIONS.equals(attributeName)) {
-        runtimeInvisibleAnnotationsOffset = currentAttributeOffset;
+        if (context.readAnnotations) {
+          runtimeInvisibleAnnotationsOffset = currentAttributeOffset;
+        }
       } else if (Constants.RUNTIME_INVISIBLE_TYPE_ANNOTATIONS.equals(attributeName)) {
-        runtimeInvisibleTypeAnnotationsOffset = currentAttributeOffset;
+        if (context.readTypeAnnotations) {
+          runtimeInvisibleTypeAnnotationsOffset = currentAttributeOffset;
+        }
       } else if (Constants.RECORD.equals(attributeName)) {
         recordOffset = currentAttributeOffset;
         accessFlags |= Opcodes.ACC_RECORD;
@@ -606,11 +688,10 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 classVisitor.visitAnnotation(annotationDescriptor, /* visible= */ true),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -624,11 +705,10 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 classVisitor.visitAnnotation(annotationDescriptor, /* visible= */ false),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -644,15 +724,14 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 classVisitor.visitTypeAnnotation(
                     context.currentTypeAnnotationTarget,
                     context.currentTypeAnnotationTargetPath,
                     annotationDescriptor,
                     /* visible= */ true),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -668,15 +747,14 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 classVisitor.visitTypeAnnotation(
                     context.currentTypeAnnotationTarget,
                     context.currentTypeAnnotationTargetPath,
                     annotationDescriptor,
                     /* visible= */ false),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -749,6 +827,172 @@ public class ClassReader {
     classVisitor.visitEnd();
   }
 
+  /**
+   * Makes the given visitor visit the Code attribute of a method of the JVMS ClassFile structure
+   * passed to the constructor of this {@link ClassReader}. This can be used to read the code of a
+   * method on demand, after having visited its class with {@link #SKIP_CODE}. If the given visitor
+   * is a {@link MethodVisitor} returned by a {@link ClassWriter} constructed with this {@link
+   * ClassReader}, if nothing has been visited in its code yet, and if its descriptor is the one of
+   * the original method, then the Code attribute is not parsed nor visited. Instead, it is copied
+   * as is in the new class (see {@link ClassWriter#ClassWriter(ClassReader, int)}).
+   *
+   * @param methodVisitor the visitor that must visit the Code attribute. Its {@link
+   *     MethodVisitor#visitCode} method is called first, and its {@link MethodVisitor#visitMaxs}
+   *     method last ({@link MethodVisitor#visitEnd} is not called).
+   * @param name the name of the method whose code must be visited.
+   * @param descriptor the descriptor of the method whose code must be visited.
+   * @param attributePrototypes prototypes of the attributes that must be parsed during the visit of
+   *     the code. Any attribute whose type is not equal to the type of one the prototypes will not
+   *     be parsed (see {@link #accept(ClassVisitor, Attribute[], int)}).
+   * @param parsingOptions the options to use to parse this code. Zero or more of {@link
+   *     #SKIP_DEBUG}, {@link #SKIP_FRAMES}, {@link #EXPAND_FRAMES}, {@link
+   *     #SKIP_CODE_TYPE_ANNOTATIONS}, {@link #SKIP_TYPE_ANNOTATIONS} or {@link #LAZY_ANNOTATIONS}.
+   * @return whether a method with the given name and descriptor, and with a Code attribute, has
+   *     been found. If not, the given visitor is not called.
+   */
+  public boolean acceptCode(
+      final MethodVisitor methodVisitor,
+      final String name,
+      final String descriptor,
+      final Attribute[] attributePrototypes,
+      final int parsingOptions) {
+    char[] charBuffer = new char[maxStringLength];
+    int[] methodInfoOffsets = getMethodInfoOffsets();
+    for (int methodInfoOffset : methodInfoOffsets) {
+      if (name.equals(readUTF8(methodInfoOffset + 2, charBuffer))
+          && descriptor.equals(readUTF8(methodInfoOffset + 4, charBuffer))) {
+        return acceptCode(methodVisitor, methodInfoOffset, attributePrototypes, parsingOptions);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Makes the given visitor visit the Code attribute of a method of the JVMS ClassFile structure
+   * passed to the constructor of this {@link ClassReader}. This method is similar to {@link
+   * #acceptCode(MethodVisitor, String, String, Attribute[], int)}, but does not need to search the
+   * method by name and descriptor.
+   *
+   * @param methodVisitor the visitor that must visit the Code attribute. Its {@link
+   *     MethodVisitor#visitCode} method is called first, and its {@link MethodVisitor#visitMaxs}
+   *     method last ({@link MethodVisitor#visitEnd} is not called).
+   * @param methodInfoOffset the offset of the method_info structure of the method whose code must
+   *     be visited, as returned by {@link #getMethodInfoOffsets}.
+   * @param attributePrototypes prototypes of the attributes that must be parsed during the visit of
+   *     the code. Any attribute whose type is not equal to the type of one the prototypes will not
+   *     be parsed (see {@link #accept(ClassVisitor, Attribute[], int)}).
+   * @param parsingOptions the options to use to parse this code (see {@link
+   *     #acceptCode(MethodVisitor, String, String, Attribute[], int)}).
+   * @return whether the method has a Code attribute. If not, the given visitor is not called.
+   */
+  public boolean acceptCode(
+      final MethodVisitor methodVisitor,
+      final int methodInfoOffset,
+      final Attribute[] attributePrototypes,
+      final int parsingOptions) {
+    int attributesCount = readUnsignedShort(methodInfoOffset + 6);
+    int currentOffset = methodInfoOffset + 8;
+    while (attributesCount-- > 0) {
+      int attributeLength = readInt(currentOffset + 2);
+      if (isCodeAttribute(currentOffset)) {
+        int codeOffset = currentOffset + 6;
+        if (methodVisitor instanceof MethodWriter) {
+          MethodWriter methodWriter = (MethodWriter) methodVisitor;
+          if (methodWriter.canCopyCodeAttribute(this, readUnsignedShort(methodInfoOffset + 4))) {
+            methodWriter.setCodeAttributeSource(codeOffset, attributeLength);
+            return true;
+          }
+        }
+        char[] charBuffer = new char[maxStringLength];
+        Context context = new Context();
+        context.attributePrototypes = attributePrototypes;
+        context.setParsingOptions(parsingOptions);
+        context.charBuffer = charBuffer;
+        context.currentMethodAccessFlags = readUnsignedShort(methodInfoOffset);
+        context.currentMethodName = readUTF8(methodInfoOffset + 2, charBuffer);
+        context.currentMethodDescriptor = readUTF8(methodInfoOffset + 4, charBuffer);
+        methodVisitor.visitCode();
+        readCode(methodVisitor, context, codeOffset);
+        return true;
+      }
+      currentOffset += 6 + attributeLength;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the offsets of the method_info structures of the JVMS ClassFile structure passed to the
+   * constructor of this {@link ClassReader}, in the order in which they appear in this structure,
+   * which is also the order in which the methods are visited by {@link #accept}.
+   *
+   * @return the offsets of the method_info structures of the class.
+   */
+  public int[] getMethodInfoOffsets() {
+    int currentOffset = getMethodsCountOffset();
+    int[] methodInfoOffsets = new int[readUnsignedShort(currentOffset)];
+    currentOffset += 2;
+    for (int i = 0; i < methodInfoOffsets.length; ++i) {
+      methodInfoOffsets[i] = currentOffset;
+      int attributesCount = readUnsignedShort(currentOffset + 6);
+      currentOffset += 8;
+      while (attributesCount-- > 0) {
+        currentOffset += 6 + readInt(currentOffset + 2);
+      }
+    }
+    return methodInfoOffsets;
+  }
+
+  /**
+   * Returns whether an attribute_info structure is a Code attribute, without decoding its name.
+   *
+   * @param attributeInfoOffset the offset of an attribute_info structure.
+   * @return whether the name of this attribute is "Code".
+   */
+  private boolean isCodeAttribute(final int attributeInfoOffset) {
+    int cpInfoOffset = cpInfoOffsets[readUnsignedShort(attributeInfoOffset)];
+    return readUnsignedShort(cpInfoOffset) == 4
+        && classFileBuffer[cpInfoOffset + 2] == 'C'
+        && classFileBuffer[cpInfoOffset + 3] == 'o'
+        && classFileBuffer[cpInfoOffset + 4] == 'd'
+        && classFileBuffer[cpInfoOffset + 5] == 'e';
+  }
+
+  /**
+   * Returns whether {@link #acceptCode} would copy the Code attribute of a method as is in the
+   * given method visitor, instead of visiting its content. This is the case if the method visitor
+   * comes from a {@link ClassWriter} constructed with this class reader, has not visited any code
+   * yet, and if the method has the same descriptor in both.
+   *
+   * @param methodVisitor a method visitor.
+   * @return whether the Code attribute of a method with the same descriptor in this class reader
+   *     and in the given method visitor would be copied as is in this method visitor.
+   */
+  public boolean canCopyCode(final MethodVisitor methodVisitor) {
+    return methodVisitor instanceof MethodWriter
+        && ((MethodWriter) methodVisitor).canCopyCodeAttribute(this);
+  }
+
+  /**
+   * Makes the given visitor visit the values of an annotation of the JVMS ClassFile structure
+   * passed to the constructor of this {@link ClassReader}. This can be used to visit the values of
+   * an annotation on demand, after having visited its class with {@link #LAZY_ANNOTATIONS}. The
+   * values are first passed to {@link AnnotationVisitor#visitElementValuePairs} and, if the visitor
+   * does not take them in this form (e.g. if it is not returned by a {@link ClassWriter}
+   * constructed with this {@link ClassReader}), they are parsed and visited one by one.
+   *
+   * @param annotationVisitor the visitor that must visit the annotation values. Its {@link
+   *     AnnotationVisitor#visitEnd} method is called last.
+   * @param offset the offset of the values of the annotation, as passed to {@link
+   *     AnnotationVisitor#visitElementValuePairs} during the visit of the class.
+   */
+  public void acceptElementValuePairs(final AnnotationVisitor annotationVisitor, final int offset) {
+    if (annotationVisitor.visitElementValuePairs(this, offset)) {
+      annotationVisitor.visitEnd();
+    } else {
+      readElementValues(annotationVisitor, offset, /* named= */ true, new char[maxStringLength]);
+    }
+  }
+
   // ----------------------------------------------------------------------------------------------
   // Methods to parse modules, fields and methods
   // ----------------------------------------------------------------------------------------------
@@ -927,13 +1171,21 @@ public class ClassReader {
       if (Constants.SIGNATURE.equals(attributeName)) {
         signature = readUTF8(currentOffset, charBuffer);
       } else if (Constants.RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
-        runtimeVisibleAnnotationsOffset = currentOffset;
+        if (context.readAnnotations) {
+          runtimeVisibleAnnotationsOffset = currentOffset;
+        }
       } else if (Constants.RUNTIME_VISIBLE_TYPE_ANNOTATIONS.equals(attributeName)) {
-        runtimeVisibleTypeAnnotationsOffset = currentOffset;
+        if (context.readTypeAnnotations) {
+          runtimeVisibleTypeAnnotationsOffset = currentOffset;
+        }
       } else if (Constants.RUNTIME_INVISIBLE_ANNOTATIONS.equals(attributeName)) {
-        runtimeInvisibleAnnotationsOffset = currentOffset;
+        if (context.readAnnotations) {
+          runtimeInvisibleAnnotationsOffset = currentOffset;
+        }
       } else if (Constants.RUNTIME_INVISIBLE_TYPE_ANNOTATIONS.equals(attributeName)) {
-        runtimeInvisibleTypeAnnotationsOffset = currentOffset;
+        if (context.readTypeAnnotations) {
+          runtimeInvisibleTypeAnnotationsOffset = currentOffset;
+        }
       } else {
         Attribute attribute =
             readAttribute(
@@ -966,11 +1218,10 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 recordComponentVisitor.visitAnnotation(annotationDescriptor, /* visible= */ true),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -984,11 +1235,10 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 recordComponentVisitor.visitAnnotation(annotationDescriptor, /* visible= */ false),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -1004,15 +1254,14 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 recordComponentVisitor.visitTypeAnnotation(
                     context.currentTypeAnnotationTarget,
                     context.currentTypeAnnotationTargetPath,
                     annotationDescriptor,
                     /* visible= */ true),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -1028,15 +1277,14 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 recordComponentVisitor.visitTypeAnnotation(
                     context.currentTypeAnnotationTarget,
                     context.currentTypeAnnotationTargetPath,
                     annotationDescriptor,
                     /* visible= */ false),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -1110,13 +1358,21 @@ public class ClassReader {
       } else if (Constants.SYNTHETIC.equals(attributeName)) {
         accessFlags |= Opcodes.ACC_SYNTHETIC;
       } else if (Constants.RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
-        runtimeVisibleAnnotationsOffset = currentOffset;
+        if (context.readAnnotations) {
+          runtimeVisibleAnnotationsOffset = currentOffset;
+        }
       } else if (Constants.RUNTIME_VISIBLE_TYPE_ANNOTATIONS.equals(attributeName)) {
-        runtimeVisibleTypeAnnotationsOffset = currentOffset;
+        if (context.readTypeAnnotations) {
+          runtimeVisibleTypeAnnotationsOffset = currentOffset;
+        }
       } else if (Constants.RUNTIME_INVISIBLE_ANNOTATIONS.equals(attributeName)) {
-        runtimeInvisibleAnnotationsOffset = currentOffset;
+        if (context.readAnnotations) {
+          runtimeInvisibleAnnotationsOffset = currentOffset;
+        }
       } else if (Constants.RUNTIME_INVISIBLE_TYPE_ANNOTATIONS.equals(attributeName)) {
-        runtimeInvisibleTypeAnnotationsOffset = currentOffset;
+        if (context.readTypeAnnotations) {
+          runtimeInvisibleTypeAnnotationsOffset = currentOffset;
+        }
       } else {
         Attribute attribute =
             readAttribute(
@@ -1150,11 +1406,10 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 fieldVisitor.visitAnnotation(annotationDescriptor, /* visible= */ true),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -1168,11 +1423,10 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 fieldVisitor.visitAnnotation(annotationDescriptor, /* visible= */ false),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -1188,15 +1442,14 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 fieldVisitor.visitTypeAnnotation(
                     context.currentTypeAnnotationTarget,
                     context.currentTypeAnnotationTargetPath,
                     annotationDescriptor,
                     /* visible= */ true),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -1212,15 +1465,14 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 fieldVisitor.visitTypeAnnotation(
                     context.currentTypeAnnotationTarget,
                     context.currentTypeAnnotationTargetPath,
                     annotationDescriptor,
                     /* visible= */ false),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -1315,22 +1567,34 @@ public class ClassReader {
       } else if (Constants.DEPRECATED.equals(attributeName)) {
         context.currentMethodAccessFlags |= Opcodes.ACC_DEPRECATED;
       } else if (Constants.RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
-        runtimeVisibleAnnotationsOffset = currentOffset;
+        if (context.readAnnotations) {
+          runtimeVisibleAnnotationsOffset = currentOffset;
+        }
       } else if (Constants.RUNTIME_VISIBLE_TYPE_ANNOTATIONS.equals(attributeName)) {
-        runtimeVisibleTypeAnnotationsOffset = currentOffset;
+        if (context.readTypeAnnotations) {
+          runtimeVisibleTypeAnnotationsOffset = currentOffset;
+        }
       } else if (Constants.ANNOTATION_DEFAULT.equals(attributeName)) {
         annotationDefaultOffset = currentOffset;
       } else if (Constants.SYNTHETIC.equals(attributeName)) {
         synthetic = true;
         context.currentMethodAccessFlags |= Opcodes.ACC_SYNTHETIC;
       } else if (Constants.RUNTIME_INVISIBLE_ANNOTATIONS.equals(attributeName)) {
-        runtimeInvisibleAnnotationsOffset = currentOffset;
+        if (context.readAnnotations) {
+          runtimeInvisibleAnnotationsOffset = currentOffset;
+        }
       } else if (Constants.RUNTIME_INVISIBLE_TYPE_ANNOTATIONS.equals(attributeName)) {
-        runtimeInvisibleTypeAnnotationsOffset = currentOffset;
+        if (context.readTypeAnnotations) {
+          runtimeInvisibleTypeAnnotationsOffset = currentOffset;
+        }
       } else if (Constants.RUNTIME_VISIBLE_PARAMETER_ANNOTATIONS.equals(attributeName)) {
-        runtimeVisibleParameterAnnotationsOffset = currentOffset;
+        if (context.readAnnotations) {
+          runtimeVisibleParameterAnnotationsOffset = currentOffset;
+        }
       } else if (Constants.RUNTIME_INVISIBLE_PARAMETER_ANNOTATIONS.equals(attributeName)) {
-        runtimeInvisibleParameterAnnotationsOffset = currentOffset;
+        if (context.readAnnotations) {
+          runtimeInvisibleParameterAnnotationsOffset = currentOffset;
+        }
       } else if (Constants.METHOD_PARAMETERS.equals(attributeName)) {
         methodParametersOffset = currentOffset;
       } else {
@@ -1379,6 +1643,34 @@ public class ClassReader {
       }
     }
 
+    // Likewise, if the returned MethodVisitor is a CodeInserter directly chained to a
+    // MethodWriter, it might be possible to copy the method attributes directly into the writer,
+    // and to insert the code generated by the CodeInserter in the copied Code attribute.
+    if (methodVisitor instanceof CodeInserter && methodVisitor.mv instanceof MethodWriter) {
+      MethodWriter methodWriter = (MethodWriter) methodVisitor.mv;
+      if (methodWriter.canCopyMethodAttributes(
+          this,
+          synthetic,
+          (context.currentMethodAccessFlags & Opcodes.ACC_DEPRECATED) != 0,
+          readUnsignedShort(methodInfoOffset + 4),
+          signatureIndex,
+          exceptionsOffset)) {
+        if (codeOffset == 0) {
+          methodWriter.setMethodAttributesSource(
+              methodInfoOffset, currentOffset - methodInfoOffset);
+          return currentOffset;
+        }
+        if (methodWriter.setPatchedMethodAttributesSource(
+            methodInfoOffset,
+            currentOffset - methodInfoOffset,
+            codeOffset,
+            (CodeInserter) methodVisitor,
+            charBuffer)) {
+          return currentOffset;
+        }
+      }
+    }
+
     // Visit the MethodParameters attribute.
     if (methodParametersOffset != 0 && (context.parsingOptions & SKIP_DEBUG) == 0) {
       int parametersCount = readByte(methodParametersOffset);
@@ -1411,11 +1703,10 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 methodVisitor.visitAnnotation(annotationDescriptor, /* visible= */ true),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -1429,11 +1720,10 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 methodVisitor.visitAnnotation(annotationDescriptor, /* visible= */ false),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -1449,15 +1739,14 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 methodVisitor.visitTypeAnnotation(
                     context.currentTypeAnnotationTarget,
                     context.currentTypeAnnotationTargetPath,
                     annotationDescriptor,
                     /* visible= */ true),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -1473,15 +1762,14 @@ public class ClassReader {
         currentAnnotationOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentAnnotationOffset =
-            readElementValues(
+            readElementValuePairs(
                 methodVisitor.visitTypeAnnotation(
                     context.currentTypeAnnotationTarget,
                     context.currentTypeAnnotationTargetPath,
                     annotationDescriptor,
                     /* visible= */ false),
                 currentAnnotationOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       }
     }
 
@@ -1845,6 +2133,9 @@ public class ClassReader {
     // Read the 'exception_table_length' and 'exception_table' field to create a label for each
     // referenced instruction, and to make methodVisitor visit the corresponding try catch blocks.
     int exceptionTableLength = readUnsignedShort(currentOffset);
+    methodVisitor.visitCodeCounts(
+        exceptionTableLength,
+        readLocalVariableCount(context, currentOffset + 2 + 8 * exceptionTableLength));
     currentOffset += 2;
     while (exceptionTableLength-- > 0) {
       Label start = createLabel(readUnsignedShort(currentOffset), labels);
@@ -1922,8 +2213,10 @@ public class ClassReader {
           }
         }
       } else if (Constants.RUNTIME_VISIBLE_TYPE_ANNOTATIONS.equals(attributeName)) {
-        visibleTypeAnnotationOffsets =
-            readTypeAnnotations(methodVisitor, context, currentOffset, /* visible= */ true);
+        if (context.readCodeTypeAnnotations) {
+          visibleTypeAnnotationOffsets =
+              readTypeAnnotations(methodVisitor, context, currentOffset, /* visible= */ true);
+        }
         // Here we do not extract the labels corresponding to the attribute content. This would
         // require a full parsing of the attribute, which would need to be repeated when parsing
         // the bytecode instructions (see below). Instead, the content of the attribute is read one
@@ -1931,8 +2224,10 @@ public class ClassReader {
         // annotation is read), and the labels it contains are also extracted one annotation at a
         // time. This assumes that type annotations are ordered by increasing bytecode offset.
       } else if (Constants.RUNTIME_INVISIBLE_TYPE_ANNOTATIONS.equals(attributeName)) {
-        invisibleTypeAnnotationOffsets =
-            readTypeAnnotations(methodVisitor, context, currentOffset, /* visible= */ false);
+        if (context.readCodeTypeAnnotations) {
+          invisibleTypeAnnotationOffsets =
+              readTypeAnnotations(methodVisitor, context, currentOffset, /* visible= */ false);
+        }
         // Same comment as above for the RuntimeVisibleTypeAnnotations attribute.
       } else if (Constants.STACK_MAP_TABLE.equals(attributeName)) {
         if ((context.parsingOptions & SKIP_FRAMES) == 0) {
@@ -2459,16 +2754,17 @@ public class ClassReader {
             int nameAndTypeCpInfoOffset = cpInfoOffsets[readUnsignedShort(cpInfoOffset + 2)];
             String name = readUTF8(nameAndTypeCpInfoOffset, charBuffer);
             String descriptor = readUTF8(nameAndTypeCpInfoOffset + 2, charBuffer);
-            int bootstrapMethodOffset = bootstrapMethodOffsets[readUnsignedShort(cpInfoOffset)];
+            int bootstrapMethodIndex = readUnsignedShort(cpInfoOffset);
             Handle handle =
-                (Handle) readConst(readUnsignedShort(bootstrapMethodOffset), charBuffer);
+                (Handle)
+                    readConst(
+                        readUnsignedShort(bootstrapMethodOffsets[bootstrapMethodIndex]),
+                        charBuffer);
+            // The visitor may store or modify the arguments array, so it must receive a copy.
             Object[] bootstrapMethodArguments =
-                new Object[readUnsignedShort(bootstrapMethodOffset + 2)];
-            bootstrapMethodOffset += 4;
-            for (int i = 0; i < bootstrapMethodArguments.length; i++) {
-              bootstrapMethodArguments[i] =
-                  readConst(readUnsignedShort(bootstrapMethodOffset), charBuffer);
-              bootstrapMethodOffset += 2;
+                readBootstrapMethodArguments(bootstrapMethodIndex, charBuffer);
+            if (bootstrapMethodArguments.length > 0) {
+              bootstrapMethodArguments = bootstrapMethodArguments.clone();
             }
             methodVisitor.visitInvokeDynamicInsn(
                 name, descriptor, handle, bootstrapMethodArguments);
@@ -2509,15 +2805,14 @@ public class ClassReader {
           String annotationDescriptor = readUTF8(currentAnnotationOffset, charBuffer);
           currentAnnotationOffset += 2;
           // Parse num_element_value_pairs and element_value_pairs and visit these values.
-          readElementValues(
+          readElementValuePairs(
               methodVisitor.visitInsnAnnotation(
                   context.currentTypeAnnotationTarget,
                   context.currentTypeAnnotationTargetPath,
                   annotationDescriptor,
                   /* visible= */ true),
               currentAnnotationOffset,
-              /* named= */ true,
-              charBuffer);
+              context);
         }
         currentVisibleTypeAnnotationBytecodeOffset =
             getTypeAnnotationBytecodeOffset(
@@ -2537,15 +2832,14 @@ public class ClassReader {
           String annotationDescriptor = readUTF8(currentAnnotationOffset, charBuffer);
           currentAnnotationOffset += 2;
           // Parse num_element_value_pairs and element_value_pairs and visit these values.
-          readElementValues(
+          readElementValuePairs(
               methodVisitor.visitInsnAnnotation(
                   context.currentTypeAnnotationTarget,
                   context.currentTypeAnnotationTargetPath,
                   annotationDescriptor,
                   /* visible= */ false),
               currentAnnotationOffset,
-              /* named= */ true,
-              charBuffer);
+              context);
         }
         currentInvisibleTypeAnnotationBytecodeOffset =
             getTypeAnnotationBytecodeOffset(
@@ -2607,7 +2901,7 @@ public class ClassReader {
           String annotationDescriptor = readUTF8(currentOffset, charBuffer);
           currentOffset += 2;
           // Parse num_element_value_pairs and element_value_pairs and visit these values.
-          readElementValues(
+          readElementValuePairs(
               methodVisitor.visitLocalVariableAnnotation(
                   context.currentTypeAnnotationTarget,
                   context.currentTypeAnnotationTargetPath,
@@ -2617,8 +2911,7 @@ public class ClassReader {
                   annotationDescriptor,
                   /* visible= */ true),
               currentOffset,
-              /* named= */ true,
-              charBuffer);
+              context);
         }
       }
     }
@@ -2635,7 +2928,7 @@ public class ClassReader {
           String annotationDescriptor = readUTF8(currentOffset, charBuffer);
           currentOffset += 2;
           // Parse num_element_value_pairs and element_value_pairs and visit these values.
-          readElementValues(
+          readElementValuePairs(
               methodVisitor.visitLocalVariableAnnotation(
                   context.currentTypeAnnotationTarget,
                   context.currentTypeAnnotationTargetPath,
@@ -2645,8 +2938,7 @@ public class ClassReader {
                   annotationDescriptor,
                   /* visible= */ false),
               currentOffset,
-              /* named= */ true,
-              charBuffer);
+              context);
         }
       }
     }
@@ -2678,6 +2970,30 @@ public class ClassReader {
     // Do nothing by default.
   }
 
+  /**
+   * Returns the number of local variables that {@link #readCode} visits for a Code attribute.
+   *
+   * @param context information about the class being parsed.
+   * @param attributesOffset the offset in {@link #classFileBuffer} of the attributes_count field of
+   *     the Code attribute.
+   * @return the local_variable_table_length of the LocalVariableTable attribute of the Code
+   *     attribute, or 0 if there is no such attribute or if it is skipped.
+   */
+  private int readLocalVariableCount(final Context context, final int attributesOffset) {
+    if ((context.parsingOptions & SKIP_DEBUG) != 0) {
+      return 0;
+    }
+    int currentOffset = attributesOffset + 2;
+    int attributesCount = readUnsignedShort(attributesOffset);
+    while (attributesCount-- > 0) {
+      if (Constants.LOCAL_VARIABLE_TABLE.equals(readUTF8(currentOffset, context.charBuffer))) {
+        return readUnsignedShort(currentOffset + 6);
+      }
+      currentOffset += 6 + readInt(currentOffset + 2);
+    }
+    return 0;
+  }
+
   /**
    * Returns the label corresponding to the given bytecode offset. The default implementation of
    * this method creates a label for the given offset if it has not been already created.
@@ -2807,19 +3123,18 @@ public class ClassReader {
       int pathLength = readByte(currentOffset);
       if ((targetType >>> 24) == TypeReference.EXCEPTION_PARAMETER) {
         // Parse the target_path structure and create a corresponding TypePath.
-        TypePath path = pathLength == 0 ? null : new TypePath(classFileBuffer, currentOffset);
+        TypePath path = readTypePath(context, currentOffset);
         currentOffset += 1 + 2 * pathLength;
         // Parse the type_index field.
         String annotationDescriptor = readUTF8(currentOffset, charBuffer);
         currentOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentOffset =
-            readElementValues(
+            readElementValuePairs(
                 methodVisitor.visitTryCatchAnnotation(
                     targetType & 0xFFFFFF00, path, annotationDescriptor, visible),
                 currentOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
       } else {
         // We don't want to visit the other target_type annotations, so we just skip them (which
         // requires some parsing because the element_value_pairs array has a variable size). First,
@@ -2931,12 +3246,47 @@ public class ClassReader {
     context.currentTypeAnnotationTarget = targetType;
     // Parse and store the target_path structure.
     int pathLength = readByte(currentOffset);
-    context.currentTypeAnnotationTargetPath =
-        pathLength == 0 ? null : new TypePath(classFileBuffer, currentOffset);
+    context.currentTypeAnnotationTargetPath = readTypePath(context, currentOffset);
     // Return the start offset of the rest of the type_annotation structure.
     return currentOffset + 1 + 2 * pathLength;
   }
 
+  /**
+   * Returns a {@link TypePath} corresponding to the given JVMS type_path structure. The returned
+   * instances are cached in the given context, so that the type annotations with the same type path
+   * in a class share the same {@link TypePath} instance.
+   *
+   * @param context information about the class being parsed. This is where the type paths are
+   *     cached.
+   * @param typePathOffset the start offset of a type_path structure.
+   * @return a TypePath corresponding to the given type_path structure, or {@literal null} if its
+   *     length is 0.
+   */
+  private TypePath readTypePath(final Context context, final int typePathOffset) {
+    final byte[] classBuffer = classFileBuffer;
+    int pathLength = classBuffer[typePathOffset] & 0xFF;
+    if (pathLength == 0) {
+      return null;
+    }
+    int hashCode = pathLength;
+    int endOffset = typePathOffset + 1 + 2 * pathLength;
+    for (int i = typePathOffset + 1; i < endOffset; ++i) {
+      hashCode = 31 * hashCode + classBuffer[i];
+    }
+    TypePath[] typePaths = context.typePaths;
+    if (typePaths == null) {
+      typePaths = new TypePath[TYPE_PATH_CACHE_SIZE];
+      context.typePaths = typePaths;
+    }
+    int index = hashCode & (TYPE_PATH_CACHE_SIZE - 1);
+    TypePath typePath = typePaths[index];
+    if (typePath == null || !typePath.hasSameContent(classBuffer, typePathOffset)) {
+      typePath = new TypePath(classBuffer, typePathOffset);
+      typePaths[index] = typePath;
+    }
+    return typePath;
+  }
+
   /**
    * Reads a Runtime[In]VisibleParameterAnnotations attribute and makes the given visitor visit it.
    *
@@ -2966,13 +3316,85 @@ public class ClassReader {
         currentOffset += 2;
         // Parse num_element_value_pairs and element_value_pairs and visit these values.
         currentOffset =
-            readElementValues(
+            readElementValuePairs(
                 methodVisitor.visitParameterAnnotation(i, annotationDescriptor, visible),
                 currentOffset,
-                /* named= */ true,
-                charBuffer);
+                context);
+      }
+    }
+  }
+
+  /**
+   * Reads the element values of a JVMS 'annotation' or 'type_annotation' structure and makes the
+   * given visitor visit them, possibly in their class file form (see {@link #LAZY_ANNOTATIONS}).
+   *
+   * @param annotationVisitor the visitor that must visit the values.
+   * @param annotationOffset the start offset of an 'annotation' or 'type_annotation' structure
+   *     (excluding the fields preceding its num_element_value_pairs field).
+   * @param context information about the class being parsed.
+   * @return the end offset of the JVMS 'annotation' or 'type_annotation' structure.
+   */
+  private int readElementValuePairs(
+      final AnnotationVisitor annotationVisitor,
+      final int annotationOffset,
+      final Context context) {
+    if (annotationVisitor != null
+        && (context.parsingOptions & LAZY_ANNOTATIONS) != 0
+        && annotationVisitor.visitElementValuePairs(this, annotationOffset)) {
+      annotationVisitor.visitEnd();
+      return getElementValuesEndOffset(annotationOffset, /* named= */ true);
+    }
+    return readElementValues(
+        annotationVisitor, annotationOffset, /* named= */ true, context.charBuffer);
+  }
+
+  /**
+   * Returns the end offset of the element values of a JVMS 'annotation' or 'type_annotation'
+   * structure.
+   *
+   * @param annotationOffset the start offset of an 'annotation' or 'type_annotation' structure
+   *     (excluding the fields preceding its num_element_value_pairs field).
+   * @return the end offset of the JVMS 'annotation' or 'type_annotation' structure.
+   */
+  final int getElementValuePairsEndOffset(final int annotationOffset) {
+    return getElementValuesEndOffset(annotationOffset, /* named= */ true);
+  }
+
+  /**
+   * Returns the end offset of a JVMS 'annotation' or 'array_value' structure, without reading the
+   * element names and values it contains.
+   *
+   * @param annotationOffset the start offset of an 'annotation' structure (excluding its type_index
+   *     field) or of an 'array_value' structure.
+   * @param named if the annotation values are named or not (see {@link #readElementValues}).
+   * @return the end offset of the JVMS 'annotation' or 'array_value' structure.
+   */
+  private int getElementValuesEndOffset(final int annotationOffset, final boolean named) {
+    int currentOffset = annotationOffset;
+    // Read the num_element_value_pairs field (or num_values field for an array_value).
+    int numElementValues = readUnsignedShort(currentOffset);
+    currentOffset += 2;
+    while (numElementValues-- > 0) {
+      if (named) {
+        // Skip the element_name_index field.
+        currentOffset += 2;
+      }
+      switch (classFileBuffer[currentOffset] & 0xFF) {
+        case 'e': // enum_const_value
+          currentOffset += 5;
+          break;
+        case '@': // annotation_value
+          currentOffset = getElementValuesEndOffset(currentOffset + 3, /* named= */ true);
+          break;
+        case '[': // array_value
+          currentOffset = getElementValuesEndOffset(currentOffset + 1, /* named= */ false);
+          break;
+        default:
+          currentOffset += 3;
+          break;
       }
     }
+    return currentOffset;
   }
 
   /**
@@ -3438,6 +3860,30 @@ public class ClassReader {
    *     field entry.
    */
   final int getFirstAttributeOffset() {
+    int currentOffset = getMethodsCountOffset();
+
+    // Skip the methods_count and 'methods' fields, using the same method as in
+    // getMethodsCountOffset.
+    int methodsCount = readUnsignedShort(currentOffset);
+    currentOffset += 2;
+    while (methodsCount-- > 0) {
+      int attributesCount = readUnsignedShort(currentOffset + 6);
+      currentOffset += 8;
+      while (attributesCount-- > 0) {
+        currentOffset += 6 + readInt(currentOffset + 2);
+      }
+    }
+
+    // Skip the ClassFile's attributes_count field.
+    return currentOffset + 2;
+  }
+
+  /**
+   * Returns the offset in {@link #classFileBuffer} of the ClassFile's methods_count field.
+   *
+   * @return the offset in {@link #classFileBuffer} of the ClassFile's methods_count field.
+   */
+  private int getMethodsCountOffset() {
     // Skip the access_flags, this_class, super_class, and interfaces_count fields (using 2 bytes
     // each), as well as the interfaces array field (2 bytes per interface).
     int currentOffset = header + 8 + readUnsignedShort(header + 6) * 2;
@@ -3461,20 +3907,7 @@ public class ClassReader {
         currentOffset += 6 + readInt(currentOffset + 2);
       }
     }
-
-    // Skip the methods_count and 'methods' fields, using the same method as above.
-    int methodsCount = readUnsignedShort(currentOffset);
-    currentOffset += 2;
-    while (methodsCount-- > 0) {
-      int attributesCount = readUnsignedShort(currentOffset + 6);
-      currentOffset += 8;
-      while (attributesCount-- > 0) {
-        currentOffset += 6 + readInt(currentOffset + 2);
-      }
-    }
-
-    // Skip the ClassFile's attributes_count field.
-    return currentOffset + 2;
+    return currentOffset;
   }
 
   /**
@@ -3823,16 +4256,71 @@ public class ClassReader {
     int nameAndTypeCpInfoOffset = cpInfoOffsets[readUnsignedShort(cpInfoOffset + 2)];
     String name = readUTF8(nameAndTypeCpInfoOffset, charBuffer);
     String descriptor = readUTF8(nameAndTypeCpInfoOffset + 2, charBuffer);
-    int bootstrapMethodOffset = bootstrapMethodOffsets[readUnsignedShort(cpInfoOffset)];
-    Handle handle = (Handle) readConst(readUnsignedShort(bootstrapMethodOffset), charBuffer);
-    Object[] bootstrapMethodArguments = new Object[readUnsignedShort(bootstrapMethodOffset + 2)];
+    int bootstrapMethodIndex = readUnsignedShort(cpInfoOffset);
+    Handle handle =
+        (Handle)
+            readConst(readUnsignedShort(bootstrapMethodOffsets[bootstrapMethodIndex]), charBuffer);
+    // ConstantDynamic never exposes its arguments array, which can therefore be shared.
+    return constantDynamicValues[constantPoolEntryIndex] =
+        new ConstantDynamic(
+            name,
+            descriptor,
+            handle,
+            readBootstrapMethodArguments(bootstrapMethodIndex, charBuffer));
+  }
+
+  /**
+   * Reads the arguments of an element of the bootstrap_methods array in {@link #classFileBuffer}.
+   *
+   * @param bootstrapMethodIndex the index of an element of the bootstrap_methods array (in the
+   *     BootstrapMethods attribute).
+   * @param charBuffer the buffer to be used to read the strings. This buffer must be sufficiently
+   *     large. It is not automatically resized.
+   * @return the arguments of the specified bootstrap method. WARNING: this array is shared, it must
+   *     not be modified, and must not be passed to the user.
+   */
+  private Object[] readBootstrapMethodArguments(
+      final int bootstrapMethodIndex, final char[] charBuffer) {
+    BootstrapMethodArguments cachedArguments = bootstrapMethodArguments[bootstrapMethodIndex];
+    if (cachedArguments != null) {
+      return cachedArguments.values;
+    }
+    int bootstrapMethodOffset = bootstrapMethodOffsets[bootstrapMethodIndex];
+    Object[] arguments = new Object[readUnsignedShort(bootstrapMethodOffset + 2)];
     bootstrapMethodOffset += 4;
-    for (int i = 0; i < bootstrapMethodArguments.length; i++) {
-      bootstrapMethodArguments[i] = readConst(readUnsignedShort(bootstrapMethodOffset), charBuffer);
+    for (int i = 0; i < arguments.length; i++) {
+      arguments[i] = readConst(readUnsignedShort(bootstrapMethodOffset), charBuffer);
       bootstrapMethodOffset += 2;
     }
-    return constantDynamicValues[constantPoolEntryIndex] =
-        new ConstantDynamic(name, descriptor, handle, bootstrapMethodArguments);
+    bootstrapMethodArguments[bootstrapMethodIndex] = new BootstrapMethodArguments(arguments);
+    return arguments;
+  }
+
+  /**
+   * Reads a CONSTANT_MethodHandle constant pool entry in {@link #classFileBuffer}.
+   *
+   * @param constantPoolEntryIndex the index of a CONSTANT_MethodHandle entry in the class's
+   *     constant pool table.
+   * @param charBuffer the buffer to be used to read the strings. This buffer must be sufficiently
+   *     large. It is not automatically resized.
+   * @return the Handle corresponding to the specified CONSTANT_MethodHandle entry.
+   */
+  private Handle readHandle(final int constantPoolEntryIndex, final char[] charBuffer) {
+    Handle handle = constantHandleValues[constantPoolEntryIndex];
+    if (handle != null) {
+      return handle;
+    }
+    int cpInfoOffset = cpInfoOffsets[constantPoolEntryIndex];
+    int referenceKind = readByte(cpInfoOffset);
+    int referenceCpInfoOffset = cpInfoOffsets[readUnsignedShort(cpInfoOffset + 1)];
+    int nameAndTypeCpInfoOffset = cpInfoOffsets[readUnsignedShort(referenceCpInfoOffset + 2)];
+    String owner = readClass(referenceCpInfoOffset, charBuffer);
+    String name = readUTF8(nameAndTypeCpInfoOffset, charBuffer);
+    String descriptor = readUTF8(nameAndTypeCpInfoOffset + 2, charBuffer);
+    boolean isInterface =
+        classFileBuffer[referenceCpInfoOffset - 1] == Symbol.CONSTANT_INTERFACE_METHODREF_TAG;
+    return constantHandleValues[constantPoolEntryIndex] =
+        new Handle(referenceKind, owner, name, descriptor, isInterface);
   }
 
   /**
@@ -3867,19 +4355,26 @@ public class ClassReader {
       case Symbol.CONSTANT_METHOD_TYPE_TAG:
         return Type.getMethodType(readUTF8(cpInfoOffset, charBuffer));
       case Symbol.CONSTANT_METHOD_HANDLE_TAG:
-        int referenceKind = readByte(cpInfoOffset);
-        int referenceCpInfoOffset = cpInfoOffsets[readUnsignedShort(cpInfoOffset + 1)];
-        int nameAndTypeCpInfoOffset = cpInfoOffsets[readUnsignedShort(referenceCpInfoOffset + 2)];
-        String owner = readClass(referenceCpInfoOffset, charBuffer);
-        String name = readUTF8(nameAndTypeCpInfoOffset, charBuffer);
-        String descriptor = readUTF8(nameAndTypeCpInfoOffset + 2, charBuffer);
-        boolean isInterface =
-            classFileBuffer[referenceCpInfoOffset - 1] == Symbol.CONSTANT_INTERFACE_METHODREF_TAG;
-        return new Handle(referenceKind, owner, name, descriptor, isInterface);
+        return readHandle(constantPoolEntryIndex, charBuffer);
       case Symbol.CONSTANT_DYNAMIC_TAG:
         return readConstantDynamic(constantPoolEntryIndex, charBuffer);
       default:
         throw new IllegalArgumentException();
     }
   }
+
+  /**
+   * The arguments of an element of the bootstrap_methods array. Their array is stored in a final
+   * field, so that it is fully visible to any thread which sees this object, even if this object is
+   * published without synchronization.
+   */
+  private static final class BootstrapMethodArguments {
+
+    /** The arguments of the bootstrap method. Must not be modified. */
+    final Object[] values;
+
+    BootstrapMethodArguments(final Object[] values) {
+      this.values = values; // NOPMD(ArrayIsStoredDirectly): private to the class reader.
+    }
+  }
 }
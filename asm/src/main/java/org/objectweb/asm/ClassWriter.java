@@ -66,8 +66,59 @@ public class ClassWriter extends ClassVisitor {
   public static final int COMPUTE_FRAMES = 2;
 
   /**
-   * The flags passed to the constructor. Must be zero or more of {@link #COMPUTE_MAXS} and {@link
-   * #COMPUTE_FRAMES}.
+   * A flag to use 4 bytes offsets for all the forward jump instructions of methods, i.e. for the
+   * jumps to labels which are not yet visited when the jump instruction is visited. By default,
+   * these jumps use 2 bytes offsets and, if it turns out that some of them are too large to fit in
+   * 2 bytes (which can happen in methods larger than 32KB), {@link #toByteArray} replaces them with
+   * 4 bytes offsets with an additional ClassReader -&gt; ClassWriter round trip on the whole class.
+   * This flag avoids this round trip, at the cost of slightly larger methods. It should therefore
+   * only be used for methods which are known or predicted to be large (it can be set for some
+   * methods only, with {@link #setFlags}).
+   *
+   * <p>If this flag is set, forward GOTO and JSR instructions are replaced with GOTO_W and JSR_W.
+   * If {@link #COMPUTE_FRAMES} is also set, forward IFxxx instructions are replaced with IFNOTxxx
+   * GOTO_W sequences, where IFNOTxxx is the "opposite" opcode of IFxxx (e.g. IFNE for IFEQ).
+   * Otherwise they are left unchanged (because a new stack map frame would be needed after the
+   * GOTO_W), and can still require the above round trip.
+   *
+   * @see #ClassWriter(int)
+   */
+  public static final int WIDE_FORWARD_JUMPS = 4;
+
+  /**
+   * A flag to generate StackMapTable attributes containing only the frames required by the JVMS,
+   * with their most compact encoding. By default, the frames visited with {@link
+   * MethodVisitor#visitFrame}, or computed with {@link #COMPUTE_FRAMES} (for all jump targets,
+   * including those which are only targeted by unreachable code), are all stored in the
+   * StackMapTable. If this flag is set, only the frames at the start of a jump target, of an
+   * exception handler, or of an instruction following an unconditional branch are stored, and
+   * trailing TOP local variables are removed from them. Combined with {@link #COMPUTE_FRAMES}, this
+   * flag also replaces consecutive unreachable basic blocks with a single NOP ... NOP ATHROW
+   * sequence, with a single frame. This reduces the class size and the verification time.
+   *
+   * @see #ClassWriter(int)
+   */
+  public static final int COMPACT_FRAMES = 8;
+
+  /**
+   * A flag to remove unreachable code, when used with {@link #COMPUTE_FRAMES}. By default, the
+   * unreachable basic blocks found when computing the stack map frames are replaced with NOP ...
+   * NOP ATHROW sequences, with a frame for each of them. If this flag is set, these blocks are
+   * removed instead, and the jump offsets, exception handler ranges, line numbers and local
+   * variable ranges are updated accordingly. This is not done for methods containing code type
+   * annotations or non standard code attributes (whose content can't be updated), or ASM specific
+   * instructions (see {@link Label}). Also, in methods containing TABLESWITCH or LOOKUPSWITCH
+   * instructions, up to 3 bytes of each unreachable code range are kept (as NOP ... NOP ATHROW), in
+   * order to preserve the padding of these instructions.
+   *
+   * @see #ClassWriter(int)
+   */
+  public static final int REMOVE_DEAD_CODE = 16;
+
+  /**
+   * The flags passed to the constructor. Must be zero or more of {@link #COMPUTE_MAXS}, {@link
+   * #COMPUTE_FRAMES}, {@link #WIDE_FORWARD_JUMPS}, {@link #COMPACT_FRAMES} and {@link
+   * #REMOVE_DEAD_CODE}.
    */
   private final int flags;
 
@@ -222,6 +273,24 @@ public class ClassWriter extends ClassVisitor {
    */
   private int compute;
 
+  /**
+   * Whether the {@link MethodWriter} instances must use 4 bytes offsets for forward jumps. See
+   * {@link #WIDE_FORWARD_JUMPS}.
+   */
+  private boolean wideForwardJumps;
+
+  /**
+   * Whether the {@link MethodWriter} instances must only store the required frames. See {@link
+   * #COMPACT_FRAMES}.
+   */
+  private boolean compactFrames;
+
+  /**
+   * Whether the {@link MethodWriter} instances must remove unreachable code. See {@link
+   * #REMOVE_DEAD_CODE}.
+   */
+  private boolean removeDeadCode;
+
   // -----------------------------------------------------------------------------------------------
   // Constructor
   // -----------------------------------------------------------------------------------------------
@@ -230,7 +299,8 @@ public class ClassWriter extends ClassVisitor {
    * Constructs a new {@link ClassWriter} object.
    *
    * @param flags option flags that can be used to modify the default behavior of this class. Must
-   *     be zero or more of {@link #COMPUTE_MAXS} and {@link #COMPUTE_FRAMES}.
+   *     be zero or more of {@link #COMPUTE_MAXS}, {@link #COMPUTE_FRAMES}, {@link
+   *     #WIDE_FORWARD_JUMPS}, {@link #COMPACT_FRAMES} and {@link #REMOVE_DEAD_CODE}.
    */
   public ClassWriter(final int flags) {
     this(null, flags);
@@ -256,9 +326,10 @@ public class ClassWriter extends ClassVisitor {
    *     copy the entire constant pool and bootstrap methods from the original class and also to
    *     copy other fragments of original bytecode where applicable.
    * @param flags option flags that can be used to modify the default behavior of this class. Must
-   *     be zero or more of {@link #COMPUTE_MAXS} and {@link #COMPUTE_FRAMES}. <i>These option flags
-   *     do not affect methods that are copied as is in the new class. This means that neither the
-   *     maximum stack size nor the stack frames will be computed for these methods</i>.
+   *     be zero or more of {@link #COMPUTE_MAXS}, {@link #COMPUTE_FRAMES}, {@link
+   *     #WIDE_FORWARD_JUMPS}, {@link #COMPACT_FRAMES} and {@link #REMOVE_DEAD_CODE}. <i>These
+   *     option flags do not affect methods that are copied as is in the new class. This means that
+   *     neither the maximum stack size nor the stack frames will be computed for these methods</i>.
    */
   public ClassWriter(final ClassReader classReader, final int flags) {
     super(/* latest api = */ Opcodes.ASM9);
@@ -267,6 +338,22 @@ public class ClassWriter extends ClassVisitor {
     setFlags(flags);
   }
 
+  /**
+   * Constructs a new {@link ClassWriter} object with a copy of the constant pool and bootstrap
+   * methods of the given one, and with the same method computation strategy (see {@link #fork}).
+   *
+   * @param classWriter the ClassWriter to fork.
+   */
+  private ClassWriter(final ClassWriter classWriter) {
+    super(/* latest api = */ Opcodes.ASM9);
+    this.flags = classWriter.flags;
+    this.symbolTable = new SymbolTable(classWriter.symbolTable);
+    this.compute = classWriter.compute;
+    this.wideForwardJumps = classWriter.wideForwardJumps;
+    this.compactFrames = classWriter.compactFrames;
+    this.removeDeadCode = classWriter.removeDeadCode;
+  }
+
   // -----------------------------------------------------------------------------------------------
   // Accessors
   // -----------------------------------------------------------------------------------------------
@@ -274,8 +361,9 @@ public class ClassWriter extends ClassVisitor {
   /**
    * Returns true if all the given flags were passed to the constructor.
    *
-   * @param flags some option flags. Must be zero or more of {@link #COMPUTE_MAXS} and {@link
-   *     #COMPUTE_FRAMES}.
+   * @param flags some option flags. Must be zero or more of {@link #COMPUTE_MAXS}, {@link
+   *     #COMPUTE_FRAMES}, {@link #WIDE_FORWARD_JUMPS}, {@link #COMPACT_FRAMES} and {@link
+   *     #REMOVE_DEAD_CODE}.
    * @return true if all the given flags, or more, were passed to the constructor.
    */
   public boolean hasFlags(final int flags) {
@@ -461,7 +549,17 @@ public class ClassWriter extends ClassVisitor {
       final String signature,
       final String[] exceptions) {
     MethodWriter methodWriter =
-        new MethodWriter(symbolTable, access, name, descriptor, signature, exceptions, compute);
+        new MethodWriter(
+            symbolTable,
+            access,
+            name,
+            descriptor,
+            signature,
+            exceptions,
+            compute,
+            wideForwardJumps,
+            compactFrames,
+            removeDeadCode);
     if (firstMethod == null) {
       firstMethod = methodWriter;
     } else {
@@ -742,6 +840,77 @@ public class ClassWriter extends ClassVisitor {
     }
   }
 
+  /**
+   * Returns a new ClassWriter, called a fork, whose constant pool and bootstrap methods are a copy
+   * of those of this ClassWriter. A fork can only be used to visit methods, with {@link
+   * #visitMethod}, and these methods can then be added to this ClassWriter with {@link
+   * #mergeMethods}. Several forks of the same ClassWriter can be used concurrently, in different
+   * threads, provided {@link #getCommonSuperClass} is thread safe (forks use the implementation of
+   * this ClassWriter). Each fork must be used by at most one thread at a time.
+   *
+   * <p>Methods visited in forks produce exactly the same class as if they had been visited directly
+   * in this ClassWriter, in the order of the forks, if the following two passes are used:
+   *
+   * <ul>
+   *   <li>visit each group of methods in its own fork, and then merge the constant pool of each
+   *       fork into this ClassWriter, in order, with {@link #mergeConstantPool}. This fixes the
+   *       constant pool indices of all the symbols used in the methods.
+   *   <li>visit each group of methods again, in new forks of this ClassWriter, and then merge these
+   *       methods into this ClassWriter, in order, with {@link #mergeMethods}. Since these forks
+   *       already contain all the symbols they need, their methods can be added as is.
+   * </ul>
+   *
+   * @return a new ClassWriter with a copy of the constant pool and bootstrap methods of this one.
+   */
+  public ClassWriter fork() {
+    return new ClassWriter(this);
+  }
+
+  /**
+   * Adds to the constant pool and bootstrap methods of this ClassWriter the symbols which have been
+   * added to the given fork since it was created, in the order in which they were added to the
+   * fork. The methods of the fork are not added to this ClassWriter.
+   *
+   * @param fork a ClassWriter returned by {@link #fork}, called on this ClassWriter, possibly
+   *     before other forks have been merged into it.
+   */
+  public void mergeConstantPool(final ClassWriter fork) {
+    symbolTable.addNewSymbols(fork.symbolTable);
+  }
+
+  /**
+   * Adds the methods of the given fork at the end of the methods of this ClassWriter, and removes
+   * them from the fork. The fork must not have added any symbol to its copy of the constant pool
+   * and bootstrap methods since it was created (see {@link #fork}).
+   *
+   * @param fork a ClassWriter returned by {@link #fork}, called on this ClassWriter after the
+   *     constant pool of all the methods of the fork has been merged into it.
+   * @throws IllegalStateException if the fork has added some symbols to its constant pool or
+   *     bootstrap methods.
+   */
+  public void mergeMethods(final ClassWriter fork) {
+    if (fork.symbolTable.hasNewSymbols()) {
+      throw new IllegalStateException(
+          "The constant pool of the fork must be merged before its methods");
+    }
+    MethodWriter methodWriter = fork.firstMethod;
+    if (methodWriter == null) {
+      return;
+    }
+    while (methodWriter != null) {
+      methodWriter.setSymbolTable(symbolTable);
+      methodWriter = (MethodWriter) methodWriter.mv;
+    }
+    if (firstMethod == null) {
+      firstMethod = fork.firstMethod;
+    } else {
+      lastMethod.mv = fork.firstMethod;
+    }
+    lastMethod = fork.lastMethod;
+    fork.firstMethod = null;
+    fork.lastMethod = null;
+  }
+
   /**
    * Replaces the ASM specific instructions with standard ones. This is done with a ClassReader
    * -&gt; ClassWriter round trip.
@@ -1025,7 +1194,8 @@ public class ClassWriter extends ClassVisitor {
    * visitors keep their previous behavior.
    *
    * @param flags option flags that can be used to modify the default behavior of this class. Must
-   *     be zero or more of {@link #COMPUTE_MAXS} and {@link #COMPUTE_FRAMES}.
+   *     be zero or more of {@link #COMPUTE_MAXS}, {@link #COMPUTE_FRAMES}, {@link
+   *     #WIDE_FORWARD_JUMPS}, {@link #COMPACT_FRAMES} and {@link #REMOVE_DEAD_CODE}.
    */
   public final void setFlags(final int flags) {
     if ((flags & ClassWriter.COMPUTE_FRAMES) != 0) {
@@ -1035,6 +1205,9 @@ public class ClassWriter extends ClassVisitor {
     } else {
       compute = MethodWriter.COMPUTE_NOTHING;
     }
+    wideForwardJumps = (flags & WIDE_FORWARD_JUMPS) != 0;
+    compactFrames = (flags & COMPACT_FRAMES) != 0;
+    removeDeadCode = (flags & REMOVE_DEAD_CODE) != 0;
   }
 
   // -----------------------------------------------------------------------------------------------
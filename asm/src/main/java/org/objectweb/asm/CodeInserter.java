@@ -0,0 +1,73 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm;
+
+/**
+ * A {@link MethodVisitor} which inserts some code at the beginning of a method and before its
+ * xRETURN and ATHROW instructions, and which otherwise sends the visited method unchanged to its
+ * delegate.
+ *
+ * <p>When a {@link ClassReader} passes its methods to a {@link CodeInserter} which is directly
+ * chained to the {@link MethodWriter} of a {@link ClassWriter} constructed from this {@link
+ * ClassReader}, the method is not parsed nor visited. Instead, its content is copied as is, and
+ * only the code generated by {@link #insertCode} and the bytecode offsets shifted by this insertion
+ * are patched in the copy. This is only possible if the inserted code is straight line code,
+ * without jump, switch, return or athrow instruction, without try catch block, frame, line number,
+ * local variable or annotation, and if the Code attribute of the method only contains
+ * StackMapTable, LineNumberTable, LocalVariableTable and LocalVariableTypeTable attributes.
+ * Otherwise, the method is visited normally.
+ *
+ * <p>Subclasses must therefore make sure that visiting a method with this visitor gives the same
+ * result as copying it with the code generated by {@link #insertCode}. The {@code MethodPatcher}
+ * class of the asm-commons module provides such an implementation.
+ */
+public abstract class CodeInserter extends MethodVisitor {
+
+  /**
+   * Constructs a new {@link CodeInserter}.
+   *
+   * @param api the ASM API version implemented by this visitor. Must be one of the {@code
+   *     ASM}<i>x</i> values in {@link Opcodes}.
+   * @param methodVisitor the method visitor to which this visitor must delegate method calls. May
+   *     be null.
+   */
+  protected CodeInserter(final int api, final MethodVisitor methodVisitor) {
+    super(api, methodVisitor);
+  }
+
+  /**
+   * Generates the code to insert at the beginning of the method or before an xRETURN or ATHROW
+   * instruction, and sends it to the given method visitor instead of the one this visitor normally
+   * delegates to.
+   *
+   * @param methodVisitor the method visitor to which the inserted code must be sent.
+   * @param opcode an xRETURN or ATHROW opcode to generate the code inserted before these
+   *     instructions, or -1 to generate the code inserted at the beginning of the method.
+   */
+  protected abstract void insertCode(MethodVisitor methodVisitor, int opcode);
+}
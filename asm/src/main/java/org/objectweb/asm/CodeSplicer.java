@@ -0,0 +1,623 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm;
+
+/**
+ * A copy of a Code attribute with some code inserted at the beginning of its bytecode and before
+ * its xRETURN and ATHROW instructions. The bytecode offsets in the instructions, the exception
+ * table, the StackMapTable, LineNumberTable, LocalVariableTable and LocalVariableTypeTable
+ * attributes of the copy are updated to take these insertions into account.
+ *
+ * @see CodeInserter
+ */
+final class CodeSplicer {
+
+  /** The class reader containing the Code attribute to copy. */
+  private final ClassReader classReader;
+
+  /** The class file buffer of {@link #classReader}. */
+  private final byte[] classBuffer;
+
+  /**
+   * The start offset in {@link #classBuffer} of the Code attribute, excluding its
+   * attribute_name_index and attribute_length fields.
+   */
+  private final int codeOffset;
+
+  /** The start offset in {@link #classBuffer} of the bytecode of the Code attribute. */
+  private final int bytecodeStartOffset;
+
+  /** The end offset in {@link #classBuffer} of the bytecode of the Code attribute. */
+  private final int bytecodeEndOffset;
+
+  /**
+   * The opcodes of the xRETURN and ATHROW instructions found in the bytecode. The bit at index
+   * {@code opcode - IRETURN} is set for each of these opcodes.
+   */
+  private int exitOpcodes;
+
+  /** The bytecode offsets of the xRETURN and ATHROW instructions, in increasing order. */
+  private int[] exitOffsets;
+
+  /** The number of valid elements in {@link #exitOffsets}. */
+  private int exitCount;
+
+  /** Whether the bytecode contains TABLESWITCH or LOOKUPSWITCH instructions. */
+  private boolean hasSwitch;
+
+  /**
+   * The code to insert at the beginning of the bytecode (at index 0), and before each xRETURN or
+   * ATHROW instruction (at index {@code opcode - IRETURN + 1}). Elements are {@literal null} when
+   * there is no code to insert.
+   */
+  private final ByteVector[] insertedCode;
+
+  /**
+   * The bytecode offsets of the instructions with some code inserted before, in increasing order.
+   */
+  private int[] insertionOffsets;
+
+  /**
+   * The total size of the code inserted before or at each offset of {@link #insertionOffsets},
+   * including the code inserted at the beginning of the bytecode.
+   */
+  private int[] insertionShifts;
+
+  /** The number of valid elements in {@link #insertionOffsets} and {@link #insertionShifts}. */
+  private int insertionCount;
+
+  /** The size of the code inserted at the beginning of the bytecode. */
+  private int entryShift;
+
+  /**
+   * Constructs a new {@link CodeSplicer}.
+   *
+   * @param classReader the class reader containing the Code attribute to copy.
+   * @param codeOffset the start offset in 'classReader' of the Code attribute, excluding its
+   *     attribute_name_index and attribute_length fields.
+   */
+  CodeSplicer(final ClassReader classReader, final int codeOffset) {
+    this.classReader = classReader;
+    this.classBuffer = classReader.classFileBuffer;
+    this.codeOffset = codeOffset;
+    this.bytecodeStartOffset = codeOffset + 8;
+    this.bytecodeEndOffset = bytecodeStartOffset + classReader.readInt(codeOffset + 4);
+    this.exitOffsets = new int[8];
+    this.insertedCode = new ByteVector[Opcodes.ATHROW - Opcodes.IRETURN + 2];
+  }
+
+  /**
+   * Parses the bytecode of the Code attribute to find its xRETURN and ATHROW instructions.
+   *
+   * @return whether the bytecode is well formed and contains only standard instructions (i.e. no
+   *     ASM specific instructions).
+   */
+  boolean scanBytecode() {
+    int codeLength = bytecodeEndOffset - bytecodeStartOffset;
+    if (codeLength < 0 || codeLength > 65535 || bytecodeEndOffset > classBuffer.length) {
+      return false;
+    }
+    boolean switchFound = false;
+    int currentOffset = bytecodeStartOffset;
+    while (currentOffset < bytecodeEndOffset) {
+      int bytecodeOffset = currentOffset - bytecodeStartOffset;
+      int opcode = classBuffer[currentOffset] & 0xFF;
+      int insnLength = getInsnLength(classBuffer, currentOffset, bytecodeOffset);
+      if (insnLength == 0) {
+        return false;
+      }
+      if (isExitOpcode(opcode)) {
+        exitOpcodes |= 1 << (opcode - Opcodes.IRETURN);
+        if (exitCount == exitOffsets.length) {
+          int[] newExitOffsets = new int[2 * exitCount];
+          System.arraycopy(exitOffsets, 0, newExitOffsets, 0, exitCount);
+          exitOffsets = newExitOffsets;
+        }
+        exitOffsets[exitCount++] = bytecodeOffset;
+      } else if (opcode == Opcodes.TABLESWITCH || opcode == Opcodes.LOOKUPSWITCH) {
+        switchFound = true;
+      }
+      currentOffset += insnLength;
+    }
+    hasSwitch = switchFound;
+    return currentOffset == bytecodeEndOffset;
+  }
+
+  /**
+   * Returns whether the bytecode contains an instruction with the given opcode. This method must be
+   * called after {@link #scanBytecode}.
+   *
+   * @param opcode an xRETURN or ATHROW opcode.
+   * @return whether the bytecode contains an instruction with the given opcode.
+   */
+  boolean hasExitInstruction(final int opcode) {
+    return (exitOpcodes & (1 << (opcode - Opcodes.IRETURN))) != 0;
+  }
+
+  /**
+   * Sets the code to insert at the beginning of the bytecode or before some xRETURN or ATHROW
+   * instructions. This code is padded with NOP instructions, if necessary, to preserve the
+   * alignment of the TABLESWITCH and LOOKUPSWITCH instructions.
+   *
+   * @param opcode an xRETURN or ATHROW opcode to set the code inserted before these instructions,
+   *     or -1 to set the code inserted at the beginning of the bytecode.
+   * @param code the code to insert. Must contain only straight line code (see {@link
+   *     #isStraightLineCode}).
+   */
+  void setInsertedCode(final int opcode, final ByteVector code) {
+    if (code.length == 0) {
+      return;
+    }
+    if (hasSwitch) {
+      while ((code.length & 3) != 0) {
+        code.putByte(Opcodes.NOP);
+      }
+    }
+    insertedCode[opcode == -1 ? 0 : opcode - Opcodes.IRETURN + 1] = code;
+  }
+
+  /**
+   * Returns a copy of the attributes of a method_info structure, with the code set with {@link
+   * #setInsertedCode} inserted in its Code attribute.
+   *
+   * @param attributesOffset the offset in 'classReader' of the attributes_count field of the
+   *     method_info structure containing the Code attribute.
+   * @param attributesLength the length in bytes of the attributes_count and attributes fields of
+   *     this method_info structure.
+   * @param maxStack the max_stack field of the copied Code attribute.
+   * @param maxLocals the max_locals field of the copied Code attribute.
+   * @param charBuffer the buffer used to read strings in the constant pool.
+   * @return the copied attributes, or {@literal null} if some bytecode offsets can't be updated
+   *     (because of a jump offset overflow, or because the Code attribute contains attributes other
+   *     than StackMapTable, LineNumberTable, LocalVariableTable and LocalVariableTypeTable).
+   */
+  ByteVector splice(
+      final int attributesOffset,
+      final int attributesLength,
+      final int maxStack,
+      final int maxLocals,
+      final char[] charBuffer) {
+    computeInsertionShifts();
+
+    // Copy the bytecode, with the inserted code and the updated jump offsets.
+    int codeLength = bytecodeEndOffset - bytecodeStartOffset;
+    ByteVector code = new ByteVector(getNewOffset(codeLength));
+    if (entryShift > 0) {
+      code.putByteArray(insertedCode[0].data, 0, entryShift);
+    }
+    int insertionIndex = 0;
+    int currentOffset = bytecodeStartOffset;
+    while (currentOffset < bytecodeEndOffset) {
+      int bytecodeOffset = currentOffset - bytecodeStartOffset;
+      int opcode = classBuffer[currentOffset] & 0xFF;
+      int insnLength = getInsnLength(classBuffer, currentOffset, bytecodeOffset);
+      if (insertionIndex < insertionCount && insertionOffsets[insertionIndex] == bytecodeOffset) {
+        ByteVector inserted = insertedCode[opcode - Opcodes.IRETURN + 1];
+        code.putByteArray(inserted.data, 0, inserted.length);
+        ++insertionIndex;
+      }
+      int newBytecodeOffset = code.length;
+      if ((opcode >= Opcodes.IFEQ && opcode <= Opcodes.JSR)
+          || opcode == Opcodes.IFNULL
+          || opcode == Opcodes.IFNONNULL) {
+        int newJumpOffset =
+            getNewOffset(bytecodeOffset + classReader.readShort(currentOffset + 1))
+                - newBytecodeOffset;
+        if (newJumpOffset != (short) newJumpOffset) {
+          return null;
+        }
+        code.put12(opcode, newJumpOffset);
+      } else if (opcode == Constants.GOTO_W || opcode == Constants.JSR_W) {
+        code.putByte(opcode)
+            .putInt(
+                getNewOffset(bytecodeOffset + classReader.readInt(currentOffset + 1))
+                    - newBytecodeOffset);
+      } else if (opcode == Opcodes.TABLESWITCH || opcode == Opcodes.LOOKUPSWITCH) {
+        // The inserted code sizes are multiples of 4, so the padding bytes are unchanged.
+        int offset = currentOffset + 4 - (bytecodeOffset & 3);
+        code.putByteArray(classBuffer, currentOffset, offset - currentOffset);
+        code.putInt(getNewOffset(bytecodeOffset + classReader.readInt(offset)) - newBytecodeOffset);
+        if (opcode == Opcodes.TABLESWITCH) {
+          int numTableEntries =
+              classReader.readInt(offset + 8) - classReader.readInt(offset + 4) + 1;
+          code.putByteArray(classBuffer, offset + 4, 8);
+          offset += 12;
+          while (numTableEntries-- > 0) {
+            code.putInt(
+                getNewOffset(bytecodeOffset + classReader.readInt(offset)) - newBytecodeOffset);
+            offset += 4;
+          }
+        } else {
+          int numSwitchCases = classReader.readInt(offset + 4);
+          code.putByteArray(classBuffer, offset + 4, 4);
+          offset += 8;
+          while (numSwitchCases-- > 0) {
+            code.putByteArray(classBuffer, offset, 4);
+            code.putInt(
+                getNewOffset(bytecodeOffset + classReader.readInt(offset + 4)) - newBytecodeOffset);
+            offset += 8;
+          }
+        }
+      } else {
+        code.putByteArray(classBuffer, currentOffset, insnLength);
+      }
+      currentOffset += insnLength;
+    }
+    if (code.length > 65535) {
+      return null;
+    }
+
+    // Copy the exception table, with the updated bytecode offsets.
+    int exceptionTableLength = classReader.readUnsignedShort(currentOffset);
+    ByteVector exceptionTable = new ByteVector(2 + 8 * exceptionTableLength);
+    exceptionTable.putShort(exceptionTableLength);
+    currentOffset += 2;
+    while (exceptionTableLength-- > 0) {
+      exceptionTable
+          .putShort(getNewOffset(classReader.readUnsignedShort(currentOffset)))
+          .putShort(getNewOffset(classReader.readUnsignedShort(currentOffset + 2)))
+          .putShort(getNewOffset(classReader.readUnsignedShort(currentOffset + 4)))
+          .putShort(classReader.readUnsignedShort(currentOffset + 6));
+      currentOffset += 8;
+    }
+
+    // Copy the Code attributes, with the updated bytecode offsets.
+    int codeAttributeEndOffset = codeOffset + classReader.readInt(codeOffset - 4);
+    int attributesCount = classReader.readUnsignedShort(currentOffset);
+    ByteVector attributes = new ByteVector(codeAttributeEndOffset - currentOffset);
+    currentOffset += 2;
+    attributes.putShort(attributesCount);
+    while (attributesCount-- > 0) {
+      String attributeName = classReader.readUTF8(currentOffset, charBuffer);
+      int attributeLength = classReader.readInt(currentOffset + 2);
+      int attributeOffset = currentOffset + 6;
+      if (Constants.STACK_MAP_TABLE.equals(attributeName)) {
+        ByteVector stackMapTable = copyStackMapTable(attributeOffset);
+        if (stackMapTable == null) {
+          return null;
+        }
+        attributes
+            .putShort(classReader.readUnsignedShort(currentOffset))
+            .putInt(stackMapTable.length)
+            .putByteArray(stackMapTable.data, 0, stackMapTable.length);
+      } else if (Constants.LINE_NUMBER_TABLE.equals(attributeName)) {
+        attributes.putByteArray(classBuffer, currentOffset, 8);
+        int lineNumberTableLength = classReader.readUnsignedShort(attributeOffset);
+        int offset = attributeOffset + 2;
+        while (lineNumberTableLength-- > 0) {
+          attributes
+              .putShort(getNewOffset(classReader.readUnsignedShort(offset)))
+              .putShort(classReader.readUnsignedShort(offset + 2));
+          offset += 4;
+        }
+      } else if (Constants.LOCAL_VARIABLE_TABLE.equals(attributeName)
+          || Constants.LOCAL_VARIABLE_TYPE_TABLE.equals(attributeName)) {
+        attributes.putByteArray(classBuffer, currentOffset, 8);
+        int localVariableTableLength = classReader.readUnsignedShort(attributeOffset);
+        int offset = attributeOffset + 2;
+        while (localVariableTableLength-- > 0) {
+          int startPc = classReader.readUnsignedShort(offset);
+          // Ranges starting at the beginning of the method (e.g. for the method parameters) must
+          // still start there, i.e. include the code inserted at the beginning of the method.
+          int newStartPc = startPc == 0 ? 0 : getNewOffset(startPc);
+          int newEndPc = getNewOffset(startPc + classReader.readUnsignedShort(offset + 2));
+          attributes
+              .putShort(newStartPc)
+              .putShort(newEndPc - newStartPc)
+              .putByteArray(classBuffer, offset + 4, 6);
+          offset += 10;
+        }
+      } else {
+        // Other attributes might contain bytecode offsets that we don't know how to update.
+        return null;
+      }
+      currentOffset = attributeOffset + attributeLength;
+    }
+
+    // Copy the method attributes, with the new Code attribute instead of the original one.
+    int codeAttributeOffset = codeOffset - 6;
+    int codeAttributeLength = 8 + code.length + exceptionTable.length + attributes.length;
+    ByteVector result =
+        new ByteVector(
+            attributesLength + codeAttributeLength + codeOffset - codeAttributeEndOffset);
+    result
+        .putByteArray(classBuffer, attributesOffset, codeAttributeOffset - attributesOffset)
+        .putShort(classReader.readUnsignedShort(codeAttributeOffset))
+        .putInt(codeAttributeLength)
+        .putShort(maxStack)
+        .putShort(maxLocals)
+        .putInt(code.length)
+        .putByteArray(code.data, 0, code.length)
+        .putByteArray(exceptionTable.data, 0, exceptionTable.length)
+        .putByteArray(attributes.data, 0, attributes.length)
+        .putByteArray(
+            classBuffer,
+            codeAttributeEndOffset,
+            attributesOffset + attributesLength - codeAttributeEndOffset);
+    return result;
+  }
+
+  /**
+   * Computes the {@link #insertionOffsets} and {@link #insertionShifts} arrays from the code set
+   * with {@link #setInsertedCode}.
+   */
+  private void computeInsertionShifts() {
+    entryShift = insertedCode[0] == null ? 0 : insertedCode[0].length;
+    insertionOffsets = new int[exitCount];
+    insertionShifts = new int[exitCount];
+    int shift = entryShift;
+    for (int i = 0; i < exitCount; ++i) {
+      int bytecodeOffset = exitOffsets[i];
+      int opcode = classBuffer[bytecodeStartOffset + bytecodeOffset] & 0xFF;
+      ByteVector inserted = insertedCode[opcode - Opcodes.IRETURN + 1];
+      if (inserted != null) {
+        shift += inserted.length;
+        insertionOffsets[insertionCount] = bytecodeOffset;
+        insertionShifts[insertionCount++] = shift;
+      }
+    }
+  }
+
+  /**
+   * Returns the new bytecode offset corresponding to the given original bytecode offset. If some
+   * code is inserted before the instruction at this offset, the returned offset is the offset of
+   * the inserted code (so that jumps to this instruction execute the inserted code).
+   *
+   * @param bytecodeOffset an offset in the original bytecode.
+   * @return the corresponding offset in the new bytecode.
+   */
+  private int getNewOffset(final int bytecodeOffset) {
+    int low = 0;
+    int high = insertionCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (insertionOffsets[middle] < bytecodeOffset) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return bytecodeOffset + (low == 0 ? entryShift : insertionShifts[low - 1]);
+  }
+
+  /**
+   * Returns a copy of a StackMapTable attribute, with the updated bytecode offsets.
+   *
+   * @param stackMapTableOffset the offset in 'classReader' of the StackMapTable attribute content,
+   *     excluding its attribute_name_index and attribute_length fields.
+   * @return the StackMapTable attribute content, or {@literal null} if it is malformed.
+   */
+  private ByteVector copyStackMapTable(final int stackMapTableOffset) {
+    int numberOfEntries = classReader.readUnsignedShort(stackMapTableOffset);
+    ByteVector stackMapTable =
+        new ByteVector(classReader.readInt(stackMapTableOffset - 4) + 2 * numberOfEntries);
+    stackMapTable.putShort(numberOfEntries);
+    int currentOffset = stackMapTableOffset + 2;
+    int bytecodeOffset = -1;
+    int newBytecodeOffset = -1;
+    while (numberOfEntries-- > 0) {
+      int frameType = classBuffer[currentOffset] & 0xFF;
+      int offsetDelta;
+      if (frameType < Frame.SAME_LOCALS_1_STACK_ITEM_FRAME) {
+        offsetDelta = frameType;
+        currentOffset += 1;
+      } else if (frameType < Frame.RESERVED) {
+        offsetDelta = frameType - Frame.SAME_LOCALS_1_STACK_ITEM_FRAME;
+        currentOffset += 1;
+      } else if (frameType >= Frame.SAME_LOCALS_1_STACK_ITEM_FRAME_EXTENDED) {
+        offsetDelta = classReader.readUnsignedShort(currentOffset + 1);
+        currentOffset += 3;
+      } else {
+        return null;
+      }
+      bytecodeOffset += offsetDelta + 1;
+      int newOffset = getNewOffset(bytecodeOffset);
+      int newOffsetDelta = newOffset - newBytecodeOffset - 1;
+      newBytecodeOffset = newOffset;
+      if (frameType < Frame.SAME_LOCALS_1_STACK_ITEM_FRAME) {
+        if (newOffsetDelta < Frame.SAME_LOCALS_1_STACK_ITEM_FRAME) {
+          stackMapTable.putByte(newOffsetDelta);
+        } else {
+          stackMapTable.putByte(Frame.SAME_FRAME_EXTENDED).putShort(newOffsetDelta);
+        }
+      } else if (frameType < Frame.RESERVED) {
+        if (newOffsetDelta < Frame.SAME_LOCALS_1_STACK_ITEM_FRAME) {
+          stackMapTable.putByte(Frame.SAME_LOCALS_1_STACK_ITEM_FRAME + newOffsetDelta);
+        } else {
+          stackMapTable
+              .putByte(Frame.SAME_LOCALS_1_STACK_ITEM_FRAME_EXTENDED)
+              .putShort(newOffsetDelta);
+        }
+        currentOffset = copyVerificationTypes(currentOffset, 1, stackMapTable);
+      } else {
+        stackMapTable.put12(frameType, newOffsetDelta);
+        if (frameType == Frame.SAME_LOCALS_1_STACK_ITEM_FRAME_EXTENDED) {
+          currentOffset = copyVerificationTypes(currentOffset, 1, stackMapTable);
+        } else if (frameType == Frame.FULL_FRAME) {
+          int numberOfLocals = classReader.readUnsignedShort(currentOffset);
+          stackMapTable.putShort(numberOfLocals);
+          currentOffset = copyVerificationTypes(currentOffset + 2, numberOfLocals, stackMapTable);
+          int numberOfStackItems = classReader.readUnsignedShort(currentOffset);
+          stackMapTable.putShort(numberOfStackItems);
+          currentOffset =
+              copyVerificationTypes(currentOffset + 2, numberOfStackItems, stackMapTable);
+        } else if (frameType > Frame.SAME_FRAME_EXTENDED) {
+          currentOffset =
+              copyVerificationTypes(
+                  currentOffset, frameType - Frame.SAME_FRAME_EXTENDED, stackMapTable);
+        }
+      }
+    }
+    return stackMapTable;
+  }
+
+  /**
+   * Copies some verification_type_info structures, with the updated bytecode offsets.
+   *
+   * @param verificationTypesOffset the offset in 'classReader' of the first structure to copy.
+   * @param count the number of structures to copy.
+   * @param output where the copied structures must be put.
+   * @return the end offset in 'classReader' of the copied structures.
+   */
+  private int copyVerificationTypes(
+      final int verificationTypesOffset, final int count, final ByteVector output) {
+    int currentOffset = verificationTypesOffset;
+    for (int i = 0; i < count; ++i) {
+      int tag = classBuffer[currentOffset++] & 0xFF;
+      output.putByte(tag);
+      if (tag == Frame.ITEM_OBJECT) {
+        output.putShort(classReader.readUnsignedShort(currentOffset));
+        currentOffset += 2;
+      } else if (tag == Frame.ITEM_UNINITIALIZED) {
+        output.putShort(getNewOffset(classReader.readUnsignedShort(currentOffset)));
+        currentOffset += 2;
+      }
+    }
+    return currentOffset;
+  }
+
+  /**
+   * Returns whether the given bytecode contains only straight line code, i.e. no jump, switch,
+   * xRETURN, ATHROW or ASM specific instructions.
+   *
+   * @param code some bytecode instructions.
+   * @return whether 'code' contains only straight line code.
+   */
+  static boolean isStraightLineCode(final ByteVector code) {
+    byte[] data = code.data;
+    int currentOffset = 0;
+    while (currentOffset < code.length) {
+      int opcode = data[currentOffset] & 0xFF;
+      if ((opcode >= Opcodes.IFEQ && opcode <= Opcodes.RETURN)
+          || opcode == Opcodes.ATHROW
+          || opcode >= Opcodes.IFNULL
+          || (opcode == Constants.WIDE && (data[currentOffset + 1] & 0xFF) == Opcodes.RET)) {
+        return false;
+      }
+      currentOffset += getInsnLength(data, currentOffset, currentOffset);
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether the given opcode is an xRETURN or ATHROW opcode.
+   *
+   * @param opcode an opcode.
+   * @return whether 'opcode' is an xRETURN or ATHROW opcode.
+   */
+  static boolean isExitOpcode(final int opcode) {
+    return (opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN) || opcode == Opcodes.ATHROW;
+  }
+
+  /**
+   * Returns the length of a bytecode instruction.
+   *
+   * @param code a buffer containing the instruction.
+   * @param offset the start offset of the instruction in 'code'.
+   * @param bytecodeOffset the bytecode offset of the instruction (used to compute the padding of
+   *     TABLESWITCH and LOOKUPSWITCH instructions).
+   * @return the length in bytes of the instruction, or 0 if this is not a standard instruction.
+   */
+  static int getInsnLength(final byte[] code, final int offset, final int bytecodeOffset) {
+    int opcode = code[offset] & 0xFF;
+    switch (opcode) {
+      case Opcodes.BIPUSH:
+      case Opcodes.LDC:
+      case Opcodes.ILOAD:
+      case Opcodes.LLOAD:
+      case Opcodes.FLOAD:
+      case Opcodes.DLOAD:
+      case Opcodes.ALOAD:
+      case Opcodes.ISTORE:
+      case Opcodes.LSTORE:
+      case Opcodes.FSTORE:
+      case Opcodes.DSTORE:
+      case Opcodes.ASTORE:
+      case Opcodes.RET:
+      case Opcodes.NEWARRAY:
+        return 2;
+      case Opcodes.SIPUSH:
+      case Constants.LDC_W:
+      case Constants.LDC2_W:
+      case Opcodes.IINC:
+      case Opcodes.GETSTATIC:
+      case Opcodes.PUTSTATIC:
+      case Opcodes.GETFIELD:
+      case Opcodes.PUTFIELD:
+      case Opcodes.INVOKEVIRTUAL:
+      case Opcodes.INVOKESPECIAL:
+      case Opcodes.INVOKESTATIC:
+      case Opcodes.NEW:
+      case Opcodes.ANEWARRAY:
+      case Opcodes.CHECKCAST:
+      case Opcodes.INSTANCEOF:
+      case Opcodes.IFNULL:
+      case Opcodes.IFNONNULL:
+        return 3;
+      case Opcodes.MULTIANEWARRAY:
+        return 4;
+      case Opcodes.INVOKEINTERFACE:
+      case Opcodes.INVOKEDYNAMIC:
+      case Constants.GOTO_W:
+      case Constants.JSR_W:
+        return 5;
+      case Constants.WIDE:
+        return (code[offset + 1] & 0xFF) == Opcodes.IINC ? 6 : 4;
+      case Opcodes.TABLESWITCH:
+        {
+          int tableOffset = offset + 4 - (bytecodeOffset & 3);
+          int numTableEntries = readInt(code, tableOffset + 8) - readInt(code, tableOffset + 4) + 1;
+          return tableOffset - offset + 12 + 4 * numTableEntries;
+        }
+      case Opcodes.LOOKUPSWITCH:
+        {
+          int tableOffset = offset + 4 - (bytecodeOffset & 3);
+          return tableOffset - offset + 8 + 8 * readInt(code, tableOffset + 4);
+        }
+      default:
+        if (opcode >= Opcodes.IFEQ && opcode <= Opcodes.JSR) {
+          return 3;
+        }
+        return opcode > Constants.JSR_W ? 0 : 1;
+    }
+  }
+
+  /**
+   * Reads a signed int value in the given buffer.
+   *
+   * @param code a buffer.
+   * @param offset the start offset of the value to be read in 'code'.
+   * @return the read value.
+   */
+  static int readInt(final byte[] code, final int offset) {
+    return ((code[offset] & 0xFF) << 24)
+        | ((code[offset + 1] & 0xFF) << 16)
+        | ((code[offset + 2] & 0xFF) << 8)
+        | (code[offset + 3] & 0xFF);
+  }
+}
@@ -40,11 +40,24 @@ final class Context {
 
   /**
    * The options used to parse this class. One or more of {@link ClassReader#SKIP_CODE}, {@link
-   * ClassReader#SKIP_DEBUG}, {@link ClassReader#SKIP_FRAMES}, {@link ClassReader#EXPAND_FRAMES} or
-   * {@link ClassReader#EXPAND_ASM_INSNS}.
+   * ClassReader#SKIP_DEBUG}, {@link ClassReader#SKIP_FRAMES}, {@link ClassReader#EXPAND_FRAMES},
+   * {@link ClassReader#SKIP_CODE_TYPE_ANNOTATIONS}, {@link ClassReader#SKIP_ANNOTATIONS}, {@link
+   * ClassReader#SKIP_TYPE_ANNOTATIONS} or {@link ClassReader#EXPAND_ASM_INSNS}.
    */
   int parsingOptions;
 
+  /** Whether {@link #parsingOptions} does not contain {@link ClassReader#SKIP_ANNOTATIONS}. */
+  boolean readAnnotations;
+
+  /** Whether {@link #parsingOptions} does not contain {@link ClassReader#SKIP_TYPE_ANNOTATIONS}. */
+  boolean readTypeAnnotations;
+
+  /**
+   * Whether {@link #parsingOptions} contains neither {@link ClassReader#SKIP_TYPE_ANNOTATIONS} nor
+   * {@link ClassReader#SKIP_CODE_TYPE_ANNOTATIONS}.
+   */
+  boolean readCodeTypeAnnotations;
+
   /** The buffer used to read strings in the constant pool. */
   char[] charBuffer;
 
@@ -78,6 +91,12 @@ final class Context {
   /** The target_path of the current type annotation target. */
   TypePath currentTypeAnnotationTargetPath;
 
+  /**
+   * The {@link TypePath} instances created so far, indexed by the hash code of their content modulo
+   * the array length. Lazily allocated.
+   */
+  TypePath[] typePaths;
+
   /** The start of each local variable range in the current local variable annotation. */
   Label[] currentLocalVariableAnnotationRangeStarts;
 
@@ -134,4 +153,19 @@ final class Context {
    * MethodVisitor#visitFrame}.
    */
   Object[] currentFrameStackTypes;
+
+  /**
+   * Sets {@link #parsingOptions}, and the flags derived from them.
+   *
+   * @param parsingOptions the options used to parse the class.
+   */
+  void setParsingOptions(final int parsingOptions) {
+    this.parsingOptions = parsingOptions;
+    this.readAnnotations = (parsingOptions & ClassReader.SKIP_ANNOTATIONS) == 0;
+    this.readTypeAnnotations = (parsingOptions & ClassReader.SKIP_TYPE_ANNOTATIONS) == 0;
+    this.readCodeTypeAnnotations =
+        (parsingOptions
+                & (ClassReader.SKIP_TYPE_ANNOTATIONS | ClassReader.SKIP_CODE_TYPE_ANNOTATIONS))
+            == 0;
+  }
 }
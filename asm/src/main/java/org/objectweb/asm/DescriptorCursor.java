@@ -0,0 +1,331 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm;
+
+/**
+ * A cursor over the argument and return types of a method descriptor. This class gives the sort,
+ * size and descriptor range of each type, directly from the method descriptor string, without
+ * creating any {@link Type} or substring. A cursor can be reused for several method descriptors,
+ * with {@link #reset}. A typical usage is:
+ *
+ * <pre>
+ * DescriptorCursor cursor = new DescriptorCursor();
+ * ...
+ * cursor.reset(methodDescriptor);
+ * while (cursor.nextArgument()) {
+ *   // use cursor.getSort(), cursor.getSize(), etc for the current argument type.
+ * }
+ * // use cursor.getSort(), cursor.getSize(), etc for the return type.
+ * </pre>
+ *
+ * @see Type#getArgumentTypes(String)
+ */
+public final class DescriptorCursor {
+
+  /** The method descriptor parsed by this cursor. */
+  private String descriptor;
+
+  /** The start index (inclusive) of the current type descriptor in {@link #descriptor}. */
+  private int beginOffset;
+
+  /** The end index (exclusive) of the current type descriptor in {@link #descriptor}. */
+  private int endOffset;
+
+  /** The number of dimensions of the current type, or 0 if it is not an array type. */
+  private int dimensions;
+
+  /**
+   * The sort of the element type of the current type, if it is an array type, or the sort of the
+   * current type otherwise. One of {@link Type#VOID} to {@link Type#OBJECT}, excluding {@link
+   * Type#ARRAY}.
+   */
+  private int elementSort;
+
+  /**
+   * The index of the current argument type, or -1 before the first argument, or the number of
+   * arguments if the cursor is on the return type.
+   */
+  private int argumentIndex;
+
+  /** The sum of the sizes of the argument types before the current one. */
+  private int previousArgumentsSize;
+
+  /** Whether the cursor is on the return type. */
+  private boolean isReturnType;
+
+  /**
+   * Constructs a new {@link DescriptorCursor}. The {@link #reset} method must be called before
+   * using it.
+   */
+  public DescriptorCursor() {
+    // Nothing to do.
+  }
+
+  /**
+   * Constructs a new {@link DescriptorCursor}, positioned before the first argument type of the
+   * given method descriptor.
+   *
+   * @param methodDescriptor a method descriptor.
+   */
+  public DescriptorCursor(final String methodDescriptor) {
+    reset(methodDescriptor);
+  }
+
+  /**
+   * Positions this cursor before the first argument type of the given method descriptor.
+   *
+   * @param methodDescriptor a method descriptor.
+   */
+  public void reset(final String methodDescriptor) {
+    this.descriptor = methodDescriptor;
+    // Skip the first character, which is always a '('.
+    this.beginOffset = 1;
+    this.endOffset = 1;
+    this.dimensions = 0;
+    this.elementSort = Type.VOID;
+    this.argumentIndex = -1;
+    this.previousArgumentsSize = 0;
+    this.isReturnType = false;
+  }
+
+  /**
+   * Moves this cursor to the next argument type or, if there is none, to the return type.
+   *
+   * @return true if the cursor has moved to an argument type, false if it is on the return type.
+   */
+  public boolean nextArgument() {
+    if (isReturnType) {
+      return false;
+    }
+    if (argumentIndex >= 0) {
+      previousArgumentsSize += getSize();
+    }
+    ++argumentIndex;
+    if (descriptor.charAt(endOffset) == ')') {
+      isReturnType = true;
+      parseType(endOffset + 1);
+      return false;
+    }
+    parseType(endOffset);
+    return true;
+  }
+
+  /**
+   * Parses the type descriptor starting at the given offset, and updates the fields of this cursor
+   * accordingly.
+   *
+   * @param offset the start index of a type descriptor in {@link #descriptor}.
+   */
+  private void parseType(final int offset) {
+    int currentOffset = offset;
+    while (descriptor.charAt(currentOffset) == '[') {
+      currentOffset++;
+    }
+    beginOffset = offset;
+    dimensions = currentOffset - offset;
+    switch (descriptor.charAt(currentOffset++)) {
+      case 'V':
+        elementSort = Type.VOID;
+        break;
+      case 'Z':
+        elementSort = Type.BOOLEAN;
+        break;
+      case 'C':
+        elementSort = Type.CHAR;
+        break;
+      case 'B':
+        elementSort = Type.BYTE;
+        break;
+      case 'S':
+        elementSort = Type.SHORT;
+        break;
+      case 'I':
+        elementSort = Type.INT;
+        break;
+      case 'F':
+        elementSort = Type.FLOAT;
+        break;
+      case 'J':
+        elementSort = Type.LONG;
+        break;
+      case 'D':
+        elementSort = Type.DOUBLE;
+        break;
+      case 'L':
+        elementSort = Type.OBJECT;
+        // Skip the type descriptor content.
+        currentOffset = Math.max(currentOffset, descriptor.indexOf(';', currentOffset) + 1);
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid descriptor: " + descriptor);
+    }
+    endOffset = currentOffset;
+  }
+
+  /**
+   * Returns the method descriptor parsed by this cursor.
+   *
+   * @return the method descriptor parsed by this cursor.
+   */
+  public String getDescriptor() {
+    return descriptor;
+  }
+
+  /**
+   * Returns whether this cursor is on the return type.
+   *
+   * @return whether this cursor is on the return type.
+   */
+  public boolean isReturnType() {
+    return isReturnType;
+  }
+
+  /**
+   * Returns the index of the current argument type.
+   *
+   * @return the index of the current argument type, or the number of argument types if this cursor
+   *     is on the return type.
+   */
+  public int getArgumentIndex() {
+    return argumentIndex;
+  }
+
+  /**
+   * Returns the sum of the sizes of the argument types before the current one. This is the index of
+   * the local variable containing the current argument, in a static method.
+   *
+   * @return the sum of the sizes of the argument types before the current one (or of all the
+   *     argument types if this cursor is on the return type).
+   */
+  public int getPreviousArgumentsSize() {
+    return previousArgumentsSize;
+  }
+
+  /**
+   * Returns the sort of the current type.
+   *
+   * @return {@link Type#VOID}, {@link Type#BOOLEAN}, {@link Type#CHAR}, {@link Type#BYTE}, {@link
+   *     Type#SHORT}, {@link Type#INT}, {@link Type#FLOAT}, {@link Type#LONG}, {@link Type#DOUBLE},
+   *     {@link Type#ARRAY} or {@link Type#OBJECT}.
+   */
+  public int getSort() {
+    return dimensions > 0 ? Type.ARRAY : elementSort;
+  }
+
+  /**
+   * Returns the sort of the element type of the current type, if it is an array type, or the sort
+   * of the current type otherwise.
+   *
+   * @return {@link Type#VOID}, {@link Type#BOOLEAN}, {@link Type#CHAR}, {@link Type#BYTE}, {@link
+   *     Type#SHORT}, {@link Type#INT}, {@link Type#FLOAT}, {@link Type#LONG}, {@link Type#DOUBLE}
+   *     or {@link Type#OBJECT}.
+   */
+  public int getElementSort() {
+    return elementSort;
+  }
+
+  /**
+   * Returns the number of dimensions of the current type.
+   *
+   * @return the number of dimensions of the current type, or 0 if it is not an array type.
+   */
+  public int getDimensions() {
+    return dimensions;
+  }
+
+  /**
+   * Returns the size of values of the current type.
+   *
+   * @return the size of values of the current type, i.e., 2 for {@code long} and {@code double}, 0
+   *     for {@code void} and 1 otherwise.
+   */
+  public int getSize() {
+    if (dimensions > 0) {
+      return 1;
+    }
+    switch (elementSort) {
+      case Type.VOID:
+        return 0;
+      case Type.LONG:
+      case Type.DOUBLE:
+        return 2;
+      default:
+        return 1;
+    }
+  }
+
+  /**
+   * Returns the start index of the current type descriptor in {@link #getDescriptor()}.
+   *
+   * @return the start index (inclusive) of the current type descriptor in {@link #getDescriptor()}.
+   */
+  public int getBeginOffset() {
+    return beginOffset;
+  }
+
+  /**
+   * Returns the end index of the current type descriptor in {@link #getDescriptor()}.
+   *
+   * @return the end index (exclusive) of the current type descriptor in {@link #getDescriptor()}.
+   */
+  public int getEndOffset() {
+    return endOffset;
+  }
+
+  /**
+   * Returns the start index of the internal name of the element type of the current type, in {@link
+   * #getDescriptor()}. This method must only be used if the element sort is {@link Type#OBJECT}.
+   *
+   * @return the start index (inclusive) of the internal name of the element type of the current
+   *     type (i.e. of 'java/lang/String' for 'Ljava/lang/String;' or '[[Ljava/lang/String;').
+   */
+  public int getInternalNameBeginOffset() {
+    return beginOffset + dimensions + 1;
+  }
+
+  /**
+   * Returns the end index of the internal name of the element type of the current type, in {@link
+   * #getDescriptor()}. This method must only be used if the element sort is {@link Type#OBJECT}.
+   *
+   * @return the end index (exclusive) of the internal name of the element type of the current type
+   *     (i.e. of 'java/lang/String' for 'Ljava/lang/String;' or '[[Ljava/lang/String;').
+   */
+  public int getInternalNameEndOffset() {
+    return endOffset - 1;
+  }
+
+  /**
+   * Returns the {@link Type} corresponding to the current type. Unlike the other methods of this
+   * class, this method allocates a new object for object and array types.
+   *
+   * @return the {@link Type} corresponding to the current type.
+   */
+  public Type getType() {
+    return Type.getTypeInternal(descriptor, beginOffset, endOffset);
+  }
+}
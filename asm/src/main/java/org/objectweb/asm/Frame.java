@@ -310,6 +310,27 @@ class Frame {
     return REFERENCE_KIND | symbolTable.addType(internalName);
   }
 
+  /**
+   * Returns the abstract type corresponding to the given one, after some instructions have been
+   * moved to new bytecode offsets.
+   *
+   * @param symbolTable the type table to use to lookup and store type {@link Symbol}.
+   * @param abstractType an abstract type.
+   * @param newOffsets the new bytecode offset corresponding to each old bytecode offset.
+   * @return an UNINITIALIZED_KIND abstract type with the new offset of its NEW instruction, if
+   *     abstractType is an UNINITIALIZED_KIND abstract type. Otherwise returns abstractType.
+   */
+  static int getMovedAbstractType(
+      final SymbolTable symbolTable, final int abstractType, final int[] newOffsets) {
+    if ((abstractType & (DIM_MASK | KIND_MASK)) != UNINITIALIZED_KIND) {
+      return abstractType;
+    }
+    Symbol uninitializedType = symbolTable.getType(abstractType & VALUE_MASK);
+    return UNINITIALIZED_KIND
+        | symbolTable.addUninitializedType(
+            uninitializedType.value, newOffsets[(int) uninitializedType.data]);
+  }
+
   /**
    * Returns the abstract type corresponding to the given type descriptor.
    *
@@ -31,19 +31,20 @@ package org.objectweb.asm;
  * A visitor to visit a Java method. The methods of this class must be called in the following
  * order: ( {@code visitParameter} )* [ {@code visitAnnotationDefault} ] ( {@code visitAnnotation} |
  * {@code visitAnnotableParameterCount} | {@code visitParameterAnnotation} | {@code
- * visitTypeAnnotation} | {@code visitAttribute} )* [ {@code visitCode} ( {@code visitFrame} |
- * {@code visit<i>X</i>Insn} | {@code visitLabel} | {@code visitInsnAnnotation} | {@code
- * visitTryCatchBlock} | {@code visitTryCatchAnnotation} | {@code visitLocalVariable} | {@code
- * visitLocalVariableAnnotation} | {@code visitLineNumber} | {@code visitAttribute} )* {@code
- * visitMaxs} ] {@code visitEnd}. In addition, the {@code visit<i>X</i>Insn} and {@code visitLabel}
- * methods must be called in the sequential order of the bytecode instructions of the visited code,
- * {@code visitInsnAnnotation} must be called <i>after</i> the annotated instruction, {@code
- * visitTryCatchBlock} must be called <i>before</i> the labels passed as arguments have been
- * visited, {@code visitTryCatchBlockAnnotation} must be called <i>after</i> the corresponding try
- * catch block has been visited, and the {@code visitLocalVariable}, {@code
- * visitLocalVariableAnnotation} and {@code visitLineNumber} methods must be called <i>after</i> the
- * labels passed as arguments have been visited. Finally, the {@code visitAttribute} method must be
- * called before {@code visitCode} for non-code attributes, and after it for code attributes.
+ * visitTypeAnnotation} | {@code visitAttribute} )* [ {@code visitCode} [ {@code visitCodeCounts} ]
+ * ( {@code visitFrame} | {@code visit<i>X</i>Insn} | {@code visitLabel} | {@code
+ * visitInsnAnnotation} | {@code visitTryCatchBlock} | {@code visitTryCatchAnnotation} | {@code
+ * visitLocalVariable} | {@code visitLocalVariableAnnotation} | {@code visitLineNumber} | {@code
+ * visitAttribute} )* {@code visitMaxs} ] {@code visitEnd}. In addition, the {@code
+ * visit<i>X</i>Insn} and {@code visitLabel} methods must be called in the sequential order of the
+ * bytecode instructions of the visited code, {@code visitInsnAnnotation} must be called
+ * <i>after</i> the annotated instruction, {@code visitTryCatchBlock} must be called <i>before</i>
+ * the labels passed as arguments have been visited, {@code visitTryCatchBlockAnnotation} must be
+ * called <i>after</i> the corresponding try catch block has been visited, and the {@code
+ * visitLocalVariable}, {@code visitLocalVariableAnnotation} and {@code visitLineNumber} methods
+ * must be called <i>after</i> the labels passed as arguments have been visited. Finally, the {@code
+ * visitAttribute} method must be called before {@code visitCode} for non-code attributes, and after
+ * it for code attributes.
  *
  * @author Eric Bruneton
  */
@@ -244,6 +245,21 @@ public abstract class MethodVisitor {
     }
   }
 
+  /**
+   * Visits the number of try catch blocks and local variables of the method's code. This optional
+   * method can be called just after {@link #visitCode}, before any other code element is visited.
+   * The given values are only size hints, which can be used to pre-allocate the data structures
+   * storing the corresponding elements. They must not be relied upon for anything else.
+   *
+   * @param tryCatchBlockCount the number of {@link #visitTryCatchBlock} calls that follow.
+   * @param localVariableCount the number of {@link #visitLocalVariable} calls that follow.
+   */
+  public void visitCodeCounts(final int tryCatchBlockCount, final int localVariableCount) {
+    if (mv != null) {
+      mv.visitCodeCounts(tryCatchBlockCount, localVariableCount);
+    }
+  }
+
   /**
    * Visits the current state of the local variables and operand stack elements. This method must(*)
    * be called <i>just before</i> any instruction <b>i</b> that follows an unconditional branch
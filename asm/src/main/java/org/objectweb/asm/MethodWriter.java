@@ -69,222 +69,8 @@ final class MethodWriter extends MethodVisitor {
    */
   static final int COMPUTE_ALL_FRAMES = 4;
 
-  /** Indicates that {@link #STACK_SIZE_DELTA} is not applicable (not constant or never used). */
-  private static final int NA = 0;
-
-  /**
-   * The stack size variation corresponding to each JVM opcode. The stack size variation for opcode
-   * 'o' is given by the array element at index 'o'.
-   *
-   * @see <a href="https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html">JVMS 6</a>
-   */
-  private static final int[] STACK_SIZE_DELTA = {
-    0, // nop = 0 (0x0)
-    1, // aconst_null = 1 (0x1)
-    1, // iconst_m1 = 2 (0x2)
-    1, // iconst_0 = 3 (0x3)
-    1, // iconst_1 = 4 (0x4)
-    1, // iconst_2 = 5 (0x5)
-    1, // iconst_3 = 6 (0x6)
-    1, // iconst_4 = 7 (0x7)
-    1, // iconst_5 = 8 (0x8)
-    2, // lconst_0 = 9 (0x9)
-    2, // lconst_1 = 10 (0xa)
-    1, // fconst_0 = 11 (0xb)
-    1, // fconst_1 = 12 (0xc)
-    1, // fconst_2 = 13 (0xd)
-    2, // dconst_0 = 14 (0xe)
-    2, // dconst_1 = 15 (0xf)
-    1, // bipush = 16 (0x10)
-    1, // sipush = 17 (0x11)
-    1, // ldc = 18 (0x12)
-    NA, // ldc_w = 19 (0x13)
-    NA, // ldc2_w = 20 (0x14)
-    1, // iload = 21 (0x15)
-    2, // lload = 22 (0x16)
-    1, // fload = 23 (0x17)
-    2, // dload = 24 (0x18)
-    1, // aload = 25 (0x19)
-    NA, // iload_0 = 26 (0x1a)
-    NA, // iload_1 = 27 (0x1b)
-    NA, // iload_2 = 28 (0x1c)
-    NA, // iload_3 = 29 (0x1d)
-    NA, // lload_0 = 30 (0x1e)
-    NA, // lload_1 = 31 (0x1f)
-    NA, // lload_2 = 32 (0x20)
-    NA, // lload_3 = 33 (0x21)
-    NA, // fload_0 = 34 (0x22)
-    NA, // fload_1 = 35 (0x23)
-    NA, // fload_2 = 36 (0x24)
-    NA, // fload_3 = 37 (0x25)
-    NA, // dload_0 = 38 (0x26)
-    NA, // dload_1 = 39 (0x27)
-    NA, // dload_2 = 40 (0x28)
-    NA, // dload_3 = 41 (0x29)
-    NA, // aload_0 = 42 (0x2a)
-    NA, // aload_1 = 43 (0x2b)
-    NA, // aload_2 = 44 (0x2c)
-    NA, // aload_3 = 45 (0x2d)
-    -1, // iaload = 46 (0x2e)
-    0, // laload = 47 (0x2f)
-    -1, // faload = 48 (0x30)
-    0, // daload = 49 (0x31)
-    -1, // aaload = 50 (0x32)
-    -1, // baload = 51 (0x33)
-    -1, // caload = 52 (0x34)
-    -1, // saload = 53 (0x35)
-    -1, // istore = 54 (0x36)
-    -2, // lstore = 55 (0x37)
-    -1, // fstore = 56 (0x38)
-    -2, // dstore = 57 (0x39)
-    -1, // astore = 58 (0x3a)
-    NA, // istore_0 = 59 (0x3b)
-    NA, // istore_1 = 60 (0x3c)
-    NA, // istore_2 = 61 (0x3d)
-    NA, // istore_3 = 62 (0x3e)
-    NA, // lstore_0 = 63 (0x3f)
-    NA, // lstore_1 = 64 (0x40)
-    NA, // lstore_2 = 65 (0x41)
-    NA, // lstore_3 = 66 (0x42)
-    NA, // fstore_0 = 67 (0x43)
-    NA, // fstore_1 = 68 (0x44)
-    NA, // fstore_2 = 69 (0x45)
-    NA, // fstore_3 = 70 (0x46)
-    NA, // dstore_0 = 71 (0x47)
-    NA, // dstore_1 = 72 (0x48)
-    NA, // dstore_2 = 73 (0x49)
-    NA, // dstore_3 = 74 (0x4a)
-    NA, // astore_0 = 75 (0x4b)
-    NA, // astore_1 = 76 (0x4c)
-    NA, // astore_2 = 77 (0x4d)
-    NA, // astore_3 = 78 (0x4e)
-    -3, // iastore = 79 (0x4f)
-    -4, // lastore = 80 (0x50)
-    -3, // fastore = 81 (0x51)
-    -4, // dastore = 82 (0x52)
-    -3, // aastore = 83 (0x53)
-    -3, // bastore = 84 (0x54)
-    -3, // castore = 85 (0x55)
-    -3, // sastore = 86 (0x56)
-    -1, // pop = 87 (0x57)
-    -2, // pop2 = 88 (0x58)
-    1, // dup = 89 (0x59)
-    1, // dup_x1 = 90 (0x5a)
-    1, // dup_x2 = 91 (0x5b)
-    2, // dup2 = 92 (0x5c)
-    2, // dup2_x1 = 93 (0x5d)
-    2, // dup2_x2 = 94 (0x5e)
-    0, // swap = 95 (0x5f)
-    -1, // iadd = 96 (0x60)
-    -2, // ladd = 97 (0x61)
-    -1, // fadd = 98 (0x62)
-    -2, // dadd = 99 (0x63)
-    -1, // isub = 100 (0x64)
-    -2, // lsub = 101 (0x65)
-    -1, // fsub = 102 (0x66)
-    -2, // dsub = 103 (0x67)
-    -1, // imul = 104 (0x68)
-    -2, // lmul = 105 (0x69)
-    -1, // fmul = 106 (0x6a)
-    -2, // dmul = 107 (0x6b)
-    -1, // idiv = 108 (0x6c)
-    -2, // ldiv = 109 (0x6d)
-    -1, // fdiv = 110 (0x6e)
-    -2, // ddiv = 111 (0x6f)
-    -1, // irem = 112 (0x70)
-    -2, // lrem = 113 (0x71)
-    -1, // frem = 114 (0x72)
-    -2, // drem = 115 (0x73)
-    0, // ineg = 116 (0x74)
-    0, // lneg = 117 (0x75)
-    0, // fneg = 118 (0x76)
-    0, // dneg = 119 (0x77)
-    -1, // ishl = 120 (0x78)
-    -1, // lshl = 121 (0x79)
-    -1, // ishr = 122 (0x7a)
-    -1, // lshr = 123 (0x7b)
-    -1, // iushr = 124 (0x7c)
-    -1, // lushr = 125 (0x7d)
-    -1, // iand = 126 (0x7e)
-    -2, // land = 127 (0x7f)
-    -1, // ior = 128 (0x80)
-    -2, // lor = 129 (0x81)
-    -1, // ixor = 130 (0x82)
-    -2, // lxor = 131 (0x83)
-    0, // iinc = 132 (0x84)
-    1, // i2l = 133 (0x85)
-    0, // i2f = 134 (0x86)
-    1, // i2d = 135 (0x87)
-    -1, // l2i = 136 (0x88)
-    -1, // l2f = 137 (0x89)
-    0, // l2d = 138 (0x8a)
-    0, // f2i = 139 (0x8b)
-    1, // f2l = 140 (0x8c)
-    1, // f2d = 141 (0x8d)
-    -1, // d2i = 142 (0x8e)
-    0, // d2l = 143 (0x8f)
-    -1, // d2f = 144 (0x90)
-    0, // i2b = 145 (0x91)
-    0, // i2c = 146 (0x92)
-    0, // i2s = 147 (0x93)
-    -3, // lcmp = 148 (0x94)
-    -1, // fcmpl = 149 (0x95)
-    -1, // fcmpg = 150 (0x96)
-    -3, // dcmpl = 151 (0x97)
-    -3, // dcmpg = 152 (0x98)
-    -1, // ifeq = 153 (0x99)
-    -1, // ifne = 154 (0x9a)
-    -1, // iflt = 155 (0x9b)
-    -1, // ifge = 156 (0x9c)
-    -1, // ifgt = 157 (0x9d)
-    -1, // ifle = 158 (0x9e)
-    -2, // if_icmpeq = 159 (0x9f)
-    -2, // if_icmpne = 160 (0xa0)
-    -2, // if_icmplt = 161 (0xa1)
-    -2, // if_icmpge = 162 (0xa2)
-    -2, // if_icmpgt = 163 (0xa3)
-    -2, // if_icmple = 164 (0xa4)
-    -2, // if_acmpeq = 165 (0xa5)
-    -2, // if_acmpne = 166 (0xa6)
-    0, // goto = 167 (0xa7)
-    1, // jsr = 168 (0xa8)
-    0, // ret = 169 (0xa9)
-    -1, // tableswitch = 170 (0xaa)
-    -1, // lookupswitch = 171 (0xab)
-    -1, // ireturn = 172 (0xac)
-    -2, // lreturn = 173 (0xad)
-    -1, // freturn = 174 (0xae)
-    -2, // dreturn = 175 (0xaf)
-    -1, // areturn = 176 (0xb0)
-    0, // return = 177 (0xb1)
-    NA, // getstatic = 178 (0xb2)
-    NA, // putstatic = 179 (0xb3)
-    NA, // getfield = 180 (0xb4)
-    NA, // putfield = 181 (0xb5)
-    NA, // invokevirtual = 182 (0xb6)
-    NA, // invokespecial = 183 (0xb7)
-    NA, // invokestatic = 184 (0xb8)
-    NA, // invokeinterface = 185 (0xb9)
-    NA, // invokedynamic = 186 (0xba)
-    1, // new = 187 (0xbb)
-    0, // newarray = 188 (0xbc)
-    0, // anewarray = 189 (0xbd)
-    0, // arraylength = 190 (0xbe)
-    NA, // athrow = 191 (0xbf)
-    0, // checkcast = 192 (0xc0)
-    0, // instanceof = 193 (0xc1)
-    -1, // monitorenter = 194 (0xc2)
-    -1, // monitorexit = 195 (0xc3)
-    NA, // wide = 196 (0xc4)
-    NA, // multianewarray = 197 (0xc5)
-    -1, // ifnull = 198 (0xc6)
-    -1, // ifnonnull = 199 (0xc7)
-    NA, // goto_w = 200 (0xc8)
-    NA // jsr_w = 201 (0xc9)
-  };
-
   /** Where the constants used in this MethodWriter must be stored. */
-  private final SymbolTable symbolTable;
+  private SymbolTable symbolTable;
 
   // Note: fields are ordered as in the method_info structure, and those related to attributes are
   // ordered as in Section 4.7 of the JVMS.
@@ -471,6 +257,24 @@ final class MethodWriter extends MethodVisitor {
    */
   private final int compute;
 
+  /**
+   * Whether forward jump instructions must use 4 bytes offsets. See {@link
+   * ClassWriter#WIDE_FORWARD_JUMPS}.
+   */
+  private final boolean wideForwardJumps;
+
+  /**
+   * Whether the StackMapTable must only contain the required frames, with their most compact
+   * encoding. See {@link ClassWriter#COMPACT_FRAMES}.
+   */
+  private final boolean compactFrames;
+
+  /**
+   * Whether unreachable code must be removed when computing all the frames. See {@link
+   * ClassWriter#REMOVE_DEAD_CODE}.
+   */
+  private final boolean removeDeadCode;
+
   /**
    * The first basic block of the method. The next ones (in bytecode offset order) can be accessed
    * with the {@link Label#nextBasicBlock} field.
@@ -540,9 +344,24 @@ final class MethodWriter extends MethodVisitor {
    */
   private int[] currentFrame;
 
+  /**
+   * The stack map frames visited so far, when {@link #compactFrames} is set or when unreachable
+   * code is removed, in the same format as {@link #currentFrame}. The first one is the implicit
+   * first frame. These frames are only compressed and written in {@link #stackMapTableEntries} at
+   * the end of the method, in {@link #putDeferredFrames()}, once it is known which ones are
+   * required and what their final bytecode offsets are.
+   */
+  private int[][] deferredFrames;
+
+  /** The number of valid elements in {@link #deferredFrames}. */
+  private int deferredFrameCount;
+
   /** Whether this method contains subroutines. */
   private boolean hasSubroutines;
 
+  /** Whether this method contains TABLESWITCH or LOOKUPSWITCH instructions. */
+  private boolean hasSwitchInstructions;
+
   // -----------------------------------------------------------------------------------------------
   // Other miscellaneous status fields
   // -----------------------------------------------------------------------------------------------
@@ -571,6 +390,26 @@ final class MethodWriter extends MethodVisitor {
    */
   private int sourceLength;
 
+  /**
+   * The offset in bytes in {@link SymbolTable#getSource} from which the content of the Code
+   * attribute of this method must be copied, or 0. This content excludes the attribute_name_index
+   * and attribute_length fields of the Code attribute.
+   */
+  private int codeSourceOffset;
+
+  /**
+   * The length in bytes in {@link SymbolTable#getSource} which must be copied to get the content of
+   * the Code attribute of this method, excluding its attribute_name_index and attribute_length
+   * fields.
+   */
+  private int codeSourceLength;
+
+  /**
+   * The method_info for this method (excluding its first 6 bytes), when it is copied from {@link
+   * SymbolTable#getSource} with some code inserted by a {@link CodeInserter}, or {@literal null}.
+   */
+  private ByteVector patchedAttributes;
+
   // -----------------------------------------------------------------------------------------------
   // Constructor and accessors
   // -----------------------------------------------------------------------------------------------
@@ -585,6 +424,9 @@ final class MethodWriter extends MethodVisitor {
    * @param signature the method's signature. May be {@literal null}.
    * @param exceptions the internal names of the method's exceptions. May be {@literal null}.
    * @param compute indicates what must be computed (see #compute).
+   * @param wideForwardJumps whether forward jump instructions must use 4 bytes offsets.
+   * @param compactFrames whether the StackMapTable must only contain the required frames.
+   * @param removeDeadCode whether unreachable code must be removed when computing all the frames.
    */
   MethodWriter(
       final SymbolTable symbolTable,
@@ -593,7 +435,10 @@ final class MethodWriter extends MethodVisitor {
       final String descriptor,
       final String signature,
       final String[] exceptions,
-      final int compute) {
+      final int compute,
+      final boolean wideForwardJumps,
+      final boolean compactFrames,
+      final boolean removeDeadCode) {
     super(/* latest api = */ Opcodes.ASM9);
     this.symbolTable = symbolTable;
     this.accessFlags = "<init>".equals(name) ? access | Constants.ACC_CONSTRUCTOR : access;
@@ -613,6 +458,9 @@ final class MethodWriter extends MethodVisitor {
       this.exceptionIndexTable = null;
     }
     this.compute = compute;
+    this.wideForwardJumps = wideForwardJumps;
+    this.compactFrames = compactFrames;
+    this.removeDeadCode = removeDeadCode;
     if (compute != COMPUTE_NOTHING) {
       // Update maxLocals and currentLocals.
       int argumentsSize = Type.getArgumentsAndReturnSizes(descriptor) >> 2;
@@ -635,6 +483,46 @@ final class MethodWriter extends MethodVisitor {
     return hasAsmInstructions;
   }
 
+  /**
+   * Sets the SymbolTable of this MethodWriter and of its annotations. The constant pool and
+   * bootstrap methods of the new SymbolTable must contain all the symbols used in this method, at
+   * the same indices (see {@link ClassWriter#mergeMethods}).
+   *
+   * @param symbolTable where the constants used in this MethodWriter must be stored.
+   */
+  void setSymbolTable(final SymbolTable symbolTable) {
+    this.symbolTable = symbolTable;
+    setSymbolTable(lastCodeRuntimeVisibleTypeAnnotation, symbolTable);
+    setSymbolTable(lastCodeRuntimeInvisibleTypeAnnotation, symbolTable);
+    setSymbolTable(lastRuntimeVisibleAnnotation, symbolTable);
+    setSymbolTable(lastRuntimeInvisibleAnnotation, symbolTable);
+    setSymbolTable(lastRuntimeVisibleTypeAnnotation, symbolTable);
+    setSymbolTable(lastRuntimeInvisibleTypeAnnotation, symbolTable);
+    if (lastRuntimeVisibleParameterAnnotations != null) {
+      for (AnnotationWriter annotationWriter : lastRuntimeVisibleParameterAnnotations) {
+        setSymbolTable(annotationWriter, symbolTable);
+      }
+    }
+    if (lastRuntimeInvisibleParameterAnnotations != null) {
+      for (AnnotationWriter annotationWriter : lastRuntimeInvisibleParameterAnnotations) {
+        setSymbolTable(annotationWriter, symbolTable);
+      }
+    }
+  }
+
+  /**
+   * Sets the SymbolTable of the given annotation list, if not null.
+   *
+   * @param lastAnnotation the last element of an annotation list, or {@literal null}.
+   * @param symbolTable where the constants used in the annotations must be stored.
+   */
+  private static void setSymbolTable(
+      final AnnotationWriter lastAnnotation, final SymbolTable symbolTable) {
+    if (lastAnnotation != null) {
+      lastAnnotation.setSymbolTable(symbolTable);
+    }
+  }
+
   // -----------------------------------------------------------------------------------------------
   // Implementation of the MethodVisitor abstract class
   // -----------------------------------------------------------------------------------------------
@@ -761,11 +649,7 @@ final class MethodWriter extends MethodVisitor {
       }
     } else if (type == Opcodes.F_NEW) {
       if (previousFrame == null) {
-        int argumentsSize = Type.getArgumentsAndReturnSizes(descriptor) >> 2;
-        Frame implicitFirstFrame = new Frame(new Label());
-        implicitFirstFrame.setInputFrameFromDescriptor(
-            symbolTable, accessFlags, descriptor, argumentsSize);
-        implicitFirstFrame.accept(this);
+        visitImplicitFirstFrame();
       }
       currentLocals = numLocal;
       int frameIndex = visitFrameStart(code.length, numLocal, numStack);
@@ -780,67 +664,77 @@ final class MethodWriter extends MethodVisitor {
       if (symbolTable.getMajorVersion() < Opcodes.V1_6) {
         throw new IllegalArgumentException("Class versions V1_5 or less must use F_NEW frames.");
       }
-      int offsetDelta;
-      if (stackMapTableEntries == null) {
-        stackMapTableEntries = new ByteVector();
-        offsetDelta = code.length;
+      if (compactFrames) {
+        // Expand the frame, so that it can be compressed again in putDeferredFrames(), relatively
+        // to another previous frame if some frames are removed.
+        visitCompressedFrame(type, numLocal, local, numStack, stack);
       } else {
-        offsetDelta = code.length - previousFrameOffset - 1;
-        if (offsetDelta < 0) {
-          if (type == Opcodes.F_SAME) {
-            return;
-          } else {
-            throw new IllegalStateException();
+        int offsetDelta;
+        if (stackMapTableEntries == null) {
+          stackMapTableEntries = new ByteVector();
+          offsetDelta = code.length;
+        } else {
+          offsetDelta = code.length - previousFrameOffset - 1;
+          if (offsetDelta < 0) {
+            if (type == Opcodes.F_SAME) {
+              return;
+            } else {
+              throw new IllegalStateException();
+            }
           }
         }
-      }
 
-      switch (type) {
-        case Opcodes.F_FULL:
-          currentLocals = numLocal;
-          stackMapTableEntries.putByte(Frame.FULL_FRAME).putShort(offsetDelta).putShort(numLocal);
-          for (int i = 0; i < numLocal; ++i) {
-            putFrameType(local[i]);
-          }
-          stackMapTableEntries.putShort(numStack);
-          for (int i = 0; i < numStack; ++i) {
-            putFrameType(stack[i]);
-          }
-          break;
-        case Opcodes.F_APPEND:
-          currentLocals += numLocal;
-          stackMapTableEntries.putByte(Frame.SAME_FRAME_EXTENDED + numLocal).putShort(offsetDelta);
-          for (int i = 0; i < numLocal; ++i) {
-            putFrameType(local[i]);
-          }
-          break;
-        case Opcodes.F_CHOP:
-          currentLocals -= numLocal;
-          stackMapTableEntries.putByte(Frame.SAME_FRAME_EXTENDED - numLocal).putShort(offsetDelta);
-          break;
-        case Opcodes.F_SAME:
-          if (offsetDelta < 64) {
-            stackMapTableEntries.putByte(offsetDelta);
-          } else {
-            stackMapTableEntries.putByte(Frame.SAME_FRAME_EXTENDED).putShort(offsetDelta);
-          }
-          break;
-        case Opcodes.F_SAME1:
-          if (offsetDelta < 64) {
-            stackMapTableEntries.putByte(Frame.SAME_LOCALS_1_STACK_ITEM_FRAME + offsetDelta);
-          } else {
+        switch (type) {
+          case Opcodes.F_FULL:
+            currentLocals = numLocal;
+            stackMapTableEntries.putByte(Frame.FULL_FRAME).putShort(offsetDelta).putShort(numLocal);
+            for (int i = 0; i < numLocal; ++i) {
+              putFrameType(local[i]);
+            }
+            stackMapTableEntries.putShort(numStack);
+            for (int i = 0; i < numStack; ++i) {
+              putFrameType(stack[i]);
+            }
+            break;
+          case Opcodes.F_APPEND:
+            currentLocals += numLocal;
             stackMapTableEntries
-                .putByte(Frame.SAME_LOCALS_1_STACK_ITEM_FRAME_EXTENDED)
+                .putByte(Frame.SAME_FRAME_EXTENDED + numLocal)
                 .putShort(offsetDelta);
-          }
-          putFrameType(stack[0]);
-          break;
-        default:
-          throw new IllegalArgumentException();
-      }
+            for (int i = 0; i < numLocal; ++i) {
+              putFrameType(local[i]);
+            }
+            break;
+          case Opcodes.F_CHOP:
+            currentLocals -= numLocal;
+            stackMapTableEntries
+                .putByte(Frame.SAME_FRAME_EXTENDED - numLocal)
+                .putShort(offsetDelta);
+            break;
+          case Opcodes.F_SAME:
+            if (offsetDelta < 64) {
+              stackMapTableEntries.putByte(offsetDelta);
+            } else {
+              stackMapTableEntries.putByte(Frame.SAME_FRAME_EXTENDED).putShort(offsetDelta);
+            }
+            break;
+          case Opcodes.F_SAME1:
+            if (offsetDelta < 64) {
+              stackMapTableEntries.putByte(Frame.SAME_LOCALS_1_STACK_ITEM_FRAME + offsetDelta);
+            } else {
+              stackMapTableEntries
+                  .putByte(Frame.SAME_LOCALS_1_STACK_ITEM_FRAME_EXTENDED)
+                  .putShort(offsetDelta);
+            }
+            putFrameType(stack[0]);
+            break;
+          default:
+            throw new IllegalArgumentException();
+        }
 
-      previousFrameOffset = code.length;
-      ++stackMapTableNumberOfEntries;
+        previousFrameOffset = code.length;
+        ++stackMapTableNumberOfEntries;
+      }
     }
 
     if (compute == COMPUTE_MAX_STACK_AND_LOCAL_FROM_FRAMES) {
@@ -859,6 +753,83 @@ final class MethodWriter extends MethodVisitor {
     maxLocals = Math.max(maxLocals, currentLocals);
   }
 
+  /** Visits the implicit first frame of the method, computed from its descriptor. */
+  private void visitImplicitFirstFrame() {
+    int argumentsSize = Type.getArgumentsAndReturnSizes(descriptor) >> 2;
+    Frame implicitFirstFrame = new Frame(new Label());
+    implicitFirstFrame.setInputFrameFromDescriptor(
+        symbolTable, accessFlags, descriptor, argumentsSize);
+    implicitFirstFrame.accept(this);
+  }
+
+  /**
+   * Visits a compressed frame, i.e. a frame whose type is not {@link Opcodes#F_NEW}, by expanding
+   * it in {@link #currentFrame}, from {@link #previousFrame}.
+   *
+   * @param type the type of the stack map frame. Must be {@link Opcodes#F_FULL}, {@link
+   *     Opcodes#F_APPEND}, {@link Opcodes#F_CHOP}, {@link Opcodes#F_SAME} or {@link
+   *     Opcodes#F_SAME1}.
+   * @param numLocal the number of local variables in the visited frame. See {@link #visitFrame}.
+   * @param local the local variable types in this frame. See {@link #visitFrame}.
+   * @param numStack the number of operand stack elements in the visited frame. See {@link
+   *     #visitFrame}.
+   * @param stack the operand stack types in this frame. See {@link #visitFrame}.
+   */
+  private void visitCompressedFrame(
+      final int type,
+      final int numLocal,
+      final Object[] local,
+      final int numStack,
+      final Object[] stack) {
+    if (previousFrame == null) {
+      visitImplicitFirstFrame();
+    }
+    int previousNumLocal = previousFrame[1];
+    int newNumLocal;
+    int newNumStack = 0;
+    switch (type) {
+      case Opcodes.F_FULL:
+        newNumLocal = numLocal;
+        newNumStack = numStack;
+        break;
+      case Opcodes.F_APPEND:
+        newNumLocal = previousNumLocal + numLocal;
+        break;
+      case Opcodes.F_CHOP:
+        newNumLocal = previousNumLocal - numLocal;
+        break;
+      case Opcodes.F_SAME:
+        newNumLocal = previousNumLocal;
+        break;
+      case Opcodes.F_SAME1:
+        newNumLocal = previousNumLocal;
+        newNumStack = 1;
+        break;
+      default:
+        throw new IllegalArgumentException();
+    }
+    currentLocals = newNumLocal;
+    int frameIndex = visitFrameStart(code.length, newNumLocal, newNumStack);
+    if (type == Opcodes.F_FULL) {
+      for (int i = 0; i < numLocal; ++i) {
+        currentFrame[frameIndex++] = Frame.getAbstractTypeFromApiFormat(symbolTable, local[i]);
+      }
+    } else {
+      int numCopiedLocal = Math.min(previousNumLocal, newNumLocal);
+      System.arraycopy(previousFrame, 3, currentFrame, 3, numCopiedLocal);
+      frameIndex += numCopiedLocal;
+      if (type == Opcodes.F_APPEND) {
+        for (int i = 0; i < numLocal; ++i) {
+          currentFrame[frameIndex++] = Frame.getAbstractTypeFromApiFormat(symbolTable, local[i]);
+        }
+      }
+    }
+    for (int i = 0; i < newNumStack; ++i) {
+      currentFrame[frameIndex++] = Frame.getAbstractTypeFromApiFormat(symbolTable, stack[i]);
+    }
+    visitFrameEnd();
+  }
+
   @Override
   public void visitInsn(final int opcode) {
     lastBytecodeOffset = code.length;
@@ -869,7 +840,7 @@ final class MethodWriter extends MethodVisitor {
       if (compute == COMPUTE_ALL_FRAMES || compute == COMPUTE_INSERTED_FRAMES) {
         currentBasicBlock.frame.execute(opcode, 0, null, null);
       } else {
-        int size = relativeStackSize + STACK_SIZE_DELTA[opcode];
+        int size = relativeStackSize + OpcodeMetadata.getStackSizeDelta(opcode);
         if (size > maxRelativeStackSize) {
           maxRelativeStackSize = size;
         }
@@ -933,7 +904,7 @@ final class MethodWriter extends MethodVisitor {
           currentBasicBlock.outputStackSize = (short) relativeStackSize;
           endCurrentBasicBlockWithNoSuccessor();
         } else { // xLOAD or xSTORE
-          int size = relativeStackSize + STACK_SIZE_DELTA[opcode];
+          int size = relativeStackSize + OpcodeMetadata.getStackSizeDelta(opcode);
           if (size > maxRelativeStackSize) {
             maxRelativeStackSize = size;
           }
@@ -1099,7 +1070,29 @@ final class MethodWriter extends MethodVisitor {
     int baseOpcode =
         opcode >= Constants.GOTO_W ? opcode - Constants.WIDE_JUMP_OPCODE_DELTA : opcode;
     boolean nextInsnIsJumpTarget = false;
-    if ((label.flags & Label.FLAG_RESOLVED) != 0
+    if (wideForwardJumps
+        && (label.flags & Label.FLAG_RESOLVED) == 0
+        && (baseOpcode == Opcodes.GOTO
+            || baseOpcode == Opcodes.JSR
+            || compute == COMPUTE_ALL_FRAMES)) {
+      // Case of a forward jump with the WIDE_FORWARD_JUMPS option. In this case we replace GOTO
+      // with GOTO_W, JSR with JSR_W and IFxxx <l> with IFNOTxxx <L> GOTO_W <l> L:..., as for large
+      // backward jumps (see below). Here a GOTO_W can be used instead of an ASM_GOTO_W, because the
+      // stack map frames are computed from scratch (the frame at L is computed because it is the
+      // start of a basic block, marked as a jump target below). This ensures that no additional
+      // ClassReader -> ClassWriter round trip is needed, even if the method is larger than 32KB.
+      if (baseOpcode == Opcodes.GOTO) {
+        code.putByte(Constants.GOTO_W);
+      } else if (baseOpcode == Opcodes.JSR) {
+        code.putByte(Constants.JSR_W);
+      } else {
+        code.putByte(baseOpcode >= Opcodes.IFNULL ? baseOpcode ^ 1 : ((baseOpcode + 1) ^ 1) - 1);
+        code.putShort(8);
+        code.putByte(Constants.GOTO_W);
+        nextInsnIsJumpTarget = true;
+      }
+      label.put(code, code.length - 1, true);
+    } else if ((label.flags & Label.FLAG_RESOLVED) != 0
         && label.bytecodeOffset - code.length < Short.MIN_VALUE) {
       // Case of a backward jump with an offset < -32768. In this case we automatically replace GOTO
       // with GOTO_W, JSR with JSR_W and IFxxx <l> with IFNOTxxx <L> GOTO_W <l> L:..., where
@@ -1159,7 +1152,7 @@ final class MethodWriter extends MethodVisitor {
         currentBasicBlock.frame.execute(baseOpcode, 0, null, null);
       } else if (compute == COMPUTE_MAX_STACK_AND_LOCAL_FROM_FRAMES) {
         // No need to update maxRelativeStackSize (the stack size delta is always negative).
-        relativeStackSize += STACK_SIZE_DELTA[baseOpcode];
+        relativeStackSize += OpcodeMetadata.getStackSizeDelta(baseOpcode);
       } else {
         if (baseOpcode == Opcodes.JSR) {
           // Record the fact that 'label' designates a subroutine, if not already done.
@@ -1179,7 +1172,7 @@ final class MethodWriter extends MethodVisitor {
           nextBasicBlock = new Label();
         } else {
           // No need to update maxRelativeStackSize (the stack size delta is always negative).
-          relativeStackSize += STACK_SIZE_DELTA[baseOpcode];
+          relativeStackSize += OpcodeMetadata.getStackSizeDelta(baseOpcode);
           addSuccessorToCurrentBasicBlock(relativeStackSize, label);
         }
       }
@@ -1336,6 +1329,7 @@ final class MethodWriter extends MethodVisitor {
     lastBytecodeOffset = code.length;
     // Add the instruction to the bytecode of the method.
     code.putByte(Opcodes.TABLESWITCH).putByteArray(null, 0, (4 - code.length % 4) % 4);
+    hasSwitchInstructions = true;
     dflt.put(code, lastBytecodeOffset, true);
     code.putInt(min).putInt(max);
     for (Label label : labels) {
@@ -1350,6 +1344,7 @@ final class MethodWriter extends MethodVisitor {
     lastBytecodeOffset = code.length;
     // Add the instruction to the bytecode of the method.
     code.putByte(Opcodes.LOOKUPSWITCH).putByteArray(null, 0, (4 - code.length % 4) % 4);
+    hasSwitchInstructions = true;
     dflt.put(code, lastBytecodeOffset, true);
     code.putInt(labels.length);
     for (int i = 0; i < labels.length; ++i) {
@@ -1554,6 +1549,9 @@ final class MethodWriter extends MethodVisitor {
       this.maxStack = maxStack;
       this.maxLocals = maxLocals;
     }
+    if (deferredFrameCount > 0) {
+      putDeferredFrames();
+    }
   }
 
   /** Computes all the stack map frames of the method, from scratch. */
@@ -1578,6 +1576,19 @@ final class MethodWriter extends MethodVisitor {
       handler = handler.nextHandler;
     }
 
+    // If unreachable code must be removed, defer the frames until their final bytecode offsets are
+    // known. This is not possible if the code contains ASM specific instructions, or attributes
+    // whose bytecode offsets can't be updated.
+    boolean removeUnreachableCode =
+        removeDeadCode
+            && !hasAsmInstructions
+            && lastCodeRuntimeVisibleTypeAnnotation == null
+            && lastCodeRuntimeInvisibleTypeAnnotation == null
+            && firstCodeAttribute == null;
+    if (removeUnreachableCode && deferredFrames == null) {
+      deferredFrames = new int[8][];
+    }
+
     // Create and visit the first (implicit) frame.
     Frame firstFrame = firstBasicBlock.frame;
     firstFrame.setInputFrameFromDescriptor(symbolTable, accessFlags, descriptor, this.maxLocals);
@@ -1621,43 +1632,305 @@ final class MethodWriter extends MethodVisitor {
     }
 
     // Loop over all the basic blocks and visit the stack map frames that must be stored in the
-    // StackMapTable attribute. Also replace unreachable code with NOP* ATHROW, and remove it from
-    // exception handler ranges.
+    // StackMapTable attribute. Also replace unreachable code with NOP* ATHROW, or find the code
+    // ranges to remove if removeUnreachableCode is set, and remove it from exception handler
+    // ranges.
+    int[] removedRanges = null;
+    int removedRangesLength = 0;
     Label basicBlock = firstBasicBlock;
     while (basicBlock != null) {
+      Label nextBasicBlock = basicBlock.nextBasicBlock;
       if ((basicBlock.flags & (Label.FLAG_JUMP_TARGET | Label.FLAG_REACHABLE))
           == (Label.FLAG_JUMP_TARGET | Label.FLAG_REACHABLE)) {
         basicBlock.frame.accept(this);
       }
       if ((basicBlock.flags & Label.FLAG_REACHABLE) == 0) {
+        if (compactFrames || removeUnreachableCode) {
+          // Merge this unreachable block with the following unreachable ones, if any, so that
+          // they are all replaced with a single NOP ... NOP ATHROW sequence, with a single frame
+          // (or removed with a single range).
+          while (nextBasicBlock != null && (nextBasicBlock.flags & Label.FLAG_REACHABLE) == 0) {
+            nextBasicBlock = nextBasicBlock.nextBasicBlock;
+          }
+        }
         // Find the start and end bytecode offsets of this unreachable block.
-        Label nextBasicBlock = basicBlock.nextBasicBlock;
         int startOffset = basicBlock.bytecodeOffset;
         int endOffset = (nextBasicBlock == null ? code.length : nextBasicBlock.bytecodeOffset) - 1;
         if (endOffset >= startOffset) {
-          // Replace its instructions with NOP ... NOP ATHROW.
-          for (int i = startOffset; i < endOffset; ++i) {
-            code.data[i] = Opcodes.NOP;
+          if (removeUnreachableCode) {
+            // Remove the instructions of this unreachable block, except its first 1 to 3 bytes if
+            // this is needed to preserve the padding of the switch instructions, if any.
+            int removedLength = endOffset + 1 - startOffset;
+            if (hasSwitchInstructions) {
+              removedLength &= ~3;
+            }
+            if (removedLength > 0) {
+              if (removedRanges == null) {
+                removedRanges = new int[8];
+              } else if (removedRangesLength == removedRanges.length) {
+                int[] newRemovedRanges = new int[2 * removedRangesLength];
+                System.arraycopy(removedRanges, 0, newRemovedRanges, 0, removedRangesLength);
+                removedRanges = newRemovedRanges;
+              }
+              removedRanges[removedRangesLength++] = endOffset + 1 - removedLength;
+              removedRanges[removedRangesLength++] = endOffset + 1;
+              endOffset -= removedLength;
+            }
+          }
+          if (endOffset >= startOffset) {
+            // Replace its (remaining) instructions with NOP ... NOP ATHROW.
+            for (int i = startOffset; i < endOffset; ++i) {
+              code.data[i] = Opcodes.NOP;
+            }
+            code.data[endOffset] = (byte) Opcodes.ATHROW;
+            // Emit a frame for this unreachable block, with no local and a Throwable on the stack
+            // (so that the ATHROW could consume this Throwable if it were reachable).
+            int frameIndex = visitFrameStart(startOffset, /* numLocal= */ 0, /* numStack= */ 1);
+            currentFrame[frameIndex] =
+                Frame.getAbstractTypeFromInternalName(symbolTable, "java/lang/Throwable");
+            visitFrameEnd();
+            // The maximum stack size is now at least one, because of the Throwable declared above.
+            maxStackSize = Math.max(maxStackSize, 1);
           }
-          code.data[endOffset] = (byte) Opcodes.ATHROW;
-          // Emit a frame for this unreachable block, with no local and a Throwable on the stack
-          // (so that the ATHROW could consume this Throwable if it were reachable).
-          int frameIndex = visitFrameStart(startOffset, /* numLocal= */ 0, /* numStack= */ 1);
-          currentFrame[frameIndex] =
-              Frame.getAbstractTypeFromInternalName(symbolTable, "java/lang/Throwable");
-          visitFrameEnd();
           // Remove this unreachable basic block from the exception handler ranges.
           firstHandler = Handler.removeRange(firstHandler, basicBlock, nextBasicBlock);
-          // The maximum stack size is now at least one, because of the Throwable declared above.
-          maxStackSize = Math.max(maxStackSize, 1);
         }
       }
-      basicBlock = basicBlock.nextBasicBlock;
+      basicBlock = nextBasicBlock;
+    }
+    if (removedRangesLength > 0) {
+      removeCode(removedRanges, removedRangesLength);
     }
 
     this.maxStack = maxStackSize;
   }
 
+  /**
+   * Removes some unreachable code ranges from the bytecode of this method, and updates the jump
+   * offsets, the exception table, the line number and local variable tables, and the deferred stack
+   * map frames accordingly.
+   *
+   * @param removedRanges the start and end (exclusive) offsets of the code ranges to remove, in
+   *     increasing order. These ranges must start and end at instruction boundaries, must not be
+   *     targeted by any jump instruction or exception handler, and must not be in any exception
+   *     handler range.
+   * @param removedRangesLength the number of valid elements in removedRanges.
+   */
+  private void removeCode(final int[] removedRanges, final int removedRangesLength) {
+    // Compute the new bytecode offset corresponding to each old bytecode offset. The offsets inside
+    // a removed range are mapped to the new offset of the end of this range.
+    final int codeLength = code.length;
+    final int[] newOffsets = new int[codeLength + 1];
+    int removedLength = 0;
+    int rangeIndex = 0;
+    for (int offset = 0; offset <= codeLength; ++offset) {
+      if (rangeIndex < removedRangesLength && offset == removedRanges[rangeIndex + 1]) {
+        removedLength += removedRanges[rangeIndex + 1] - removedRanges[rangeIndex];
+        rangeIndex += 2;
+      }
+      if (rangeIndex < removedRangesLength && offset >= removedRanges[rangeIndex]) {
+        newOffsets[offset] = removedRanges[rangeIndex] - removedLength;
+      } else {
+        newOffsets[offset] = offset - removedLength;
+      }
+    }
+
+    // Move the remaining instructions to their new offset, and update their jump offsets. This can
+    // be done in place because the instructions can only move backward. Note that the switch
+    // instructions keep the same padding, because the removed ranges have a length multiple of 4
+    // when there are switch instructions.
+    final byte[] data = code.data;
+    int offset = 0;
+    rangeIndex = 0;
+    while (offset < codeLength) {
+      if (rangeIndex < removedRangesLength && offset == removedRanges[rangeIndex]) {
+        offset = removedRanges[rangeIndex + 1];
+        rangeIndex += 2;
+      } else {
+        int opcode = data[offset] & 0xFF;
+        int insnLength = CodeSplicer.getInsnLength(data, offset, offset);
+        int newOffset = newOffsets[offset];
+        System.arraycopy(data, offset, data, newOffset, insnLength);
+        if ((opcode >= Opcodes.IFEQ && opcode <= Opcodes.JSR)
+            || opcode == Opcodes.IFNULL
+            || opcode == Opcodes.IFNONNULL) {
+          int target = offset + (short) readUnsignedShort(data, newOffset + 1);
+          putShort(data, newOffset + 1, newOffsets[target] - newOffset);
+        } else if (opcode == Constants.GOTO_W || opcode == Constants.JSR_W) {
+          updateIntJumpOffset(data, offset, newOffset, newOffset + 1, newOffsets);
+        } else if (opcode == Opcodes.TABLESWITCH || opcode == Opcodes.LOOKUPSWITCH) {
+          int tableOffset = newOffset + 4 - (newOffset & 3);
+          updateIntJumpOffset(data, offset, newOffset, tableOffset, newOffsets);
+          // The first jump offset after the default one is at index 12 for both instructions (see
+          // getRequiredFrameOffsets).
+          int caseOffset = tableOffset + 12;
+          int caseStep = opcode == Opcodes.TABLESWITCH ? 4 : 8;
+          int tableEnd = newOffset + insnLength;
+          while (caseOffset < tableEnd) {
+            updateIntJumpOffset(data, offset, newOffset, caseOffset, newOffsets);
+            caseOffset += caseStep;
+          }
+        }
+        offset += insnLength;
+      }
+    }
+    code.length = newOffsets[codeLength];
+
+    // Update the exception table. The exception handler ranges do not contain removed code, and
+    // the handlers do not start in removed code, so they are simply moved with the code.
+    Handler handler = firstHandler;
+    firstHandler = null;
+    lastHandler = null;
+    while (handler != null) {
+      Handler newHandler =
+          new Handler(
+              newResolvedLabel(newOffsets[handler.startPc.bytecodeOffset]),
+              newResolvedLabel(newOffsets[handler.endPc.bytecodeOffset]),
+              newResolvedLabel(newOffsets[handler.handlerPc.bytecodeOffset]),
+              handler.catchType,
+              handler.catchTypeDescriptor);
+      if (firstHandler == null) {
+        firstHandler = newHandler;
+      } else {
+        lastHandler.nextHandler = newHandler;
+      }
+      lastHandler = newHandler;
+      handler = handler.nextHandler;
+    }
+
+    // Update the LineNumberTable, removing the entries which start in removed code (an offset is
+    // in a removed range if and only if it has the same new offset as the next one).
+    if (lineNumberTable != null) {
+      final byte[] lineNumbers = lineNumberTable.data;
+      int newLineNumberTableLength = 0;
+      for (int i = 0; i < lineNumberTableLength; ++i) {
+        int startPc = readUnsignedShort(lineNumbers, 4 * i);
+        int newStartPc = newOffsets[startPc];
+        if (startPc < codeLength && newOffsets[startPc + 1] != newStartPc) {
+          int newEntryOffset = 4 * newLineNumberTableLength++;
+          putShort(lineNumbers, newEntryOffset, newStartPc);
+          lineNumbers[newEntryOffset + 2] = lineNumbers[4 * i + 2];
+          lineNumbers[newEntryOffset + 3] = lineNumbers[4 * i + 3];
+        }
+      }
+      lineNumberTableLength = newLineNumberTableLength;
+      lineNumberTable.length = 4 * newLineNumberTableLength;
+    }
+
+    // Update the LocalVariableTable and LocalVariableTypeTable.
+    if (localVariableTable != null) {
+      localVariableTableLength =
+          updateLocalVariableTable(localVariableTable, localVariableTableLength, newOffsets);
+    }
+    if (localVariableTypeTable != null) {
+      localVariableTypeTableLength =
+          updateLocalVariableTable(
+              localVariableTypeTable, localVariableTypeTableLength, newOffsets);
+    }
+
+    // Update the offsets of the deferred stack map frames (except the implicit first one), and the
+    // offsets of the NEW instructions designated by their uninitialized types.
+    for (int i = 1; i < deferredFrameCount; ++i) {
+      int[] frame = deferredFrames[i];
+      frame[0] = newOffsets[frame[0]];
+      int frameLength = 3 + frame[1] + frame[2];
+      for (int j = 3; j < frameLength; ++j) {
+        frame[j] = Frame.getMovedAbstractType(symbolTable, frame[j], newOffsets);
+      }
+    }
+  }
+
+  /**
+   * Updates the ranges of a LocalVariableTable or LocalVariableTypeTable after some code has been
+   * removed. The entries whose range becomes empty are removed.
+   *
+   * @param localVariableTable the entries of a LocalVariableTable or LocalVariableTypeTable.
+   * @param localVariableTableLength the number of entries in localVariableTable.
+   * @param newOffsets the new bytecode offset corresponding to each old bytecode offset.
+   * @return the new number of entries in localVariableTable.
+   */
+  private static int updateLocalVariableTable(
+      final ByteVector localVariableTable,
+      final int localVariableTableLength,
+      final int[] newOffsets) {
+    final byte[] localVariables = localVariableTable.data;
+    int newLocalVariableTableLength = 0;
+    for (int i = 0; i < localVariableTableLength; ++i) {
+      int entryOffset = 10 * i;
+      int startPc = readUnsignedShort(localVariables, entryOffset);
+      int endPc = startPc + readUnsignedShort(localVariables, entryOffset + 2);
+      int newStartPc = newOffsets[startPc];
+      int newLength = newOffsets[endPc] - newStartPc;
+      if (newLength > 0) {
+        int newEntryOffset = 10 * newLocalVariableTableLength++;
+        System.arraycopy(localVariables, entryOffset, localVariables, newEntryOffset, 10);
+        putShort(localVariables, newEntryOffset, newStartPc);
+        putShort(localVariables, newEntryOffset + 2, newLength);
+      }
+    }
+    localVariableTable.length = 10 * newLocalVariableTableLength;
+    return newLocalVariableTableLength;
+  }
+
+  /**
+   * Updates a 4 bytes jump offset of an instruction moved by {@link #removeCode(int[], int)}.
+   *
+   * @param data the bytecode of the method.
+   * @param oldInsnOffset the old bytecode offset of the instruction.
+   * @param newInsnOffset the new bytecode offset of the instruction.
+   * @param jumpOffsetIndex the index in data of the jump offset to update.
+   * @param newOffsets the new bytecode offset corresponding to each old bytecode offset.
+   */
+  private static void updateIntJumpOffset(
+      final byte[] data,
+      final int oldInsnOffset,
+      final int newInsnOffset,
+      final int jumpOffsetIndex,
+      final int[] newOffsets) {
+    int target = oldInsnOffset + CodeSplicer.readInt(data, jumpOffsetIndex);
+    int newJumpOffset = newOffsets[target] - newInsnOffset;
+    data[jumpOffsetIndex] = (byte) (newJumpOffset >>> 24);
+    data[jumpOffsetIndex + 1] = (byte) (newJumpOffset >>> 16);
+    data[jumpOffsetIndex + 2] = (byte) (newJumpOffset >>> 8);
+    data[jumpOffsetIndex + 3] = (byte) newJumpOffset;
+  }
+
+  /**
+   * Reads an unsigned short value in the given buffer.
+   *
+   * @param data a buffer.
+   * @param index the start index of the value to be read in data.
+   * @return the read value.
+   */
+  private static int readUnsignedShort(final byte[] data, final int index) {
+    return ((data[index] & 0xFF) << 8) | (data[index + 1] & 0xFF);
+  }
+
+  /**
+   * Writes a short value in the given buffer.
+   *
+   * @param data a buffer.
+   * @param index where the value must be written in data.
+   * @param value the value to write. Only its 16 least significant bits are written.
+   */
+  private static void putShort(final byte[] data, final int index, final int value) {
+    data[index] = (byte) (value >>> 8);
+    data[index + 1] = (byte) value;
+  }
+
+  /**
+   * Returns a new resolved label.
+   *
+   * @param bytecodeOffset the bytecode offset of the label.
+   * @return a new label, resolved to the given bytecode offset.
+   */
+  private static Label newResolvedLabel(final int bytecodeOffset) {
+    Label label = new Label();
+    label.flags |= Label.FLAG_RESOLVED;
+    label.bytecodeOffset = bytecodeOffset;
+    return label;
+  }
+
   /** Computes the maximum stack size of the method. */
   private void computeMaxStackAndLocal() {
     // Complete the control flow graph with exception handler blocks.
@@ -1845,6 +2118,20 @@ final class MethodWriter extends MethodVisitor {
    * which is implicit in StackMapTable). Then resets {@link #currentFrame} to {@literal null}.
    */
   void visitFrameEnd() {
+    if (compactFrames || deferredFrames != null) {
+      // Defer the compression of the frame until all the frames are known, in putDeferredFrames().
+      if (deferredFrames == null) {
+        deferredFrames = new int[8][];
+      } else if (deferredFrameCount == deferredFrames.length) {
+        int[][] newDeferredFrames = new int[2 * deferredFrameCount][];
+        System.arraycopy(deferredFrames, 0, newDeferredFrames, 0, deferredFrameCount);
+        deferredFrames = newDeferredFrames;
+      }
+      deferredFrames[deferredFrameCount++] = currentFrame;
+      previousFrame = currentFrame;
+      currentFrame = null;
+      return;
+    }
     if (previousFrame != null) {
       if (stackMapTableEntries == null) {
         stackMapTableEntries = new ByteVector();
@@ -1856,6 +2143,105 @@ final class MethodWriter extends MethodVisitor {
     currentFrame = null;
   }
 
+  /**
+   * Compresses and writes the {@link #deferredFrames} in the StackMapTable entries. If {@link
+   * #compactFrames} is set, frames which are not required by the JVMS (i.e. which are not at the
+   * start of a jump target, of an exception handler, or of an instruction following an
+   * unconditional branch) are removed, as well as frames overridden by a later frame at the same
+   * offset, and trailing TOP locals are removed.
+   */
+  private void putDeferredFrames() {
+    // The required frames can't be found easily if the code contains ASM specific instructions.
+    // In this case all the frames are kept here, and compacted in the second pass done in
+    // ClassWriter#replaceAsmInstructions.
+    boolean[] requiredFrames =
+        !compactFrames || hasAsmInstructions || symbolTable.getMajorVersion() < Opcodes.V1_6
+            ? null
+            : getRequiredFrameOffsets();
+    int top = Frame.getAbstractTypeFromApiFormat(symbolTable, Opcodes.TOP);
+    previousFrame = deferredFrames[0];
+    for (int i = 1; i < deferredFrameCount; ++i) {
+      int[] frame = deferredFrames[i];
+      if (compactFrames) {
+        int offset = frame[0];
+        if ((i + 1 < deferredFrameCount && deferredFrames[i + 1][0] == offset)
+            || (requiredFrames != null && !requiredFrames[offset])) {
+          continue;
+        }
+        int numLocal = frame[1];
+        while (numLocal > 0 && frame[2 + numLocal] == top) {
+          --numLocal;
+        }
+        if (numLocal < frame[1]) {
+          System.arraycopy(frame, 3 + frame[1], frame, 3 + numLocal, frame[2]);
+          frame[1] = numLocal;
+        }
+      }
+      if (stackMapTableEntries == null) {
+        stackMapTableEntries = new ByteVector();
+      }
+      currentFrame = frame;
+      putFrame();
+      ++stackMapTableNumberOfEntries;
+      previousFrame = frame;
+    }
+    currentFrame = null;
+    deferredFrames = null;
+    deferredFrameCount = 0;
+  }
+
+  /**
+   * Returns the bytecode offsets where a stack map frame is required, i.e. the targets of jump and
+   * switch instructions, the starts of exception handlers, and the instructions following an
+   * unconditional branch.
+   *
+   * @return an array indexed by bytecode offsets, whose elements are true for the bytecode offsets
+   *     where a frame is required.
+   */
+  private boolean[] getRequiredFrameOffsets() {
+    final byte[] data = code.data;
+    final boolean[] requiredFrames = new boolean[code.length + 1];
+    int offset = 0;
+    while (offset < code.length) {
+      int opcode = data[offset] & 0xFF;
+      int insnLength = CodeSplicer.getInsnLength(data, offset, offset);
+      if ((opcode >= Opcodes.IFEQ && opcode <= Opcodes.JSR)
+          || opcode == Opcodes.IFNULL
+          || opcode == Opcodes.IFNONNULL) {
+        requiredFrames[
+                offset + (short) (((data[offset + 1] & 0xFF) << 8) | (data[offset + 2] & 0xFF))] =
+            true;
+      } else if (opcode == Constants.GOTO_W || opcode == Constants.JSR_W) {
+        requiredFrames[offset + CodeSplicer.readInt(data, offset + 1)] = true;
+      } else if (opcode == Opcodes.TABLESWITCH || opcode == Opcodes.LOOKUPSWITCH) {
+        int tableOffset = offset + 4 - (offset & 3);
+        requiredFrames[offset + CodeSplicer.readInt(data, tableOffset)] = true;
+        // The first jump offset after the default one is at index 12 for both instructions (after
+        // low and high for TABLESWITCH, after npairs and the first match for LOOKUPSWITCH).
+        int caseOffset = tableOffset + 12;
+        int caseStep = opcode == Opcodes.TABLESWITCH ? 4 : 8;
+        int tableEnd = offset + insnLength;
+        while (caseOffset < tableEnd) {
+          requiredFrames[offset + CodeSplicer.readInt(data, caseOffset)] = true;
+          caseOffset += caseStep;
+        }
+      }
+      if (opcode == Opcodes.GOTO
+          || opcode == Constants.GOTO_W
+          || (opcode >= Opcodes.RET && opcode <= Opcodes.RETURN)
+          || opcode == Opcodes.ATHROW) {
+        requiredFrames[offset + insnLength] = true;
+      }
+      offset += insnLength;
+    }
+    Handler handler = firstHandler;
+    while (handler != null) {
+      requiredFrames[handler.handlerPc.bytecodeOffset] = true;
+      handler = handler.nextHandler;
+    }
+    return requiredFrames;
+  }
+
   /** Compresses and writes {@link #currentFrame} in a new StackMapTable entry. */
   private void putFrame() {
     final int numLocal = currentFrame[1];
@@ -1896,7 +2282,7 @@ final class MethodWriter extends MethodVisitor {
       }
     } else if (numLocalDelta == 0 && numStack == 1) {
       type =
-          offsetDelta < 63
+          offsetDelta < (compactFrames ? 64 : 63)
               ? Frame.SAME_LOCALS_1_STACK_ITEM_FRAME
               : Frame.SAME_LOCALS_1_STACK_ITEM_FRAME_EXTENDED;
     }
@@ -2051,6 +2437,44 @@ final class MethodWriter extends MethodVisitor {
     return true;
   }
 
+  /**
+   * Returns whether the Code attribute of a method of the given class reader can be copied as is in
+   * this method writer, instead of visiting its content.
+   *
+   * @param source the class reader containing the Code attribute.
+   * @param descriptorIndex the descriptor_index field of the method containing the Code attribute.
+   * @return whether the Code attribute can be copied as is in this method writer.
+   */
+  boolean canCopyCodeAttribute(final ClassReader source, final int descriptorIndex) {
+    // As in canCopyMethodAttributes, the Code attribute can't be copied if the method descriptor
+    // has changed, since its max_locals field might then be too small.
+    return canCopyCodeAttribute(source) && descriptorIndex == this.descriptorIndex;
+  }
+
+  /**
+   * Returns whether the Code attribute of a method of the given class reader, with the same
+   * descriptor as this method, can be copied as is in this method writer.
+   *
+   * @param source the class reader containing the Code attribute.
+   * @return whether the Code attribute can be copied as is in this method writer, provided the
+   *     method containing it has the same descriptor as this method.
+   */
+  boolean canCopyCodeAttribute(final ClassReader source) {
+    return source == symbolTable.getSource() && code.length == 0 && codeSourceOffset == 0;
+  }
+
+  /**
+   * Sets the source from which the Code attribute of this method will be copied.
+   *
+   * @param codeOffset the offset in 'symbolTable.getSource()' of the content of the Code attribute
+   *     to copy, excluding its attribute_name_index and attribute_length fields.
+   * @param codeLength the length of the content of the Code attribute to copy.
+   */
+  void setCodeAttributeSource(final int codeOffset, final int codeLength) {
+    this.codeSourceOffset = codeOffset;
+    this.codeSourceLength = codeLength;
+  }
+
   /**
    * Sets the source from which the attributes of this method will be copied.
    *
@@ -2067,6 +2491,101 @@ final class MethodWriter extends MethodVisitor {
     this.sourceLength = methodInfoLength - 6;
   }
 
+  /**
+   * Sets the source from which the attributes of this method will be copied, with the code
+   * generated by the given {@link CodeInserter} inserted in the copied Code attribute.
+   *
+   * @param methodInfoOffset the offset in 'symbolTable.getSource()' of the method_info JVMS
+   *     structure from which the attributes of this method will be copied.
+   * @param methodInfoLength the length in 'symbolTable.getSource()' of the method_info JVMS
+   *     structure from which the attributes of this method will be copied.
+   * @param codeOffset the offset in 'symbolTable.getSource()' of the Code attribute of this
+   *     method_info structure, excluding its attribute_name_index and attribute_length fields.
+   * @param codeInserter the code inserter generating the code to insert.
+   * @param charBuffer the buffer used to read strings in the constant pool.
+   * @return whether the attributes of this method can be copied and patched. If not, this method
+   *     writer and its symbol table are unchanged, and the method must be visited with the {@link
+   *     CodeInserter}.
+   */
+  boolean setPatchedMethodAttributesSource(
+      final int methodInfoOffset,
+      final int methodInfoLength,
+      final int codeOffset,
+      final CodeInserter codeInserter,
+      final char[] charBuffer) {
+    ClassReader source = symbolTable.getSource();
+    CodeSplicer codeSplicer = new CodeSplicer(source, codeOffset);
+    if (!codeSplicer.scanBytecode()) {
+      return false;
+    }
+    // The inserted code can add constants to the symbol table, which must be removed if the method
+    // can't be copied (the inserted code is then generated again, when the method is visited).
+    int[] symbolCounts = symbolTable.getSymbolCounts();
+    int insertedMaxStack = 0;
+    int newMaxLocals = source.readUnsignedShort(codeOffset + 2);
+    for (int opcode = Opcodes.IRETURN - 1; opcode <= Opcodes.ATHROW; ++opcode) {
+      // Generate the code inserted at the beginning of the method (with the IRETURN - 1 value,
+      // which is mapped to -1 below), and before the xRETURN and ATHROW instructions it contains.
+      if (opcode >= Opcodes.IRETURN && !codeSplicer.hasExitInstruction(opcode)) {
+        continue;
+      }
+      MethodWriter insertedCode =
+          new MethodWriter(
+              symbolTable,
+              accessFlags,
+              name,
+              descriptor,
+              null,
+              null,
+              COMPUTE_MAX_STACK_AND_LOCAL_FROM_FRAMES,
+              false,
+              false,
+              false);
+      int insertionOpcode = opcode < Opcodes.IRETURN ? -1 : opcode;
+      codeInserter.insertCode(insertedCode, insertionOpcode);
+      if (!insertedCode.isStraightLineCode()) {
+        symbolTable.removeNewSymbols(symbolCounts);
+        return false;
+      }
+      // For straight line code, the max stack size computed from frames is exact.
+      insertedCode.visitMaxs(0, 0);
+      insertedMaxStack = Math.max(insertedMaxStack, insertedCode.maxStack);
+      newMaxLocals = Math.max(newMaxLocals, insertedCode.maxLocals);
+      codeSplicer.setInsertedCode(insertionOpcode, insertedCode.code);
+    }
+    patchedAttributes =
+        codeSplicer.splice(
+            methodInfoOffset + 6,
+            methodInfoLength - 6,
+            source.readUnsignedShort(codeOffset) + insertedMaxStack,
+            newMaxLocals,
+            charBuffer);
+    if (patchedAttributes == null) {
+      symbolTable.removeNewSymbols(symbolCounts);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether the content of this method is only made of straight line code, i.e. of
+   * instructions without jump, switch, xRETURN or ATHROW instructions, and without exception
+   * handlers, frames, debug information, type annotations or attributes.
+   *
+   * @return whether the content of this method is only made of straight line code.
+   */
+  private boolean isStraightLineCode() {
+    return firstHandler == null
+        && stackMapTableEntries == null
+        && lineNumberTable == null
+        && localVariableTable == null
+        && localVariableTypeTable == null
+        && lastCodeRuntimeVisibleTypeAnnotation == null
+        && lastCodeRuntimeInvisibleTypeAnnotation == null
+        && firstCodeAttribute == null
+        && CodeSplicer.isStraightLineCode(code);
+  }
+
   /**
    * Returns the size of the method_info JVMS structure generated by this MethodWriter. Also add the
    * names of the attributes of this method in the constant pool.
@@ -2079,6 +2598,9 @@ final class MethodWriter extends MethodVisitor {
       // sourceLength excludes the first 6 bytes for access_flags, name_index and descriptor_index.
       return 6 + sourceLength;
     }
+    if (patchedAttributes != null) {
+      return 6 + patchedAttributes.length;
+    }
     // 2 bytes each for access_flags, name_index, descriptor_index and attributes_count.
     int size = 8;
     // For ease of reference, we use here the same attribute order as in Section 4.7 of the JVMS.
@@ -2127,6 +2649,9 @@ final class MethodWriter extends MethodVisitor {
             firstCodeAttribute.computeAttributesSize(
                 symbolTable, code.data, code.length, maxStack, maxLocals);
       }
+    } else if (codeSourceOffset != 0) {
+      symbolTable.addConstantUtf8(Constants.CODE);
+      size += 6 + codeSourceLength;
     }
     if (numberOfExceptions > 0) {
       symbolTable.addConstantUtf8(Constants.EXCEPTIONS);
@@ -2187,9 +2712,13 @@ final class MethodWriter extends MethodVisitor {
       output.putByteArray(symbolTable.getSource().classFileBuffer, sourceOffset, sourceLength);
       return;
     }
+    if (patchedAttributes != null) {
+      output.putByteArray(patchedAttributes.data, 0, patchedAttributes.length);
+      return;
+    }
     // For ease of reference, we use here the same attribute order as in Section 4.7 of the JVMS.
     int attributeCount = 0;
-    if (code.length > 0) {
+    if (code.length > 0 || codeSourceOffset != 0) {
       ++attributeCount;
     }
     if (numberOfExceptions > 0) {
@@ -2328,6 +2857,12 @@ final class MethodWriter extends MethodVisitor {
         firstCodeAttribute.putAttributes(
             symbolTable, code.data, code.length, maxStack, maxLocals, output);
       }
+    } else if (codeSourceOffset != 0) {
+      output
+          .putShort(symbolTable.addConstantUtf8(Constants.CODE))
+          .putInt(codeSourceLength)
+          .putByteArray(
+              symbolTable.getSource().classFileBuffer, codeSourceOffset, codeSourceLength);
     }
     if (numberOfExceptions > 0) {
       output
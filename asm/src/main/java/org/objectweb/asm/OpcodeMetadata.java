@@ -0,0 +1,452 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm;
+
+/**
+ * Static information about the JVM opcodes: the kind of each instruction (i.e. the {@link
+ * MethodVisitor} method used to visit it), the number of stack slots it pops and pushes, and
+ * whether it is a branch or a terminator instruction. This information is stored in a single array,
+ * indexed by opcode, so that it can be looked up without any branch.
+ *
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html">JVMS 6</a>
+ */
+public final class OpcodeMetadata {
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitInsn}. */
+  public static final int INSN = 0;
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitIntInsn}. */
+  public static final int INT_INSN = 1;
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitVarInsn}. */
+  public static final int VAR_INSN = 2;
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitTypeInsn}. */
+  public static final int TYPE_INSN = 3;
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitFieldInsn}. */
+  public static final int FIELD_INSN = 4;
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitMethodInsn}. */
+  public static final int METHOD_INSN = 5;
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitInvokeDynamicInsn}. */
+  public static final int INVOKE_DYNAMIC_INSN = 6;
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitJumpInsn}. */
+  public static final int JUMP_INSN = 7;
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitLdcInsn}. */
+  public static final int LDC_INSN = 9;
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitIincInsn}. */
+  public static final int IINC_INSN = 10;
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitTableSwitchInsn}. */
+  public static final int TABLESWITCH_INSN = 11;
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitLookupSwitchInsn}. */
+  public static final int LOOKUPSWITCH_INSN = 12;
+
+  /** The kind of the opcodes visited with {@link MethodVisitor#visitMultiANewArrayInsn}. */
+  public static final int MULTIANEWARRAY_INSN = 13;
+
+  /**
+   * The kind of the opcodes which can't be visited with a {@link MethodVisitor}, such as ILOAD_0,
+   * LDC_W or GOTO_W. {@link ClassReader} replaces them with equivalent opcodes.
+   */
+  public static final int UNSUPPORTED_INSN = -1;
+
+  /**
+   * The number of stack slots popped or pushed by an instruction, when it depends on its operands
+   * (e.g. on the descriptor of a field or method instruction).
+   */
+  public static final int VARIABLE_SIZE = -1;
+
+  // The layout of the OPCODE_INFO elements. The first byte contains the instruction kind (as a
+  // signed value), the next two 4 bits fields contain the number of popped and pushed stack slots
+  // (or VARIABLE_SIZE_MASK), and the following bits contain the BRANCH and TERMINATOR flags.
+
+  private static final int KIND_MASK = 0xFF;
+  private static final int POPPED_SIZE_SHIFT = 8;
+  private static final int PUSHED_SIZE_SHIFT = 12;
+  private static final int SIZE_MASK = 0xF;
+  private static final int VARIABLE_SIZE_MASK = 0xF;
+  private static final int BRANCH = 1 << 16;
+  private static final int TERMINATOR = 1 << 17;
+
+  /** A shorter name for {@link #UNSUPPORTED_INSN}, to keep {@link #OPCODE_INFO} readable. */
+  private static final int NONE = UNSUPPORTED_INSN;
+
+  /**
+   * The information about each JVM opcode. The information for opcode 'o' is given by the array
+   * element at index 'o'.
+   */
+  private static final int[] OPCODE_INFO = {
+    info(INSN, 0, 0), // nop = 0 (0x0)
+    info(INSN, 0, 1), // aconst_null = 1 (0x1)
+    info(INSN, 0, 1), // iconst_m1 = 2 (0x2)
+    info(INSN, 0, 1), // iconst_0 = 3 (0x3)
+    info(INSN, 0, 1), // iconst_1 = 4 (0x4)
+    info(INSN, 0, 1), // iconst_2 = 5 (0x5)
+    info(INSN, 0, 1), // iconst_3 = 6 (0x6)
+    info(INSN, 0, 1), // iconst_4 = 7 (0x7)
+    info(INSN, 0, 1), // iconst_5 = 8 (0x8)
+    info(INSN, 0, 2), // lconst_0 = 9 (0x9)
+    info(INSN, 0, 2), // lconst_1 = 10 (0xa)
+    info(INSN, 0, 1), // fconst_0 = 11 (0xb)
+    info(INSN, 0, 1), // fconst_1 = 12 (0xc)
+    info(INSN, 0, 1), // fconst_2 = 13 (0xd)
+    info(INSN, 0, 2), // dconst_0 = 14 (0xe)
+    info(INSN, 0, 2), // dconst_1 = 15 (0xf)
+    info(INT_INSN, 0, 1), // bipush = 16 (0x10)
+    info(INT_INSN, 0, 1), // sipush = 17 (0x11)
+    info(LDC_INSN, 0, VARIABLE_SIZE), // ldc = 18 (0x12)
+    info(NONE, 0, 1), // ldc_w = 19 (0x13)
+    info(NONE, 0, 2), // ldc2_w = 20 (0x14)
+    info(VAR_INSN, 0, 1), // iload = 21 (0x15)
+    info(VAR_INSN, 0, 2), // lload = 22 (0x16)
+    info(VAR_INSN, 0, 1), // fload = 23 (0x17)
+    info(VAR_INSN, 0, 2), // dload = 24 (0x18)
+    info(VAR_INSN, 0, 1), // aload = 25 (0x19)
+    info(NONE, 0, 1), // iload_0 = 26 (0x1a)
+    info(NONE, 0, 1), // iload_1 = 27 (0x1b)
+    info(NONE, 0, 1), // iload_2 = 28 (0x1c)
+    info(NONE, 0, 1), // iload_3 = 29 (0x1d)
+    info(NONE, 0, 2), // lload_0 = 30 (0x1e)
+    info(NONE, 0, 2), // lload_1 = 31 (0x1f)
+    info(NONE, 0, 2), // lload_2 = 32 (0x20)
+    info(NONE, 0, 2), // lload_3 = 33 (0x21)
+    info(NONE, 0, 1), // fload_0 = 34 (0x22)
+    info(NONE, 0, 1), // fload_1 = 35 (0x23)
+    info(NONE, 0, 1), // fload_2 = 36 (0x24)
+    info(NONE, 0, 1), // fload_3 = 37 (0x25)
+    info(NONE, 0, 2), // dload_0 = 38 (0x26)
+    info(NONE, 0, 2), // dload_1 = 39 (0x27)
+    info(NONE, 0, 2), // dload_2 = 40 (0x28)
+    info(NONE, 0, 2), // dload_3 = 41 (0x29)
+    info(NONE, 0, 1), // aload_0 = 42 (0x2a)
+    info(NONE, 0, 1), // aload_1 = 43 (0x2b)
+    info(NONE, 0, 1), // aload_2 = 44 (0x2c)
+    info(NONE, 0, 1), // aload_3 = 45 (0x2d)
+    info(INSN, 2, 1), // iaload = 46 (0x2e)
+    info(INSN, 2, 2), // laload = 47 (0x2f)
+    info(INSN, 2, 1), // faload = 48 (0x30)
+    info(INSN, 2, 2), // daload = 49 (0x31)
+    info(INSN, 2, 1), // aaload = 50 (0x32)
+    info(INSN, 2, 1), // baload = 51 (0x33)
+    info(INSN, 2, 1), // caload = 52 (0x34)
+    info(INSN, 2, 1), // saload = 53 (0x35)
+    info(VAR_INSN, 1, 0), // istore = 54 (0x36)
+    info(VAR_INSN, 2, 0), // lstore = 55 (0x37)
+    info(VAR_INSN, 1, 0), // fstore = 56 (0x38)
+    info(VAR_INSN, 2, 0), // dstore = 57 (0x39)
+    info(VAR_INSN, 1, 0), // astore = 58 (0x3a)
+    info(NONE, 1, 0), // istore_0 = 59 (0x3b)
+    info(NONE, 1, 0), // istore_1 = 60 (0x3c)
+    info(NONE, 1, 0), // istore_2 = 61 (0x3d)
+    info(NONE, 1, 0), // istore_3 = 62 (0x3e)
+    info(NONE, 2, 0), // lstore_0 = 63 (0x3f)
+    info(NONE, 2, 0), // lstore_1 = 64 (0x40)
+    info(NONE, 2, 0), // lstore_2 = 65 (0x41)
+    info(NONE, 2, 0), // lstore_3 = 66 (0x42)
+    info(NONE, 1, 0), // fstore_0 = 67 (0x43)
+    info(NONE, 1, 0), // fstore_1 = 68 (0x44)
+    info(NONE, 1, 0), // fstore_2 = 69 (0x45)
+    info(NONE, 1, 0), // fstore_3 = 70 (0x46)
+    info(NONE, 2, 0), // dstore_0 = 71 (0x47)
+    info(NONE, 2, 0), // dstore_1 = 72 (0x48)
+    info(NONE, 2, 0), // dstore_2 = 73 (0x49)
+    info(NONE, 2, 0), // dstore_3 = 74 (0x4a)
+    info(NONE, 1, 0), // astore_0 = 75 (0x4b)
+    info(NONE, 1, 0), // astore_1 = 76 (0x4c)
+    info(NONE, 1, 0), // astore_2 = 77 (0x4d)
+    info(NONE, 1, 0), // astore_3 = 78 (0x4e)
+    info(INSN, 3, 0), // iastore = 79 (0x4f)
+    info(INSN, 4, 0), // lastore = 80 (0x50)
+    info(INSN, 3, 0), // fastore = 81 (0x51)
+    info(INSN, 4, 0), // dastore = 82 (0x52)
+    info(INSN, 3, 0), // aastore = 83 (0x53)
+    info(INSN, 3, 0), // bastore = 84 (0x54)
+    info(INSN, 3, 0), // castore = 85 (0x55)
+    info(INSN, 3, 0), // sastore = 86 (0x56)
+    info(INSN, 1, 0), // pop = 87 (0x57)
+    info(INSN, 2, 0), // pop2 = 88 (0x58)
+    info(INSN, 1, 2), // dup = 89 (0x59)
+    info(INSN, 2, 3), // dup_x1 = 90 (0x5a)
+    info(INSN, 3, 4), // dup_x2 = 91 (0x5b)
+    info(INSN, 2, 4), // dup2 = 92 (0x5c)
+    info(INSN, 3, 5), // dup2_x1 = 93 (0x5d)
+    info(INSN, 4, 6), // dup2_x2 = 94 (0x5e)
+    info(INSN, 2, 2), // swap = 95 (0x5f)
+    info(INSN, 2, 1), // iadd = 96 (0x60)
+    info(INSN, 4, 2), // ladd = 97 (0x61)
+    info(INSN, 2, 1), // fadd = 98 (0x62)
+    info(INSN, 4, 2), // dadd = 99 (0x63)
+    info(INSN, 2, 1), // isub = 100 (0x64)
+    info(INSN, 4, 2), // lsub = 101 (0x65)
+    info(INSN, 2, 1), // fsub = 102 (0x66)
+    info(INSN, 4, 2), // dsub = 103 (0x67)
+    info(INSN, 2, 1), // imul = 104 (0x68)
+    info(INSN, 4, 2), // lmul = 105 (0x69)
+    info(INSN, 2, 1), // fmul = 106 (0x6a)
+    info(INSN, 4, 2), // dmul = 107 (0x6b)
+    info(INSN, 2, 1), // idiv = 108 (0x6c)
+    info(INSN, 4, 2), // ldiv = 109 (0x6d)
+    info(INSN, 2, 1), // fdiv = 110 (0x6e)
+    info(INSN, 4, 2), // ddiv = 111 (0x6f)
+    info(INSN, 2, 1), // irem = 112 (0x70)
+    info(INSN, 4, 2), // lrem = 113 (0x71)
+    info(INSN, 2, 1), // frem = 114 (0x72)
+    info(INSN, 4, 2), // drem = 115 (0x73)
+    info(INSN, 1, 1), // ineg = 116 (0x74)
+    info(INSN, 2, 2), // lneg = 117 (0x75)
+    info(INSN, 1, 1), // fneg = 118 (0x76)
+    info(INSN, 2, 2), // dneg = 119 (0x77)
+    info(INSN, 2, 1), // ishl = 120 (0x78)
+    info(INSN, 3, 2), // lshl = 121 (0x79)
+    info(INSN, 2, 1), // ishr = 122 (0x7a)
+    info(INSN, 3, 2), // lshr = 123 (0x7b)
+    info(INSN, 2, 1), // iushr = 124 (0x7c)
+    info(INSN, 3, 2), // lushr = 125 (0x7d)
+    info(INSN, 2, 1), // iand = 126 (0x7e)
+    info(INSN, 4, 2), // land = 127 (0x7f)
+    info(INSN, 2, 1), // ior = 128 (0x80)
+    info(INSN, 4, 2), // lor = 129 (0x81)
+    info(INSN, 2, 1), // ixor = 130 (0x82)
+    info(INSN, 4, 2), // lxor = 131 (0x83)
+    info(IINC_INSN, 0, 0), // iinc = 132 (0x84)
+    info(INSN, 1, 2), // i2l = 133 (0x85)
+    info(INSN, 1, 1), // i2f = 134 (0x86)
+    info(INSN, 1, 2), // i2d = 135 (0x87)
+    info(INSN, 2, 1), // l2i = 136 (0x88)
+    info(INSN, 2, 1), // l2f = 137 (0x89)
+    info(INSN, 2, 2), // l2d = 138 (0x8a)
+    info(INSN, 1, 1), // f2i = 139 (0x8b)
+    info(INSN, 1, 2), // f2l = 140 (0x8c)
+    info(INSN, 1, 2), // f2d = 141 (0x8d)
+    info(INSN, 2, 1), // d2i = 142 (0x8e)
+    info(INSN, 2, 2), // d2l = 143 (0x8f)
+    info(INSN, 2, 1), // d2f = 144 (0x90)
+    info(INSN, 1, 1), // i2b = 145 (0x91)
+    info(INSN, 1, 1), // i2c = 146 (0x92)
+    info(INSN, 1, 1), // i2s = 147 (0x93)
+    info(INSN, 4, 1), // lcmp = 148 (0x94)
+    info(INSN, 2, 1), // fcmpl = 149 (0x95)
+    info(INSN, 2, 1), // fcmpg = 150 (0x96)
+    info(INSN, 4, 1), // dcmpl = 151 (0x97)
+    info(INSN, 4, 1), // dcmpg = 152 (0x98)
+    info(JUMP_INSN, 1, 0, BRANCH), // ifeq = 153 (0x99)
+    info(JUMP_INSN, 1, 0, BRANCH), // ifne = 154 (0x9a)
+    info(JUMP_INSN, 1, 0, BRANCH), // iflt = 155 (0x9b)
+    info(JUMP_INSN, 1, 0, BRANCH), // ifge = 156 (0x9c)
+    info(JUMP_INSN, 1, 0, BRANCH), // ifgt = 157 (0x9d)
+    info(JUMP_INSN, 1, 0, BRANCH), // ifle = 158 (0x9e)
+    info(JUMP_INSN, 2, 0, BRANCH), // if_icmpeq = 159 (0x9f)
+    info(JUMP_INSN, 2, 0, BRANCH), // if_icmpne = 160 (0xa0)
+    info(JUMP_INSN, 2, 0, BRANCH), // if_icmplt = 161 (0xa1)
+    info(JUMP_INSN, 2, 0, BRANCH), // if_icmpge = 162 (0xa2)
+    info(JUMP_INSN, 2, 0, BRANCH), // if_icmpgt = 163 (0xa3)
+    info(JUMP_INSN, 2, 0, BRANCH), // if_icmple = 164 (0xa4)
+    info(JUMP_INSN, 2, 0, BRANCH), // if_acmpeq = 165 (0xa5)
+    info(JUMP_INSN, 2, 0, BRANCH), // if_acmpne = 166 (0xa6)
+    info(JUMP_INSN, 0, 0, BRANCH | TERMINATOR), // goto = 167 (0xa7)
+    info(JUMP_INSN, 0, 1, BRANCH), // jsr = 168 (0xa8)
+    info(VAR_INSN, 0, 0, TERMINATOR), // ret = 169 (0xa9)
+    info(TABLESWITCH_INSN, 1, 0, BRANCH | TERMINATOR), // tableswitch = 170 (0xaa)
+    info(LOOKUPSWITCH_INSN, 1, 0, BRANCH | TERMINATOR), // lookupswitch = 171 (0xab)
+    info(INSN, 1, 0, TERMINATOR), // ireturn = 172 (0xac)
+    info(INSN, 2, 0, TERMINATOR), // lreturn = 173 (0xad)
+    info(INSN, 1, 0, TERMINATOR), // freturn = 174 (0xae)
+    info(INSN, 2, 0, TERMINATOR), // dreturn = 175 (0xaf)
+    info(INSN, 1, 0, TERMINATOR), // areturn = 176 (0xb0)
+    info(INSN, 0, 0, TERMINATOR), // return = 177 (0xb1)
+    info(FIELD_INSN, VARIABLE_SIZE, VARIABLE_SIZE), // getstatic = 178 (0xb2)
+    info(FIELD_INSN, VARIABLE_SIZE, VARIABLE_SIZE), // putstatic = 179 (0xb3)
+    info(FIELD_INSN, VARIABLE_SIZE, VARIABLE_SIZE), // getfield = 180 (0xb4)
+    info(FIELD_INSN, VARIABLE_SIZE, VARIABLE_SIZE), // putfield = 181 (0xb5)
+    info(METHOD_INSN, VARIABLE_SIZE, VARIABLE_SIZE), // invokevirtual = 182 (0xb6)
+    info(METHOD_INSN, VARIABLE_SIZE, VARIABLE_SIZE), // invokespecial = 183 (0xb7)
+    info(METHOD_INSN, VARIABLE_SIZE, VARIABLE_SIZE), // invokestatic = 184 (0xb8)
+    info(METHOD_INSN, VARIABLE_SIZE, VARIABLE_SIZE), // invokeinterface = 185 (0xb9)
+    info(INVOKE_DYNAMIC_INSN, VARIABLE_SIZE, VARIABLE_SIZE), // invokedynamic = 186 (0xba)
+    info(TYPE_INSN, 0, 1), // new = 187 (0xbb)
+    info(INT_INSN, 1, 1), // newarray = 188 (0xbc)
+    info(TYPE_INSN, 1, 1), // anewarray = 189 (0xbd)
+    info(INSN, 1, 1), // arraylength = 190 (0xbe)
+    info(INSN, 1, 0, TERMINATOR), // athrow = 191 (0xbf)
+    info(TYPE_INSN, 1, 1), // checkcast = 192 (0xc0)
+    info(TYPE_INSN, 1, 1), // instanceof = 193 (0xc1)
+    info(INSN, 1, 0), // monitorenter = 194 (0xc2)
+    info(INSN, 1, 0), // monitorexit = 195 (0xc3)
+    info(NONE, VARIABLE_SIZE, VARIABLE_SIZE), // wide = 196 (0xc4)
+    info(MULTIANEWARRAY_INSN, VARIABLE_SIZE, 1), // multianewarray = 197 (0xc5)
+    info(JUMP_INSN, 1, 0, BRANCH), // ifnull = 198 (0xc6)
+    info(JUMP_INSN, 1, 0, BRANCH), // ifnonnull = 199 (0xc7)
+    info(NONE, 0, 0, BRANCH | TERMINATOR), // goto_w = 200 (0xc8)
+    info(NONE, 0, 1, BRANCH) // jsr_w = 201 (0xc9)
+  };
+
+  /**
+   * The stack size variation corresponding to each JVM opcode, as returned by {@link
+   * #getStackSizeDelta}. Precomputed from {@link #OPCODE_INFO} because it is used for each
+   * instruction by {@link MethodWriter}.
+   */
+  private static final int[] STACK_SIZE_DELTA = computeStackSizeDeltas();
+
+  private OpcodeMetadata() {}
+
+  /**
+   * Returns the packed information about an opcode.
+   *
+   * @param kind the kind of the instruction.
+   * @param poppedSize the number of stack slots popped by the instruction, or {@link
+   *     #VARIABLE_SIZE}.
+   * @param pushedSize the number of stack slots pushed by the instruction, or {@link
+   *     #VARIABLE_SIZE}.
+   * @return the packed information about this opcode, without flags.
+   */
+  private static int info(final int kind, final int poppedSize, final int pushedSize) {
+    return (kind & KIND_MASK)
+        | (poppedSize & SIZE_MASK) << POPPED_SIZE_SHIFT
+        | (pushedSize & SIZE_MASK) << PUSHED_SIZE_SHIFT;
+  }
+
+  /**
+   * Returns the packed information about an opcode.
+   *
+   * @param kind the kind of the instruction.
+   * @param poppedSize the number of stack slots popped by the instruction, or {@link
+   *     #VARIABLE_SIZE}.
+   * @param pushedSize the number of stack slots pushed by the instruction, or {@link
+   *     #VARIABLE_SIZE}.
+   * @param flags the {@link #BRANCH} and {@link #TERMINATOR} flags of the instruction.
+   * @return the packed information about this opcode.
+   */
+  private static int info(
+      final int kind, final int poppedSize, final int pushedSize, final int flags) {
+    return info(kind, poppedSize, pushedSize) | flags;
+  }
+
+  /**
+   * Computes the {@link #STACK_SIZE_DELTA} array.
+   *
+   * @return the stack size variation corresponding to each JVM opcode.
+   */
+  private static int[] computeStackSizeDeltas() {
+    int[] stackSizeDeltas = new int[OPCODE_INFO.length];
+    for (int opcode = 0; opcode < OPCODE_INFO.length; ++opcode) {
+      int poppedSize = getPoppedSize(opcode);
+      int pushedSize = getPushedSize(opcode);
+      if (poppedSize != VARIABLE_SIZE && pushedSize != VARIABLE_SIZE) {
+        stackSizeDeltas[opcode] = pushedSize - poppedSize;
+      }
+    }
+    return stackSizeDeltas;
+  }
+
+  /**
+   * Returns the kind of the given opcode, i.e. the {@link MethodVisitor} method used to visit the
+   * instructions with this opcode.
+   *
+   * @param opcode a JVM opcode, between {@link Opcodes#NOP} and 201 (JSR_W).
+   * @return {@link #INSN}, {@link #INT_INSN}, {@link #VAR_INSN}, {@link #TYPE_INSN}, {@link
+   *     #FIELD_INSN}, {@link #METHOD_INSN}, {@link #INVOKE_DYNAMIC_INSN}, {@link #JUMP_INSN},
+   *     {@link #LDC_INSN}, {@link #IINC_INSN}, {@link #TABLESWITCH_INSN}, {@link
+   *     #LOOKUPSWITCH_INSN}, {@link #MULTIANEWARRAY_INSN} or {@link #UNSUPPORTED_INSN}. These
+   *     values are the same as the corresponding {@code org.objectweb.asm.tree.AbstractInsnNode}
+   *     types.
+   */
+  public static int getKind(final int opcode) {
+    return (byte) OPCODE_INFO[opcode];
+  }
+
+  /**
+   * Returns the number of stack slots popped by the instructions with the given opcode. Long and
+   * double values use two slots.
+   *
+   * @param opcode a JVM opcode, between {@link Opcodes#NOP} and 201 (JSR_W).
+   * @return the number of stack slots popped by the instructions with this opcode, or {@link
+   *     #VARIABLE_SIZE} if it depends on their operands.
+   */
+  public static int getPoppedSize(final int opcode) {
+    int poppedSize = (OPCODE_INFO[opcode] >>> POPPED_SIZE_SHIFT) & SIZE_MASK;
+    return poppedSize == VARIABLE_SIZE_MASK ? VARIABLE_SIZE : poppedSize;
+  }
+
+  /**
+   * Returns the number of stack slots pushed by the instructions with the given opcode. Long and
+   * double values use two slots.
+   *
+   * @param opcode a JVM opcode, between {@link Opcodes#NOP} and 201 (JSR_W).
+   * @return the number of stack slots pushed by the instructions with this opcode, or {@link
+   *     #VARIABLE_SIZE} if it depends on their operands. This is the case for {@link Opcodes#LDC},
+   *     which is used in ASM for all the constant types, including long and double.
+   */
+  public static int getPushedSize(final int opcode) {
+    int pushedSize = (OPCODE_INFO[opcode] >>> PUSHED_SIZE_SHIFT) & SIZE_MASK;
+    return pushedSize == VARIABLE_SIZE_MASK ? VARIABLE_SIZE : pushedSize;
+  }
+
+  /**
+   * Returns the stack size variation produced by the instructions with the given opcode.
+   *
+   * @param opcode a JVM opcode, between {@link Opcodes#NOP} and 201 (JSR_W).
+   * @return the number of stack slots pushed minus the number of stack slots popped by the
+   *     instructions with this opcode, or 0 if one of them depends on their operands (see {@link
+   *     #getPoppedSize} and {@link #getPushedSize}).
+   */
+  public static int getStackSizeDelta(final int opcode) {
+    return STACK_SIZE_DELTA[opcode];
+  }
+
+  /**
+   * Returns whether the instructions with the given opcode have explicit branch targets. This is
+   * the case of the conditional and unconditional jump instructions (including JSR), and of the
+   * switch instructions.
+   *
+   * @param opcode a JVM opcode, between {@link Opcodes#NOP} and 201 (JSR_W).
+   * @return whether the instructions with this opcode have explicit branch targets.
+   */
+  public static boolean isBranch(final int opcode) {
+    return (OPCODE_INFO[opcode] & BRANCH) != 0;
+  }
+
+  /**
+   * Returns whether the instructions with the given opcode never continue with the next
+   * instruction. This is the case of GOTO, RET, the switch instructions, the return instructions
+   * and ATHROW. JSR is not a terminator, since the execution continues with the next instruction
+   * after the subroutine returns.
+   *
+   * @param opcode a JVM opcode, between {@link Opcodes#NOP} and 201 (JSR_W).
+   * @return whether the instructions with this opcode never continue with the next instruction.
+   */
+  public static boolean isTerminator(final int opcode) {
+    return (OPCODE_INFO[opcode] & TERMINATOR) != 0;
+  }
+}
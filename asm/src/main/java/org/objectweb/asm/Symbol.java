@@ -120,9 +120,6 @@ abstract class Symbol {
    */
   static final int FORWARD_UNINITIALIZED_TYPE_TAG = 130;
 
-  /** The tag value of a merged type entry in the (ASM specific) type table of a class. */
-  static final int MERGED_TYPE_TAG = 131;
-
   // Instance fields.
 
   /**
@@ -190,8 +187,6 @@ abstract class Symbol {
    *   <li>the index of the {@link Label} (in the {@link SymbolTable#labelTable} table) of the NEW
    *       instruction that created an {@link Frame#ITEM_UNINITIALIZED} type for {@link
    *       #FORWARD_UNINITIALIZED_TYPE_TAG} symbols,
-   *   <li>the indices (in the class' type table) of two {@link #TYPE_TAG} source types for {@link
-   *       #MERGED_TYPE_TAG} symbols,
    *   <li>0 for the other types of symbol.
    * </ul>
    */
@@ -209,8 +204,6 @@ abstract class Symbol {
    *       #CONSTANT_INVOKE_DYNAMIC_TAG} symbols,
    *   <li>the index in the InnerClasses_attribute 'classes' array (plus one) corresponding to this
    *       class, for {@link #CONSTANT_CLASS_TAG} symbols,
-   *   <li>the index (in the class' type table) of the merged type of the two source types for
-   *       {@link #MERGED_TYPE_TAG} symbols,
    *   <li>0 for the other types of symbol, or if this field has not been computed yet.
    * </ul>
    */
@@ -65,11 +65,12 @@ final class SymbolTable {
   private int entryCount;
 
   /**
-   * A hash set of all the entries in this SymbolTable (this includes the constant pool entries, the
-   * bootstrap method entries and the type table entries). Each {@link Entry} instance is stored at
-   * the array index given by its hash code modulo the array size. If several entries must be stored
-   * at the same array index, they are linked together via their {@link Entry#next} field. The
-   * factory methods of this class make sure that this table does not contain duplicated entries.
+   * A hash set of all the constant pool entries and bootstrap method entries of this SymbolTable
+   * (the type table entries are stored in {@link #typeEntries}). Each {@link Entry} instance is
+   * stored at the array index given by its hash code modulo the array size. If several entries must
+   * be stored at the same array index, they are linked together via their {@link Entry#next} field.
+   * The factory methods of this class make sure that this table does not contain duplicated
+   * entries.
    */
   private Entry[] entries;
 
@@ -98,6 +99,20 @@ final class SymbolTable {
    */
   private ByteVector bootstrapMethods;
 
+  /**
+   * The value of {@link #constantPoolCount} when this SymbolTable was created with {@link
+   * #SymbolTable(SymbolTable)}, or 0. The constant pool entries whose index is larger than or equal
+   * to this value have been added after this copy was made.
+   */
+  private int copiedConstantPoolCount;
+
+  /**
+   * The value of {@link #bootstrapMethodCount} when this SymbolTable was created with {@link
+   * #SymbolTable(SymbolTable)}, or 0. The bootstrap methods whose index is larger than or equal to
+   * this value have been added after this copy was made.
+   */
+  private int copiedBootstrapMethodCount;
+
   /**
    * The actual number of elements in {@link #typeTable}. These elements are stored from index 0 to
    * typeCount (excluded). The other array entries are empty.
@@ -108,12 +123,39 @@ final class SymbolTable {
    * An ASM specific type table used to temporarily store internal names that will not necessarily
    * be stored in the constant pool. This type table is used by the control flow and data flow
    * analysis algorithm used to compute stack map frames from scratch. This array stores {@link
-   * Symbol#TYPE_TAG}, {@link Symbol#UNINITIALIZED_TYPE_TAG},{@link
-   * Symbol#FORWARD_UNINITIALIZED_TYPE_TAG} and {@link Symbol#MERGED_TYPE_TAG} entries. The type
-   * symbol at index {@code i} has its {@link Symbol#index} equal to {@code i} (and vice versa).
+   * Symbol#TYPE_TAG}, {@link Symbol#UNINITIALIZED_TYPE_TAG} and {@link
+   * Symbol#FORWARD_UNINITIALIZED_TYPE_TAG} entries (merged types are stored separately, in {@link
+   * #mergedTypeKeys}). The type symbol at index {@code i} has its {@link Symbol#index} equal to
+   * {@code i} (and vice versa).
    */
   private Entry[] typeTable;
 
+  /**
+   * A hash set of all the entries in {@link #typeTable}. This hash set has the same structure as
+   * {@link #entries}, but is kept separate from it so that the type lookups done when computing
+   * stack map frames do not need to go through the constant pool entries (and vice versa).
+   */
+  private Entry[] typeEntries;
+
+  /** The number of merged types stored in {@link #mergedTypeKeys}. */
+  private int mergedTypeCount;
+
+  /**
+   * The keys of a hash map from pairs of {@link Symbol#TYPE_TAG} types to the type of their common
+   * super class, used to cache the results of {@link #addMergedType}. Each key contains the type
+   * table indices of the two source types, packed in a long (the smallest index in the low 32
+   * bits), plus one. A 0 key denotes an empty slot. The array size is a power of 2, and collisions
+   * are resolved with linear probing. This avoids allocating an {@link Entry} per merged type.
+   */
+  private long[] mergedTypeKeys;
+
+  /**
+   * The values of the {@link #mergedTypeKeys} hash map. The value associated with the key at index
+   * {@code i} in {@link #mergedTypeKeys} is the type table index of the common super class of the
+   * corresponding types, and is stored at index {@code i} in this array.
+   */
+  private int[] mergedTypeValues;
+
   /**
    * The actual number of {@link LabelEntry} in {@link #labelTable}. These elements are stored from
    * index 0 to labelCount (excluded). The other array entries are empty. These label entries are
@@ -258,6 +300,53 @@ final class SymbolTable {
     }
   }
 
+  /**
+   * Constructs a new SymbolTable for the same ClassWriter as the given SymbolTable, initialized
+   * with a copy of its constant pool and bootstrap methods. The type table is not copied.
+   *
+   * @param symbolTable the SymbolTable whose constant pool and bootstrap methods must be copied.
+   */
+  SymbolTable(final SymbolTable symbolTable) {
+    this.classWriter = symbolTable.classWriter;
+    this.sourceClassReader = symbolTable.sourceClassReader;
+    this.majorVersion = symbolTable.majorVersion;
+    this.className = symbolTable.className;
+    this.entries = new Entry[symbolTable.entries.length];
+    for (int i = 0; i < entries.length; ++i) {
+      Entry entry = symbolTable.entries[i];
+      while (entry != null) {
+        add(
+            new Entry(
+                entry.index,
+                entry.tag,
+                entry.owner,
+                entry.name,
+                entry.value,
+                entry.data,
+                entry.hashCode));
+        entry = entry.next;
+      }
+    }
+    this.constantPoolCount = symbolTable.constantPoolCount;
+    this.constantPool = copy(symbolTable.constantPool);
+    this.bootstrapMethodCount = symbolTable.bootstrapMethodCount;
+    if (symbolTable.bootstrapMethods != null) {
+      this.bootstrapMethods = copy(symbolTable.bootstrapMethods);
+    }
+    this.copiedConstantPoolCount = constantPoolCount;
+    this.copiedBootstrapMethodCount = bootstrapMethodCount;
+  }
+
+  /**
+   * Returns a copy of the given ByteVector.
+   *
+   * @param byteVector a ByteVector.
+   * @return a new ByteVector with the same content as the given one.
+   */
+  private static ByteVector copy(final ByteVector byteVector) {
+    return new ByteVector(byteVector.length).putByteArray(byteVector.data, 0, byteVector.length);
+  }
+
   /**
    * Read the BootstrapMethods 'bootstrap_methods' array binary content and add them as entries of
    * the SymbolTable.
@@ -405,6 +494,230 @@ final class SymbolTable {
     }
   }
 
+  /**
+   * Returns the current number and size of the constant pool entries and bootstrap methods of this
+   * SymbolTable, to remove the symbols added after this call with {@link #removeNewSymbols}.
+   *
+   * @return the constant_pool_count, the constant_pool length in bytes, the number of bootstrap
+   *     methods and the length in bytes of the bootstrap_methods array of this SymbolTable.
+   */
+  int[] getSymbolCounts() {
+    return new int[] {
+      constantPoolCount,
+      constantPool.length,
+      bootstrapMethodCount,
+      bootstrapMethods == null ? 0 : bootstrapMethods.length
+    };
+  }
+
+  /**
+   * Removes the constant pool entries and bootstrap methods which have been added to this
+   * SymbolTable since the given {@link #getSymbolCounts} call. The removed symbols must not be used
+   * anywhere.
+   *
+   * @param symbolCounts a value returned by {@link #getSymbolCounts}.
+   */
+  void removeNewSymbols(final int[] symbolCounts) {
+    if (constantPoolCount == symbolCounts[0] && bootstrapMethodCount == symbolCounts[2]) {
+      return;
+    }
+    for (int i = 0; i < entries.length; ++i) {
+      Entry previousEntry = null;
+      Entry entry = entries[i];
+      while (entry != null) {
+        Entry nextEntry = entry.next;
+        boolean isNewEntry =
+            entry.tag == Symbol.BOOTSTRAP_METHOD_TAG
+                ? entry.index >= symbolCounts[2]
+                : entry.index >= symbolCounts[0];
+        if (isNewEntry) {
+          if (previousEntry == null) {
+            entries[i] = nextEntry;
+          } else {
+            previousEntry.next = nextEntry;
+          }
+          entryCount--;
+        } else {
+          previousEntry = entry;
+        }
+        entry = nextEntry;
+      }
+    }
+    constantPoolCount = symbolCounts[0];
+    constantPool.length = symbolCounts[1];
+    bootstrapMethodCount = symbolCounts[2];
+    if (bootstrapMethods != null) {
+      bootstrapMethods.length = symbolCounts[3];
+    }
+  }
+
+  /**
+   * Returns whether constant pool entries or bootstrap methods have been added to this SymbolTable
+   * since it was created with {@link #SymbolTable(SymbolTable)}.
+   *
+   * @return whether constant pool entries or bootstrap methods have been added to this copy.
+   */
+  boolean hasNewSymbols() {
+    return constantPoolCount != copiedConstantPoolCount
+        || bootstrapMethodCount != copiedBootstrapMethodCount;
+  }
+
+  /**
+   * Adds to this SymbolTable the constant pool entries and bootstrap methods which have been added
+   * to the given copy of it since this copy was made, in the order in which they were added to the
+   * copy. This produces the same constant pool and bootstrap methods as if the symbols added to the
+   * copy had been directly added to this SymbolTable, after the ones which were added to it since
+   * the copy was made.
+   *
+   * @param symbolTable a SymbolTable created with {@link #SymbolTable(SymbolTable)} from this
+   *     SymbolTable, or from a SymbolTable whose constant pool and bootstrap methods are a prefix
+   *     of those of this SymbolTable.
+   */
+  void addNewSymbols(final SymbolTable symbolTable) {
+    // Collect the new constant pool entries and bootstrap methods of the given copy, sorted by
+    // index.
+    int firstNewIndex = symbolTable.copiedConstantPoolCount;
+    int firstNewBootstrapMethod = symbolTable.copiedBootstrapMethodCount;
+    Entry[] newEntries = new Entry[symbolTable.constantPoolCount - firstNewIndex];
+    Entry[] newBootstrapMethods =
+        new Entry[symbolTable.bootstrapMethodCount - firstNewBootstrapMethod];
+    for (Entry firstEntry : symbolTable.entries) {
+      Entry entry = firstEntry;
+      while (entry != null) {
+        if (entry.tag == Symbol.BOOTSTRAP_METHOD_TAG) {
+          if (entry.index >= firstNewBootstrapMethod) {
+            newBootstrapMethods[entry.index - firstNewBootstrapMethod] = entry;
+          }
+        } else if (entry.index >= firstNewIndex) {
+          newEntries[entry.index - firstNewIndex] = entry;
+        }
+        entry = entry.next;
+      }
+    }
+
+    // Add them to this table, in order, and compute the correspondence between the indices in the
+    // copy and the indices in this table (the symbols which were in the copy initially have the
+    // same index in both tables).
+    int[] newIndices = new int[symbolTable.constantPoolCount];
+    for (int i = 0; i < firstNewIndex; ++i) {
+      newIndices[i] = i;
+    }
+    int[] newBootstrapMethodIndices = new int[symbolTable.bootstrapMethodCount];
+    for (int i = 0; i < newBootstrapMethodIndices.length; ++i) {
+      newBootstrapMethodIndices[i] = i < firstNewBootstrapMethod ? i : -1;
+    }
+    for (Entry entry : newEntries) {
+      if (entry != null) {
+        newIndices[entry.index] =
+            addNewSymbol(
+                entry, symbolTable, newBootstrapMethods, newIndices, newBootstrapMethodIndices);
+      }
+    }
+  }
+
+  /**
+   * Adds to this SymbolTable a constant pool entry of a copy of it (see {@link #addNewSymbols}).
+   *
+   * @param entry a constant pool entry of the given copy, which was added to it after the copy was
+   *     made.
+   * @param symbolTable a copy of this SymbolTable.
+   * @param newBootstrapMethods the bootstrap methods added to the copy after it was made, indexed
+   *     by their index minus {@link #copiedBootstrapMethodCount}.
+   * @param newIndices the index in this table of each constant pool entry of the copy whose index
+   *     is smaller than the given entry's index.
+   * @param newBootstrapMethodIndices the index in this table of each bootstrap method of the copy,
+   *     or -1 for the bootstrap methods which have not been added to this table yet.
+   * @return the index of the corresponding constant pool entry in this SymbolTable.
+   */
+  private int addNewSymbol(
+      final Entry entry,
+      final SymbolTable symbolTable,
+      final Entry[] newBootstrapMethods,
+      final int[] newIndices,
+      final int[] newBootstrapMethodIndices) {
+    switch (entry.tag) {
+      case Symbol.CONSTANT_FIELDREF_TAG:
+      case Symbol.CONSTANT_METHODREF_TAG:
+      case Symbol.CONSTANT_INTERFACE_METHODREF_TAG:
+        return addConstantMemberReference(entry.tag, entry.owner, entry.name, entry.value).index;
+      case Symbol.CONSTANT_INTEGER_TAG:
+      case Symbol.CONSTANT_FLOAT_TAG:
+        return addConstantIntegerOrFloat(entry.tag, (int) entry.data).index;
+      case Symbol.CONSTANT_LONG_TAG:
+      case Symbol.CONSTANT_DOUBLE_TAG:
+        return addConstantLongOrDouble(entry.tag, entry.data).index;
+      case Symbol.CONSTANT_NAME_AND_TYPE_TAG:
+        return addConstantNameAndType(entry.name, entry.value);
+      case Symbol.CONSTANT_UTF8_TAG:
+        return addConstantUtf8(entry.value);
+      case Symbol.CONSTANT_METHOD_HANDLE_TAG:
+        int data = (int) entry.data;
+        boolean isInterface = data > 0xFF;
+        return addConstantMethodHandle(
+                isInterface ? data >> 8 : data, entry.owner, entry.name, entry.value, isInterface)
+            .index;
+      case Symbol.CONSTANT_DYNAMIC_TAG:
+      case Symbol.CONSTANT_INVOKE_DYNAMIC_TAG:
+        int bootstrapMethodIndex = (int) entry.data;
+        if (newBootstrapMethodIndices[bootstrapMethodIndex] == -1) {
+          newBootstrapMethodIndices[bootstrapMethodIndex] =
+              addNewBootstrapMethod(
+                  newBootstrapMethods[
+                      bootstrapMethodIndex - symbolTable.copiedBootstrapMethodCount],
+                  symbolTable,
+                  newIndices);
+        }
+        return addConstantDynamicOrInvokeDynamicReference(
+                entry.tag, entry.name, entry.value, newBootstrapMethodIndices[bootstrapMethodIndex])
+            .index;
+      default:
+        return addConstantUtf8Reference(entry.tag, entry.value).index;
+    }
+  }
+
+  /**
+   * Adds to this SymbolTable a bootstrap method of a copy of it (see {@link #addNewSymbols}).
+   *
+   * @param entry a bootstrap method entry of the given copy, which was added to it after the copy
+   *     was made.
+   * @param symbolTable a copy of this SymbolTable.
+   * @param newIndices the index in this table of each constant pool entry of the copy used by the
+   *     given bootstrap method.
+   * @return the index of the corresponding bootstrap method in this SymbolTable.
+   */
+  private int addNewBootstrapMethod(
+      final Entry entry, final SymbolTable symbolTable, final int[] newIndices) {
+    ByteVector bootstrapMethodsAttribute = bootstrapMethods;
+    if (bootstrapMethodsAttribute == null) {
+      bootstrapMethodsAttribute = bootstrapMethods = new ByteVector();
+    }
+    byte[] data = symbolTable.bootstrapMethods.data;
+    int offset = (int) entry.data;
+    int numBootstrapArguments = readUnsignedShort(data, offset + 2);
+    int bootstrapMethodOffset = bootstrapMethodsAttribute.length;
+    bootstrapMethodsAttribute.putShort(newIndices[readUnsignedShort(data, offset)]);
+    bootstrapMethodsAttribute.putShort(numBootstrapArguments);
+    for (int i = 0; i < numBootstrapArguments; ++i) {
+      bootstrapMethodsAttribute.putShort(newIndices[readUnsignedShort(data, offset + 4 + 2 * i)]);
+    }
+    return addBootstrapMethod(
+            bootstrapMethodOffset,
+            bootstrapMethodsAttribute.length - bootstrapMethodOffset,
+            entry.hashCode)
+        .index;
+  }
+
+  /**
+   * Reads an unsigned short value in the given byte array.
+   *
+   * @param data a byte array.
+   * @param offset the start offset of the value to be read in the given array.
+   * @return the read value.
+   */
+  private static int readUnsignedShort(final byte[] data, final int offset) {
+    return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+  }
+
   // -----------------------------------------------------------------------------------------------
   // Generic symbol table entries management.
   // -----------------------------------------------------------------------------------------------
@@ -431,20 +744,7 @@ final class SymbolTable {
    */
   private Entry put(final Entry entry) {
     if (entryCount > (entries.length * 3) / 4) {
-      int currentCapacity = entries.length;
-      int newCapacity = currentCapacity * 2 + 1;
-      Entry[] newEntries = new Entry[newCapacity];
-      for (int i = currentCapacity - 1; i >= 0; --i) {
-        Entry currentEntry = entries[i];
-        while (currentEntry != null) {
-          int newCurrentEntryIndex = currentEntry.hashCode % newCapacity;
-          Entry nextEntry = currentEntry.next;
-          currentEntry.next = newEntries[newCurrentEntryIndex];
-          newEntries[newCurrentEntryIndex] = currentEntry;
-          currentEntry = nextEntry;
-        }
-      }
-      entries = newEntries;
+      entries = resize(entries);
     }
     entryCount++;
     int index = entry.hashCode % entries.length;
@@ -452,6 +752,30 @@ final class SymbolTable {
     return entries[index] = entry;
   }
 
+  /**
+   * Returns a copy of the given hash set of entries, with a larger capacity.
+   *
+   * @param hashSet a hash set of entries, with the structure described in {@link #entries}.
+   * @return a new hash set with the same entries as the given one, but with a larger capacity. The
+   *     {@link Entry#next} fields of the entries are updated accordingly.
+   */
+  private static Entry[] resize(final Entry[] hashSet) {
+    int currentCapacity = hashSet.length;
+    int newCapacity = currentCapacity * 2 + 1;
+    Entry[] newHashSet = new Entry[newCapacity];
+    for (int i = currentCapacity - 1; i >= 0; --i) {
+      Entry currentEntry = hashSet[i];
+      while (currentEntry != null) {
+        int newCurrentEntryIndex = currentEntry.hashCode % newCapacity;
+        Entry nextEntry = currentEntry.next;
+        currentEntry.next = newHashSet[newCurrentEntryIndex];
+        newHashSet[newCurrentEntryIndex] = currentEntry;
+        currentEntry = nextEntry;
+      }
+    }
+    return newHashSet;
+  }
+
   /**
    * Adds the given entry in the {@link #entries} hash set. This method does <i>not</i> check
    * whether {@link #entries} already contains a similar entry or not, and does <i>not</i> resize
@@ -1196,7 +1520,7 @@ final class SymbolTable {
    */
   int addType(final String value) {
     int hashCode = hash(Symbol.TYPE_TAG, value);
-    Entry entry = get(hashCode);
+    Entry entry = getTypeEntry(hashCode);
     while (entry != null) {
       if (entry.tag == Symbol.TYPE_TAG && entry.hashCode == hashCode && entry.value.equals(value)) {
         return entry.index;
@@ -1217,7 +1541,7 @@ final class SymbolTable {
    */
   int addUninitializedType(final String value, final int bytecodeOffset) {
     int hashCode = hash(Symbol.UNINITIALIZED_TYPE_TAG, value, bytecodeOffset);
-    Entry entry = get(hashCode);
+    Entry entry = getTypeEntry(hashCode);
     while (entry != null) {
       if (entry.tag == Symbol.UNINITIALIZED_TYPE_TAG
           && entry.hashCode == hashCode
@@ -1243,7 +1567,7 @@ final class SymbolTable {
   int addForwardUninitializedType(final String value, final Label label) {
     int labelIndex = getOrAddLabelEntry(label).index;
     int hashCode = hash(Symbol.FORWARD_UNINITIALIZED_TYPE_TAG, value, labelIndex);
-    Entry entry = get(hashCode);
+    Entry entry = getTypeEntry(hashCode);
     while (entry != null) {
       if (entry.tag == Symbol.FORWARD_UNINITIALIZED_TYPE_TAG
           && entry.hashCode == hashCode
@@ -1269,44 +1593,101 @@ final class SymbolTable {
    *     corresponding to the common super class of the given types.
    */
   int addMergedType(final int typeTableIndex1, final int typeTableIndex2) {
-    long data =
-        typeTableIndex1 < typeTableIndex2
-            ? typeTableIndex1 | (((long) typeTableIndex2) << 32)
-            : typeTableIndex2 | (((long) typeTableIndex1) << 32);
-    int hashCode = hash(Symbol.MERGED_TYPE_TAG, typeTableIndex1 + typeTableIndex2);
-    Entry entry = get(hashCode);
-    while (entry != null) {
-      if (entry.tag == Symbol.MERGED_TYPE_TAG && entry.hashCode == hashCode && entry.data == data) {
-        return entry.info;
+    long key =
+        (typeTableIndex1 < typeTableIndex2
+                ? typeTableIndex1 | (((long) typeTableIndex2) << 32)
+                : typeTableIndex2 | (((long) typeTableIndex1) << 32))
+            + 1;
+    if (mergedTypeKeys != null) {
+      int mask = mergedTypeKeys.length - 1;
+      int index = hash(key) & mask;
+      while (mergedTypeKeys[index] != 0) {
+        if (mergedTypeKeys[index] == key) {
+          return mergedTypeValues[index];
+        }
+        index = (index + 1) & mask;
       }
-      entry = entry.next;
     }
     String type1 = typeTable[typeTableIndex1].value;
     String type2 = typeTable[typeTableIndex2].value;
     int commonSuperTypeIndex = addType(classWriter.getCommonSuperClass(type1, type2));
-    put(new Entry(typeCount, Symbol.MERGED_TYPE_TAG, data, hashCode)).info = commonSuperTypeIndex;
+    putMergedType(key, commonSuperTypeIndex);
     return commonSuperTypeIndex;
   }
 
   /**
-   * Adds the given type Symbol to {@link #typeTable}.
+   * Puts the given merged type in the {@link #mergedTypeKeys} hash map. This method does <i>not</i>
+   * check whether this hash map already contains the given key or not. The hash map is created or
+   * resized if necessary.
+   *
+   * @param key a key, as described in {@link #mergedTypeKeys}.
+   * @param commonSuperTypeIndex the type table index of the common super class corresponding to
+   *     this key.
+   */
+  private void putMergedType(final long key, final int commonSuperTypeIndex) {
+    if (mergedTypeKeys == null) {
+      mergedTypeKeys = new long[16];
+      mergedTypeValues = new int[16];
+    } else if (mergedTypeCount > (mergedTypeKeys.length * 3) / 4) {
+      long[] oldKeys = mergedTypeKeys;
+      int[] oldValues = mergedTypeValues;
+      mergedTypeKeys = new long[2 * oldKeys.length];
+      mergedTypeValues = new int[2 * oldKeys.length];
+      mergedTypeCount = 0;
+      for (int i = 0; i < oldKeys.length; ++i) {
+        if (oldKeys[i] != 0) {
+          putMergedType(oldKeys[i], oldValues[i]);
+        }
+      }
+    }
+    int mask = mergedTypeKeys.length - 1;
+    int index = hash(key) & mask;
+    while (mergedTypeKeys[index] != 0) {
+      index = (index + 1) & mask;
+    }
+    mergedTypeKeys[index] = key;
+    mergedTypeValues[index] = commonSuperTypeIndex;
+    mergedTypeCount++;
+  }
+
+  /**
+   * Returns the list of type entries which can potentially have the given hash code.
    *
-   * @param entry a {@link Symbol#TYPE_TAG} or {@link Symbol#UNINITIALIZED_TYPE_TAG} type symbol.
-   *     The index of this Symbol must be equal to the current value of {@link #typeCount}.
+   * @param hashCode a {@link Entry#hashCode} value.
+   * @return the list of entries of {@link #typeEntries} which can potentially have the given hash
+   *     code. The list is stored via the {@link Entry#next} field.
+   */
+  private Entry getTypeEntry(final int hashCode) {
+    return typeEntries == null ? null : typeEntries[hashCode % typeEntries.length];
+  }
+
+  /**
+   * Adds the given type Symbol to {@link #typeTable} and {@link #typeEntries}.
+   *
+   * @param entry a {@link Symbol#TYPE_TAG}, {@link Symbol#UNINITIALIZED_TYPE_TAG} or {@link
+   *     Symbol#FORWARD_UNINITIALIZED_TYPE_TAG} type symbol. The index of this Symbol must be equal
+   *     to the current value of {@link #typeCount}.
    * @return the index in {@link #typeTable} where the given type was added, which is also equal to
    *     entry's index by hypothesis.
    */
   private int addTypeInternal(final Entry entry) {
     if (typeTable == null) {
       typeTable = new Entry[16];
+      typeEntries = new Entry[16];
     }
     if (typeCount == typeTable.length) {
       Entry[] newTypeTable = new Entry[2 * typeTable.length];
       System.arraycopy(typeTable, 0, newTypeTable, 0, typeTable.length);
       typeTable = newTypeTable;
     }
+    if (typeCount > (typeEntries.length * 3) / 4) {
+      typeEntries = resize(typeEntries);
+    }
     typeTable[typeCount++] = entry;
-    return put(entry).index;
+    int index = entry.hashCode % typeEntries.length;
+    entry.next = typeEntries[index];
+    typeEntries[index] = entry;
+    return entry.index;
   }
 
   /**
@@ -1370,6 +1751,11 @@ final class SymbolTable {
     return 0x7FFFFFFF & (tag + value);
   }
 
+  private static int hash(final long value) {
+    long hashCode = value * 0x9E3779B97F4A7C15L;
+    return (int) (hashCode ^ (hashCode >>> 32));
+  }
+
   private static int hash(final int tag, final long value) {
     return 0x7FFFFFFF & (tag + (int) value + (int) (value >>> 32));
   }
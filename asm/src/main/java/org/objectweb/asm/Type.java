@@ -398,7 +398,7 @@ public final class Type {
    *     descriptorBuffer.
    * @return the {@link Type} corresponding to the given type descriptor.
    */
-  private static Type getTypeInternal(
+  static Type getTypeInternal(
       final String descriptorBuffer, final int descriptorBegin, final int descriptorEnd) {
     switch (descriptorBuffer.charAt(descriptorBegin)) {
       case 'V':
@@ -0,0 +1,265 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A bounded cache of {@link Type} instances, indexed by type descriptor or internal name. The
+ * {@link Type} instances returned by this cache for the same type are generally identical (they are
+ * not if the cache was cleared in between, see below), which avoids creating many equal {@link
+ * Type} objects, and makes most {@link Type#equals} calls simple identity checks. Primitive types
+ * are not stored in the cache, the {@link Type} constants are used instead.
+ *
+ * <p>This class is thread safe. When the number of cached types reaches the maximum size of the
+ * cache, the cache is cleared before adding a new type. Types must therefore still be compared with
+ * {@link Type#equals}.
+ */
+public final class TypeCache {
+
+  /** The default maximum number of types in a cache. */
+  public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+  /** The maximum number of types in this cache. */
+  private final int maximumSize;
+
+  /**
+   * The cached types. Clearing the cache replaces them with new, empty maps, instead of clearing
+   * maps which might be concurrently updated.
+   */
+  private final AtomicReference<Types> types;
+
+  /** Constructs a new {@link TypeCache} with a maximum size of {@link #DEFAULT_MAXIMUM_SIZE}. */
+  public TypeCache() {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * Constructs a new {@link TypeCache}.
+   *
+   * @param maximumSize the maximum number of types in this cache. Must be strictly positive.
+   */
+  public TypeCache(final int maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("Invalid maximum size: " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+    this.types = new AtomicReference<>(new Types());
+  }
+
+  /**
+   * Returns the {@link Type} corresponding to the given type descriptor. This is equivalent to
+   * {@link Type#getType(String)}, except that the returned value is cached.
+   *
+   * @param typeDescriptor a field or method type descriptor.
+   * @return the {@link Type} corresponding to the given type descriptor.
+   */
+  public Type getType(final String typeDescriptor) {
+    if (typeDescriptor.length() == 1) {
+      // Primitive types are shared constants, and don't need to be cached.
+      return Type.getType(typeDescriptor);
+    }
+    Types currentTypes = getTypes();
+    Type type = currentTypes.typesByDescriptor.get(typeDescriptor);
+    if (type == null) {
+      if (typeDescriptor.charAt(0) == 'L') {
+        // Use the same instance as the one returned by getObjectType, if any.
+        String internalName = typeDescriptor.substring(1, typeDescriptor.length() - 1);
+        type = currentTypes.typesByInternalName.get(internalName);
+        if (type == null) {
+          type =
+              put(
+                  currentTypes,
+                  currentTypes.typesByInternalName,
+                  internalName,
+                  Type.getType(typeDescriptor));
+        }
+      } else {
+        type = Type.getType(typeDescriptor);
+      }
+      type = put(currentTypes, currentTypes.typesByDescriptor, typeDescriptor, type);
+    }
+    return type;
+  }
+
+  /**
+   * Returns the {@link Type} corresponding to the given internal name. This is equivalent to {@link
+   * Type#getObjectType(String)}, except that the returned value is cached.
+   *
+   * @param internalName an internal name (see {@link Type#getInternalName()}).
+   * @return the {@link Type} corresponding to the given internal name.
+   */
+  public Type getObjectType(final String internalName) {
+    if (internalName.charAt(0) == '[') {
+      // The internal name of an array type is its descriptor.
+      return getType(internalName);
+    }
+    Types currentTypes = getTypes();
+    Type type = currentTypes.typesByInternalName.get(internalName);
+    if (type == null) {
+      type =
+          put(
+              currentTypes,
+              currentTypes.typesByInternalName,
+              internalName,
+              Type.getObjectType(internalName));
+    }
+    return type;
+  }
+
+  /**
+   * Returns the {@link Type} of the arrays whose elements have the given type. This is equivalent
+   * to {@code getType("[" + elementType.getDescriptor())}, except that no descriptor is computed
+   * when the array type is already cached.
+   *
+   * @param elementType the type of the array elements. Must not be a method type.
+   * @return the {@link Type} of the arrays whose elements have the given type.
+   */
+  public Type getArrayType(final Type elementType) {
+    Types currentTypes = getTypes();
+    Type type = currentTypes.arrayTypesByElementType.get(elementType);
+    if (type == null) {
+      type =
+          put(
+              currentTypes,
+              currentTypes.arrayTypesByElementType,
+              elementType,
+              getType('[' + elementType.getDescriptor()));
+    }
+    return type;
+  }
+
+  /**
+   * Returns the return {@link Type} of the given method descriptor. This is equivalent to {@link
+   * Type#getReturnType(String)}, except that the returned value is cached.
+   *
+   * @param methodDescriptor a method descriptor.
+   * @return the return {@link Type} of the given method descriptor.
+   */
+  public Type getReturnType(final String methodDescriptor) {
+    Types currentTypes = getTypes();
+    Type type = currentTypes.returnTypesByMethodDescriptor.get(methodDescriptor);
+    if (type == null) {
+      Type returnType = Type.getReturnType(methodDescriptor);
+      if (returnType.getSort() >= Type.ARRAY) {
+        returnType = getType(returnType.getDescriptor());
+      }
+      type =
+          put(
+              currentTypes,
+              currentTypes.returnTypesByMethodDescriptor,
+              methodDescriptor,
+              returnType);
+    }
+    return type;
+  }
+
+  /**
+   * Returns the number of types in this cache.
+   *
+   * @return the number of types in this cache (types obtained with several methods, or with
+   *     different keys, count several times).
+   */
+  public int size() {
+    return types.get().size.get();
+  }
+
+  /** Removes all the types from this cache. */
+  public void clear() {
+    types.set(new Types());
+  }
+
+  /**
+   * Returns the current maps of cached types, after replacing them with new, empty maps if this
+   * cache is full.
+   *
+   * @return the maps where types must be looked up and added.
+   */
+  private Types getTypes() {
+    Types currentTypes = types.get();
+    if (currentTypes.size.get() >= maximumSize) {
+      Types newTypes = new Types();
+      // If another thread already replaced the full maps, use the maps it created instead.
+      currentTypes = types.compareAndSet(currentTypes, newTypes) ? newTypes : types.get();
+    }
+    return currentTypes;
+  }
+
+  /**
+   * Adds a type to one of the maps of the given {@link Types}, unless the map already contains a
+   * type for the given key.
+   *
+   * @param <K> the type of the map keys.
+   * @param currentTypes the maps of cached types containing 'typeMap'.
+   * @param typeMap one of the maps of 'currentTypes'.
+   * @param key a type descriptor, an internal name, a method descriptor or an array element type.
+   * @param type the {@link Type} corresponding to key.
+   * @return the type associated with the given key in the given map, after this method returns.
+   */
+  private static <K> Type put(
+      final Types currentTypes,
+      final ConcurrentHashMap<K, Type> typeMap,
+      final K key,
+      final Type type) {
+    Type previousType = typeMap.putIfAbsent(key, type);
+    if (previousType != null) {
+      return previousType;
+    }
+    currentTypes.size.incrementAndGet();
+    return type;
+  }
+
+  /** The maps of the cached types. */
+  private static final class Types {
+
+    /**
+     * The cached object, array and method types, indexed by descriptor. The values for object types
+     * are identical to the corresponding values in {@link #typesByInternalName}.
+     */
+    final ConcurrentHashMap<String, Type> typesByDescriptor = new ConcurrentHashMap<>();
+
+    /** The cached object types, indexed by internal name. */
+    final ConcurrentHashMap<String, Type> typesByInternalName = new ConcurrentHashMap<>();
+
+    /** The cached array types, indexed by element type. */
+    final ConcurrentHashMap<Type, Type> arrayTypesByElementType = new ConcurrentHashMap<>();
+
+    /** The cached method return types, indexed by method descriptor. */
+    final ConcurrentHashMap<String, Type> returnTypesByMethodDescriptor = new ConcurrentHashMap<>();
+
+    /** The number of values in the above maps. */
+    final AtomicInteger size = new AtomicInteger();
+
+    /** Constructs a new, empty {@link Types}. */
+    Types() {
+      // Nothing to do, the maps are created by the field initializers.
+    }
+  }
+}
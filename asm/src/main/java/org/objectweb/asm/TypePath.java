@@ -74,6 +74,27 @@ public final class TypePath {
     this.typePathOffset = typePathOffset;
   }
 
+  /**
+   * Returns whether this path has the same steps as the given type_path JVMS structure.
+   *
+   * @param container a byte array containing a type_path JVMS structure.
+   * @param offset the offset of the first byte of the type_path structure in container.
+   * @return whether this path has the same steps as the given type_path structure.
+   */
+  boolean hasSameContent(final byte[] container, final int offset) {
+    int length = typePathContainer[typePathOffset];
+    if (container[offset] != length) {
+      return false;
+    }
+    int size = 1 + 2 * (length & 0xFF);
+    for (int i = 1; i < size; ++i) {
+      if (container[offset + i] != typePathContainer[typePathOffset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Returns the length of this path, i.e. its number of steps.
    *
@@ -76,8 +76,7 @@ public class SignatureReader {
       do {
         // The formal type parameter name is everything between offset - 1 and the first ':'.
         int classBoundStartOffset = signature.indexOf(':', offset);
-        signatureVistor.visitFormalTypeParameter(
-            signature.substring(offset - 1, classBoundStartOffset));
+        signatureVistor.visitFormalTypeParameter(signature, offset - 1, classBoundStartOffset);
 
         // If the character after the ':' class bound marker is not the start of a
         // ReferenceTypeSignature, it means the class bound is empty (which is a valid case).
@@ -175,7 +174,7 @@ public class SignatureReader {
       case 'T':
         // Case of TypeVariableSignature, an identifier between 'T' and ';'.
         int endOffset = signature.indexOf(';', offset);
-        signatureVisitor.visitTypeVariable(signature.substring(offset, endOffset));
+        signatureVisitor.visitTypeVariable(signature, offset, endOffset);
         return endOffset + 1;
 
       case 'L':
@@ -193,11 +192,10 @@ public class SignatureReader {
             // or an inner class name. This name may already have been visited it is was followed by
             // type arguments between '<' and '>'. If not, we need to visit it here.
             if (!visited) {
-              String name = signature.substring(start, offset - 1);
               if (inner) {
-                signatureVisitor.visitInnerClassType(name);
+                signatureVisitor.visitInnerClassType(signature, start, offset - 1);
               } else {
-                signatureVisitor.visitClassType(name);
+                signatureVisitor.visitClassType(signature, start, offset - 1);
               }
             }
             // If we reached the end of the ClassTypeSignature return, otherwise start the parsing
@@ -213,11 +211,10 @@ public class SignatureReader {
             // If a '<' is encountered, this means we have fully parsed the main class name or an
             // inner class name, and that we now need to parse TypeArguments. First, we need to
             // visit the parsed class name.
-            String name = signature.substring(start, offset - 1);
             if (inner) {
-              signatureVisitor.visitInnerClassType(name);
+              signatureVisitor.visitInnerClassType(signature, start, offset - 1);
             } else {
-              signatureVisitor.visitClassType(name);
+              signatureVisitor.visitClassType(signature, start, offset - 1);
             }
             visited = true;
             // Now, parse the TypeArgument(s), one at a time.
@@ -91,6 +91,20 @@ public abstract class SignatureVisitor {
    */
   public void visitFormalTypeParameter(final String name) {}
 
+  /**
+   * Visits a formal type parameter whose name is given as a range of characters. The default
+   * implementation calls {@link #visitFormalTypeParameter(String)} with the corresponding
+   * substring. Subclasses can override this method to avoid this allocation.
+   *
+   * @param signature a character sequence containing the name of the formal parameter.
+   * @param startOffset the index of the first character of the name in 'signature'.
+   * @param endOffset the index of the character after the last character of the name.
+   */
+  public void visitFormalTypeParameter(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    visitFormalTypeParameter(signature.subSequence(startOffset, endOffset).toString());
+  }
+
   /**
    * Visits the class bound of the last visited formal type parameter.
    *
@@ -168,6 +182,20 @@ public abstract class SignatureVisitor {
    */
   public void visitTypeVariable(final String name) {}
 
+  /**
+   * Visits a signature corresponding to a type variable, whose name is given as a range of
+   * characters. The default implementation calls {@link #visitTypeVariable(String)} with the
+   * corresponding substring. Subclasses can override this method to avoid this allocation.
+   *
+   * @param signature a character sequence containing the name of the type variable.
+   * @param startOffset the index of the first character of the name in 'signature'.
+   * @param endOffset the index of the character after the last character of the name.
+   */
+  public void visitTypeVariable(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    visitTypeVariable(signature.subSequence(startOffset, endOffset).toString());
+  }
+
   /**
    * Visits a signature corresponding to an array type.
    *
@@ -185,6 +213,21 @@ public abstract class SignatureVisitor {
    */
   public void visitClassType(final String name) {}
 
+  /**
+   * Starts the visit of a signature corresponding to a class or interface type, whose internal name
+   * is given as a range of characters. The default implementation calls {@link
+   * #visitClassType(String)} with the corresponding substring. Subclasses can override this method
+   * to avoid this allocation.
+   *
+   * @param signature a character sequence containing the internal name of the class or interface.
+   * @param startOffset the index of the first character of the name in 'signature'.
+   * @param endOffset the index of the character after the last character of the name.
+   */
+  public void visitClassType(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    visitClassType(signature.subSequence(startOffset, endOffset).toString());
+  }
+
   /**
    * Visits an inner class.
    *
@@ -192,6 +235,20 @@ public abstract class SignatureVisitor {
    */
   public void visitInnerClassType(final String name) {}
 
+  /**
+   * Visits an inner class, whose local name is given as a range of characters. The default
+   * implementation calls {@link #visitInnerClassType(String)} with the corresponding substring.
+   * Subclasses can override this method to avoid this allocation.
+   *
+   * @param signature a character sequence containing the local name of the inner class.
+   * @param startOffset the index of the first character of the name in 'signature'.
+   * @param endOffset the index of the character after the last character of the name.
+   */
+  public void visitInnerClassType(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    visitInnerClassType(signature.subSequence(startOffset, endOffset).toString());
+  }
+
   /** Visits an unbounded type argument of the last visited class or inner class type. */
   public void visitTypeArgument() {}
 
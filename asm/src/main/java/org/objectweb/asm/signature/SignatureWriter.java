@@ -69,6 +69,13 @@ public class SignatureWriter extends SignatureVisitor {
    */
   private int argumentStack = 1;
 
+  /**
+   * Whether the visit methods taking a range of characters can directly append this range to {@link
+   * #stringBuilder}. This is false for subclasses, which might override the visit methods taking a
+   * String, and must therefore still be called with a String.
+   */
+  private final boolean appendRanges;
+
   /** Constructs a new {@link SignatureWriter}. */
   public SignatureWriter() {
     this(new StringBuilder());
@@ -77,6 +84,7 @@ public class SignatureWriter extends SignatureVisitor {
   private SignatureWriter(final StringBuilder stringBuilder) {
     super(/* latest api =*/ Opcodes.ASM9);
     this.stringBuilder = stringBuilder;
+    this.appendRanges = getClass() == SignatureWriter.class;
   }
 
   // -----------------------------------------------------------------------------------------------
@@ -92,6 +100,20 @@ public class SignatureWriter extends SignatureVisitor {
     stringBuilder.append(name).append(':');
   }
 
+  @Override
+  public void visitFormalTypeParameter(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    if (!appendRanges) {
+      super.visitFormalTypeParameter(signature, startOffset, endOffset);
+      return;
+    }
+    if (!hasFormals) {
+      hasFormals = true;
+      stringBuilder.append('<');
+    }
+    stringBuilder.append(signature, startOffset, endOffset).append(':');
+  }
+
   @Override
   public SignatureVisitor visitClassBound() {
     return this;
@@ -150,6 +172,16 @@ public class SignatureWriter extends SignatureVisitor {
     stringBuilder.append('T').append(name).append(';');
   }
 
+  @Override
+  public void visitTypeVariable(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    if (!appendRanges) {
+      super.visitTypeVariable(signature, startOffset, endOffset);
+      return;
+    }
+    stringBuilder.append('T').append(signature, startOffset, endOffset).append(';');
+  }
+
   @Override
   public SignatureVisitor visitArrayType() {
     stringBuilder.append('[');
@@ -164,6 +196,17 @@ public class SignatureWriter extends SignatureVisitor {
     argumentStack <<= 1;
   }
 
+  @Override
+  public void visitClassType(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    if (!appendRanges) {
+      super.visitClassType(signature, startOffset, endOffset);
+      return;
+    }
+    stringBuilder.append('L').append(signature, startOffset, endOffset);
+    argumentStack <<= 1;
+  }
+
   @Override
   public void visitInnerClassType(final String name) {
     endArguments();
@@ -173,6 +216,18 @@ public class SignatureWriter extends SignatureVisitor {
     argumentStack <<= 1;
   }
 
+  @Override
+  public void visitInnerClassType(
+      final CharSequence signature, final int startOffset, final int endOffset) {
+    if (!appendRanges) {
+      super.visitInnerClassType(signature, startOffset, endOffset);
+      return;
+    }
+    endArguments();
+    stringBuilder.append('.').append(signature, startOffset, endOffset);
+    argumentStack <<= 1;
+  }
+
   @Override
   public void visitTypeArgument() {
     // If the top of the stack is 'false', this means we are visiting the first type argument of the
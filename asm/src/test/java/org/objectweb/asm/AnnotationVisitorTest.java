@@ -29,6 +29,7 @@ package org.objectweb.asm;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -70,6 +71,22 @@ class AnnotationVisitorTest extends AsmTest {
     assertSame(delegate, visitor.getDelegate());
   }
 
+  @Test
+  void testVisitElementValuePairs() {
+    AnnotationVisitor delegate =
+        new AnnotationVisitor(Opcodes.ASM4) {
+          @Override
+          public boolean visitElementValuePairs(final ClassReader classReader, final int offset) {
+            return true;
+          }
+        };
+    AnnotationVisitor visitor = new AnnotationVisitor(Opcodes.ASM4, delegate) {};
+
+    boolean visited = visitor.visitElementValuePairs(null, 0);
+
+    assertFalse(visited);
+  }
+
   /**
    * Tests that ClassReader accepts visitor which return null AnnotationVisitor, and that returning
    * null AnnotationVisitor is equivalent to returning an EmptyAnnotationVisitor.
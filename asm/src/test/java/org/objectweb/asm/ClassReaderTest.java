@@ -29,9 +29,12 @@ package org.objectweb.asm;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -41,7 +44,9 @@ import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -610,6 +615,409 @@ class ClassReaderTest extends AsmTest implements Opcodes {
     assertEquals(0, parameterIndex.get());
   }
 
+  @Test
+  void testAccept_skipCodeTypeAnnotations() {
+    ClassReader classReader = new ClassReader(PrecompiledClass.JDK8_ALL_STRUCTURES.getBytes());
+    AtomicInteger methodTypeAnnotationCount = new AtomicInteger();
+    AtomicInteger codeTypeAnnotationCount = new AtomicInteger();
+    ClassVisitor countTypeAnnotationsVisitor =
+        new ClassVisitor(/* latest */ Opcodes.ASM10_EXPERIMENTAL) {
+          @Override
+          public MethodVisitor visitMethod(
+              final int access,
+              final String name,
+              final String descriptor,
+              final String signature,
+              final String[] exceptions) {
+            return new MethodVisitor(api, null) {
+              @Override
+              public AnnotationVisitor visitTypeAnnotation(
+                  final int typeRef,
+                  final TypePath typePath,
+                  final String descriptor,
+                  final boolean visible) {
+                methodTypeAnnotationCount.incrementAndGet();
+                return null;
+              }
+
+              @Override
+              public AnnotationVisitor visitInsnAnnotation(
+                  final int typeRef,
+                  final TypePath typePath,
+                  final String descriptor,
+                  final boolean visible) {
+                codeTypeAnnotationCount.incrementAndGet();
+                return null;
+              }
+
+              @Override
+              public AnnotationVisitor visitTryCatchAnnotation(
+                  final int typeRef,
+                  final TypePath typePath,
+                  final String descriptor,
+                  final boolean visible) {
+                codeTypeAnnotationCount.incrementAndGet();
+                return null;
+              }
+
+              @Override
+              public AnnotationVisitor visitLocalVariableAnnotation(
+                  final int typeRef,
+                  final TypePath typePath,
+                  final Label[] start,
+                  final Label[] end,
+                  final int[] index,
+                  final String descriptor,
+                  final boolean visible) {
+                codeTypeAnnotationCount.incrementAndGet();
+                return null;
+              }
+            };
+          }
+        };
+
+    classReader.accept(countTypeAnnotationsVisitor, 0);
+    int methodTypeAnnotations = methodTypeAnnotationCount.getAndSet(0);
+    int codeTypeAnnotations = codeTypeAnnotationCount.getAndSet(0);
+    classReader.accept(countTypeAnnotationsVisitor, ClassReader.SKIP_CODE_TYPE_ANNOTATIONS);
+
+    assertTrue(methodTypeAnnotations > 0);
+    assertTrue(codeTypeAnnotations > 0);
+    assertEquals(methodTypeAnnotations, methodTypeAnnotationCount.get());
+    assertEquals(0, codeTypeAnnotationCount.get());
+  }
+
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testAccept_skipAnnotations(final PrecompiledClass classParameter, final Api apiParameter) {
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    AnnotationCounter allAnnotationsCounter = new AnnotationCounter();
+    AnnotationCounter annotationCounter = new AnnotationCounter();
+
+    classReader.accept(allAnnotationsCounter, 0);
+    classReader.accept(annotationCounter, ClassReader.SKIP_ANNOTATIONS);
+
+    assertEquals(0, annotationCounter.annotationCount);
+    assertEquals(allAnnotationsCounter.typeAnnotationCount, annotationCounter.typeAnnotationCount);
+  }
+
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testAccept_skipTypeAnnotations(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    AnnotationCounter allAnnotationsCounter = new AnnotationCounter();
+    AnnotationCounter annotationCounter = new AnnotationCounter();
+
+    classReader.accept(allAnnotationsCounter, 0);
+    classReader.accept(annotationCounter, ClassReader.SKIP_TYPE_ANNOTATIONS);
+
+    assertEquals(allAnnotationsCounter.annotationCount, annotationCounter.annotationCount);
+    assertEquals(0, annotationCounter.typeAnnotationCount);
+    if (classParameter == PrecompiledClass.JDK8_ALL_STRUCTURES) {
+      assertTrue(allAnnotationsCounter.typeAnnotationCount > 0);
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testAccept_skipAnnotationsAndTypeAnnotations(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    AnnotationCounter allAnnotationsCounter = new AnnotationCounter();
+    AnnotationCounter annotationCounter = new AnnotationCounter();
+    AnnotationCounter codeTypeAnnotationCounter = new AnnotationCounter();
+
+    classReader.accept(allAnnotationsCounter, 0);
+    classReader.accept(
+        annotationCounter, ClassReader.SKIP_ANNOTATIONS | ClassReader.SKIP_TYPE_ANNOTATIONS);
+    classReader.accept(
+        codeTypeAnnotationCounter,
+        ClassReader.SKIP_ANNOTATIONS | ClassReader.SKIP_CODE_TYPE_ANNOTATIONS);
+
+    assertEquals(0, annotationCounter.annotationCount);
+    assertEquals(0, annotationCounter.typeAnnotationCount);
+    assertEquals(0, codeTypeAnnotationCounter.annotationCount);
+    assertTrue(
+        codeTypeAnnotationCounter.typeAnnotationCount <= allAnnotationsCounter.typeAnnotationCount);
+  }
+
+  @Test
+  void testAccept_sharedTypePaths() {
+    ClassWriter classWriter = new ClassWriter(0);
+    classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "C", null, "java/lang/Object", null);
+    String[] typePaths = {"0;", "[", "0;", "[.", "0;", "[", "*"};
+    for (int i = 0; i < typePaths.length; ++i) {
+      FieldVisitor fieldVisitor =
+          classWriter.visitField(Opcodes.ACC_PUBLIC, "f" + i, "Ljava/util/List;", null, null);
+      fieldVisitor
+          .visitTypeAnnotation(
+              TypeReference.newTypeReference(TypeReference.FIELD).getValue(),
+              TypePath.fromString(typePaths[i]),
+              "LA;",
+              true)
+          .visitEnd();
+      fieldVisitor.visitEnd();
+    }
+    classWriter.visitEnd();
+    ClassReader classReader = new ClassReader(classWriter.toByteArray());
+    TypePath[] readTypePaths = new TypePath[typePaths.length];
+    AtomicInteger fieldIndex = new AtomicInteger();
+    ClassVisitor readTypePathsVisitor =
+        new ClassVisitor(/* latest */ Opcodes.ASM10_EXPERIMENTAL) {
+          @Override
+          public FieldVisitor visitField(
+              final int access,
+              final String name,
+              final String descriptor,
+              final String signature,
+              final Object value) {
+            return new FieldVisitor(api) {
+              @Override
+              public AnnotationVisitor visitTypeAnnotation(
+                  final int typeRef,
+                  final TypePath typePath,
+                  final String descriptor,
+                  final boolean visible) {
+                readTypePaths[fieldIndex.getAndIncrement()] = typePath;
+                return null;
+              }
+            };
+          }
+        };
+
+    classReader.accept(readTypePathsVisitor, 0);
+
+    for (int i = 0; i < typePaths.length; ++i) {
+      assertEquals(typePaths[i], readTypePaths[i].toString());
+      for (int j = 0; j < i; ++j) {
+        assertEquals(
+            typePaths[i].equals(typePaths[j]), readTypePaths[i] == readTypePaths[j], i + "," + j);
+      }
+    }
+  }
+
+  @Test
+  void testAccept_sharedHandlesAndBootstrapMethodArguments() {
+    Handle bootstrapMethod =
+        new Handle(Opcodes.H_INVOKESTATIC, "B", "bsm", "()Ljava/lang/Object;", false);
+    Object[] bootstrapMethodArguments = {bootstrapMethod, Type.getType("()V"), "s"};
+    ClassWriter classWriter = new ClassWriter(0);
+    classWriter.visit(Opcodes.V11, Opcodes.ACC_PUBLIC, "C", null, "java/lang/Object", null);
+    MethodVisitor methodVisitor =
+        classWriter.visitMethod(Opcodes.ACC_STATIC, "m", "()V", null, null);
+    methodVisitor.visitCode();
+    for (int i = 0; i < 2; ++i) {
+      methodVisitor.visitInvokeDynamicInsn(
+          "m" + i, "()V", bootstrapMethod, bootstrapMethodArguments);
+      methodVisitor.visitLdcInsn(
+          new ConstantDynamic("c" + i, "I", bootstrapMethod, bootstrapMethodArguments));
+      methodVisitor.visitInsn(Opcodes.POP);
+    }
+    methodVisitor.visitInsn(Opcodes.RETURN);
+    methodVisitor.visitMaxs(1, 0);
+    methodVisitor.visitEnd();
+    classWriter.visitEnd();
+    ClassReader classReader = new ClassReader(classWriter.toByteArray());
+    List<Handle> readHandles = new ArrayList<>();
+    List<Object[]> readArguments = new ArrayList<>();
+    ClassVisitor readHandlesVisitor =
+        new ClassVisitor(/* latest */ Opcodes.ASM10_EXPERIMENTAL) {
+          @Override
+          public MethodVisitor visitMethod(
+              final int access,
+              final String name,
+              final String descriptor,
+              final String signature,
+              final String[] exceptions) {
+            return new MethodVisitor(api) {
+              @Override
+              public void visitInvokeDynamicInsn(
+                  final String name,
+                  final String descriptor,
+                  final Handle bootstrapMethodHandle,
+                  final Object... bootstrapMethodArguments) {
+                readHandles.add(bootstrapMethodHandle);
+                readHandles.add((Handle) bootstrapMethodArguments[0]);
+                readArguments.add(bootstrapMethodArguments);
+                // Modifying the arguments must not change the arguments of the other instructions.
+                bootstrapMethodArguments[0] = null;
+              }
+
+              @Override
+              public void visitLdcInsn(final Object value) {
+                ConstantDynamic constantDynamic = (ConstantDynamic) value;
+                readHandles.add(constantDynamic.getBootstrapMethod());
+                readHandles.add((Handle) constantDynamic.getBootstrapMethodArgument(0));
+              }
+            };
+          }
+        };
+
+    classReader.accept(readHandlesVisitor, 0);
+
+    assertEquals(8, readHandles.size());
+    for (Handle readHandle : readHandles) {
+      assertEquals(bootstrapMethod, readHandle);
+      assertSame(readHandles.get(0), readHandle);
+    }
+    assertEquals(2, readArguments.size());
+    assertNotSame(readArguments.get(0), readArguments.get(1));
+  }
+
+  @Test
+  void testAcceptCode() {
+    ClassWriter classWriter = new ClassWriter(0);
+    classWriter.visit(Opcodes.V1_8, Opcodes.ACC_ABSTRACT, "C", null, "java/lang/Object", null);
+    classWriter.visitMethod(Opcodes.ACC_ABSTRACT, "m", "()V", null, null).visitEnd();
+    MethodVisitor methodVisitor =
+        classWriter.visitMethod(Opcodes.ACC_STATIC, "m", "(I)V", null, null);
+    methodVisitor.visitCode();
+    methodVisitor.visitInsn(Opcodes.RETURN);
+    methodVisitor.visitMaxs(0, 1);
+    methodVisitor.visitEnd();
+    classWriter.visitEnd();
+    ClassReader classReader = new ClassReader(classWriter.toByteArray());
+    AtomicInteger instructionCount = new AtomicInteger();
+    MethodVisitor countingMethodVisitor =
+        new MethodVisitor(/* latest */ Opcodes.ASM10_EXPERIMENTAL) {
+          @Override
+          public void visitInsn(final int opcode) {
+            instructionCount.incrementAndGet();
+          }
+        };
+
+    boolean hasCode = classReader.acceptCode(countingMethodVisitor, "m", "(I)V", null, 0);
+    boolean hasAbstractMethodCode =
+        classReader.acceptCode(countingMethodVisitor, "m", "()V", null, 0);
+    boolean hasUnknownMethodCode =
+        classReader.acceptCode(countingMethodVisitor, "m", "(J)V", null, 0);
+
+    assertTrue(hasCode);
+    assertFalse(hasAbstractMethodCode);
+    assertFalse(hasUnknownMethodCode);
+    assertEquals(1, instructionCount.get());
+  }
+
+  @Test
+  void testAcceptCode_methodInfoOffset() {
+    ClassWriter classWriter = new ClassWriter(0);
+    classWriter.visit(Opcodes.V1_8, Opcodes.ACC_ABSTRACT, "C", null, "java/lang/Object", null);
+    classWriter.visitMethod(Opcodes.ACC_ABSTRACT, "m", "()V", null, null).visitEnd();
+    MethodVisitor methodVisitor =
+        classWriter.visitMethod(Opcodes.ACC_STATIC, "m", "(I)V", null, null);
+    methodVisitor.visitCode();
+    methodVisitor.visitInsn(Opcodes.RETURN);
+    methodVisitor.visitMaxs(0, 1);
+    methodVisitor.visitEnd();
+    classWriter.visitEnd();
+    ClassReader classReader = new ClassReader(classWriter.toByteArray());
+    List<Integer> opcodes = new ArrayList<>();
+    MethodVisitor opcodeCollector =
+        new MethodVisitor(/* latest */ Opcodes.ASM10_EXPERIMENTAL) {
+          @Override
+          public void visitInsn(final int opcode) {
+            opcodes.add(opcode);
+          }
+        };
+
+    int[] methodInfoOffsets = classReader.getMethodInfoOffsets();
+    boolean hasAbstractMethodCode =
+        classReader.acceptCode(opcodeCollector, methodInfoOffsets[0], null, 0);
+    boolean hasCode = classReader.acceptCode(opcodeCollector, methodInfoOffsets[1], null, 0);
+
+    assertFalse(hasAbstractMethodCode);
+    assertTrue(hasCode);
+    assertEquals(2, methodInfoOffsets.length);
+    assertEquals("m", classReader.readUTF8(methodInfoOffsets[0] + 2, new char[1]));
+    assertEquals("(I)V", classReader.readUTF8(methodInfoOffsets[1] + 4, new char[4]));
+    assertEquals(List.of(Opcodes.RETURN), opcodes);
+  }
+
+  @Test
+  void testCanCopyCode() {
+    ClassReader classReader = new ClassReader(PrecompiledClass.JDK3_ALL_INSTRUCTIONS.getBytes());
+    ClassWriter copyPoolClassWriter = new ClassWriter(classReader, 0);
+    MethodVisitor copyPoolMethodWriter =
+        copyPoolClassWriter.visitMethod(Opcodes.ACC_STATIC, "m", "()V", null, null);
+    MethodVisitor methodWriter =
+        new ClassWriter(0).visitMethod(Opcodes.ACC_STATIC, "m", "()V", null, null);
+    MethodVisitor methodVisitor = new MethodVisitor(/* latest */ Opcodes.ASM10_EXPERIMENTAL) {};
+
+    boolean canCopyCodeInCopyPoolMethodWriter = classReader.canCopyCode(copyPoolMethodWriter);
+    copyPoolMethodWriter.visitCode();
+    copyPoolMethodWriter.visitInsn(Opcodes.RETURN);
+    boolean canCopyCodeAfterVisitInsn = classReader.canCopyCode(copyPoolMethodWriter);
+    boolean canCopyCodeInMethodWriter = classReader.canCopyCode(methodWriter);
+    boolean canCopyCodeInMethodVisitor = classReader.canCopyCode(methodVisitor);
+
+    assertTrue(canCopyCodeInCopyPoolMethodWriter);
+    assertFalse(canCopyCodeAfterVisitInsn);
+    assertFalse(canCopyCodeInMethodWriter);
+    assertFalse(canCopyCodeInMethodVisitor);
+  }
+
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testAccept_codeCounts(final PrecompiledClass classParameter, final Api apiParameter) {
+    ClassReader classReader = new ClassReader(classParameter.getBytes());
+    List<String> countMismatches = new ArrayList<>();
+    ClassVisitor checkCodeCountsVisitor =
+        new ClassVisitor(/* latest */ Opcodes.ASM10_EXPERIMENTAL) {
+          @Override
+          public MethodVisitor visitMethod(
+              final int access,
+              final String name,
+              final String descriptor,
+              final String signature,
+              final String[] exceptions) {
+            return new MethodVisitor(api, null) {
+              private int expectedTryCatchBlockCount;
+              private int expectedLocalVariableCount;
+              private int tryCatchBlockCount;
+              private int localVariableCount;
+
+              @Override
+              public void visitCodeCounts(
+                  final int tryCatchBlockCount, final int localVariableCount) {
+                expectedTryCatchBlockCount = tryCatchBlockCount;
+                expectedLocalVariableCount = localVariableCount;
+              }
+
+              @Override
+              public void visitTryCatchBlock(
+                  final Label start, final Label end, final Label handler, final String type) {
+                ++tryCatchBlockCount;
+              }
+
+              @Override
+              public void visitLocalVariable(
+                  final String name,
+                  final String descriptor,
+                  final String signature,
+                  final Label start,
+                  final Label end,
+                  final int index) {
+                ++localVariableCount;
+              }
+
+              @Override
+              public void visitEnd() {
+                if (tryCatchBlockCount != expectedTryCatchBlockCount
+                    || localVariableCount != expectedLocalVariableCount) {
+                  countMismatches.add(name + descriptor);
+                }
+              }
+            };
+          }
+        };
+
+    classReader.accept(checkCodeCountsVisitor, 0);
+    classReader.accept(checkCodeCountsVisitor, ClassReader.SKIP_DEBUG);
+
+    assertTrue(countMismatches.isEmpty(), countMismatches::toString);
+  }
+
   @Test
   void testAccept_previewClass() {
     byte[] classFile = PrecompiledClass.JDK11_ALL_INSTRUCTIONS.getBytes();
@@ -648,6 +1056,147 @@ class ClassReaderTest extends AsmTest implements Opcodes {
     assertThrows(IllegalArgumentException.class, accept);
   }
 
+  /** A ClassVisitor which counts the visited annotations and type annotations. */
+  private static class AnnotationCounter extends ClassVisitor {
+
+    int annotationCount;
+    int typeAnnotationCount;
+
+    AnnotationCounter() {
+      super(/* latest */ Opcodes.ASM10_EXPERIMENTAL);
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(final String descriptor, final boolean visible) {
+      ++annotationCount;
+      return null;
+    }
+
+    @Override
+    public AnnotationVisitor visitTypeAnnotation(
+        final int typeRef,
+        final TypePath typePath,
+        final String descriptor,
+        final boolean visible) {
+      ++typeAnnotationCount;
+      return null;
+    }
+
+    @Override
+    public RecordComponentVisitor visitRecordComponent(
+        final String name, final String descriptor, final String signature) {
+      return new RecordComponentVisitor(api) {
+        @Override
+        public AnnotationVisitor visitAnnotation(final String descriptor, final boolean visible) {
+          ++annotationCount;
+          return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(
+            final int typeRef,
+            final TypePath typePath,
+            final String descriptor,
+            final boolean visible) {
+          ++typeAnnotationCount;
+          return null;
+        }
+      };
+    }
+
+    @Override
+    public FieldVisitor visitField(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final Object value) {
+      return new FieldVisitor(api) {
+        @Override
+        public AnnotationVisitor visitAnnotation(final String descriptor, final boolean visible) {
+          ++annotationCount;
+          return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(
+            final int typeRef,
+            final TypePath typePath,
+            final String descriptor,
+            final boolean visible) {
+          ++typeAnnotationCount;
+          return null;
+        }
+      };
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final String[] exceptions) {
+      return new MethodVisitor(api) {
+        @Override
+        public AnnotationVisitor visitAnnotation(final String descriptor, final boolean visible) {
+          ++annotationCount;
+          return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitParameterAnnotation(
+            final int parameter, final String descriptor, final boolean visible) {
+          ++annotationCount;
+          return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(
+            final int typeRef,
+            final TypePath typePath,
+            final String descriptor,
+            final boolean visible) {
+          ++typeAnnotationCount;
+          return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitInsnAnnotation(
+            final int typeRef,
+            final TypePath typePath,
+            final String descriptor,
+            final boolean visible) {
+          ++typeAnnotationCount;
+          return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitTryCatchAnnotation(
+            final int typeRef,
+            final TypePath typePath,
+            final String descriptor,
+            final boolean visible) {
+          ++typeAnnotationCount;
+          return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitLocalVariableAnnotation(
+            final int typeRef,
+            final TypePath typePath,
+            final Label[] start,
+            final Label[] end,
+            final int[] index,
+            final String descriptor,
+            final boolean visible) {
+          ++typeAnnotationCount;
+          return null;
+        }
+      };
+    }
+  }
+
   private static class EmptyClassVisitor extends ClassVisitor {
 
     final AnnotationVisitor annotationVisitor =
@@ -28,6 +28,7 @@
 package org.objectweb.asm;
 
 import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -47,6 +48,7 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
 import org.junit.jupiter.api.Test;
@@ -112,7 +114,10 @@ class ClassWriterTest extends AsmTest {
             "firstRecordComponent",
             "lastRecordComponent",
             "firstAttribute",
-            "compute");
+            "compute",
+            "wideForwardJumps",
+            "compactFrames",
+            "removeDeadCode");
     // IMPORTANT: if this fails, update the string list AND update the logic that resets the
     // ClassWriter fields in ClassWriter.toByteArray(), if needed (this logic is used to do a
     // ClassReader->ClassWriter round trip to remove the ASM specific instructions due to large
@@ -606,6 +611,131 @@ class ClassWriterTest extends AsmTest {
     assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
   }
 
+  /**
+   * Tests that a ClassReader -> ClassWriter transform, where the code of each method is visited
+   * with {@link ClassReader#acceptCode}, leaves classes unchanged.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testReadAndWrite_acceptCode(final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassWriter classWriter = new ClassWriter(0);
+
+    classReader.accept(
+        new AcceptCodeAdapter(classReader, classWriter), attributes(), ClassReader.SKIP_CODE);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+  }
+
+  /**
+   * Tests that a ClassReader -> ClassWriter transform, where the code of each method is visited
+   * with {@link ClassReader#acceptCode}, copies this code as is when the copy pool option is used.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testReadAndWrite_acceptCodeAndCopyPool(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    // The COMPUTE_MAXS option is ignored for the copied code, even for methods with non optimal
+    // max stack and max locals values.
+    ClassWriter classWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_MAXS);
+
+    classReader.accept(
+        new AcceptCodeAdapter(classReader, classWriter), attributes(), ClassReader.SKIP_CODE);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+  }
+
+  /**
+   * Tests that a ClassReader -> ClassWriter transform with the LAZY_ANNOTATIONS option leaves
+   * classes unchanged, with or without the copy pool option (the annotation values of the methods
+   * which are not copied as is are copied as is in the latter case).
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testReadAndWrite_lazyAnnotations(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassWriter classWriter = new ClassWriter(0);
+    ClassWriter copyPoolClassWriter = new ClassWriter(classReader, 0);
+
+    classReader.accept(classWriter, attributes(), ClassReader.LAZY_ANNOTATIONS);
+    classReader.accept(
+        new AcceptCodeAdapter(classReader, copyPoolClassWriter),
+        attributes(),
+        ClassReader.SKIP_CODE | ClassReader.LAZY_ANNOTATIONS);
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+    assertEquals(new ClassFile(classFile), new ClassFile(copyPoolClassWriter.toByteArray()));
+  }
+
+  @Test
+  void testMergeMethods_constantPoolNotMerged() {
+    ClassWriter classWriter = newEmptyClassWriter();
+    ClassWriter fork = classWriter.fork();
+    fork.visitMethod(Opcodes.ACC_PUBLIC, "m", "()V", null, null);
+
+    Executable mergeMethods = () -> classWriter.mergeMethods(fork);
+
+    assertThrows(IllegalStateException.class, mergeMethods);
+  }
+
+  /**
+   * Tests that a ClassReader -> ClassWriter transform, where each method is visited in its own fork
+   * of the ClassWriter, produces the same class as without forks.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testReadAndWrite_fork(final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassWriter classWriter = new ClassWriter(0);
+    ClassWriter forkingClassWriter = new ClassWriter(0);
+
+    classReader.accept(classWriter, attributes(), 0);
+    ForkingAdapter forkingAdapter = new ForkingAdapter(forkingClassWriter, forkingClassWriter);
+    classReader.accept(forkingAdapter, attributes(), 0);
+    for (ClassWriter fork : forkingAdapter.forks) {
+      forkingClassWriter.mergeConstantPool(fork);
+    }
+    forkingAdapter = new ForkingAdapter(forkingClassWriter, null);
+    classReader.accept(forkingAdapter, attributes(), 0);
+    for (ClassWriter fork : forkingAdapter.forks) {
+      forkingClassWriter.mergeMethods(fork);
+    }
+
+    assertArrayEquals(classWriter.toByteArray(), forkingClassWriter.toByteArray());
+  }
+
+  /**
+   * Tests that a ClassReader -> ClassWriter transform with the copy pool option, where each method
+   * is visited in its own fork of the ClassWriter, copies the methods as is.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testReadAndWrite_forkAndCopyPool(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassWriter classWriter = new ClassWriter(classReader, 0);
+
+    ForkingAdapter forkingAdapter = new ForkingAdapter(classWriter, classWriter);
+    classReader.accept(forkingAdapter, attributes(), 0);
+    for (ClassWriter fork : forkingAdapter.forks) {
+      classWriter.mergeConstantPool(fork);
+    }
+    forkingAdapter = new ForkingAdapter(classWriter, null);
+    classReader.accept(forkingAdapter, attributes(), 0);
+    for (ClassWriter fork : forkingAdapter.forks) {
+      classWriter.mergeMethods(fork);
+    }
+
+    assertEquals(new ClassFile(classFile), new ClassFile(classWriter.toByteArray()));
+  }
+
   /**
    * Tests that a ClassReader -> ClassWriter transform with the EXPAND_FRAMES option leaves classes
    * unchanged.
@@ -700,6 +830,115 @@ class ClassWriterTest extends AsmTest {
     }
   }
 
+  /**
+   * Tests that classes going through a ClassReader -> ClassWriter transform with the COMPUTE_FRAMES
+   * and WIDE_FORWARD_JUMPS options can be loaded and pass bytecode verification.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testReadAndWrite_computeFramesAndWideForwardJumps(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    assumeFalse(hasJsrOrRetInstructions(classParameter));
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassWriter classWriter =
+        new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.WIDE_FORWARD_JUMPS);
+    classReader.accept(classWriter, attributes(), ClassReader.SKIP_FRAMES);
+
+    byte[] newClassFile = classWriter.toByteArray();
+
+    assertTrue(classWriter.hasFlags(ClassWriter.WIDE_FORWARD_JUMPS));
+    Executable newInstance = () -> new ClassFile(newClassFile).newInstance();
+    if (classParameter.isNotCompatibleWithCurrentJdk()) {
+      assertThrows(UnsupportedClassVersionError.class, newInstance);
+    } else {
+      assertDoesNotThrow(newInstance);
+    }
+  }
+
+  /**
+   * Tests that classes going through a ClassReader -> ClassWriter transform with the COMPACT_FRAMES
+   * option can be loaded, pass bytecode verification, and do not have more frames than before.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testReadAndWrite_compactFrames(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPACT_FRAMES);
+    classReader.accept(classWriter, attributes(), 0);
+
+    byte[] newClassFile = classWriter.toByteArray();
+
+    assertTrue(classWriter.hasFlags(ClassWriter.COMPACT_FRAMES));
+    assertTrue(getFrameCount(newClassFile) <= getFrameCount(classFile));
+    Executable newInstance = () -> new ClassFile(newClassFile).newInstance();
+    if (classParameter.isNotCompatibleWithCurrentJdk()) {
+      assertThrows(UnsupportedClassVersionError.class, newInstance);
+    } else {
+      assertDoesNotThrow(newInstance);
+    }
+  }
+
+  /**
+   * Tests that classes going through a ClassReader -> ClassWriter transform with the COMPUTE_FRAMES
+   * and COMPACT_FRAMES options can be loaded, pass bytecode verification, and do not have more
+   * frames than with the COMPUTE_FRAMES option alone.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testReadAndWrite_computeFramesAndCompactFrames(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    assumeFalse(hasJsrOrRetInstructions(classParameter));
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    ClassWriter compactClassWriter =
+        new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPACT_FRAMES);
+    classReader.accept(classWriter, attributes(), ClassReader.SKIP_FRAMES);
+    classReader.accept(compactClassWriter, attributes(), ClassReader.SKIP_FRAMES);
+
+    byte[] newClassFile = compactClassWriter.toByteArray();
+
+    assertTrue(getFrameCount(newClassFile) <= getFrameCount(classWriter.toByteArray()));
+    Executable newInstance = () -> new ClassFile(newClassFile).newInstance();
+    if (classParameter.isNotCompatibleWithCurrentJdk()) {
+      assertThrows(UnsupportedClassVersionError.class, newInstance);
+    } else {
+      assertDoesNotThrow(newInstance);
+    }
+  }
+
+  /**
+   * Tests that classes going through a ClassReader -> ClassWriter transform with the COMPUTE_FRAMES
+   * and REMOVE_DEAD_CODE options can be loaded, pass bytecode verification, and are not larger than
+   * with the COMPUTE_FRAMES option alone.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_ALL_APIS)
+  void testReadAndWrite_computeFramesAndRemoveDeadCode(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    assumeFalse(hasJsrOrRetInstructions(classParameter));
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    ClassWriter removeDeadCodeClassWriter =
+        new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.REMOVE_DEAD_CODE);
+    classReader.accept(classWriter, attributes(), ClassReader.SKIP_FRAMES);
+    classReader.accept(removeDeadCodeClassWriter, attributes(), ClassReader.SKIP_FRAMES);
+
+    byte[] newClassFile = removeDeadCodeClassWriter.toByteArray();
+
+    assertTrue(newClassFile.length <= classWriter.toByteArray().length);
+    Executable newInstance = () -> new ClassFile(newClassFile).newInstance();
+    if (classParameter.isNotCompatibleWithCurrentJdk()) {
+      assertThrows(UnsupportedClassVersionError.class, newInstance);
+    } else {
+      assertDoesNotThrow(newInstance);
+    }
+  }
+
   /**
    * Tests that classes going through a ClassReader -> ClassWriter transform with the COMPUTE_FRAMES
    * option can be loaded and pass bytecode verification.
@@ -837,10 +1076,101 @@ class ClassWriterTest extends AsmTest {
     return new ClassFile(classWriter.toByteArray()).toString();
   }
 
+  private static int getFrameCount(final byte[] classFile) {
+    int[] frameCount = new int[1];
+    new ClassReader(classFile)
+        .accept(
+            new ClassVisitor(Opcodes.ASM9) {
+              @Override
+              public MethodVisitor visitMethod(
+                  final int access,
+                  final String name,
+                  final String descriptor,
+                  final String signature,
+                  final String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM9) {
+                  @Override
+                  public void visitFrame(
+                      final int type,
+                      final int numLocal,
+                      final Object[] local,
+                      final int numStack,
+                      final Object[] stack) {
+                    frameCount[0]++;
+                  }
+                };
+              }
+            },
+            attributes(),
+            0);
+    return frameCount[0];
+  }
+
   private static Attribute[] attributes() {
     return new Attribute[] {new Comment(), new CodeComment()};
   }
 
+  /**
+   * A ClassVisitor which visits the code of each method with {@link ClassReader#acceptCode}, at the
+   * end of the method.
+   */
+  private static class AcceptCodeAdapter extends ClassVisitor {
+
+    private final ClassReader classReader;
+
+    AcceptCodeAdapter(final ClassReader classReader, final ClassVisitor classVisitor) {
+      super(/* latest */ Opcodes.ASM10_EXPERIMENTAL, classVisitor);
+      this.classReader = classReader;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final String[] exceptions) {
+      return new MethodVisitor(
+          api, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+        @Override
+        public void visitEnd() {
+          boolean hasCode = (access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE)) == 0;
+          assertEquals(
+              hasCode, classReader.acceptCode(getDelegate(), name, descriptor, attributes(), 0));
+          super.visitEnd();
+        }
+      };
+    }
+  }
+
+  /**
+   * A ClassVisitor which visits each method in its own fork of a ClassWriter, and the other class
+   * elements in a given ClassVisitor.
+   */
+  private static class ForkingAdapter extends ClassVisitor {
+
+    private final ClassWriter classWriter;
+
+    final List<ClassWriter> forks = new ArrayList<>();
+
+    ForkingAdapter(final ClassWriter classWriter, final ClassVisitor classVisitor) {
+      super(/* latest */ Opcodes.ASM10_EXPERIMENTAL, classVisitor);
+      this.classWriter = classWriter;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final String[] exceptions) {
+      ClassWriter fork = classWriter.fork();
+      forks.add(fork);
+      return fork.visitMethod(access, name, descriptor, signature, exceptions);
+    }
+  }
+
   private static class DeadCodeInserter extends ClassVisitor {
 
     private String className;
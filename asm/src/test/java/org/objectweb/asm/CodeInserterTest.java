@@ -0,0 +1,546 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.objectweb.asm.test.AsmTest;
+import org.objectweb.asm.test.ClassFile;
+
+/** Unit tests for {@link CodeInserter}. */
+class CodeInserterTest extends AsmTest {
+
+  @Test
+  void testConstructor() {
+    assertThrows(IllegalArgumentException.class, () -> new TestPatcher(0, null));
+  }
+
+  /**
+   * Tests that a ClassReader -> TestPatcher -> ClassWriter transform gives the same result when the
+   * methods are copied and patched, and when they are visited normally.
+   */
+  @ParameterizedTest
+  @MethodSource(ALL_CLASSES_AND_LATEST_API)
+  void testReadAndWrite_copyAndPatch(
+      final PrecompiledClass classParameter, final Api apiParameter) {
+    byte[] classFile = classParameter.getBytes();
+    ClassReader classReader = new ClassReader(classFile);
+    ClassWriter patchingClassWriter = new ClassWriter(classReader, 0);
+    ClassWriter visitingClassWriter = new ClassWriter(0);
+
+    classReader.accept(
+        new NopInserterAdapter(apiParameter.value(), patchingClassWriter, /* visit= */ false),
+        attributes(),
+        0);
+    classReader.accept(
+        new NopInserterAdapter(apiParameter.value(), visitingClassWriter, /* visit= */ true),
+        attributes(),
+        0);
+
+    // The local variable ranges starting at 0 include the inserted code only when copied.
+    assertEquals(
+        new ClassFile(removeLocalVariables(visitingClassWriter.toByteArray())),
+        new ClassFile(removeLocalVariables(patchingClassWriter.toByteArray())));
+  }
+
+  /** Tests that the local variable ranges starting at 0 still start at 0 when patched. */
+  @Test
+  void testReadAndWrite_copyAndPatchLocalVariables() {
+    ClassReader classReader = new ClassReader(newCounterTestClass());
+    ClassWriter classWriter = new ClassWriter(classReader, 0);
+    classReader.accept(new CounterAdapter(classWriter, /* jumpInsn= */ false), 0);
+    Map<Label, Integer> labelOffsets = new HashMap<>();
+    List<String> localVariables = new ArrayList<>();
+
+    new ClassReader(classWriter.toByteArray()) {
+      @Override
+      protected Label readLabel(final int bytecodeOffset, final Label[] labels) {
+        Label label = super.readLabel(bytecodeOffset, labels);
+        labelOffsets.put(label, bytecodeOffset);
+        return label;
+      }
+    }.accept(
+        new ClassVisitor(/* latest */ Opcodes.ASM10_EXPERIMENTAL) {
+          @Override
+          public MethodVisitor visitMethod(
+              final int access,
+              final String name,
+              final String descriptor,
+              final String signature,
+              final String[] exceptions) {
+            return new MethodVisitor(api) {
+              @Override
+              public void visitLocalVariable(
+                  final String name,
+                  final String descriptor,
+                  final String signature,
+                  final Label start,
+                  final Label end,
+                  final int index) {
+                localVariables.add(
+                    name + ":" + labelOffsets.get(start) + "-" + labelOffsets.get(end));
+              }
+            };
+          }
+        },
+        0);
+
+    // 'sum' starts at offset 2, shifted by the 12 bytes inserted at the beginning of the method
+    // (9 bytes padded with NOPs, because the method contains a switch instruction).
+    assertEquals(List.of("n:0-88", "sum:14-88"), localVariables);
+  }
+
+  /**
+   * Tests that the constants used by the inserted code are not added to the constant pool when a
+   * method is visited instead of being copied.
+   */
+  @Test
+  void testReadAndWrite_visitWithoutDryRunConstants() throws Exception {
+    ClassReader classReader = new ClassReader(newCounterTestClass());
+    ClassWriter classWriter = new ClassWriter(classReader, 0);
+
+    classReader.accept(
+        new ClassVisitor(/* latest */ Opcodes.ASM10_EXPERIMENTAL, classWriter) {
+          @Override
+          public MethodVisitor visitMethod(
+              final int access,
+              final String name,
+              final String descriptor,
+              final String signature,
+              final String[] exceptions) {
+            MethodVisitor methodVisitor =
+                super.visitMethod(access, name, descriptor, signature, exceptions);
+            return new CodeInserter(api, methodVisitor) {
+              @Override
+              protected void insertCode(final MethodVisitor methodVisitor, final int opcode) {
+                // Generate code which is not straight line code, so that the method is visited
+                // instead, without any inserted code.
+                methodVisitor.visitLdcInsn("dryRunConstant");
+                methodVisitor.visitInsn(Opcodes.POP);
+                Label label = new Label();
+                methodVisitor.visitJumpInsn(Opcodes.GOTO, label);
+                methodVisitor.visitLabel(label);
+              }
+            };
+          }
+        },
+        0);
+    byte[] classFile = classWriter.toByteArray();
+
+    assertFalse(new String(classFile, StandardCharsets.ISO_8859_1).contains("dryRunConstant"));
+    assertEquals(new ClassFile(newCounterTestClass()), new ClassFile(classFile));
+  }
+
+  /** Tests that patched methods are copied, and that the inserted code is executed. */
+  @Test
+  void testReadAndWrite_copyAndPatchCounters() throws Exception {
+    ClassReader classReader = new ClassReader(newCounterTestClass());
+    ClassWriter classWriter = new ClassWriter(classReader, 0);
+    CounterAdapter counterAdapter = new CounterAdapter(classWriter, /* jumpInsn= */ false);
+
+    classReader.accept(counterAdapter, 0);
+    Object instance = new ClassFile(classWriter.toByteArray()).newInstance();
+
+    assertEquals(0, counterAdapter.visitCodeCount);
+    assertCountersAreExecuted(instance.getClass());
+  }
+
+  /** Tests that methods are visited normally when the inserted code is not straight line code. */
+  @Test
+  void testReadAndWrite_visitWithJumpInsn() throws Exception {
+    ClassReader classReader = new ClassReader(newCounterTestClass());
+    ClassWriter classWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_FRAMES);
+    CounterAdapter counterAdapter = new CounterAdapter(classWriter, /* jumpInsn= */ true);
+
+    classReader.accept(counterAdapter, ClassReader.SKIP_FRAMES);
+    Object instance = new ClassFile(classWriter.toByteArray()).newInstance();
+
+    assertEquals(3, counterAdapter.visitCodeCount);
+    assertCountersAreExecuted(instance.getClass());
+  }
+
+  /** Tests that methods are visited normally when their Code attribute has unknown attributes. */
+  @Test
+  void testReadAndWrite_visitWithCodeAttribute() throws Exception {
+    ClassWriter sourceClassWriter = new ClassWriter(0);
+    new ClassReader(newCounterTestClass())
+        .accept(
+            new ClassVisitor(Opcodes.ASM9, sourceClassWriter) {
+              @Override
+              public MethodVisitor visitMethod(
+                  final int access,
+                  final String name,
+                  final String descriptor,
+                  final String signature,
+                  final String[] exceptions) {
+                return new MethodVisitor(
+                    api, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                  @Override
+                  public void visitMaxs(final int maxStack, final int maxLocals) {
+                    super.visitAttribute(new CodeComment());
+                    super.visitMaxs(maxStack, maxLocals);
+                  }
+                };
+              }
+            },
+            new Attribute[] {new CodeComment()},
+            0);
+    ClassReader classReader = new ClassReader(sourceClassWriter.toByteArray());
+    ClassWriter classWriter = new ClassWriter(classReader, ClassWriter.COMPUTE_MAXS);
+    CounterAdapter counterAdapter = new CounterAdapter(classWriter, /* jumpInsn= */ false);
+
+    classReader.accept(counterAdapter, new Attribute[] {new CodeComment()}, 0);
+    Object instance = new ClassFile(classWriter.toByteArray()).newInstance();
+
+    assertEquals(3, counterAdapter.visitCodeCount);
+    assertCountersAreExecuted(instance.getClass());
+  }
+
+  private static void assertCountersAreExecuted(final Class<?> testClass) throws Exception {
+    // The constructor has been executed once by ClassFile.newInstance().
+    assertEquals(11, testClass.getField("counter").getInt(null));
+    assertEquals(2111, testClass.getMethod("loop", int.class).invoke(null, 5));
+    assertEquals(22, testClass.getField("counter").getInt(null));
+    Method divide = testClass.getMethod("divide", int.class);
+    assertEquals(-1, divide.invoke(null, 0));
+    assertEquals(33, testClass.getField("counter").getInt(null));
+    assertEquals(1, divide.invoke(null, 1));
+    assertEquals(44, testClass.getField("counter").getInt(null));
+    InvocationTargetException exception =
+        assertThrows(InvocationTargetException.class, () -> divide.invoke(null, -1));
+    assertEquals(IllegalArgumentException.class, exception.getCause().getClass());
+    assertEquals(55, testClass.getField("counter").getInt(null));
+  }
+
+  /**
+   * Returns a class with a static 'counter' field and methods with loops, switch instructions,
+   * exception handlers, frames, line numbers and local variables.
+   */
+  private static byte[] newCounterTestClass() {
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "C", null, "java/lang/Object", null);
+    classWriter
+        .visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "counter", "I", null, null)
+        .visitEnd();
+
+    MethodVisitor methodVisitor =
+        classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+    methodVisitor.visitCode();
+    methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+    methodVisitor.visitMethodInsn(
+        Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+    methodVisitor.visitInsn(Opcodes.RETURN);
+    methodVisitor.visitMaxs(0, 0);
+    methodVisitor.visitEnd();
+
+    // static int loop(int n): returns the sum of f(i) for i in [1, n], with f(i) = 10^(i-1) if
+    // i <= 3, or 1000 otherwise.
+    methodVisitor =
+        classWriter.visitMethod(
+            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "loop", "(I)I", null, null);
+    methodVisitor.visitCode();
+    Label start = new Label();
+    Label loop = new Label();
+    Label caseLabel0 = new Label();
+    Label caseLabel1 = new Label();
+    Label caseLabel2 = new Label();
+    Label defaultLabel = new Label();
+    Label next = new Label();
+    Label end = new Label();
+    methodVisitor.visitLabel(start);
+    methodVisitor.visitLineNumber(1, start);
+    methodVisitor.visitInsn(Opcodes.ICONST_0);
+    methodVisitor.visitVarInsn(Opcodes.ISTORE, 1);
+    methodVisitor.visitLabel(loop);
+    methodVisitor.visitLineNumber(2, loop);
+    methodVisitor.visitVarInsn(Opcodes.ILOAD, 0);
+    methodVisitor.visitJumpInsn(Opcodes.IFLE, end);
+    methodVisitor.visitVarInsn(Opcodes.ILOAD, 0);
+    methodVisitor.visitTableSwitchInsn(1, 3, defaultLabel, caseLabel0, caseLabel1, caseLabel2);
+    methodVisitor.visitLabel(caseLabel0);
+    methodVisitor.visitIincInsn(1, 1);
+    methodVisitor.visitJumpInsn(Opcodes.GOTO, next);
+    methodVisitor.visitLabel(caseLabel1);
+    methodVisitor.visitIincInsn(1, 10);
+    methodVisitor.visitJumpInsn(Opcodes.GOTO, next);
+    methodVisitor.visitLabel(caseLabel2);
+    methodVisitor.visitIincInsn(1, 100);
+    methodVisitor.visitJumpInsn(Opcodes.GOTO, next);
+    methodVisitor.visitLabel(defaultLabel);
+    methodVisitor.visitIincInsn(1, 1000);
+    methodVisitor.visitLabel(next);
+    methodVisitor.visitIincInsn(0, -1);
+    methodVisitor.visitJumpInsn(Opcodes.GOTO, loop);
+    methodVisitor.visitLabel(end);
+    methodVisitor.visitLineNumber(3, end);
+    methodVisitor.visitVarInsn(Opcodes.ILOAD, 1);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    Label last = new Label();
+    methodVisitor.visitLabel(last);
+    methodVisitor.visitLocalVariable("n", "I", null, start, last, 0);
+    methodVisitor.visitLocalVariable("sum", "I", null, loop, last, 1);
+    methodVisitor.visitMaxs(0, 0);
+    methodVisitor.visitEnd();
+
+    // static int divide(int n): returns 1 / n, or -1 if n is 0. Throws an exception if n < 0.
+    methodVisitor =
+        classWriter.visitMethod(
+            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "divide", "(I)I", null, null);
+    methodVisitor.visitCode();
+    Label tryStart = new Label();
+    Label tryEnd = new Label();
+    Label handler = new Label();
+    Label positive = new Label();
+    methodVisitor.visitTryCatchBlock(tryStart, tryEnd, handler, "java/lang/ArithmeticException");
+    methodVisitor.visitVarInsn(Opcodes.ILOAD, 0);
+    methodVisitor.visitJumpInsn(Opcodes.IFGE, positive);
+    methodVisitor.visitTypeInsn(Opcodes.NEW, "java/lang/IllegalArgumentException");
+    methodVisitor.visitInsn(Opcodes.DUP);
+    methodVisitor.visitMethodInsn(
+        Opcodes.INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "()V", false);
+    methodVisitor.visitInsn(Opcodes.ATHROW);
+    methodVisitor.visitLabel(positive);
+    methodVisitor.visitLabel(tryStart);
+    methodVisitor.visitInsn(Opcodes.ICONST_1);
+    methodVisitor.visitVarInsn(Opcodes.ILOAD, 0);
+    methodVisitor.visitInsn(Opcodes.IDIV);
+    methodVisitor.visitLabel(tryEnd);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    methodVisitor.visitLabel(handler);
+    methodVisitor.visitInsn(Opcodes.POP);
+    methodVisitor.visitInsn(Opcodes.ICONST_M1);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    methodVisitor.visitMaxs(0, 0);
+    methodVisitor.visitEnd();
+
+    methodVisitor =
+        classWriter.visitMethod(
+            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_NATIVE,
+            "nativeMethod",
+            "()V",
+            null,
+            null);
+    methodVisitor.visitEnd();
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
+
+  private static byte[] removeLocalVariables(final byte[] classFile) {
+    ClassWriter classWriter = new ClassWriter(0);
+    new ClassReader(classFile)
+        .accept(
+            new ClassVisitor(/* latest */ Opcodes.ASM10_EXPERIMENTAL, classWriter) {
+              @Override
+              public MethodVisitor visitMethod(
+                  final int access,
+                  final String name,
+                  final String descriptor,
+                  final String signature,
+                  final String[] exceptions) {
+                return new MethodVisitor(
+                    api, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                  @Override
+                  public void visitLocalVariable(
+                      final String name,
+                      final String descriptor,
+                      final String signature,
+                      final Label start,
+                      final Label end,
+                      final int index) {
+                    // Remove the local variables.
+                  }
+                };
+              }
+            },
+            attributes(),
+            0);
+    return classWriter.toByteArray();
+  }
+
+  private static Attribute[] attributes() {
+    return new Attribute[] {new Comment(), new CodeComment()};
+  }
+
+  /**
+   * A CodeInserter generating the inserted code in {@link #onMethodEnter} and {@link
+   * #onMethodExit}, both when the method is visited and when it is copied.
+   */
+  private static class TestPatcher extends CodeInserter { // NOPMD(TestClassWithoutTestCases)
+
+    TestPatcher(final int api, final MethodVisitor methodVisitor) {
+      super(api, methodVisitor);
+    }
+
+    @Override
+    public void visitCode() {
+      super.visitCode();
+      onMethodEnter();
+    }
+
+    @Override
+    public void visitInsn(final int opcode) {
+      if ((opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN) || opcode == Opcodes.ATHROW) {
+        onMethodExit(opcode);
+      }
+      super.visitInsn(opcode);
+    }
+
+    protected void onMethodEnter() {
+      // Nothing to insert by default.
+    }
+
+    protected void onMethodExit(final int opcode) {
+      // Nothing to insert by default.
+    }
+
+    @Override
+    protected void insertCode(final MethodVisitor methodVisitor, final int opcode) {
+      MethodVisitor delegate = mv;
+      mv = methodVisitor;
+      if (opcode == -1) {
+        onMethodEnter();
+      } else {
+        onMethodExit(opcode);
+      }
+      mv = delegate;
+    }
+  }
+
+  /** A ClassVisitor inserting NOP instructions in all methods. */
+  private static class NopInserterAdapter extends ClassVisitor {
+
+    private final boolean visit;
+
+    NopInserterAdapter(final int api, final ClassVisitor classVisitor, final boolean visit) {
+      super(api, classVisitor);
+      this.visit = visit;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final String[] exceptions) {
+      MethodVisitor methodVisitor =
+          super.visitMethod(access, name, descriptor, signature, exceptions);
+      if (visit) {
+        // Prevent the method from being copied as is.
+        methodVisitor = new MethodVisitor(api, methodVisitor) {};
+      }
+      return new TestPatcher(api, methodVisitor) {
+
+        @Override
+        protected void onMethodEnter() {
+          insertNops();
+        }
+
+        @Override
+        protected void onMethodExit(final int opcode) {
+          insertNops();
+        }
+
+        private void insertNops() {
+          // Insert 4 NOPs, to get the same result with and without copy (the inserted code is
+          // padded to a multiple of 4 bytes in methods with switch instructions, when copied).
+          for (int i = 0; i < 4; ++i) {
+            visitInsn(Opcodes.NOP);
+          }
+        }
+      };
+    }
+  }
+
+  /**
+   * A ClassVisitor incrementing the 'counter' static field by 1 at the beginning of each method,
+   * and by 10 before each xRETURN or ATHROW instruction.
+   */
+  private static class CounterAdapter extends ClassVisitor {
+
+    private final boolean jumpInsn;
+
+    int visitCodeCount;
+
+    CounterAdapter(final ClassVisitor classVisitor, final boolean jumpInsn) {
+      super(Opcodes.ASM9, classVisitor);
+      this.jumpInsn = jumpInsn;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final String[] exceptions) {
+      MethodVisitor methodVisitor =
+          super.visitMethod(access, name, descriptor, signature, exceptions);
+      return new TestPatcher(api, methodVisitor) {
+
+        @Override
+        protected void onMethodEnter() {
+          // The inserted code is sent to another visitor when the method is copied and patched.
+          if (getDelegate() == methodVisitor) {
+            visitCodeCount++;
+          }
+          incrementCounter(1);
+          if (jumpInsn) {
+            Label label = new Label();
+            visitJumpInsn(Opcodes.GOTO, label);
+            visitLabel(label);
+          }
+        }
+
+        @Override
+        protected void onMethodExit(final int opcode) {
+          incrementCounter(10);
+        }
+
+        private void incrementCounter(final int increment) {
+          visitFieldInsn(Opcodes.GETSTATIC, "C", "counter", "I");
+          visitIntInsn(Opcodes.BIPUSH, increment);
+          visitInsn(Opcodes.IADD);
+          visitFieldInsn(Opcodes.PUTSTATIC, "C", "counter", "I");
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,149 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/** Unit tests for {@link DescriptorCursor}. */
+class DescriptorCursorTest {
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "(IZBCSDFJLI;LV;Ljava/lang/Object;[I[LI;[[Ljava/lang/Object;[J)V",
+        "()I",
+        "()J",
+        "()LI;",
+        "()Ljava/lang/Object;",
+        "()[I",
+        "()[LI;",
+        "()[[Ljava/lang/Object;"
+      })
+  void testNextArgument(final String methodDescriptor) {
+    DescriptorCursor descriptorCursor = new DescriptorCursor(methodDescriptor);
+    Type[] argumentTypes = Type.getArgumentTypes(methodDescriptor);
+    int previousArgumentsSize = 0;
+
+    for (Type argumentType : argumentTypes) {
+      assertTrue(descriptorCursor.nextArgument());
+      assertFalse(descriptorCursor.isReturnType());
+      assertCursorOn(argumentType, descriptorCursor);
+      assertEquals(previousArgumentsSize, descriptorCursor.getPreviousArgumentsSize());
+      previousArgumentsSize += argumentType.getSize();
+    }
+    assertFalse(descriptorCursor.nextArgument());
+    assertFalse(descriptorCursor.nextArgument());
+
+    assertTrue(descriptorCursor.isReturnType());
+    assertEquals(methodDescriptor, descriptorCursor.getDescriptor());
+    assertEquals(argumentTypes.length, descriptorCursor.getArgumentIndex());
+    assertEquals(
+        (Type.getArgumentsAndReturnSizes(methodDescriptor) >> 2) - 1,
+        descriptorCursor.getPreviousArgumentsSize());
+    assertCursorOn(Type.getReturnType(methodDescriptor), descriptorCursor);
+  }
+
+  @Test
+  void testReset() {
+    DescriptorCursor descriptorCursor = new DescriptorCursor();
+    descriptorCursor.reset("(JI)V");
+    descriptorCursor.nextArgument();
+    descriptorCursor.nextArgument();
+    descriptorCursor.nextArgument();
+
+    descriptorCursor.reset("(Ljava/lang/String;)[I");
+
+    assertTrue(descriptorCursor.nextArgument());
+    assertEquals(0, descriptorCursor.getArgumentIndex());
+    assertEquals(0, descriptorCursor.getPreviousArgumentsSize());
+    assertEquals(Type.OBJECT, descriptorCursor.getSort());
+    assertFalse(descriptorCursor.nextArgument());
+    assertEquals(Type.ARRAY, descriptorCursor.getSort());
+    assertEquals(Type.INT, descriptorCursor.getElementSort());
+  }
+
+  @Test
+  void testNextArgument_invalidMethodDescriptor() {
+    DescriptorCursor descriptorCursor = new DescriptorCursor("(Ljava/lang/String");
+    Executable nextArgument =
+        () -> {
+          while (descriptorCursor.nextArgument()) {
+            descriptorCursor.getSort();
+          }
+        };
+
+    assertTimeoutPreemptively(
+        Duration.ofMillis(100), () -> assertThrows(RuntimeException.class, nextArgument));
+  }
+
+  @Test
+  void testNextArgument_invalidArgumentDescriptor() {
+    DescriptorCursor descriptorCursor = new DescriptorCursor("(Ljava/lang/String;-)V");
+    descriptorCursor.nextArgument();
+
+    Executable nextArgument = () -> descriptorCursor.nextArgument();
+
+    IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, nextArgument);
+    assertEquals("Invalid descriptor: (Ljava/lang/String;-)V", exception.getMessage());
+  }
+
+  private static void assertCursorOn(final Type type, final DescriptorCursor descriptorCursor) {
+    String descriptor = descriptorCursor.getDescriptor();
+    assertEquals(type, descriptorCursor.getType());
+    assertEquals(type.getSort(), descriptorCursor.getSort());
+    assertEquals(type.getSize(), descriptorCursor.getSize());
+    assertEquals(
+        type.getDescriptor(),
+        descriptor.substring(descriptorCursor.getBeginOffset(), descriptorCursor.getEndOffset()));
+    if (type.getSort() == Type.ARRAY) {
+      assertEquals(type.getDimensions(), descriptorCursor.getDimensions());
+      assertEquals(type.getElementType().getSort(), descriptorCursor.getElementSort());
+    } else {
+      assertEquals(0, descriptorCursor.getDimensions());
+      assertEquals(type.getSort(), descriptorCursor.getElementSort());
+    }
+    if (descriptorCursor.getElementSort() == Type.OBJECT) {
+      Type elementType = type.getSort() == Type.ARRAY ? type.getElementType() : type;
+      assertEquals(
+          elementType.getInternalName(),
+          descriptor.substring(
+              descriptorCursor.getInternalNameBeginOffset(),
+              descriptorCursor.getInternalNameEndOffset()));
+    }
+  }
+}
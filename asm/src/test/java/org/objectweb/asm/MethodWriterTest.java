@@ -28,13 +28,20 @@
 package org.objectweb.asm;
 
 import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.objectweb.asm.test.ClassFile;
 
 /**
  * Unit tests for {@link MethodWriter}.
@@ -129,4 +136,475 @@ class MethodWriterTest {
           classWriter.toByteArray();
         });
   }
+
+  @Test
+  void testVisitJumpInsn_largeForwardJumps() {
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    MethodWriter methodWriter = visitClassWithLargeForwardJumps(classWriter);
+
+    byte[] classFile = classWriter.toByteArray();
+
+    assertTrue(methodWriter.hasAsmInstructions());
+    Executable newInstance = () -> new ClassFile(classFile).newInstance();
+    assertDoesNotThrow(newInstance);
+  }
+
+  @Test
+  void testVisitJumpInsn_largeForwardJumpsWithWideForwardJumps() {
+    ClassWriter classWriter =
+        new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.WIDE_FORWARD_JUMPS);
+    MethodWriter methodWriter = visitClassWithLargeForwardJumps(classWriter);
+
+    byte[] classFile = classWriter.toByteArray();
+
+    assertFalse(methodWriter.hasAsmInstructions());
+    Executable newInstance = () -> new ClassFile(classFile).newInstance();
+    assertDoesNotThrow(newInstance);
+  }
+
+  @Test
+  void testVisitJumpInsn_wideForwardJumpsWithoutComputeFrames() {
+    ClassWriter classWriter = new ClassWriter(ClassWriter.WIDE_FORWARD_JUMPS);
+    MethodWriter methodWriter = visitClassWithLargeForwardJumps(classWriter);
+
+    byte[] classFile = classWriter.toByteArray();
+
+    // The forward IFNE can't be replaced with IFEQ GOTO_W without computing frames.
+    assertTrue(methodWriter.hasAsmInstructions());
+    Executable newInstance = () -> new ClassFile(classFile).newInstance();
+    assertDoesNotThrow(newInstance);
+  }
+
+  @Test
+  void testVisitFrame_compactFrames() {
+    ClassWriter classWriter = new ClassWriter(0);
+    ClassWriter compactClassWriter = new ClassWriter(ClassWriter.COMPACT_FRAMES);
+
+    byte[] classFile = visitClassWithRedundantFrames(classWriter);
+    byte[] compactClassFile = visitClassWithRedundantFrames(compactClassWriter);
+
+    assertEquals(3, getFrameCount(classFile));
+    assertEquals(1, getFrameCount(compactClassFile));
+    Executable newInstance = () -> new ClassFile(compactClassFile).newInstance();
+    assertDoesNotThrow(newInstance);
+  }
+
+  @Test
+  void testComputeAllFrames_compactFramesWithUnreachableCode() {
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    ClassWriter compactClassWriter =
+        new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPACT_FRAMES);
+
+    byte[] classFile = visitClassWithUnreachableCode(classWriter);
+    byte[] compactClassFile = visitClassWithUnreachableCode(compactClassWriter);
+
+    assertEquals(2, getFrameCount(classFile));
+    assertEquals(1, getFrameCount(compactClassFile));
+    Executable newInstance = () -> new ClassFile(compactClassFile).newInstance();
+    assertDoesNotThrow(newInstance);
+  }
+
+  @Test
+  void testComputeAllFrames_removeDeadCode() {
+    ClassWriter classWriter =
+        new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.REMOVE_DEAD_CODE);
+
+    byte[] classFile = visitClassWithDeadCode(classWriter);
+
+    CodeCollector codeCollector = collectCode(classFile, "m");
+    assertEquals(
+        Arrays.asList(
+            Opcodes.ICONST_1,
+            Opcodes.IRETURN,
+            Opcodes.ICONST_0,
+            Opcodes.IRETURN,
+            Opcodes.POP,
+            Opcodes.ICONST_M1,
+            Opcodes.IRETURN),
+        codeCollector.opcodes);
+    assertEquals(2, codeCollector.tryCatchBlockCount);
+    assertEquals(2, codeCollector.localVariableCount);
+    assertEquals(Arrays.asList(1, 3, 4), codeCollector.lineNumbers);
+    assertEquals(2, getFrameCount(classFile));
+    Executable newInstance = () -> new ClassFile(classFile).newInstance();
+    assertDoesNotThrow(newInstance);
+  }
+
+  @Test
+  void testComputeAllFrames_removeDeadCodeWithoutRemoveDeadCodeFlag() {
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+
+    byte[] classFile = visitClassWithDeadCode(classWriter);
+
+    CodeCollector codeCollector = collectCode(classFile, "m");
+    assertTrue(codeCollector.opcodes.contains(Opcodes.ATHROW));
+    assertEquals(2, codeCollector.tryCatchBlockCount);
+    assertEquals(3, codeCollector.localVariableCount);
+  }
+
+  @Test
+  void testComputeAllFrames_removeDeadCodeWithSwitch() {
+    ClassWriter classWriter =
+        new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.REMOVE_DEAD_CODE);
+
+    byte[] classFile = visitClassWithDeadCodeAndSwitch(classWriter);
+
+    CodeCollector codeCollector = collectCode(classFile, "m");
+    assertEquals(
+        Arrays.asList(
+            Opcodes.ICONST_1,
+            Opcodes.IRETURN,
+            Opcodes.NOP,
+            Opcodes.ATHROW,
+            Opcodes.ICONST_0,
+            Opcodes.IRETURN),
+        codeCollector.opcodes);
+    Executable newInstance = () -> new ClassFile(classFile).newInstance();
+    assertDoesNotThrow(newInstance);
+  }
+
+  @Test
+  void testComputeAllFrames_removeDeadCodeWithUninitializedType() {
+    ClassWriter classWriter =
+        new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.REMOVE_DEAD_CODE);
+
+    byte[] classFile = visitClassWithDeadCodeAndUninitializedType(classWriter);
+
+    CodeCollector codeCollector = collectCode(classFile, "m");
+    assertEquals(
+        Arrays.asList(Opcodes.DUP, Opcodes.ICONST_1, Opcodes.ICONST_0, Opcodes.ARETURN),
+        codeCollector.opcodes);
+    Executable newInstance = () -> new ClassFile(classFile).newInstance();
+    assertDoesNotThrow(newInstance);
+  }
+
+  /**
+   * Visits a class with a method containing an unreachable basic block inside an exception handler
+   * range, with line numbers and local variables, and returns its content.
+   *
+   * @param classWriter the class writer to use.
+   * @return the content of the class.
+   */
+  private static byte[] visitClassWithDeadCode(final ClassWriter classWriter) {
+    visitClassWithDefaultConstructor(classWriter);
+    MethodVisitor methodVisitor =
+        classWriter.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m", "(I)I", null, null);
+    Label label0 = new Label();
+    Label label1 = new Label();
+    Label label2 = new Label();
+    Label label3 = new Label();
+    Label label4 = new Label();
+    Label label5 = new Label();
+    Label label6 = new Label();
+    methodVisitor.visitCode();
+    methodVisitor.visitTryCatchBlock(label1, label4, label5, "java/lang/Exception");
+    methodVisitor.visitLabel(label0);
+    methodVisitor.visitLineNumber(1, label0);
+    methodVisitor.visitVarInsn(Opcodes.ILOAD, 0);
+    methodVisitor.visitJumpInsn(Opcodes.IFEQ, label3);
+    methodVisitor.visitLabel(label1);
+    methodVisitor.visitInsn(Opcodes.ICONST_1);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    methodVisitor.visitLabel(label2);
+    methodVisitor.visitLineNumber(2, label2);
+    methodVisitor.visitIntInsn(Opcodes.SIPUSH, 1000);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    methodVisitor.visitLabel(label3);
+    methodVisitor.visitLineNumber(3, label3);
+    methodVisitor.visitInsn(Opcodes.ICONST_0);
+    methodVisitor.visitLabel(label4);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    methodVisitor.visitLabel(label5);
+    methodVisitor.visitLineNumber(4, label5);
+    methodVisitor.visitInsn(Opcodes.POP);
+    methodVisitor.visitInsn(Opcodes.ICONST_M1);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    methodVisitor.visitLabel(label6);
+    methodVisitor.visitLocalVariable("p", "I", null, label0, label6, 0);
+    methodVisitor.visitLocalVariable(
+        "l", "Ljava/util/List;", "Ljava/util/List<*>;", label0, label6, 1);
+    methodVisitor.visitLocalVariable("x", "I", null, label2, label3, 2);
+    methodVisitor.visitMaxs(0, 0);
+    methodVisitor.visitEnd();
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
+
+  /**
+   * Visits a class with a method containing a TABLESWITCH instruction and an unreachable basic
+   * block of 6 bytes, and returns its content.
+   *
+   * @param classWriter the class writer to use.
+   * @return the content of the class.
+   */
+  private static byte[] visitClassWithDeadCodeAndSwitch(final ClassWriter classWriter) {
+    visitClassWithDefaultConstructor(classWriter);
+    MethodVisitor methodVisitor =
+        classWriter.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m", "(I)I", null, null);
+    Label label1 = new Label();
+    Label label2 = new Label();
+    methodVisitor.visitCode();
+    methodVisitor.visitVarInsn(Opcodes.ILOAD, 0);
+    methodVisitor.visitTableSwitchInsn(0, 0, label2, label1);
+    methodVisitor.visitLabel(label1);
+    methodVisitor.visitInsn(Opcodes.ICONST_1);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    methodVisitor.visitIntInsn(Opcodes.SIPUSH, 1000);
+    methodVisitor.visitInsn(Opcodes.POP);
+    methodVisitor.visitInsn(Opcodes.ICONST_2);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    methodVisitor.visitLabel(label2);
+    methodVisitor.visitInsn(Opcodes.ICONST_0);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    methodVisitor.visitMaxs(0, 0);
+    methodVisitor.visitEnd();
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
+
+  /**
+   * Visits a class with a method containing unreachable code before a NEW instruction whose
+   * uninitialized value is in a stack map frame, and returns its content.
+   *
+   * @param classWriter the class writer to use.
+   * @return the content of the class.
+   */
+  private static byte[] visitClassWithDeadCodeAndUninitializedType(final ClassWriter classWriter) {
+    visitClassWithDefaultConstructor(classWriter);
+    MethodVisitor methodVisitor =
+        classWriter.visitMethod(
+            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m", "(I)Ljava/lang/Object;", null, null);
+    final Label label1 = new Label();
+    final Label label2 = new Label();
+    final Label label3 = new Label();
+    methodVisitor.visitCode();
+    methodVisitor.visitJumpInsn(Opcodes.GOTO, label1);
+    for (int i = 0; i < 4; ++i) {
+      methodVisitor.visitInsn(Opcodes.ICONST_0);
+      methodVisitor.visitInsn(Opcodes.POP);
+    }
+    methodVisitor.visitLabel(label1);
+    methodVisitor.visitTypeInsn(Opcodes.NEW, "java/lang/Integer");
+    methodVisitor.visitInsn(Opcodes.DUP);
+    methodVisitor.visitVarInsn(Opcodes.ILOAD, 0);
+    methodVisitor.visitJumpInsn(Opcodes.IFEQ, label2);
+    methodVisitor.visitInsn(Opcodes.ICONST_1);
+    methodVisitor.visitJumpInsn(Opcodes.GOTO, label3);
+    methodVisitor.visitLabel(label2);
+    methodVisitor.visitInsn(Opcodes.ICONST_0);
+    methodVisitor.visitLabel(label3);
+    methodVisitor.visitMethodInsn(
+        Opcodes.INVOKESPECIAL, "java/lang/Integer", "<init>", "(I)V", false);
+    methodVisitor.visitInsn(Opcodes.ARETURN);
+    methodVisitor.visitMaxs(0, 0);
+    methodVisitor.visitEnd();
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
+
+  private static CodeCollector collectCode(final byte[] classFile, final String methodName) {
+    CodeCollector codeCollector = new CodeCollector();
+    new ClassReader(classFile)
+        .accept(
+            new ClassVisitor(Opcodes.ASM9) {
+              @Override
+              public MethodVisitor visitMethod(
+                  final int access,
+                  final String name,
+                  final String descriptor,
+                  final String signature,
+                  final String[] exceptions) {
+                return name.equals(methodName) ? codeCollector : null;
+              }
+            },
+            0);
+    return codeCollector;
+  }
+
+  /**
+   * Visits a class with a method containing frames which are not required (at instructions which
+   * are not jump targets and do not follow an unconditional jump), and returns its content.
+   *
+   * @param classWriter the class writer to use.
+   * @return the content of the class.
+   */
+  private static byte[] visitClassWithRedundantFrames(final ClassWriter classWriter) {
+    visitClassWithDefaultConstructor(classWriter);
+    MethodVisitor methodVisitor =
+        classWriter.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m", "(I)I", null, null);
+    Label label0 = new Label();
+    Label label1 = new Label();
+    Label label2 = new Label();
+    methodVisitor.visitCode();
+    methodVisitor.visitVarInsn(Opcodes.ILOAD, 0);
+    methodVisitor.visitLabel(label0);
+    methodVisitor.visitFrame(Opcodes.F_SAME1, 0, null, 1, new Object[] {Opcodes.INTEGER});
+    methodVisitor.visitVarInsn(Opcodes.ISTORE, 1);
+    methodVisitor.visitLabel(label1);
+    methodVisitor.visitFrame(Opcodes.F_APPEND, 1, new Object[] {Opcodes.INTEGER}, 0, null);
+    methodVisitor.visitVarInsn(Opcodes.ILOAD, 1);
+    methodVisitor.visitJumpInsn(Opcodes.IFEQ, label2);
+    methodVisitor.visitInsn(Opcodes.ICONST_1);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    methodVisitor.visitLabel(label2);
+    methodVisitor.visitFrame(
+        Opcodes.F_FULL, 3, new Object[] {Opcodes.INTEGER, Opcodes.INTEGER, Opcodes.TOP}, 0, null);
+    methodVisitor.visitInsn(Opcodes.ICONST_0);
+    methodVisitor.visitInsn(Opcodes.IRETURN);
+    methodVisitor.visitMaxs(1, 3);
+    methodVisitor.visitEnd();
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
+
+  /**
+   * Visits a class with a method containing two consecutive unreachable basic blocks, and returns
+   * its content.
+   *
+   * @param classWriter the class writer to use.
+   * @return the content of the class.
+   */
+  private static byte[] visitClassWithUnreachableCode(final ClassWriter classWriter) {
+    visitClassWithDefaultConstructor(classWriter);
+    MethodVisitor methodVisitor =
+        classWriter.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m", "()V", null, null);
+    Label label1 = new Label();
+    Label label2 = new Label();
+    methodVisitor.visitCode();
+    methodVisitor.visitInsn(Opcodes.RETURN);
+    methodVisitor.visitLabel(label1);
+    methodVisitor.visitJumpInsn(Opcodes.GOTO, label2);
+    methodVisitor.visitLabel(label2);
+    methodVisitor.visitInsn(Opcodes.RETURN);
+    methodVisitor.visitMaxs(0, 0);
+    methodVisitor.visitEnd();
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
+
+  private static void visitClassWithDefaultConstructor(final ClassWriter classWriter) {
+    classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "C", null, "java/lang/Object", null);
+    MethodVisitor methodVisitor =
+        classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+    methodVisitor.visitCode();
+    methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+    methodVisitor.visitMethodInsn(
+        Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", /* isInterface= */ false);
+    methodVisitor.visitInsn(Opcodes.RETURN);
+    methodVisitor.visitMaxs(1, 1);
+    methodVisitor.visitEnd();
+  }
+
+  private static int getFrameCount(final byte[] classFile) {
+    int[] frameCount = new int[1];
+    new ClassReader(classFile)
+        .accept(
+            new ClassVisitor(Opcodes.ASM9) {
+              @Override
+              public MethodVisitor visitMethod(
+                  final int access,
+                  final String name,
+                  final String descriptor,
+                  final String signature,
+                  final String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM9) {
+                  @Override
+                  public void visitFrame(
+                      final int type,
+                      final int numLocal,
+                      final Object[] local,
+                      final int numStack,
+                      final Object[] stack) {
+                    frameCount[0]++;
+                  }
+                };
+              }
+            },
+            0);
+    return frameCount[0];
+  }
+
+  /**
+   * Visits a class whose constructor contains a forward IFNE and a forward GOTO instruction, both
+   * with targets more than 32KB away.
+   *
+   * @param classWriter the class writer to use.
+   * @return the MethodWriter of the constructor.
+   */
+  private static MethodWriter visitClassWithLargeForwardJumps(final ClassWriter classWriter) {
+    final boolean visitFrames = !classWriter.hasFlags(ClassWriter.COMPUTE_FRAMES);
+    classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "C", null, "java/lang/Object", null);
+    MethodWriter methodWriter =
+        (MethodWriter) classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+    Label label1 = new Label();
+    Label label2 = new Label();
+    methodWriter.visitCode();
+    methodWriter.visitVarInsn(Opcodes.ALOAD, 0);
+    methodWriter.visitMethodInsn(
+        Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", /* isInterface= */ false);
+    methodWriter.visitInsn(Opcodes.ICONST_0);
+    methodWriter.visitJumpInsn(Opcodes.IFNE, label2);
+    methodWriter.visitInsn(Opcodes.ICONST_0);
+    methodWriter.visitJumpInsn(Opcodes.IFEQ, label1);
+    methodWriter.visitJumpInsn(Opcodes.GOTO, label2);
+    methodWriter.visitLabel(label1);
+    if (visitFrames) {
+      methodWriter.visitFrame(Opcodes.F_FULL, 1, new Object[] {"C"}, 0, null);
+    }
+    for (int i = 0; i < 33000; ++i) {
+      methodWriter.visitInsn(Opcodes.NOP);
+    }
+    methodWriter.visitLabel(label2);
+    if (visitFrames) {
+      methodWriter.visitFrame(Opcodes.F_SAME, 0, null, 0, null);
+    }
+    methodWriter.visitInsn(Opcodes.RETURN);
+    methodWriter.visitMaxs(1, 1);
+    methodWriter.visitEnd();
+    classWriter.visitEnd();
+    return methodWriter;
+  }
+
+  /**
+   * Collects the opcodes of the instructions without operand, the line numbers, and the number of
+   * the other debug entries.
+   */
+  private static final class CodeCollector extends MethodVisitor {
+
+    final List<Integer> opcodes = new ArrayList<>();
+    int tryCatchBlockCount;
+    int localVariableCount;
+    final List<Integer> lineNumbers = new ArrayList<>();
+
+    CodeCollector() {
+      super(Opcodes.ASM9);
+    }
+
+    @Override
+    public void visitInsn(final int opcode) {
+      opcodes.add(opcode);
+    }
+
+    @Override
+    public void visitTryCatchBlock(
+        final Label start, final Label end, final Label handler, final String type) {
+      ++tryCatchBlockCount;
+    }
+
+    @Override
+    public void visitLocalVariable(
+        final String name,
+        final String descriptor,
+        final String signature,
+        final Label start,
+        final Label end,
+        final int index) {
+      ++localVariableCount;
+    }
+
+    @Override
+    public void visitLineNumber(final int line, final Label start) {
+      lineNumbers.add(line);
+    }
+  }
 }
@@ -0,0 +1,124 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/** Unit tests for {@link OpcodeMetadata}. */
+class OpcodeMetadataTest {
+
+  private static final int ILOAD_0 = 26;
+  private static final int LDC2_W = 20;
+  private static final int WIDE = 196;
+  private static final int GOTO_W = 200;
+  private static final int JSR_W = 201;
+
+  @Test
+  void testGetKind() {
+    assertEquals(OpcodeMetadata.INSN, OpcodeMetadata.getKind(Opcodes.NOP));
+    assertEquals(OpcodeMetadata.INT_INSN, OpcodeMetadata.getKind(Opcodes.NEWARRAY));
+    assertEquals(OpcodeMetadata.VAR_INSN, OpcodeMetadata.getKind(Opcodes.RET));
+    assertEquals(OpcodeMetadata.TYPE_INSN, OpcodeMetadata.getKind(Opcodes.CHECKCAST));
+    assertEquals(OpcodeMetadata.FIELD_INSN, OpcodeMetadata.getKind(Opcodes.PUTFIELD));
+    assertEquals(OpcodeMetadata.METHOD_INSN, OpcodeMetadata.getKind(Opcodes.INVOKEINTERFACE));
+    assertEquals(OpcodeMetadata.INVOKE_DYNAMIC_INSN, OpcodeMetadata.getKind(Opcodes.INVOKEDYNAMIC));
+    assertEquals(OpcodeMetadata.JUMP_INSN, OpcodeMetadata.getKind(Opcodes.JSR));
+    assertEquals(OpcodeMetadata.LDC_INSN, OpcodeMetadata.getKind(Opcodes.LDC));
+    assertEquals(OpcodeMetadata.IINC_INSN, OpcodeMetadata.getKind(Opcodes.IINC));
+    assertEquals(OpcodeMetadata.TABLESWITCH_INSN, OpcodeMetadata.getKind(Opcodes.TABLESWITCH));
+    assertEquals(OpcodeMetadata.LOOKUPSWITCH_INSN, OpcodeMetadata.getKind(Opcodes.LOOKUPSWITCH));
+    assertEquals(
+        OpcodeMetadata.MULTIANEWARRAY_INSN, OpcodeMetadata.getKind(Opcodes.MULTIANEWARRAY));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {ILOAD_0, LDC2_W, WIDE, GOTO_W, JSR_W})
+  void testGetKind_unsupportedOpcode(final int opcode) {
+    assertEquals(OpcodeMetadata.UNSUPPORTED_INSN, OpcodeMetadata.getKind(opcode));
+  }
+
+  @Test
+  void testGetPoppedAndPushedSizes() {
+    assertEquals(4, OpcodeMetadata.getPoppedSize(Opcodes.DUP2_X2));
+    assertEquals(6, OpcodeMetadata.getPushedSize(Opcodes.DUP2_X2));
+    assertEquals(3, OpcodeMetadata.getPoppedSize(Opcodes.LSHL));
+    assertEquals(2, OpcodeMetadata.getPushedSize(Opcodes.LSHL));
+    assertEquals(2, OpcodeMetadata.getPushedSize(LDC2_W));
+    assertEquals(0, OpcodeMetadata.getPoppedSize(Opcodes.RETURN));
+    assertEquals(OpcodeMetadata.VARIABLE_SIZE, OpcodeMetadata.getPushedSize(Opcodes.LDC));
+    assertEquals(OpcodeMetadata.VARIABLE_SIZE, OpcodeMetadata.getPoppedSize(Opcodes.GETFIELD));
+    assertEquals(
+        OpcodeMetadata.VARIABLE_SIZE, OpcodeMetadata.getPoppedSize(Opcodes.MULTIANEWARRAY));
+    assertEquals(1, OpcodeMetadata.getPushedSize(Opcodes.MULTIANEWARRAY));
+  }
+
+  @Test
+  void testGetStackSizeDelta() {
+    for (int opcode = Opcodes.NOP; opcode <= JSR_W; ++opcode) {
+      int poppedSize = OpcodeMetadata.getPoppedSize(opcode);
+      int pushedSize = OpcodeMetadata.getPushedSize(opcode);
+      int expectedDelta =
+          poppedSize == OpcodeMetadata.VARIABLE_SIZE || pushedSize == OpcodeMetadata.VARIABLE_SIZE
+              ? 0
+              : pushedSize - poppedSize;
+
+      assertEquals(expectedDelta, OpcodeMetadata.getStackSizeDelta(opcode), "opcode " + opcode);
+    }
+    assertEquals(-3, OpcodeMetadata.getStackSizeDelta(Opcodes.LCMP));
+    assertEquals(1, OpcodeMetadata.getStackSizeDelta(Opcodes.JSR));
+  }
+
+  @Test
+  void testIsBranchAndIsTerminator() {
+    for (int opcode = Opcodes.NOP; opcode <= JSR_W; ++opcode) {
+      int kind = OpcodeMetadata.getKind(opcode);
+      boolean isSwitch =
+          kind == OpcodeMetadata.TABLESWITCH_INSN || kind == OpcodeMetadata.LOOKUPSWITCH_INSN;
+      boolean isBranch =
+          kind == OpcodeMetadata.JUMP_INSN || isSwitch || opcode == GOTO_W || opcode == JSR_W;
+      boolean isTerminator =
+          isSwitch
+              || (opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN)
+              || opcode == Opcodes.ATHROW
+              || opcode == Opcodes.GOTO
+              || opcode == Opcodes.RET
+              || opcode == GOTO_W;
+
+      assertEquals(isBranch, OpcodeMetadata.isBranch(opcode), "opcode " + opcode);
+      assertEquals(isTerminator, OpcodeMetadata.isTerminator(opcode), "opcode " + opcode);
+    }
+    assertTrue(OpcodeMetadata.isBranch(Opcodes.IFNULL));
+    assertFalse(OpcodeMetadata.isTerminator(Opcodes.JSR));
+  }
+}
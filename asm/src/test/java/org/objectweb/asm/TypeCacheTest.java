@@ -0,0 +1,187 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/** Unit tests for {@link TypeCache}. */
+class TypeCacheTest {
+
+  @Test
+  void testConstructor_invalidMaximumSize() {
+    Executable constructor = () -> new TypeCache(0);
+
+    Exception exception = assertThrows(IllegalArgumentException.class, constructor);
+    assertEquals("Invalid maximum size: 0", exception.getMessage());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"V", "Z", "C", "B", "S", "I", "F", "J", "D"})
+  void testGetType_primitiveType(final String descriptor) {
+    TypeCache typeCache = new TypeCache();
+
+    Type type = typeCache.getType(descriptor);
+
+    assertSame(Type.getType(descriptor), type);
+    assertEquals(0, typeCache.size());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"Ljava/lang/Object;", "[I", "[[Ljava/lang/String;", "(IJ)[LC;"})
+  void testGetType(final String descriptor) {
+    TypeCache typeCache = new TypeCache();
+
+    Type type1 = typeCache.getType(descriptor);
+    Type type2 = typeCache.getType(new String(descriptor.toCharArray()));
+
+    assertEquals(Type.getType(descriptor), type1);
+    assertSame(type1, type2);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"java/lang/Object", "[I", "[[Ljava/lang/String;"})
+  void testGetObjectType(final String internalName) {
+    TypeCache typeCache = new TypeCache();
+
+    Type type1 = typeCache.getObjectType(internalName);
+    Type type2 = typeCache.getObjectType(new String(internalName.toCharArray()));
+
+    assertEquals(Type.getObjectType(internalName), type1);
+    assertSame(type1, type2);
+  }
+
+  @Test
+  void testGetTypeAndGetObjectType() {
+    TypeCache typeCache = new TypeCache();
+
+    Type type1 = typeCache.getObjectType("java/lang/String");
+    Type type2 = typeCache.getType("Ljava/lang/String;");
+    Type type3 = typeCache.getType("Ljava/lang/Object;");
+    Type type4 = typeCache.getObjectType("java/lang/Object");
+
+    assertSame(type1, type2);
+    assertSame(type3, type4);
+    assertEquals(4, typeCache.size());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"I", "Ljava/lang/Object;", "[J"})
+  void testGetArrayType(final String elementDescriptor) {
+    TypeCache typeCache = new TypeCache();
+    Type elementType = typeCache.getType(elementDescriptor);
+
+    Type type1 = typeCache.getArrayType(elementType);
+    Type type2 = typeCache.getArrayType(Type.getType(elementDescriptor));
+
+    assertEquals(Type.getType("[" + elementDescriptor), type1);
+    assertSame(type1, type2);
+    assertSame(type1, typeCache.getType("[" + elementDescriptor));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"()V", "(I)J", "()Ljava/lang/Object;", "(J)[[I"})
+  void testGetReturnType(final String methodDescriptor) {
+    TypeCache typeCache = new TypeCache();
+
+    Type type1 = typeCache.getReturnType(methodDescriptor);
+    Type type2 = typeCache.getReturnType(new String(methodDescriptor.toCharArray()));
+
+    assertEquals(Type.getReturnType(methodDescriptor), type1);
+    assertSame(type1, type2);
+    assertSame(type1, typeCache.getType(type1.getDescriptor()));
+  }
+
+  @Test
+  void testClear() {
+    TypeCache typeCache = new TypeCache();
+    Type type = typeCache.getObjectType("java/lang/String");
+
+    typeCache.clear();
+
+    assertEquals(0, typeCache.size());
+    assertNotSame(type, typeCache.getObjectType("java/lang/String"));
+  }
+
+  @Test
+  void testMaximumSize() {
+    TypeCache typeCache = new TypeCache(2);
+    Type type1 = typeCache.getObjectType("A");
+    typeCache.getObjectType("B");
+
+    Type type3 = typeCache.getObjectType("C");
+
+    assertEquals(Type.getObjectType("C"), type3);
+    assertEquals(1, typeCache.size());
+    assertNotSame(type1, typeCache.getObjectType("A"));
+    assertEquals(2, typeCache.size());
+  }
+
+  @Test
+  void testMaximumSize_concurrentAccesses() throws InterruptedException, ExecutionException {
+    TypeCache typeCache = new TypeCache(8);
+    int threadCount = 4;
+    ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+    List<Future<Void>> futures = new ArrayList<>();
+
+    for (int i = 0; i < threadCount; ++i) {
+      futures.add(
+          executorService.submit(
+              () -> {
+                for (int j = 0; j < 1000; ++j) {
+                  String internalName = "C" + (j % 32);
+                  assertEquals(
+                      internalName, typeCache.getObjectType(internalName).getInternalName());
+                  assertEquals(
+                      internalName, typeCache.getType('L' + internalName + ';').getInternalName());
+                }
+                return null;
+              }));
+    }
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+    executorService.shutdown();
+
+    assertTrue(typeCache.size() <= 8 + 2 * threadCount);
+  }
+}
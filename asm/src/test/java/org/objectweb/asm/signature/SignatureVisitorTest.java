@@ -30,8 +30,11 @@ package org.objectweb.asm.signature;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
+import org.objectweb.asm.Opcodes;
 
 /**
  * SignatureVisitor tests.
@@ -47,4 +50,38 @@ class SignatureVisitorTest {
     Exception exception = assertThrows(IllegalArgumentException.class, constructor);
     assertEquals("Unsupported api 0", exception.getMessage());
   }
+
+  @Test
+  void testVisitRanges_callStringVisitMethods() {
+    List<String> visitedNames = new ArrayList<>();
+    SignatureVisitor signatureVisitor =
+        new SignatureVisitor(/* latest */ Opcodes.ASM10_EXPERIMENTAL) {
+          @Override
+          public void visitFormalTypeParameter(final String name) {
+            visitedNames.add("formal " + name);
+          }
+
+          @Override
+          public void visitTypeVariable(final String name) {
+            visitedNames.add("variable " + name);
+          }
+
+          @Override
+          public void visitClassType(final String name) {
+            visitedNames.add("class " + name);
+          }
+
+          @Override
+          public void visitInnerClassType(final String name) {
+            visitedNames.add("inner " + name);
+          }
+        };
+
+    signatureVisitor.visitFormalTypeParameter("<T:", 1, 2);
+    signatureVisitor.visitTypeVariable("TU;", 1, 2);
+    signatureVisitor.visitClassType("Lpkg/Outer.Inner;", 1, 10);
+    signatureVisitor.visitInnerClassType("Lpkg/Outer.Inner;", 11, 16);
+
+    assertEquals(List.of("formal T", "variable U", "class pkg/Outer", "inner Inner"), visitedNames);
+  }
 }
@@ -29,6 +29,9 @@ package org.objectweb.asm.signature;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.objectweb.asm.test.AsmTest;
@@ -62,4 +65,41 @@ class SignatureWriterTest extends AsmTest {
 
     assertEquals(signature, signatureWriter.toString());
   }
+
+  @Test
+  void testReadAndWrite_subclassWithStringVisitMethods() {
+    String signature = "<T:Ljava/lang/Object;>LOuter<TT;>.Inner;";
+    List<String> visitedNames = new ArrayList<>();
+    SignatureWriter signatureWriter =
+        new SignatureWriter() {
+          @Override
+          public void visitFormalTypeParameter(final String name) {
+            visitedNames.add(name);
+            super.visitFormalTypeParameter(name);
+          }
+
+          @Override
+          public void visitClassType(final String name) {
+            visitedNames.add(name);
+            super.visitClassType(name);
+          }
+
+          @Override
+          public void visitInnerClassType(final String name) {
+            visitedNames.add(name);
+            super.visitInnerClassType(name);
+          }
+
+          @Override
+          public void visitTypeVariable(final String name) {
+            visitedNames.add(name);
+            super.visitTypeVariable(name);
+          }
+        };
+
+    new SignatureReader(signature).accept(signatureWriter);
+
+    assertEquals(signature, signatureWriter.toString());
+    assertEquals(List.of("T", "java/lang/Object", "Outer", "T", "Inner"), visitedNames);
+  }
 }
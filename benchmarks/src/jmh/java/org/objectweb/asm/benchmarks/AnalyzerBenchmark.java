@@ -0,0 +1,101 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.BasicInterpreter;
+import org.objectweb.asm.tree.analysis.BasicValue;
+import org.objectweb.asm.tree.analysis.BasicVerifier;
+import org.objectweb.asm.tree.analysis.Interpreter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A benchmark to measure the performance of the ASM {@link Analyzer}, with a {@link
+ * BasicInterpreter} and with a {@link BasicVerifier}, on the methods of some class files.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class AnalyzerBenchmark extends AbstractBenchmark {
+
+  private ArrayList<ClassNode> classNodes;
+
+  public AnalyzerBenchmark() {
+    super("org.objectweb.asm.benchmarks.Analyzer");
+  }
+
+  @Setup
+  public void prepare() throws Exception {
+    prepareClasses();
+    classNodes = new ArrayList<>();
+    for (byte[] classFile : classFiles) {
+      ClassNode classNode = new ClassNode();
+      new ClassReader(classFile).accept(classNode, 0);
+      classNodes.add(classNode);
+    }
+    for (byte[] classFile : java8classFiles) {
+      ClassNode classNode = new ClassNode();
+      new ClassReader(classFile).accept(classNode, 0);
+      classNodes.add(classNode);
+    }
+  }
+
+  @Benchmark
+  public void analyzeWithBasicInterpreter(final Blackhole blackhole) throws AnalyzerException {
+    analyze(new BasicInterpreter(), blackhole);
+  }
+
+  @Benchmark
+  public void analyzeWithBasicVerifier(final Blackhole blackhole) throws AnalyzerException {
+    analyze(new BasicVerifier(), blackhole);
+  }
+
+  private void analyze(final Interpreter<BasicValue> interpreter, final Blackhole blackhole)
+      throws AnalyzerException {
+    Analyzer<BasicValue> analyzer = new Analyzer<>(interpreter);
+    for (ClassNode classNode : classNodes) {
+      for (MethodNode methodNode : classNode.methods) {
+        blackhole.consume(analyzer.analyze(classNode.name, methodNode));
+      }
+    }
+  }
+}
@@ -0,0 +1,295 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.Method;
+import org.objectweb.asm.commons.Remapper;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A benchmark to measure the performance of the descriptor and signature utility methods of ASM
+ * ({@link Type}, {@link SignatureReader}, {@link SignatureWriter}, {@link Remapper} and {@link
+ * Method}), on the descriptors and signatures of the ASM classes, of some Java 8 classes, and of
+ * the java.lang and java.util classes of the JDK running the benchmark. The allocation rates
+ * reported by the JMH "gc" profiler are a good indicator of the efficiency of these methods.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class DescriptorBenchmark extends AbstractBenchmark {
+
+  // The JDK packages whose classes are used as input data, in the jrt file system.
+  private static final String[] JDK_PACKAGES = {
+    "/modules/java.base/java/lang/", "/modules/java.base/java/util/"
+  };
+
+  private ArrayList<String> descriptors;
+  private ArrayList<String> methodDescriptors;
+  private ArrayList<String> methodDeclarations;
+  private ArrayList<String> signatures;
+  private ArrayList<String> typeSignatures;
+  private ArrayList<Class<?>> classes;
+  private Remapper remapper;
+
+  public DescriptorBenchmark() {
+    super("org.objectweb.asm.benchmarks.Descriptor");
+  }
+
+  @Setup
+  public void prepare() throws Exception {
+    prepareClasses();
+    descriptors = new ArrayList<>();
+    methodDescriptors = new ArrayList<>();
+    methodDeclarations = new ArrayList<>();
+    signatures = new ArrayList<>();
+    typeSignatures = new ArrayList<>();
+    classes = new ArrayList<>();
+    ArrayList<byte[]> jdkClassFiles = new ArrayList<>();
+    findJdkClasses(jdkClassFiles);
+    ArrayList<byte[]> allClassFiles = new ArrayList<>(classFiles);
+    allClassFiles.addAll(java8classFiles);
+    allClassFiles.addAll(jdkClassFiles);
+    for (byte[] classFile : allClassFiles) {
+      new ClassReader(classFile).accept(new CollectDescriptorsVisitor(), 0);
+    }
+    for (byte[] classFile : jdkClassFiles) {
+      String className = new ClassReader(classFile).getClassName().replace('/', '.');
+      try {
+        classes.add(Class.forName(className, false, null));
+      } catch (ClassNotFoundException | LinkageError e) {
+        // Ignore the classes which can't be loaded by the bootstrap class loader.
+      }
+    }
+    for (String methodDescriptor : methodDescriptors) {
+      methodDeclarations.add(getMethodDeclaration(methodDescriptor));
+    }
+    // A remapper which remaps some, but not all, the JDK types.
+    remapper = new RemapperBenchmark.PackageRemapper("java/util/", "shaded/java/util/");
+  }
+
+  private static void findJdkClasses(final ArrayList<byte[]> jdkClassFiles) throws IOException {
+    FileSystem fileSystem = FileSystems.getFileSystem(URI.create("jrt:/"));
+    for (String jdkPackage : JDK_PACKAGES) {
+      try (Stream<Path> paths = Files.list(fileSystem.getPath(jdkPackage))) {
+        Iterator<Path> iterator = paths.iterator();
+        while (iterator.hasNext()) {
+          Path path = iterator.next();
+          if (path.toString().endsWith(".class")) {
+            jdkClassFiles.add(Files.readAllBytes(path));
+          }
+        }
+      }
+    }
+  }
+
+  private static String getMethodDeclaration(final String methodDescriptor) {
+    StringBuilder declaration = new StringBuilder();
+    declaration.append(Type.getReturnType(methodDescriptor).getClassName()).append(" m(");
+    Type[] argumentTypes = Type.getArgumentTypes(methodDescriptor);
+    for (int i = 0; i < argumentTypes.length; ++i) {
+      if (i > 0) {
+        declaration.append(", ");
+      }
+      declaration.append(argumentTypes[i].getClassName());
+    }
+    return declaration.append(')').toString();
+  }
+
+  @Benchmark
+  public void getTypeFromDescriptor(final Blackhole blackhole) {
+    for (String descriptor : descriptors) {
+      blackhole.consume(Type.getType(descriptor));
+    }
+    for (String methodDescriptor : methodDescriptors) {
+      blackhole.consume(Type.getType(methodDescriptor));
+    }
+  }
+
+  @Benchmark
+  public void getArgumentTypes(final Blackhole blackhole) {
+    for (String methodDescriptor : methodDescriptors) {
+      blackhole.consume(Type.getArgumentTypes(methodDescriptor));
+    }
+  }
+
+  @Benchmark
+  public void getArgumentsAndReturnSizes(final Blackhole blackhole) {
+    for (String methodDescriptor : methodDescriptors) {
+      blackhole.consume(Type.getArgumentsAndReturnSizes(methodDescriptor));
+    }
+  }
+
+  @Benchmark
+  public void getInternalNameFromClass(final Blackhole blackhole) {
+    for (Class<?> clazz : classes) {
+      blackhole.consume(Type.getInternalName(clazz));
+    }
+  }
+
+  @Benchmark
+  public void readAndWriteSignatures(final Blackhole blackhole) {
+    for (String signature : signatures) {
+      SignatureWriter signatureWriter = new SignatureWriter();
+      new SignatureReader(signature).accept(signatureWriter);
+      blackhole.consume(signatureWriter.toString());
+    }
+    for (String typeSignature : typeSignatures) {
+      SignatureWriter signatureWriter = new SignatureWriter();
+      new SignatureReader(typeSignature).acceptType(signatureWriter);
+      blackhole.consume(signatureWriter.toString());
+    }
+  }
+
+  @Benchmark
+  public void mapDesc(final Blackhole blackhole) {
+    for (String descriptor : descriptors) {
+      blackhole.consume(remapper.mapDesc(descriptor));
+    }
+  }
+
+  @Benchmark
+  public void mapMethodDesc(final Blackhole blackhole) {
+    for (String methodDescriptor : methodDescriptors) {
+      blackhole.consume(remapper.mapMethodDesc(methodDescriptor));
+    }
+  }
+
+  @Benchmark
+  public void mapSignature(final Blackhole blackhole) {
+    for (String signature : signatures) {
+      blackhole.consume(remapper.mapSignature(signature, false));
+    }
+    for (String typeSignature : typeSignatures) {
+      blackhole.consume(remapper.mapSignature(typeSignature, true));
+    }
+  }
+
+  @Benchmark
+  public void getMethodFromDeclaration(final Blackhole blackhole) {
+    for (String methodDeclaration : methodDeclarations) {
+      blackhole.consume(Method.getMethod(methodDeclaration));
+    }
+  }
+
+  class CollectDescriptorsVisitor extends ClassVisitor {
+
+    CollectDescriptorsVisitor() {
+      super(/* latest */ Opcodes.ASM10_EXPERIMENTAL);
+    }
+
+    @Override
+    public void visit(
+        final int version,
+        final int access,
+        final String name,
+        final String signature,
+        final String superName,
+        final String[] interfaces) {
+      if (signature != null) {
+        signatures.add(signature);
+      }
+    }
+
+    @Override
+    public FieldVisitor visitField(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final Object value) {
+      descriptors.add(descriptor);
+      if (signature != null) {
+        typeSignatures.add(signature);
+      }
+      return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final String[] exceptions) {
+      methodDescriptors.add(descriptor);
+      if (signature != null) {
+        signatures.add(signature);
+      }
+      return new MethodVisitor(api) {
+        @Override
+        public void visitTypeInsn(final int opcode, final String type) {
+          if (type.charAt(0) == '[') {
+            descriptors.add(type);
+          }
+        }
+
+        @Override
+        public void visitFieldInsn(
+            final int opcode, final String owner, final String name, final String descriptor) {
+          descriptors.add(descriptor);
+        }
+
+        @Override
+        public void visitMethodInsn(
+            final int opcode,
+            final String owner,
+            final String name,
+            final String descriptor,
+            final boolean isInterface) {
+          methodDescriptors.add(descriptor);
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,177 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A benchmark to measure the performance of the stack map frames computation algorithm of ASM, on
+ * methods whose control flow graph contains many merges of distinct reference types (which is the
+ * case where Frame.merge, and the merged type cache of SymbolTable, are the most used).
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class FrameMergeBenchmark extends AbstractBenchmark {
+
+  // The number of generated classes, of methods per class, and of branches per method.
+  private static final int CLASS_COUNT = 10;
+  private static final int METHOD_COUNT = 20;
+  private static final int BRANCH_COUNT = 64;
+
+  // The package of the generated classes, and of the (fictitious) classes used in their methods.
+  private static final String PACKAGE = "pkg/";
+
+  private ArrayList<byte[]> mergeHeavyClassFiles;
+
+  public FrameMergeBenchmark() {
+    super("org.objectweb.asm.benchmarks.FrameMerge");
+  }
+
+  /**
+   * Prepares the benchmark by loading some existing classes, and by generating some classes with
+   * merge heavy methods.
+   *
+   * @throws Exception if an error occurs.
+   */
+  @Setup
+  public void prepare() throws Exception {
+    prepareClasses();
+    mergeHeavyClassFiles = new ArrayList<>();
+    for (int i = 0; i < CLASS_COUNT; ++i) {
+      mergeHeavyClassFiles.add(generateMergeHeavyClass(PACKAGE + "MergeHeavy" + i));
+    }
+  }
+
+  @Benchmark
+  public void computeFramesOfMergeHeavyMethods(final Blackhole blackhole) {
+    for (byte[] classFile : mergeHeavyClassFiles) {
+      blackhole.consume(computeFrames(classFile));
+    }
+  }
+
+  @Benchmark
+  public void computeFramesOfJava8Classes(final Blackhole blackhole) {
+    for (byte[] classFile : java8classFiles) {
+      blackhole.consume(computeFrames(classFile));
+    }
+  }
+
+  private static byte[] computeFrames(final byte[] classFile) {
+    ClassWriter classWriter = new FixedHierarchyClassWriter(ClassWriter.COMPUTE_FRAMES);
+    new ClassReader(classFile).accept(classWriter, ClassReader.SKIP_FRAMES);
+    return classWriter.toByteArray();
+  }
+
+  /**
+   * Generates a class whose methods store a value of a different type in the same local variable in
+   * each branch of a loop body, so that computing their stack map frames requires merging many
+   * distinct pairs of reference types.
+   *
+   * @param name the internal name of the class to generate.
+   * @return the generated class.
+   */
+  private static byte[] generateMergeHeavyClass(final String name) {
+    ClassWriter classWriter = new ClassWriter(0);
+    classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+    for (int i = 0; i < METHOD_COUNT; ++i) {
+      MethodVisitor methodVisitor =
+          classWriter.visitMethod(
+              Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC,
+              "m" + i,
+              "(I)Ljava/lang/Object;",
+              null,
+              null);
+      methodVisitor.visitCode();
+      Label loopLabel = new Label();
+      Label joinLabel = new Label();
+      methodVisitor.visitInsn(Opcodes.ACONST_NULL);
+      methodVisitor.visitVarInsn(Opcodes.ASTORE, 1);
+      methodVisitor.visitLabel(loopLabel);
+      for (int j = 0; j < BRANCH_COUNT; ++j) {
+        // Use a different set of types in each method, to avoid only hitting the cache.
+        String type = PACKAGE + "Type" + ((i + j) % BRANCH_COUNT);
+        Label nextLabel = new Label();
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, 0);
+        methodVisitor.visitIntInsn(Opcodes.BIPUSH, j);
+        methodVisitor.visitJumpInsn(Opcodes.IF_ICMPNE, nextLabel);
+        methodVisitor.visitTypeInsn(Opcodes.NEW, type);
+        methodVisitor.visitInsn(Opcodes.DUP);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, type, "<init>", "()V", false);
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, 1);
+        methodVisitor.visitJumpInsn(Opcodes.GOTO, joinLabel);
+        methodVisitor.visitLabel(nextLabel);
+      }
+      methodVisitor.visitLabel(joinLabel);
+      methodVisitor.visitIincInsn(0, -1);
+      methodVisitor.visitVarInsn(Opcodes.ILOAD, 0);
+      methodVisitor.visitJumpInsn(Opcodes.IFGT, loopLabel);
+      methodVisitor.visitVarInsn(Opcodes.ALOAD, 1);
+      methodVisitor.visitInsn(Opcodes.ARETURN);
+      methodVisitor.visitMaxs(3, 2);
+      methodVisitor.visitEnd();
+    }
+    classWriter.visitEnd();
+    return classWriter.toByteArray();
+  }
+
+  /**
+   * A ClassWriter which does not load any class to compute common super classes. All the types in
+   * {@link #PACKAGE} are assumed to be subclasses of a common base class in this package, and all
+   * the other types are assumed to have java/lang/Object as common super class.
+   */
+  private static final class FixedHierarchyClassWriter extends ClassWriter {
+
+    FixedHierarchyClassWriter(final int flags) {
+      super(flags);
+    }
+
+    @Override
+    protected String getCommonSuperClass(final String type1, final String type2) {
+      if (type1.startsWith(PACKAGE) && type2.startsWith(PACKAGE)) {
+        return PACKAGE + "Base";
+      }
+      return "java/lang/Object";
+    }
+  }
+}
@@ -0,0 +1,127 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A benchmark to measure the performance of {@link InsnList#indexOf} and {@link InsnList#get} when
+ * they are interleaved with modifications of the list, as in passes which rewrite a method while
+ * iterating over its instructions, on a large method. Each benchmark iteration builds a new method
+ * and rewrites it once.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class InsnListBenchmark extends AbstractBenchmark {
+
+  // The number of basic blocks of the generated method, and of instructions per block.
+  private static final int BLOCK_COUNT = 4096;
+  private static final int BLOCK_SIZE = 16;
+
+  public InsnListBenchmark() {
+    super("org.objectweb.asm.benchmarks.InsnList");
+  }
+
+  /** Inserts an instruction before each instruction, and gets the new index of the latter. */
+  @Benchmark
+  public void insertBeforeAndIndexOf(final Blackhole blackhole) {
+    InsnList insnList = generateLargeMethod();
+    for (AbstractInsnNode insn = insnList.getFirst(); insn != null; insn = insn.getNext()) {
+      if (insn.getOpcode() != -1) {
+        insnList.insertBefore(insn, new InsnNode(Opcodes.NOP));
+        blackhole.consume(insnList.indexOf(insn));
+      }
+    }
+  }
+
+  /** Gets each instruction by index, and inserts an instruction after it. */
+  @Benchmark
+  public void getAndInsert(final Blackhole blackhole) {
+    InsnList insnList = generateLargeMethod();
+    for (int i = 0; i < insnList.size(); i += 2) {
+      insnList.insert(insnList.get(i), new InsnNode(Opcodes.NOP));
+    }
+    blackhole.consume(insnList.size());
+  }
+
+  /** Removes the NOP instructions, and gets the index of the target of each jump instruction. */
+  @Benchmark
+  public void removeAndIndexOfJumpTarget(final Blackhole blackhole) {
+    InsnList insnList = generateLargeMethod();
+    AbstractInsnNode insn = insnList.getFirst();
+    while (insn != null) {
+      AbstractInsnNode nextInsn = insn.getNext();
+      if (insn.getOpcode() == Opcodes.NOP) {
+        insnList.remove(insn);
+      } else if (insn instanceof JumpInsnNode) {
+        blackhole.consume(insnList.indexOf(((JumpInsnNode) insn).label));
+      }
+      insn = nextInsn;
+    }
+  }
+
+  /**
+   * Generates the instructions of a large method, made of basic blocks which start with a label,
+   * contain NOP instructions, and end with a jump to the next block.
+   *
+   * @return the instructions of the generated method.
+   */
+  private static InsnList generateLargeMethod() {
+    LabelNode[] labels = new LabelNode[BLOCK_COUNT + 1];
+    for (int i = 0; i < labels.length; ++i) {
+      labels[i] = new LabelNode();
+    }
+    InsnList insnList = new InsnList();
+    for (int i = 0; i < BLOCK_COUNT; ++i) {
+      insnList.add(labels[i]);
+      for (int j = 0; j < BLOCK_SIZE - 3; ++j) {
+        insnList.add(new InsnNode(Opcodes.NOP));
+      }
+      insnList.add(new InsnNode(Opcodes.ICONST_0));
+      insnList.add(new JumpInsnNode(Opcodes.IFEQ, labels[i + 1]));
+    }
+    insnList.add(labels[BLOCK_COUNT]);
+    insnList.add(new InsnNode(Opcodes.RETURN));
+    return insnList;
+  }
+}
@@ -28,6 +28,11 @@
 package org.objectweb.asm.benchmarks;
 
 import java.util.concurrent.TimeUnit;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Measurement;
@@ -187,4 +192,44 @@ public class MemoryBenchmark extends AbstractBenchmark {
       MemoryProfiler.keepReference(asmCurrent.newClassNode(classFile));
     }
   }
+
+  /**
+   * Same as {@link #newClassNode_asmCurrent}, but with method nodes which ignore the {@link
+   * MethodVisitor#visitCodeCounts} size hints, in order to measure the memory saved by these hints.
+   */
+  @Benchmark
+  public void newClassNode_asmCurrent_withoutCodeCounts() {
+    for (byte[] classFile : classFiles) {
+      ClassNode classNode = new ClassNodeWithoutCodeCounts();
+      new ClassReader(classFile).accept(classNode, 0);
+      MemoryProfiler.keepReference(classNode);
+    }
+  }
+
+  /** A {@link ClassNode} whose {@link MethodNode}s ignore the code counts size hints. */
+  private static final class ClassNodeWithoutCodeCounts extends ClassNode {
+
+    ClassNodeWithoutCodeCounts() {
+      super(Opcodes.ASM9);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final String[] exceptions) {
+      MethodNode method =
+          new MethodNode(api, access, name, descriptor, signature, exceptions) {
+            @Override
+            public void visitCodeCounts(
+                final int tryCatchBlockCount, final int localVariableCount) {
+              // Ignore the size hints.
+            }
+          };
+      methods.add(method);
+      return method;
+    }
+  }
 }
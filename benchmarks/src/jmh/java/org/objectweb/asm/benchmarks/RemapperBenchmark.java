@@ -0,0 +1,179 @@
+// ASM: a very small and fast Java bytecode manipulation framework
+// Copyright (c) 2000-2011 INRIA, France Telecom
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+// 1. Redistributions of source code must retain the above copyright
+//    notice, this list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright
+//    notice, this list of conditions and the following disclaimer in the
+//    documentation and/or other materials provided with the distribution.
+// 3. Neither the name of the copyright holders nor the names of its
+//    contributors may be used to endorse or promote products derived from
+//    this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF
+// THE POSSIBILITY OF SUCH DAMAGE.
+package org.objectweb.asm.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.Remapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A benchmark to measure the performance of {@link Remapper#mapSignature}, with a remapper which
+ * relocates the classes of a single package (as done when shading a library), on the signatures of
+ * some generic-heavy classes. The remapped package is either not used in these signatures (the most
+ * common case), or is used in most of them.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class RemapperBenchmark extends AbstractBenchmark {
+
+  private ArrayList<String> signatures;
+  private ArrayList<String> typeSignatures;
+  private Remapper unusedPackageRemapper;
+  private Remapper usedPackageRemapper;
+
+  public RemapperBenchmark() {
+    super("org.objectweb.asm.benchmarks.Remapper");
+  }
+
+  @Setup
+  public void prepare() throws Exception {
+    prepareClasses();
+    signatures = new ArrayList<>();
+    typeSignatures = new ArrayList<>();
+    for (byte[] classFile : java8classFiles) {
+      new ClassReader(classFile).accept(new CollectSignaturesVisitor(), 0);
+    }
+    unusedPackageRemapper = new PackageRemapper("com/google/common/", "shaded/");
+    usedPackageRemapper = new PackageRemapper("io/vavr/", "shaded/");
+  }
+
+  @Benchmark
+  public void mapSignatureWithUnusedPackage(final Blackhole blackhole) {
+    mapSignatures(unusedPackageRemapper, blackhole);
+  }
+
+  @Benchmark
+  public void mapSignatureWithUsedPackage(final Blackhole blackhole) {
+    mapSignatures(usedPackageRemapper, blackhole);
+  }
+
+  private void mapSignatures(final Remapper remapper, final Blackhole blackhole) {
+    for (String signature : signatures) {
+      blackhole.consume(remapper.mapSignature(signature, false));
+    }
+    for (String typeSignature : typeSignatures) {
+      blackhole.consume(remapper.mapSignature(typeSignature, true));
+    }
+  }
+
+  /** A remapper which moves the classes of a package, and its sub packages, to another one. */
+  static class PackageRemapper extends Remapper {
+
+    private final String packagePrefix;
+    private final String newPackagePrefix;
+
+    PackageRemapper(final String packagePrefix, final String newPackagePrefix) {
+      super(/* latest */ Opcodes.ASM10_EXPERIMENTAL);
+      this.packagePrefix = packagePrefix;
+      this.newPackagePrefix = newPackagePrefix;
+    }
+
+    @Override
+    public String map(final String internalName) {
+      return internalName.startsWith(packagePrefix)
+          ? newPackagePrefix + internalName.substring(packagePrefix.length())
+          : internalName;
+    }
+
+    @Override
+    protected boolean isTypeMapped(
+        final CharSequence signature, final int startOffset, final int endOffset) {
+      int prefixLength = packagePrefix.length();
+      if (endOffset - startOffset < prefixLength) {
+        return false;
+      }
+      for (int i = 0; i < prefixLength; ++i) {
+        if (signature.charAt(startOffset + i) != packagePrefix.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  class CollectSignaturesVisitor extends ClassVisitor {
+
+    CollectSignaturesVisitor() {
+      super(/* latest */ Opcodes.ASM10_EXPERIMENTAL);
+    }
+
+    @Override
+    public void visit(
+        final int version,
+        final int access,
+        final String name,
+        final String signature,
+        final String superName,
+        final String[] interfaces) {
+      if (signature != null) {
+        signatures.add(signature);
+      }
+    }
+
+    @Override
+    public FieldVisitor visitField(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final Object value) {
+      if (signature != null) {
+        typeSignatures.add(signature);
+      }
+      return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final String[] exceptions) {
+      if (signature != null) {
+        signatures.add(signature);
+      }
+      return null;
+    }
+  }
+}
@@ -5,6 +5,7 @@ import java.util.concurrent.TimeUnit;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.DescriptorCursor;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
@@ -70,6 +71,54 @@ public class TypeBenchmark extends AbstractBenchmark {
     }
   }
 
+  @Benchmark
+  public void getArgumentSortsAndSizesFromArgumentTypes(final Blackhole blackhole) {
+    for (String methodDescriptor : methodDescriptors) {
+      for (Type argumentType : Type.getArgumentTypes(methodDescriptor)) {
+        blackhole.consume(argumentType.getSort());
+        blackhole.consume(argumentType.getSize());
+      }
+    }
+  }
+
+  @Benchmark
+  public void getArgumentSortsAndSizesFromDescriptorCursor(final Blackhole blackhole) {
+    DescriptorCursor descriptorCursor = new DescriptorCursor();
+    for (String methodDescriptor : methodDescriptors) {
+      descriptorCursor.reset(methodDescriptor);
+      while (descriptorCursor.nextArgument()) {
+        blackhole.consume(descriptorCursor.getSort());
+        blackhole.consume(descriptorCursor.getSize());
+      }
+    }
+  }
+
+  @Benchmark
+  public void getArgumentInternalNamesFromArgumentTypes(final Blackhole blackhole) {
+    for (String methodDescriptor : methodDescriptors) {
+      for (Type argumentType : Type.getArgumentTypes(methodDescriptor)) {
+        if (argumentType.getSort() == Type.OBJECT) {
+          blackhole.consume(argumentType.getInternalName().length());
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void getArgumentInternalNamesFromDescriptorCursor(final Blackhole blackhole) {
+    DescriptorCursor descriptorCursor = new DescriptorCursor();
+    for (String methodDescriptor : methodDescriptors) {
+      descriptorCursor.reset(methodDescriptor);
+      while (descriptorCursor.nextArgument()) {
+        if (descriptorCursor.getSort() == Type.OBJECT) {
+          blackhole.consume(
+              descriptorCursor.getInternalNameEndOffset()
+                  - descriptorCursor.getInternalNameBeginOffset());
+        }
+      }
+    }
+  }
+
   class CollectTypesVisitor extends ClassVisitor {
 
     AnnotationVisitor annotationVisitor =